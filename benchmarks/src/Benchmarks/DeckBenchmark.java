@@ -0,0 +1,63 @@
+package Benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import Rng.SplitMixRandom;
+
+/**
+ * Dealing the cards of one heads-up hand from a fresh {@code EfficientDeck}, card by card or hand by hand.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckBenchmark {
+
+    private static final MethodHandle NEW_DECK = Handles.constructor("EfficientDeck", java.util.Random.class);
+    private static final MethodHandle RESTORE = Handles.method("EfficientDeck", "restoreCards");
+    private static final MethodHandle DRAW_CARD = Handles.method("EfficientDeck", "drawCard");
+    private static final MethodHandle DRAW_HAND = Handles.method("EfficientDeck", "drawBadugiHand", int.class);
+    private static final MethodHandle DRAW_INTO_HAND = Handles.method("EfficientDeck", "drawBadugiHand",
+        Handles.type("PLBadugiHand"), int.class);
+    private static final MethodHandle NEW_HAND = Handles.constructor("PLBadugiHand", long.class);
+
+    private Object deck;
+    private Object hand0, hand1;
+
+    @Setup
+    public void setup() throws Throwable {
+        deck = (Object) NEW_DECK.invokeExact((Object) new SplitMixRandom(42));
+        hand0 = (Object) NEW_HAND.invokeExact(0L);
+        hand1 = (Object) NEW_HAND.invokeExact(0L);
+    }
+
+    @Benchmark
+    public void drawCard(Blackhole bh) throws Throwable {
+        RESTORE.invokeExact(deck);
+        for(int i = 0; i < 8; i++) {
+            bh.consume((Object) DRAW_CARD.invokeExact(deck));
+        }
+    }
+
+    @Benchmark
+    public void drawBadugiHand(Blackhole bh) throws Throwable {
+        RESTORE.invokeExact(deck);
+        bh.consume((Object) DRAW_HAND.invokeExact(deck, 4));
+        bh.consume((Object) DRAW_HAND.invokeExact(deck, 4));
+    }
+
+    @Benchmark
+    public void drawIntoReusedHand(Blackhole bh) throws Throwable {
+        RESTORE.invokeExact(deck);
+        DRAW_INTO_HAND.invokeExact(deck, hand0, 4);
+        DRAW_INTO_HAND.invokeExact(deck, hand1, 4);
+        bh.consume(hand0);
+        bh.consume(hand1);
+    }
+}
@@ -0,0 +1,63 @@
+package Benchmarks;
+
+import java.io.PrintWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import Rng.SplitMixRandom;
+
+/**
+ * Playing silent hands of {@code SimplePlayer} against {@code IlkkaPlayer3} with {@code PLBadugiRunner.playOneHand},
+ * either at a reused table or with the buffers of each hand allocated anew.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    private static final Class<?> PLAYERS = Array.newInstance(Handles.type("PLBadugiPlayer"), 0).getClass();
+    private static final MethodHandle PLAY = Handles.method("PLBadugiRunner", "playOneHand", int.class,
+        Handles.type("EfficientDeck"), PLAYERS, PrintWriter.class, PrintWriter.class, int.class, int.class);
+    private static final MethodHandle PLAY_AT_TABLE = Handles.method("PLBadugiRunner", "playOneHand", int.class,
+        Handles.type("EfficientDeck"), PLAYERS, Handles.type("GameEventSink"), PrintWriter.class, int.class, int.class,
+        Handles.type("HandContext"));
+    private static final MethodHandle START_HAND = Handles.method("MatchStats", "startHand", int.class);
+    private static final MethodHandle NEW_DECK = Handles.constructor("EfficientDeck", Random.class);
+    private static final MethodHandle NEW_STATS = Handles.constructor("MatchStats");
+    private static final MethodHandle NEW_TABLE = Handles.constructor("HandContext", Handles.type("MatchStats"));
+    private static final MethodHandle NEW_SIMPLE = Handles.constructor("SimplePlayer", Random.class);
+    private static final MethodHandle NEW_ILKKA = Handles.constructor("IlkkaPlayer3", String.class, Random.class);
+    private static final Object SILENT = Handles.get("GameEventSink", "SILENT");
+
+    private Object deck, players, stats, table;
+    private int score = 0;
+
+    @Setup
+    public void setup() throws Throwable {
+        deck = (Object) NEW_DECK.invokeExact((Object) new SplitMixRandom(1));
+        Object[] p = (Object[]) Array.newInstance(PLAYERS.getComponentType(), 2);
+        p[0] = (Object) NEW_SIMPLE.invokeExact((Object) new SplitMixRandom(2));
+        p[1] = (Object) NEW_ILKKA.invokeExact((Object) "Ilkka", (Object) new SplitMixRandom(3));
+        players = p;
+        stats = (Object) NEW_STATS.invokeExact();
+        table = (Object) NEW_TABLE.invokeExact(stats);
+    }
+
+    @Benchmark
+    public int playOneHand() throws Throwable {
+        return score += (int) PLAY.invokeExact(4, deck, players, (Object) null, (Object) null, 1000, score);
+    }
+
+    @Benchmark
+    public int playOneHandAtTable() throws Throwable {
+        START_HAND.invokeExact(stats, 0);
+        return score += (int) PLAY_AT_TABLE.invokeExact(4, deck, players, SILENT, (Object) null, 1000, score, table);
+    }
+}
@@ -0,0 +1,68 @@
+package Benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import Rng.SplitMixRandom;
+
+/**
+ * Creating and comparing {@code PLBadugiHand} objects for a fixed set of random four-card hands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandBenchmark {
+
+    private static final MethodHandle FROM_MASK = Handles.constructor("PLBadugiHand", long.class);
+    private static final MethodHandle FROM_CARDS = Handles.constructor("PLBadugiHand", List.class);
+    private static final MethodHandle COMPARE = Handles.method("PLBadugiHand", "compareTo", Handles.type("PLBadugiHand"));
+    private static final MethodHandle CARD = Handles.method("Card", "fromCode", int.class);
+
+    // A power of two, so that the index of the next hand wraps around with a mask.
+    private static final int HANDS = 1024;
+
+    private final long[] masks = new long[HANDS];
+    private final List<?>[] cards = new List<?>[HANDS];
+    private final Object[] hands = new Object[HANDS];
+    private int next = 0;
+
+    @Setup
+    public void setup() throws Throwable {
+        Random rng = new SplitMixRandom(42);
+        for(int i = 0; i < HANDS; i++) {
+            long mask = 0;
+            while(Long.bitCount(mask) < 4) { mask |= 1L << rng.nextInt(52); }
+            List<Object> list = new ArrayList<Object>(4);
+            for(long m = mask; m != 0; m &= m - 1) {
+                list.add((Object) CARD.invokeExact(Long.numberOfTrailingZeros(m)));
+            }
+            masks[i] = mask;
+            cards[i] = list;
+            hands[i] = (Object) FROM_MASK.invokeExact(mask);
+        }
+    }
+
+    @Benchmark
+    public Object constructFromMask() throws Throwable {
+        return (Object) FROM_MASK.invokeExact(masks[next++ & (HANDS - 1)]);
+    }
+
+    @Benchmark
+    public Object constructFromCards() throws Throwable {
+        return (Object) FROM_CARDS.invokeExact((Object) cards[next++ & (HANDS - 1)]);
+    }
+
+    @Benchmark
+    public int compareTo() throws Throwable {
+        int i = next++;
+        return (int) COMPARE.invokeExact(hands[i & (HANDS - 1)], hands[(i + 1) & (HANDS - 1)]);
+    }
+}
@@ -0,0 +1,99 @@
+package Benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Access to the classes of the game. Most of them are in the default package, which cannot be imported into a
+ * named package such as the one that JMH requires for the benchmarks, so they are reached through method handles
+ * instead. Kept in static final fields, the handles are constants to the JIT compiler, which inlines them like
+ * direct calls. The parameter and return types of the handles are erased to Object except for the primitive
+ * ones, so that the benchmarks can call them with invokeExact without boxing any primitive values.
+ */
+final class Handles {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Handles() { }
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch(ClassNotFoundException e) {
+            throw new IllegalStateException("Class " + name + " is not on the class path", e);
+        }
+    }
+
+    /**
+     * A handle to the constructor of the given class with the given parameter types.
+     */
+    static MethodHandle constructor(String className, Class<?>... params) {
+        try {
+            Constructor<?> c = type(className).getDeclaredConstructor(params);
+            c.setAccessible(true);
+            return erase(LOOKUP.unreflectConstructor(c));
+        } catch(ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A handle to the given method of the given class, whose first parameter is the receiver unless the method is static.
+     */
+    static MethodHandle method(String className, String name, Class<?>... params) {
+        try {
+            Method m = type(className).getDeclaredMethod(name, params);
+            m.setAccessible(true);
+            return erase(LOOKUP.unreflect(m));
+        } catch(ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The value of the given static field of the given class.
+     */
+    static Object get(String className, String name) {
+        try {
+            Field f = type(className).getDeclaredField(name);
+            f.setAccessible(true);
+            return f.get(null);
+        } catch(ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Set the given field of the given object.
+     */
+    static void set(Object target, String name, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(name);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch(ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The constant of the given enum class with the given name.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object constant(String enumName, String name) {
+        return Enum.valueOf((Class) type(enumName), name);
+    }
+
+    private static MethodHandle erase(MethodHandle h) {
+        MethodType type = h.type();
+        for(int i = 0; i < type.parameterCount(); i++) {
+            if(!type.parameterType(i).isPrimitive()) { type = type.changeParameterType(i, Object.class); }
+        }
+        if(!type.returnType().isPrimitive()) { type = type.changeReturnType(Object.class); }
+        return h.asType(type);
+    }
+}
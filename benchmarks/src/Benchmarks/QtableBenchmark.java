@@ -0,0 +1,56 @@
+package Benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import Rng.SplitMixRandom;
+import Tabular.Action;
+import Tabular.Qtable;
+
+/**
+ * One update and one decision of {@code Tabular.Qtable}, the learner of {@code PLBadugiOffPolicyTable},
+ * in both of its dense and sparse forms, over a fixed set of random states.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QtableBenchmark {
+
+    // A power of two, so that the index of the next state wraps around with a mask.
+    private static final int STATES = 1024;
+
+    @Param({"false", "true"})
+    public boolean dense;
+
+    private Qtable qtable;
+    private final int[] states = new int[STATES];
+    private final Action[] actions = new Action[STATES];
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        qtable = new Qtable(dense);
+        Random rng = new SplitMixRandom(7);
+        for(int i = 0; i < STATES; i++) {
+            states[i] = Tabular.State.EncodeToInt(rng.nextInt(2), rng.nextInt(4), rng.nextInt(5), 1 + rng.nextInt(4),
+                1 + rng.nextInt(13), rng.nextInt(5), rng.nextInt(5));
+            actions[i] = Action.fromInt(rng.nextInt(10));
+        }
+    }
+
+    @Benchmark
+    public void update() {
+        int i = next++;
+        qtable.update(states[i & (STATES - 1)], states[(i + 1) & (STATES - 1)], 1.0, actions[i & (STATES - 1)]);
+    }
+
+    @Benchmark
+    public Action bestAction() {
+        return qtable.bestAction(states[next++ & (STATES - 1)], true);
+    }
+}
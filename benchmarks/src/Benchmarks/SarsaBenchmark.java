@@ -0,0 +1,59 @@
+package Benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * One decision and one update of {@code Sarsa}, the learner of {@code PLBadugi500877176}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SarsaBenchmark {
+
+    private static final Class<?> STATE = Handles.type("State");
+    private static final Class<?> ACTION = Handles.type("Action");
+    private static final MethodHandle NEW_SARSA = Handles.constructor("Sarsa");
+    private static final MethodHandle NEW_STATE = Handles.constructor("State");
+    private static final MethodHandle START_EPISODE = Handles.method("Sarsa", "startEpisode", STATE, int.class);
+    private static final MethodHandle NEXT_ACTION = Handles.method("Sarsa", "nextAction", STATE, boolean.class);
+    private static final MethodHandle UPDATE = Handles.method("Sarsa", "update", STATE, double.class, ACTION);
+    private static final Object CALL = Handles.constant("Action", "Call");
+
+    private Object sarsa, newState;
+
+    @Setup
+    public void setup() throws Throwable {
+        sarsa = (Object) NEW_SARSA.invokeExact();
+        Object initialState = state(0, 3, 0, 0, new int[0]);
+        newState = state(0, 2, 1, 40, new int[] { 9, 5, 2 });
+        START_EPISODE.invokeExact(sarsa, initialState, 1000);
+    }
+
+    private static Object state(int position, int drawsRemaining, int raises, int pot, int[] activeRanks) throws Throwable {
+        Object s = (Object) NEW_STATE.invokeExact();
+        Handles.set(s, "position", position);
+        Handles.set(s, "drawsRemaining", drawsRemaining);
+        Handles.set(s, "raises", raises);
+        Handles.set(s, "pot", pot);
+        Handles.set(s, "toCall", raises);
+        Handles.set(s, "opponentRaises", raises);
+        Handles.set(s, "handActiveRanks", activeRanks);
+        return s;
+    }
+
+    @Benchmark
+    public Object nextAction() throws Throwable {
+        return (Object) NEXT_ACTION.invokeExact(sarsa, newState, true);
+    }
+
+    @Benchmark
+    public void update() throws Throwable {
+        UPDATE.invokeExact(sarsa, newState, 0.0, CALL);
+    }
+}
@@ -0,0 +1,202 @@
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The learner that owns the parameters of a learning agent and learns them in a thread of its own from the
+ * transitions experienced by any number of agents playing in other threads. Each thread that plays writes the
+ * transitions of its agents through a {@code Writer} of its own, which copies them into a batch of flat primitive
+ * arrays, and hands the batch to the learner through a bounded queue once it is full. If the learner falls behind,
+ * the queue fills up and the writers wait for it, so the memory used by the batches stays bounded. Emptied batches
+ * go back to a pool, so that the writers do not allocate once the pool is warm.
+ * <p>
+ * The learner publishes a read-only snapshot of its parameters every given number of batches, which the agents pick
+ * up at the start of their next hand. Subclasses define what the parameters are, how a batch is learned and how the
+ * parameters are published.
+ */
+public abstract class AsyncLearner {
+
+    // How long the learner waits for a batch before checking whether it has been closed.
+    private static final long POLL_MILLIS = 20;
+
+    /**
+     * A batch of transitions in flat primitive arrays, with the features of the k:th transition starting at index
+     * k * featureLength for the learners of linear features, or its encoded states for the learners of tables.
+     */
+    protected static final class Batch {
+        final int featureLength;
+        final double[] features, nextFeatures;
+        final int[] states, nextStates, actions;
+        final double[] rewards;
+        final boolean[] terminal;
+        int size;
+
+        Batch(int capacity, int featureLength) {
+            this.featureLength = featureLength;
+            this.features = new double[capacity * featureLength];
+            this.nextFeatures = new double[capacity * featureLength];
+            this.states = new int[featureLength == 0 ? capacity : 0];
+            this.nextStates = new int[featureLength == 0 ? capacity : 0];
+            this.actions = new int[capacity];
+            this.rewards = new double[capacity];
+            this.terminal = new boolean[capacity];
+        }
+
+        boolean isFull() { return size == actions.length; }
+    }
+
+    /**
+     * The writer of the transitions of the agents that play in one thread. A writer must be used by one thread only.
+     */
+    public final class Writer implements TransitionSink {
+        private Batch batch = newBatch();
+
+        @Override
+        public void add(double[] feature, int action, double reward, double[] nextFeature, boolean isTerminal) {
+            int k = batch.size, n = featureLength;
+            System.arraycopy(feature, 0, batch.features, k * n, n);
+            if(isTerminal) { Arrays.fill(batch.nextFeatures, k * n, (k + 1) * n, 0.0); }
+            else { System.arraycopy(nextFeature, 0, batch.nextFeatures, k * n, n); }
+            finish(k, action, reward, isTerminal);
+        }
+
+        /**
+         * Receive a transition of an agent that learns a table of encoded states.
+         * @param state The encoded state that the action was taken in.
+         * @param action The index of the action taken.
+         * @param reward The reward received for the transition.
+         * @param nextState The encoded state that the action led to.
+         */
+        public void add(int state, int action, double reward, int nextState) {
+            int k = batch.size;
+            batch.states[k] = state;
+            batch.nextStates[k] = nextState;
+            finish(k, action, reward, false);
+        }
+
+        private void finish(int k, int action, double reward, boolean isTerminal) {
+            batch.actions[k] = action;
+            batch.rewards[k] = reward;
+            batch.terminal[k] = isTerminal;
+            batch.size++;
+            if(batch.isFull()) { flush(); }
+        }
+
+        /**
+         * Hand the transitions written so far to the learner, waiting for room in its queue if it is full. If the
+         * thread is interrupted while it waits, the transitions are dropped, so that the writer stays usable while
+         * the thread winds down, and the interrupt status of the thread is set again.
+         * @throws IllegalStateException If the learner has been closed.
+         */
+        public void flush() {
+            if(batch.size == 0) { return; }
+            if(closed) { throw new IllegalStateException("The learner has been closed"); }
+            if(!queue.offer(batch)) {
+                stalls.incrementAndGet();
+                try { queue.put(batch); }
+                catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    batch.size = 0;
+                    return;
+                }
+            }
+            batch = newBatch();
+        }
+    }
+
+    private final int featureLength;
+    private final int batchSize;
+    private final int publishInterval;
+    private final BlockingQueue<Batch> queue;
+    private final ConcurrentLinkedQueue<Batch> pool = new ConcurrentLinkedQueue<Batch>();
+    private final AtomicLong stalls = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile long batches, transitions;
+
+    /**
+     * Constructor for the class. The thread of the learner is started by {@code start}.
+     * @param featureLength The length of the feature vectors of the transitions, or 0 for the encoded states of a table.
+     * @param batchSize How many transitions each batch holds.
+     * @param queueCapacity How many full batches may wait for the learner before the writers wait for it.
+     * @param publishInterval After how many batches the parameters are published.
+     * @param name The name of the thread of the learner.
+     */
+    protected AsyncLearner(int featureLength, int batchSize, int queueCapacity, int publishInterval, String name) {
+        if(featureLength < 0 || batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Batch size and queue capacity must be positive");
+        }
+        this.featureLength = featureLength;
+        this.batchSize = batchSize;
+        this.publishInterval = Math.max(1, publishInterval);
+        this.queue = new ArrayBlockingQueue<Batch>(queueCapacity);
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Start the thread of the learner. Called by the constructors of the subclasses once their parameters are set.
+     */
+    protected final void start() { thread.start(); }
+
+    /**
+     * Learn the transitions of the given batch into the parameters, in the thread of the learner.
+     */
+    protected abstract void learn(Batch batch);
+
+    /**
+     * Publish a read-only snapshot of the current parameters, in the thread of the learner.
+     */
+    protected abstract void publish();
+
+    /**
+     * Create a writer for the agents of the calling thread.
+     */
+    public Writer newWriter() { return new Writer(); }
+
+    private Batch newBatch() {
+        Batch b = pool.poll();
+        return b != null ? b : new Batch(batchSize, featureLength);
+    }
+
+    // Learn the batches in the order they arrive until the learner is closed and the queue is empty.
+    private void run() {
+        while(true) {
+            Batch b;
+            try { b = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS); }
+            catch(InterruptedException e) { return; }
+            if(b == null) {
+                if(closed && queue.isEmpty()) { break; }
+                continue;
+            }
+            learn(b);
+            transitions += b.size;
+            b.size = 0;
+            pool.offer(b);
+            if(++batches % publishInterval == 0) { publish(); }
+        }
+        publish();
+    }
+
+    /**
+     * Stop accepting batches, wait for the learner to learn those already handed to it, and publish the final
+     * parameters. The writers must have been flushed before, or their remaining transitions are not learned.
+     */
+    public void close() {
+        closed = true;
+        try { thread.join(); }
+        catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    /** How many batches have been learned. */
+    public long getBatches() { return batches; }
+
+    /** How many transitions have been learned. */
+    public long getTransitions() { return transitions; }
+
+    /** How many times a writer had to wait for room in the queue because the learner fell behind. */
+    public long getStalls() { return stalls.get(); }
+}
@@ -0,0 +1,97 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The reporter that hands the progress of the matches to another reporter in a background thread of its own,
+ * so that the threads that play the matches never wait for rendering or writing. The reports are passed in a
+ * lock-free queue that the background thread polls. If the background thread falls behind by more than the given
+ * number of reports, the sampled points are dropped until it catches up, but finished matches are always reported.
+ */
+public class AsyncProgressReporter implements ProgressReporter {
+
+    // How long the background thread sleeps when the queue is empty.
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final ProgressReporter delegate;
+    private final int capacity;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    /**
+     * Create the reporter with room for 10,000 pending reports.
+     * @param delegate The reporter called in the background thread.
+     */
+    public AsyncProgressReporter(ProgressReporter delegate) {
+        this(delegate, 10_000);
+    }
+
+    /**
+     * Constructor for the class.
+     * @param delegate The reporter called in the background thread.
+     * @param capacity How many reports may be pending before the sampled points are dropped.
+     */
+    public AsyncProgressReporter(ProgressReporter delegate, int capacity) {
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.worker = new Thread(this::drain, "progress-reporter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void sample(String match, long hand, double average, double theta) {
+        if(closed || pending.get() >= capacity) {
+            dropped.incrementAndGet();
+            return;
+        }
+        enqueue(() -> delegate.sample(match, hand, average, theta));
+    }
+
+    @Override
+    public void matchFinished(String match, MatchStats stats, PLBadugiPlayer[] players) {
+        if(closed) { return; }
+        enqueue(() -> delegate.matchFinished(match, stats, players));
+    }
+
+    private void enqueue(Runnable report) {
+        pending.incrementAndGet();
+        queue.offer(report);
+    }
+
+    // Run the reports in the order they arrived until the reporter is closed and the queue is empty.
+    private void drain() {
+        while(true) {
+            Runnable report = queue.poll();
+            if(report == null) {
+                if(closed && queue.isEmpty()) { return; }
+                LockSupport.parkNanos(this, POLL_NANOS);
+                continue;
+            }
+            pending.decrementAndGet();
+            try { report.run(); }
+            catch(RuntimeException e) { System.err.println("Progress reporter failed: " + e); }
+        }
+    }
+
+    /** How many sampled points have been dropped because the background thread fell behind. */
+    public long getDropped() { return dropped.get(); }
+
+    /**
+     * Stop accepting reports, wait for the pending ones to be handled, and close the other reporter.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        try { worker.join(); }
+        catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+        delegate.close();
+    }
+}
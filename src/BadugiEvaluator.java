@@ -0,0 +1,158 @@
+/**
+ * A precomputed evaluator for four-card badugi hands. Every one of the C(52,4) possible hands is
+ * mapped to a dense integer strength and the mask of its active cards through a table that is built
+ * once at class initialization, so that evaluating a hand costs one table lookup instead of the
+ * backtracking search through the 16 subsets of its cards.
+ *
+ * Cards are identified by their codes {@code 4 * rank + suit}, as defined in {@code CardBits}.
+ * The table is indexed by the combinatorial number system over the four card codes sorted in
+ * ascending order.
+ */
+public final class BadugiEvaluator {
+
+    // The number of distinct four-card hands, C(52,4).
+    public static final int HAND_COUNT = 270_725;
+    // The number of distinct badugi values, C(13,1) + C(13,2) + C(13,3) + C(13,4).
+    public static final int STRENGTH_COUNT = 1092;
+
+    // Binomial coefficients C(n, k) for n < 52 and k <= 4.
+    private static final int[][] BINOMIAL = new int[52][5];
+    // The dense strength of the badugi that consists of the ranks in the given 13-bit mask.
+    private static final short[] RANK_MASK_STRENGTH = new short[1 << 13];
+    // The active ranks, from 1 (ace) to 13 (king) in descending order, of each dense strength.
+    private static final int[][] STRENGTH_RANKS = new int[STRENGTH_COUNT][];
+    // For each hand, its dense strength shifted left by four bits, combined with the mask of its
+    // active cards. Bit i of the mask stands for the i:th lowest card code of the hand.
+    private static final int[] HAND_TABLE = new int[HAND_COUNT];
+
+    static {
+        for(int n = 0; n < 52; n++) {
+            BINOMIAL[n][0] = 1;
+            for(int k = 1; k <= 4; k++) {
+                BINOMIAL[n][k] = n == 0 ? 0 : BINOMIAL[n-1][k-1] + BINOMIAL[n-1][k];
+            }
+        }
+        initStrengths();
+        initHandTable();
+    }
+
+    private BadugiEvaluator() { }
+
+    // Badugi with more active cards always beats the one with fewer active cards, and of two badugis
+    // of same length, the one whose highest differing rank is lower wins. For rank sets of equal size,
+    // the latter order is the reverse of the numerical order of the rank masks.
+    private static void initStrengths() {
+        java.util.Arrays.fill(RANK_MASK_STRENGTH, (short)-1);
+        int strength = 0;
+        for(int len = 1; len <= 4; len++) {
+            for(int mask = (1 << 13) - 1; mask > 0; mask--) {
+                if(Integer.bitCount(mask) != len) { continue; }
+                int[] ranks = new int[len];
+                for(int i = 0, m = mask; i < len; i++) {
+                    int high = 31 - Integer.numberOfLeadingZeros(m);
+                    ranks[i] = high + 1;
+                    m &= ~(1 << high);
+                }
+                STRENGTH_RANKS[strength] = ranks;
+                RANK_MASK_STRENGTH[mask] = (short)strength++;
+            }
+        }
+    }
+
+    // Fill the hand table by trying the 16 subsets of each hand in the same order that the recursive
+    // backtracking in PLBadugiHand uses, so that ties between cards of equal rank are broken the same way.
+    private static void initHandTable() {
+        int[] desc = new int[4];
+        for(int d = 3; d < 52; d++) {
+            for(int c = 2; c < d; c++) {
+                for(int b = 1; b < c; b++) {
+                    for(int a = 0; a < b; a++) {
+                        desc[0] = d; desc[1] = c; desc[2] = b; desc[3] = a;
+                        int bestStrength = -1, bestMask = 0;
+                        for(int subset = 15; subset > 0; subset--) {
+                            int rankMask = 0, suitMask = 0;
+                            boolean feasible = true;
+                            for(int i = 0; i < 4 && feasible; i++) {
+                                if((subset & (8 >> i)) == 0) { continue; }
+                                int rankBit = 1 << (desc[i] >> 2), suitBit = 1 << (desc[i] & 3);
+                                feasible = (rankMask & rankBit) == 0 && (suitMask & suitBit) == 0;
+                                rankMask |= rankBit; suitMask |= suitBit;
+                            }
+                            if(feasible && RANK_MASK_STRENGTH[rankMask] > bestStrength) {
+                                bestStrength = RANK_MASK_STRENGTH[rankMask];
+                                // Subset bit (8 >> i) is the i:th highest card, which is also bit (3 - i) of the mask.
+                                bestMask = subset;
+                            }
+                        }
+                        HAND_TABLE[index(a, b, c, d)] = bestStrength << 4 | bestMask;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the dense index of a four-card hand.
+     * @param a The lowest card code of the hand.
+     * @param b The second lowest card code of the hand.
+     * @param c The second highest card code of the hand.
+     * @param d The highest card code of the hand.
+     * @return The index of the hand, from 0 to {@code HAND_COUNT - 1}.
+     */
+    public static int index(int a, int b, int c, int d) {
+        return a + BINOMIAL[b][2] + BINOMIAL[c][3] + BINOMIAL[d][4];
+    }
+
+    /**
+     * Look up the table entry of the four-card hand made of the given card codes, given in any order.
+     * @return The dense strength of the hand shifted left by four bits, combined with the mask of
+     * its active cards, whose bit i stands for the i:th lowest card code.
+     */
+    public static int lookup(int c0, int c1, int c2, int c3) {
+        // A five comparator sorting network for the four codes.
+        int t;
+        if(c0 > c1) { t = c0; c0 = c1; c1 = t; }
+        if(c2 > c3) { t = c2; c2 = c3; c3 = t; }
+        if(c0 > c2) { t = c0; c0 = c2; c2 = t; }
+        if(c1 > c3) { t = c1; c1 = c3; c3 = t; }
+        if(c1 > c2) { t = c1; c1 = c2; c2 = t; }
+        return HAND_TABLE[index(c0, c1, c2, c3)];
+    }
+
+    /**
+     * Look up the table entry of the four-card hand made of the given card codes, which must be given
+     * in ascending order, as in {@code index}.
+     */
+    public static int lookupSorted(int a, int b, int c, int d) {
+        return HAND_TABLE[index(a, b, c, d)];
+    }
+
+    /**
+     * Extract the dense strength from a table entry. Higher strength means a better hand.
+     */
+    public static int strength(int entry) { return entry >>> 4; }
+
+    /**
+     * Extract the active card mask from a table entry.
+     */
+    public static int activeMask(int entry) { return entry & 0xF; }
+
+    /**
+     * Compute the dense strength of the badugi that consists of the given ranks.
+     * @param rankMask The mask of the active ranks, bit 0 standing for ace and bit 12 for king.
+     * @return The dense strength of the badugi, or -1 if the mask is empty.
+     */
+    public static int strengthOfRanks(int rankMask) {
+        return RANK_MASK_STRENGTH[rankMask];
+    }
+
+    /**
+     * Get the active ranks of the badugi of the given strength.
+     * @param strength The dense strength of the badugi.
+     * @return The shared array of the active ranks, from 1 (ace) to 13 (king) in descending order.
+     * The caller must not modify this array.
+     */
+    public static int[] activeRanks(int strength) {
+        return STRENGTH_RANKS[strength];
+    }
+}
@@ -0,0 +1,64 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+class BadugiEvaluatorTest {
+
+    @Test
+    void bestAndWorstHands() {
+        PLBadugiHand best = new PLBadugiHand("ac2d3h4s");
+        PLBadugiHand worst = new PLBadugiHand("kckdkhks");
+
+        assertEquals(BadugiEvaluator.STRENGTH_COUNT - 1, best.getStrength());
+        assertEquals(0, worst.getStrength());
+        assertArrayEquals(new int[]{4, 3, 2, 1}, best.getActiveRanks());
+        assertArrayEquals(new int[]{13}, worst.getActiveRanks());
+    }
+
+    @Test
+    void moreActiveCardsBeatLowerRanks() {
+        PLBadugiHand badugi = new PLBadugiHand("kcqdjhts");
+        PLBadugiHand threeCard = new PLBadugiHand("ac2d3h4h");
+
+        assertTrue(badugi.compareTo(threeCard) > 0);
+        assertTrue(threeCard.compareTo(badugi) < 0);
+    }
+
+    @Test
+    void higherCardIsWeaker() {
+        PLBadugiHand sevenHigh = new PLBadugiHand("7c2d3h4s");
+        PLBadugiHand eightHigh = new PLBadugiHand("8cad2h3s");
+        PLBadugiHand sameRanks = new PLBadugiHand("7d2c3s4h");
+
+        assertTrue(sevenHigh.compareTo(eightHigh) > 0);
+        assertEquals(0, sevenHigh.compareTo(sameRanks));
+    }
+
+    @Test
+    void activeMaskMatchesActiveCards() {
+        // Two hearts and two fours: the best badugi is 4s 3h ac.
+        PLBadugiHand hand = new PLBadugiHand("4h4s3hac");
+        int entry = BadugiEvaluator.lookup(Card.from("4h").getCode(), Card.from("4s").getCode(),
+            Card.from("3h").getCode(), Card.from("ac").getCode());
+
+        assertEquals(Arrays.asList(Card.from("4s"), Card.from("3h"), Card.from("ac")), hand.getActiveCards());
+        assertEquals(Arrays.asList(Card.from("4h")), hand.getInactiveCards());
+        assertEquals(3, Integer.bitCount(BadugiEvaluator.activeMask(entry)));
+        assertEquals(hand.getStrength(), BadugiEvaluator.strength(entry));
+    }
+
+    @Test
+    void lookupIgnoresCardOrder() {
+        int e1 = BadugiEvaluator.lookup(5, 17, 30, 51);
+        int e2 = BadugiEvaluator.lookup(51, 5, 30, 17);
+        assertEquals(e1, e2);
+    }
+
+    @Test
+    void shortHandsUseSameStrengthScale() {
+        PLBadugiHand king = new PLBadugiHand(Arrays.asList(new Card(0, 12)));
+        assertEquals(0, king.getStrength());
+        assertEquals(0, king.compareTo(new PLBadugiHand("kckdkhks")));
+    }
+}
@@ -11,6 +11,14 @@ public class Card implements Comparable<Card> {
     private final int suit, rank; // The suit and rank of this card.
     private final String repr; // The cached String representation of this card.
 
+    // The shared immutable cards, indexed by their codes as defined in CardBits.
+    private static final Card[] byCode = new Card[52];
+    static {
+        for(int code = 0; code < 52; code++) {
+            byCode[code] = new Card(CardBits.suit(code), CardBits.rank(code));
+        }
+    }
+
     /**
      * Constructor for the class.
      * @param suit The suit of this card. Should be an int from 0 to 3.
@@ -34,6 +42,13 @@ public class Card implements Comparable<Card> {
         }
         return new Card(suit, rank);
     }
+
+    /**
+     * Returns the shared card object with the given code.
+     * @param code The code of the card, as defined in {@code CardBits}. Should be an int from 0 to 51.
+     * @return The card with the given code.
+     */
+    public static Card fromCode(int code) { return byCode[code]; }
     
     /**
      * Accessor method for the suit.
@@ -46,6 +61,12 @@ public class Card implements Comparable<Card> {
      * @return The rank of the card, as an integer from 1 (ace) to 13 (king).
      */
     public int getRank() { return rank + 1; }
+
+    /**
+     * Accessor method for the primitive code of this card.
+     * @return The code of the card, as an integer {@code 4 * rank + suit} from 0 to 51, as defined in {@code CardBits}.
+     */
+    public int getCode() { return CardBits.code(suit, rank); }
     
     /**
      * Equality comparison of {@code Card} objects. No {@code Card} is ever equal to something that is not
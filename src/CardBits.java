@@ -0,0 +1,245 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Static helpers for the primitive representation of cards and hands used in the hot path of the
+ * game engine. A card is encoded as the int {@code 4 * rank + suit} from 0 to 51, with rank from 0 (ace)
+ * to 12 (king), and a hand as the {@code long} bitmask whose bit {@code code} is on for each card in it.
+ * With this encoding, each rank occupies one nibble of the mask, and each suit every fourth bit.
+ */
+public final class CardBits {
+
+    // The mask of all 13 cards of suit 0. The masks of other suits are this shifted left by the suit.
+    private static final long SUIT_MASK = 0x1111111111111L;
+    // The mask of all 52 cards.
+    public static final long ALL_CARDS = (1L << 52) - 1;
+    // How many ways there are to rename the four suits.
+    public static final int SUIT_PERMUTATION_COUNT = 24;
+    // The permutations of the suits, each as the new suits of the suits 0 to 3, the identity first.
+    private static final int[][] SUIT_PERMUTATIONS = new int[SUIT_PERMUTATION_COUNT][];
+    static {
+        int n = 0;
+        for(int a = 0; a < 4; a++) {
+            for(int b = 0; b < 4; b++) {
+                for(int c = 0; c < 4; c++) {
+                    int d = 6 - a - b - c;
+                    if(a != b && a != c && b != c && d >= 0 && d < 4 && d != a && d != b && d != c) {
+                        SUIT_PERMUTATIONS[n++] = new int[] { a, b, c, d };
+                    }
+                }
+            }
+        }
+    }
+
+    private CardBits() { }
+
+    /**
+     * The suit of the given card, from 0 to 3.
+     */
+    public static int suit(int card) { return card & 3; }
+
+    /**
+     * The rank of the given card, from 0 (ace) to 12 (king).
+     */
+    public static int rank(int card) { return card >>> 2; }
+
+    /**
+     * The code of the card of the given suit and rank.
+     */
+    public static int code(int suit, int rank) { return 4 * rank + suit; }
+
+    /**
+     * The single bit mask of the given card.
+     */
+    public static long bit(int card) { return 1L << card; }
+
+    /**
+     * The mask of all cards of the given suit.
+     */
+    public static long suitMask(int suit) { return SUIT_MASK << suit; }
+
+    /**
+     * The mask of all cards of the given rank.
+     */
+    public static long rankMask(int rank) { return 0xFL << (4 * rank); }
+
+    /**
+     * Rename the suits of the cards in the given mask.
+     * @param mask The mask of the cards.
+     * @param permutation The index of the renaming, from 0 to SUIT_PERMUTATION_COUNT - 1, where 0 keeps the suits.
+     * @return The mask of the renamed cards.
+     */
+    public static long permuteSuits(long mask, int permutation) {
+        int[] p = SUIT_PERMUTATIONS[permutation];
+        return ((mask & SUIT_MASK) << p[0]) | (((mask >>> 1) & SUIT_MASK) << p[1])
+            | (((mask >>> 2) & SUIT_MASK) << p[2]) | (((mask >>> 3) & SUIT_MASK) << p[3]);
+    }
+
+    /**
+     * The canonical form of the given cards, the smallest mask into which their suits can be renamed. Since all
+     * suits are equal in badugi, the hands with the same canonical form are equally strong in every situation.
+     */
+    public static long canonical(long mask) {
+        return permuteSuits(mask, canonicalPermutation(mask, 0L));
+    }
+
+    /**
+     * The index of the suit renaming that turns the first mask into its canonical form. When several renamings
+     * do, the one that gives the smallest second mask is chosen, so that two sets of cards such as a hand and the
+     * dead cards seen next to it can be renamed together into a canonical pair.
+     * @param mask The mask whose canonical form is sought.
+     * @param tieBreak The mask renamed along with it.
+     * @return The index of the renaming, as in {@code permuteSuits}.
+     */
+    public static int canonicalPermutation(long mask, long tieBreak) {
+        int best = 0;
+        long bestMask = mask, bestTieBreak = tieBreak;
+        for(int p = 1; p < SUIT_PERMUTATION_COUNT; p++) {
+            long m = permuteSuits(mask, p);
+            if(m > bestMask) { continue; }
+            long t = permuteSuits(tieBreak, p);
+            if(m < bestMask || t < bestTieBreak) {
+                best = p;
+                bestMask = m;
+                bestTieBreak = t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks whether the two given cards may not be part of the same badugi hand.
+     */
+    public static boolean badugiConflict(int c1, int c2) {
+        int x = c1 ^ c2;
+        return (x & 3) == 0 || (x >>> 2) == 0;
+    }
+
+    /**
+     * Checks whether the given card may not be part of the same badugi hand with some card in the mask.
+     */
+    public static boolean badugiConflict(int card, long mask) {
+        return (mask & (suitMask(card & 3) | rankMask(card >>> 2))) != 0;
+    }
+
+    /**
+     * Checks whether all cards in the mask can be part of the same badugi hand, that is,
+     * no two of them share a suit or a rank.
+     */
+    public static boolean isBadugi(long mask) {
+        // Count the bits of every nibble in parallel, and check that no rank nibble holds two cards.
+        long pairs = mask - ((mask >>> 1) & 0x5555555555555555L);
+        long nibbles = (pairs & 0x3333333333333333L) + ((pairs >>> 2) & 0x3333333333333333L);
+        if(((nibbles + 0x6666666666666666L) & 0x8888888888888888L) != 0) { return false; }
+        return Long.bitCount(mask & SUIT_MASK) <= 1 && Long.bitCount(mask & (SUIT_MASK << 1)) <= 1
+            && Long.bitCount(mask & (SUIT_MASK << 2)) <= 1 && Long.bitCount(mask & (SUIT_MASK << 3)) <= 1;
+    }
+
+    /**
+     * Look up the {@code BadugiEvaluator} table entry of the given four-card hand.
+     * @param hand The mask of the hand, which must have exactly four bits on.
+     * @return The table entry, whose active card mask refers to the cards of the hand in ascending code order.
+     */
+    public static int lookup(long hand) {
+        int a = Long.numberOfTrailingZeros(hand); hand &= hand - 1;
+        int b = Long.numberOfTrailingZeros(hand); hand &= hand - 1;
+        int c = Long.numberOfTrailingZeros(hand); hand &= hand - 1;
+        int d = Long.numberOfTrailingZeros(hand);
+        return BadugiEvaluator.lookup(a, b, c, d);
+    }
+
+    /**
+     * Compute the mask of the active cards of the given hand, the best badugi that can be made of it.
+     * @param hand The mask of the cards in the hand.
+     * @return The mask of the active cards.
+     */
+    public static long activeMask(long hand) {
+        if(Long.bitCount(hand) == 4) {
+            int mask = BadugiEvaluator.activeMask(lookup(hand));
+            long result = 0;
+            for(int i = 0; i < 4; i++) {
+                long low = hand & -hand;
+                if((mask & (1 << i)) != 0) { result |= low; }
+                hand ^= low;
+            }
+            return result;
+        }
+        // Other hand sizes try the subsets from the one that includes the highest cards, as in PLBadugiHand.
+        int n = Long.bitCount(hand);
+        int[] desc = new int[n];
+        for(int i = n - 1; i >= 0; i--) {
+            desc[i] = Long.numberOfTrailingZeros(hand);
+            hand &= hand - 1;
+        }
+        long best = 0;
+        int bestStrength = -1;
+        for(int subset = (1 << n) - 1; subset > 0; subset--) {
+            long mask = 0;
+            int rankMask = 0;
+            for(int i = 0; i < n; i++) {
+                if((subset & (1 << (n - 1 - i))) != 0) { mask |= bit(desc[i]); rankMask |= 1 << rank(desc[i]); }
+            }
+            if(isBadugi(mask) && BadugiEvaluator.strengthOfRanks(rankMask) > bestStrength) {
+                bestStrength = BadugiEvaluator.strengthOfRanks(rankMask);
+                best = mask;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Compute the mask of the inactive cards of the given hand, the cards not in its best badugi.
+     */
+    public static long inactiveMask(long hand) {
+        return hand & ~activeMask(hand);
+    }
+
+    /**
+     * Compute the dense strength of the given hand, as defined in {@code BadugiEvaluator}.
+     */
+    public static int strength(long hand) {
+        if(Long.bitCount(hand) == 4) { return BadugiEvaluator.strength(lookup(hand)); }
+        return BadugiEvaluator.strengthOfRanks(rankSet(activeMask(hand)));
+    }
+
+    /**
+     * Compute the 13-bit mask of the ranks that appear in the given hand, bit 0 standing for ace.
+     */
+    public static int rankSet(long hand) {
+        int result = 0;
+        while(hand != 0) {
+            result |= 1 << (Long.numberOfTrailingZeros(hand) >>> 2);
+            hand &= hand - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Compute the mask of the given cards.
+     */
+    public static long toMask(List<Card> cards) {
+        long result = 0;
+        for(Card c: cards) { result |= bit(c.getCode()); }
+        return result;
+    }
+
+    /**
+     * Create the list of cards in the given mask, in the descending order defined by {@code Card.compareTo}.
+     */
+    public static List<Card> toCards(long mask) {
+        List<Card> result = new ArrayList<Card>(Long.bitCount(mask));
+        while(mask != 0) {
+            int code = 63 - Long.numberOfLeadingZeros(mask);
+            result.add(Card.fromCode(code));
+            mask &= ~bit(code);
+        }
+        return result;
+    }
+
+    /**
+     * The string representation of the cards in the given mask, as in {@code List<Card>.toString}.
+     */
+    public static String toString(long mask) {
+        return toCards(mask).toString();
+    }
+}
@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+class CardBitsTest {
+
+    private static long mask(String cards) {
+        return new PLBadugiHand(cards).getCardMask();
+    }
+
+    @Test
+    void suitAndRankExtraction() {
+        Card c = Card.from("qh");
+        assertEquals(c.getSuit(), CardBits.suit(c.getCode()));
+        assertEquals(c.getRank() - 1, CardBits.rank(c.getCode()));
+        assertEquals(c, Card.fromCode(c.getCode()));
+    }
+
+    @Test
+    void badugiConflict() {
+        for(int c1 = 0; c1 < 52; c1++) {
+            for(int c2 = 0; c2 < 52; c2++) {
+                boolean expected = Card.fromCode(c1).badugiConflict(Card.fromCode(c2));
+                assertEquals(expected, CardBits.badugiConflict(c1, c2));
+                assertEquals(expected, CardBits.badugiConflict(c1, CardBits.bit(c2)));
+            }
+        }
+    }
+
+    @Test
+    void isBadugi() {
+        assertTrue(CardBits.isBadugi(mask("kcqdjhts")));
+        assertFalse(CardBits.isBadugi(mask("kcqdjhtc")));
+        assertFalse(CardBits.isBadugi(mask("kcqdjhks")));
+        assertTrue(CardBits.isBadugi(0L));
+    }
+
+    @Test
+    void activeAndInactiveMasks() {
+        long hand = mask("4h4s3hac");
+        assertEquals(mask("4h4s3hac") & ~CardBits.toMask(Arrays.asList(Card.from("4h"))), CardBits.activeMask(hand));
+        assertEquals(CardBits.toMask(Arrays.asList(Card.from("4h"))), CardBits.inactiveMask(hand));
+        assertEquals(new PLBadugiHand("4h4s3hac").getStrength(), CardBits.strength(hand));
+    }
+
+    @Test
+    void masksAgreeWithHandObjects() {
+        EfficientDeck deck = new EfficientDeck(new java.util.Random(1));
+        for(int i = 0; i < 1000; i++) {
+            deck.restoreCards();
+            long hand = deck.drawMask(4);
+            PLBadugiHand view = new PLBadugiHand(hand);
+            assertEquals(hand, view.getCardMask());
+            assertEquals(CardBits.activeMask(hand), view.getActiveMask());
+            assertEquals(CardBits.toMask(view.getActiveCards()), view.getActiveMask());
+            assertEquals(CardBits.toMask(view.getInactiveCards()), CardBits.inactiveMask(hand));
+        }
+    }
+
+    @Test
+    void canonicalFormIgnoresSuits() {
+        java.util.Random rng = new java.util.Random(2);
+        EfficientDeck deck = new EfficientDeck(rng);
+        for(int i = 0; i < 1000; i++) {
+            deck.restoreCards();
+            long hand = deck.drawMask(4), dead = deck.drawMask(3);
+            long canonical = CardBits.canonical(hand);
+            assertTrue(canonical <= hand);
+            assertEquals(Long.bitCount(hand), Long.bitCount(canonical));
+            assertEquals(CardBits.strength(hand), CardBits.strength(canonical));
+            int p = rng.nextInt(CardBits.SUIT_PERMUTATION_COUNT);
+            long renamedHand = CardBits.permuteSuits(hand, p), renamedDead = CardBits.permuteSuits(dead, p);
+            assertEquals(canonical, CardBits.canonical(renamedHand));
+            int q1 = CardBits.canonicalPermutation(hand, dead), q2 = CardBits.canonicalPermutation(renamedHand, renamedDead);
+            assertEquals(CardBits.permuteSuits(dead, q1), CardBits.permuteSuits(renamedDead, q2));
+        }
+        assertEquals(CardBits.canonical(mask("ac2d3h4s")), CardBits.canonical(mask("as2h3d4c")));
+        assertNotEquals(CardBits.canonical(mask("ac2d3h4s")), CardBits.canonical(mask("ac2c3h4s")));
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+import Rng.RandomSource;
+import Rng.SplitMixRandom;
+
+/**
+ * The agent that plays the average strategy of a {@code CfrSolver}. Each betting decision looks up the cumulative
+ * probabilities of the actions in its information set from a table built once from the solver, and samples the
+ * action from them; in the information sets that the solver never visited, the agent calls. In the draws, the
+ * agent makes the standard draw of its inactive cards, as the solver assumes.
+ * <p>
+ * An agent created by name in a tournament loads its strategy from the checkpoint named by the system property
+ * {@code badugi.cfr}, by default {@code cfr.bin}, or calls every time if there is no such file.
+ */
+@StatelessSafe
+public class CfrPlayer implements PLBadugiPlayer {
+
+    /** The checkpoint that the agents created without a solver load their strategy from. */
+    public static final String STRATEGY_FILE = System.getProperty("badugi.cfr", "cfr.bin");
+
+    private static int instanceCounter = 0;
+    private final String name;
+
+    // The cumulative probabilities of the actions in each information set, as in CfrSolver.strategyTable.
+    private final float[] table;
+    private final SplitMixRandom rng;
+
+    private int position;
+    // How many cards this agent drew in the latest draw, -1 before the first draw.
+    private int agentDrew;
+
+    /**
+     * Create the agent with the strategy of the default checkpoint, if there is one.
+     */
+    public CfrPlayer() {
+        this(DefaultTable.TABLE, RandomSource.create().nextLong());
+    }
+
+    /**
+     * Create the agent with the strategy of the default checkpoint, if there is one, seeding the generator of its
+     * random choices from the given generator.
+     */
+    public CfrPlayer(Random rng) {
+        this(DefaultTable.TABLE, rng.nextLong());
+    }
+
+    /**
+     * Create the agent with the current average strategy of the given solver.
+     * @param seed The seed of the generator of the random choices of the agent.
+     */
+    public CfrPlayer(CfrSolver solver, long seed) {
+        this(solver.strategyTable(), seed);
+    }
+
+    private CfrPlayer(float[] table, long seed) {
+        this.table = table;
+        this.rng = new SplitMixRandom(seed);
+        this.name = "CFR-" + (++instanceCounter);
+    }
+
+    // The table of the default checkpoint, loaded once when the first agent is created without a solver.
+    private static final class DefaultTable {
+        static final float[] TABLE = load();
+    }
+
+    private static float[] load() {
+        Path file = Paths.get(STRATEGY_FILE);
+        if(!Files.exists(file)) { return new float[CfrSolver.INFO_SETS * CfrSolver.ACTIONS]; }
+        try { return CfrSolver.load(file).strategyTable(); }
+        catch(IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    @Override
+    public void startNewHand(int position, int handsToGo, int currentScore) {
+        this.position = position;
+        this.agentDrew = -1;
+    }
+
+    @Override
+    public int bettingAction(int drawsRemaining, PLBadugiHand hand, int pot, int raises, int toCall,
+                             int minRaise, int maxRaise, int opponentDrew) {
+        int row = CfrSolver.ACTIONS * CfrSolver.infoSet(position, drawsRemaining, Math.min(raises, PLBadugiRunner.MAX_RAISES),
+            hand.getCardMask(), opponentDrew, agentDrew);
+        int action = Tabular.Qaction.CallAction;
+        if(table[row + CfrSolver.ACTIONS - 1] > 0) {
+            float u = rng.nextFloat();
+            action = 0;
+            while(action < CfrSolver.ACTIONS - 1 && u >= table[row + action]) { action++; }
+        }
+        return CfrSolver.chips(action, toCall, minRaise, maxRaise);
+    }
+
+    @Override
+    public List<Card> drawingAction(int drawsRemaining, PLBadugiHand hand, int pot, int dealerDrew) {
+        List<Card> discard = hand.getInactiveCards();
+        agentDrew = discard.size();
+        return discard;
+    }
+
+    @Override
+    public void handComplete(PLBadugiHand yourHand, PLBadugiHand opponentHand, int result) { }
+
+    @Override
+    public String getAgentName() { return name; }
+
+    @Override
+    public String getAuthor() { return "Minkin, Dmitri"; }
+}
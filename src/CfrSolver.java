@@ -0,0 +1,449 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import Rng.RandomSource;
+import Rng.SplitMixRandom;
+
+/**
+ * A solver of an abstraction of heads-up pot-limit badugi by Monte Carlo counterfactual regret minimization with
+ * external sampling. The betting follows {@code PLBadugiRunner.playOneHand} exactly, with its ante, the minimum
+ * raises of each street and the limit of raises in a round, and the bets are the five buckets of
+ * {@code Tabular.Action} from fold to the maximum raise. The hands are abstracted into the information sets of
+ * {@code Tabular.State}: the position, the street, the raises so far, the length and the highest rank of the best
+ * badugi, and how many cards both players drew in the latest draw. In the three draws, both players make the
+ * standard draw of their inactive cards, so that the draws are part of the chance outcome of each iteration.
+ * <p>
+ * In each iteration, the cards of a random deal are fixed, and each player in turn traverses all of its own
+ * betting actions while sampling the actions of the other from its current strategy. The regrets are updated with
+ * the floor at zero of CFR+, and the strategy of the other player is added to the average strategy. Both are kept
+ * as doubles in shared atomic arrays that any number of threads update at once with compare-and-set, without
+ * locks. The average strategy, not the current one, converges towards an equilibrium of the abstraction; it is
+ * played by {@code CfrPlayer}.
+ * <p>
+ * The solver can be trained from the command line, checkpointing itself into the given file, and resumes from
+ * the file when it exists:
+ * <pre>
+ *   java CfrSolver cfr.bin 10000000
+ * </pre>
+ */
+public class CfrSolver {
+
+    /** The number of betting actions, from {@code Tabular.Action.Fold} to {@code Tabular.Action.MaxRaise}. */
+    public static final int ACTIONS = Tabular.Action.NumBetActions;
+    /** The number of information sets, all the encodings of {@code Tabular.State}. */
+    public static final int INFO_SETS = Tabular.State.StateCount;
+
+    // The layout of the checkpoint file: the header, then the regrets and the strategy sums of every information
+    // set that has been visited, preceded by its index.
+    static final int MAGIC = 0x52464342; // "BCFR"
+    static final int VERSION = 1;
+
+    // The longest betting of one street is a check, four raises and a call, and there are four streets.
+    private static final int MAX_DEPTH = 4 * (PLBadugiRunner.MAX_RAISES + 2);
+    // The share of the iterations in which the traverser skips the actions without regret, so that their
+    // regrets are updated only in the rest.
+    private static final double PRUNE_PROBABILITY = 0.95;
+    // How many iterations a thread claims at a time.
+    private static final int BATCH = 256;
+
+    private final AtomicLongArray regrets = new AtomicLongArray(INFO_SETS * ACTIONS);
+    private final AtomicLongArray strategySums = new AtomicLongArray(INFO_SETS * ACTIONS);
+    private final AtomicLong iterations = new AtomicLong();
+
+    /** How many iterations have been played. */
+    public long getIterations() { return iterations.get(); }
+
+    /**
+     * The information set of the player about to bet, as the encoding of {@code Tabular.State}.
+     * @param position 0 if the player is the dealer, 1 if the opponent.
+     * @param drawsRemaining How many draws are left after this betting round.
+     * @param raises The number of raises made in this round.
+     * @param hand The mask of the cards of the player, as defined in CardBits.
+     * @param opponentDrew How many cards the opponent drew in the latest draw, or -1 before the first draw.
+     * @param agentDrew How many cards the player drew in the latest draw, or -1 before the first draw.
+     */
+    public static int infoSet(int position, int drawsRemaining, int raises, long hand, int opponentDrew, int agentDrew) {
+        int[] ranks = BadugiEvaluator.activeRanks(CardBits.strength(hand));
+        return Tabular.State.EncodeToInt(position, drawsRemaining, raises, ranks.length, ranks[0], opponentDrew, agentDrew);
+    }
+
+    /**
+     * The chips that the given betting action puts into the pot, as in {@code PLBadugiOffPolicyTable}.
+     */
+    public static int chips(int action, int toCall, int minRaise, int maxRaise) {
+        switch(action) {
+            case Tabular.Qaction.FoldAction: return toCall - 1;
+            case Tabular.Qaction.CallAction: return toCall;
+            case Tabular.Qaction.MinRaiseAction: return minRaise;
+            case Tabular.Qaction.MiddleRaiseAction: return minRaise + (maxRaise - minRaise) / 2;
+            case Tabular.Qaction.MaxRaiseAction: return maxRaise;
+            default: throw new IllegalArgumentException("Not a betting action: " + action);
+        }
+    }
+
+    // The mask of the actions allowed with the given number of raises made in the round. There is nothing to fold
+    // before the first raise, and only folding and calling after the last one.
+    static int legalActions(int raises) {
+        if(raises == 0) { return 0b11110; }
+        return raises < PLBadugiRunner.MAX_RAISES ? 0b11111 : 0b00011;
+    }
+
+    /**
+     * Fill in the average strategy of the given information set.
+     * @param infoSet The information set, as returned by {@code infoSet}.
+     * @param out The array of ACTIONS probabilities to fill in.
+     * @return Whether the information set has been visited; if not, the probabilities are all zero.
+     */
+    public boolean averageStrategy(int infoSet, double[] out) {
+        double total = 0;
+        for(int a = 0; a < ACTIONS; a++) {
+            out[a] = get(strategySums, infoSet * ACTIONS + a);
+            total += out[a];
+        }
+        for(int a = 0; a < ACTIONS; a++) { out[a] = total > 0 ? out[a] / total : 0; }
+        return total > 0;
+    }
+
+    /**
+     * The average strategy of every information set as a table of cumulative probabilities, ACTIONS per
+     * information set, in which the rows of the information sets never visited are all zero.
+     */
+    public float[] strategyTable() {
+        float[] table = new float[INFO_SETS * ACTIONS];
+        double[] p = new double[ACTIONS];
+        for(int i = 0; i < INFO_SETS; i++) {
+            if(!averageStrategy(i, p)) { continue; }
+            double sum = 0;
+            for(int a = 0; a < ACTIONS; a++) {
+                sum += p[a];
+                table[i * ACTIONS + a] = (float) sum;
+            }
+            table[i * ACTIONS + ACTIONS - 1] = 1f;
+        }
+        return table;
+    }
+
+    // The current strategy of the information set by regret matching over the allowed actions.
+    private void currentStrategy(int infoSet, int legal, double[] out) {
+        double total = 0;
+        int count = 0;
+        for(int a = 0; a < ACTIONS; a++) {
+            out[a] = (legal & (1 << a)) != 0 ? Math.max(0, get(regrets, infoSet * ACTIONS + a)) : 0;
+            total += out[a];
+            if((legal & (1 << a)) != 0) { count++; }
+        }
+        for(int a = 0; a < ACTIONS; a++) {
+            if((legal & (1 << a)) == 0) { continue; }
+            out[a] = total > 0 ? out[a] / total : 1.0 / count;
+        }
+    }
+
+    static double get(AtomicLongArray array, int i) {
+        return Double.longBitsToDouble(array.get(i));
+    }
+
+    // Add to the double at the given index without locking, retrying if another thread changed it meanwhile.
+    static void add(AtomicLongArray array, int i, double delta, boolean floorAtZero) {
+        while(true) {
+            long bits = array.get(i);
+            double value = Double.longBitsToDouble(bits) + delta;
+            if(floorAtZero && value < 0) { value = 0; }
+            if(array.compareAndSet(i, bits, Double.doubleToRawLongBits(value))) { return; }
+        }
+    }
+
+    /**
+     * Train the solver in the given number of threads until it has played the given number of iterations in all.
+     */
+    public void train(long totalIterations, int threads, long seed) {
+        try { train(totalIterations, threads, seed, null, Long.MAX_VALUE); }
+        catch(IOException e) { throw new AssertionError(e); } // nothing is written without a checkpoint file
+    }
+
+    /**
+     * Train the solver as above, saving a checkpoint into the given file whenever at least the given number of
+     * iterations have been played since the previous one, and once more at the end. The checkpoints are taken
+     * while the threads keep training, so that a checkpoint holds the updates of some iterations only partially.
+     * @param checkpoint The file of the checkpoints, or null to take none.
+     * @param checkpointEvery How many iterations to play between the checkpoints.
+     */
+    public void train(long totalIterations, int threads, long seed, Path checkpoint, long checkpointEvery) throws IOException {
+        SplitMixRandom rng = new SplitMixRandom(seed);
+        long before = iterations.get();
+        Thread[] workers = new Thread[Math.max(1, threads)];
+        Throwable[] failure = new Throwable[1];
+        for(int t = 0; t < workers.length; t++) {
+            Traversal traversal = new Traversal(rng.split());
+            workers[t] = new Thread(() -> {
+                try {
+                    while(true) {
+                        long first = iterations.getAndAdd(BATCH);
+                        if(first >= totalIterations) { break; }
+                        for(long i = first; i < Math.min(first + BATCH, totalIterations); i++) { traversal.iterate(); }
+                    }
+                } catch(Throwable e) {
+                    synchronized(failure) { failure[0] = e; }
+                }
+            }, "cfr-worker-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+        long checkpointed = iterations.get();
+        try {
+            for(Thread w: workers) {
+                while(w.isAlive()) {
+                    w.join(1000);
+                    if(checkpoint != null && iterations.get() - checkpointed >= checkpointEvery) {
+                        checkpointed = iterations.get();
+                        save(checkpoint);
+                    }
+                }
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // The claims of the threads overshoot the total by a batch each.
+        iterations.set(Math.max(before, Math.min(iterations.get(), totalIterations)));
+        synchronized(failure) {
+            if(failure[0] != null) { throw new RuntimeException("CFR training failed", failure[0]); }
+        }
+        if(checkpoint != null) { save(checkpoint); }
+    }
+
+    /**
+     * Save the regrets and the average strategy into the given file, replacing it atomically where the file
+     * system allows, so that an interrupted save leaves the previous checkpoint intact.
+     */
+    public void save(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            int count = 0;
+            for(int i = 0; i < INFO_SETS; i++) { if(visited(i)) { count++; } }
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(iterations.get());
+            out.writeInt(ACTIONS);
+            out.writeInt(count);
+            for(int i = 0; i < INFO_SETS && count > 0; i++) {
+                if(!visited(i)) { continue; }
+                out.writeInt(i);
+                for(int a = 0; a < ACTIONS; a++) { out.writeDouble(get(regrets, i * ACTIONS + a)); }
+                for(int a = 0; a < ACTIONS; a++) { out.writeDouble(get(strategySums, i * ACTIONS + a)); }
+                count--;
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private boolean visited(int infoSet) {
+        for(int a = 0; a < ACTIONS; a++) {
+            if(regrets.get(infoSet * ACTIONS + a) != 0 || strategySums.get(infoSet * ACTIONS + a) != 0) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Load a solver from a checkpoint saved by {@code save}, to resume its training or to play its strategy.
+     * @throws IOException If the file cannot be read, or if it is not a checkpoint of a known version.
+     */
+    public static CfrSolver load(Path file) throws IOException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if(in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a CFR checkpoint.");
+            }
+            int version = in.readInt();
+            if(version != VERSION) {
+                throw new IOException("CFR checkpoint " + file + " has unsupported version " + version + ".");
+            }
+            CfrSolver solver = new CfrSolver();
+            solver.iterations.set(in.readLong());
+            if(in.readInt() != ACTIONS) {
+                throw new IOException("CFR checkpoint " + file + " has a different number of actions.");
+            }
+            int count = in.readInt();
+            for(int k = 0; k < count; k++) {
+                int i = in.readInt();
+                if(i < 0 || i >= INFO_SETS) {
+                    throw new IOException("CFR checkpoint " + file + " has an invalid information set " + i + ".");
+                }
+                for(int a = 0; a < ACTIONS; a++) { solver.regrets.set(i * ACTIONS + a, Double.doubleToRawLongBits(in.readDouble())); }
+                for(int a = 0; a < ACTIONS; a++) { solver.strategySums.set(i * ACTIONS + a, Double.doubleToRawLongBits(in.readDouble())); }
+            }
+            return solver;
+        }
+    }
+
+    // The traversals of one thread, with the cards of the current deal and the buffers of the strategies.
+    private final class Traversal {
+        private final SplitMixRandom rng;
+        private final int[] deck = new int[52];
+        // The hands of both players in each betting round, indexed by the draws remaining, and how many
+        // cards they drew in the draw before it, -1 before the first draw.
+        private final long[][] hands = new long[2][4];
+        private final int[][] drew = new int[2][4];
+        private int showdown;
+        // The information sets of both players in each betting round for each number of raises.
+        private final int[][][] infoSets = new int[2][4][PLBadugiRunner.MAX_RAISES + 1];
+        // Whether the actions that the traverser never plays are skipped in this iteration.
+        private boolean prune;
+        private final double[][] strategies = new double[MAX_DEPTH][ACTIONS];
+        private final double[][] values = new double[MAX_DEPTH][ACTIONS];
+
+        Traversal(SplitMixRandom rng) {
+            this.rng = rng;
+            for(int i = 0; i < 52; i++) { deck[i] = i; }
+        }
+
+        // Deal a random hand with all its draws, and let both players traverse it.
+        void iterate() {
+            deal();
+            prune = rng.nextDouble() < PRUNE_PROBABILITY;
+            for(int traverser = 0; traverser < 2; traverser++) {
+                bet(traverser, 3, 0, 2 * PLBadugiRunner.ANTE, PLBadugiRunner.ANTE, PLBadugiRunner.ANTE, 0, -1,
+                    PLBadugiRunner.ANTE * PLBadugiRunner.MIN_RAISE[3], 0);
+            }
+        }
+
+        private void deal() {
+            int next = 0;
+            long[] h = { 0, 0 };
+            int[] d = { -1, -1 };
+            for(int drawsRemaining = 3; drawsRemaining >= 0; drawsRemaining--) {
+                for(int p = 0; p < 2; p++) {
+                    int count = drawsRemaining == 3 ? 4 : Long.bitCount(CardBits.inactiveMask(h[p]));
+                    if(drawsRemaining < 3) {
+                        h[p] &= ~CardBits.inactiveMask(h[p]);
+                        d[p] = count;
+                    }
+                    for(int k = 0; k < count; k++, next++) {
+                        // Shuffle the deck only as far as it is dealt.
+                        int j = next + rng.nextInt(52 - next);
+                        int c = deck[j]; deck[j] = deck[next]; deck[next] = c;
+                        h[p] |= CardBits.bit(c);
+                    }
+                    hands[p][drawsRemaining] = h[p];
+                    drew[p][drawsRemaining] = d[p];
+                }
+            }
+            showdown = Integer.compare(CardBits.strength(h[0]), CardBits.strength(h[1]));
+            for(int p = 0; p < 2; p++) {
+                for(int drawsRemaining = 0; drawsRemaining < 4; drawsRemaining++) {
+                    for(int raises = 0; raises <= PLBadugiRunner.MAX_RAISES; raises++) {
+                        infoSets[p][drawsRemaining][raises] = infoSet(p, drawsRemaining, raises, hands[p][drawsRemaining],
+                            drew[1 - p][drawsRemaining], drew[p][drawsRemaining]);
+                    }
+                }
+            }
+        }
+
+        // The value for the traverser of the betting from the given situation on, in chips, updating the regrets
+        // of the traverser and the average strategy of the other player on the way.
+        private double bet(int traverser, int drawsRemaining, int actor, int pot, int bet0, int bet1, int raises,
+                           int calls, int highestRaise, int depth) {
+            if(calls >= 1) { // the betting round is over
+                if(drawsRemaining == 0) {
+                    int result = showdown < 0 ? -bet0 : showdown > 0 ? bet1 : 0;
+                    return traverser == 0 ? result : -result;
+                }
+                return bet(traverser, drawsRemaining - 1, 0, pot, bet0, bet1, 0, -1,
+                    PLBadugiRunner.ANTE * PLBadugiRunner.MIN_RAISE[drawsRemaining - 1], depth);
+            }
+            int toCall = actor == 0 ? bet1 - bet0 : bet0 - bet1;
+            int minRaise, maxRaise;
+            if(raises < PLBadugiRunner.MAX_RAISES) {
+                minRaise = Math.max(highestRaise, 2 * toCall);
+                maxRaise = Math.max(highestRaise, pot + 2 * toCall);
+            }
+            else {
+                minRaise = maxRaise = toCall;
+            }
+            int info = infoSets[actor][drawsRemaining][raises];
+            int legal = legalActions(raises);
+            double[] sigma = strategies[depth];
+            currentStrategy(info, legal, sigma);
+
+            if(actor != traverser) {
+                for(int a = 0; a < ACTIONS; a++) {
+                    if(sigma[a] > 0) { add(strategySums, info * ACTIONS + a, sigma[a], false); }
+                }
+                int a = sample(sigma);
+                return act(traverser, drawsRemaining, actor, pot, bet0, bet1, raises, calls, highestRaise, depth,
+                    chips(a, toCall, minRaise, maxRaise), toCall);
+            }
+            double[] v = values[depth];
+            double value = 0;
+            int explored = legal;
+            if(prune) {
+                for(int a = 0; a < ACTIONS; a++) {
+                    if(sigma[a] == 0) { explored &= ~(1 << a); }
+                }
+            }
+            for(int a = 0; a < ACTIONS; a++) {
+                if((explored & (1 << a)) == 0) { continue; }
+                v[a] = act(traverser, drawsRemaining, actor, pot, bet0, bet1, raises, calls, highestRaise, depth,
+                    chips(a, toCall, minRaise, maxRaise), toCall);
+                value += sigma[a] * v[a];
+            }
+            for(int a = 0; a < ACTIONS; a++) {
+                if((explored & (1 << a)) != 0) { add(regrets, info * ACTIONS + a, v[a] - value, true); }
+            }
+            return value;
+        }
+
+        // Push the given chips into the pot for the actor, as playOneHand does, and go on with the betting.
+        private double act(int traverser, int drawsRemaining, int actor, int pot, int bet0, int bet1, int raises,
+                           int calls, int highestRaise, int depth, int action, int toCall) {
+            if(action < toCall) { // the actor folds
+                int result = actor == 1 ? bet1 : -bet0;
+                return traverser == 0 ? result : -result;
+            }
+            if(action == toCall) {
+                calls++;
+            }
+            else {
+                raises++;
+                calls = 0;
+                if(action - toCall > highestRaise) { highestRaise = action - toCall; }
+            }
+            if(actor == 0) { bet0 += action; } else { bet1 += action; }
+            return bet(traverser, drawsRemaining, 1 - actor, pot + action, bet0, bet1, raises, calls, highestRaise, depth + 1);
+        }
+
+        private int sample(double[] p) {
+            double u = rng.nextDouble();
+            int last = 0;
+            for(int a = 0; a < ACTIONS; a++) {
+                if(p[a] <= 0) { continue; }
+                last = a;
+                u -= p[a];
+                if(u < 0) { return a; }
+            }
+            return last;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "cfr.bin");
+        long total = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        CfrSolver solver = Files.exists(file) ? load(file) : new CfrSolver();
+        long start = System.currentTimeMillis(), resumed = solver.getIterations();
+        solver.train(total, Runtime.getRuntime().availableProcessors(), RandomSource.create().nextLong(), file,
+            Math.max(BATCH, total / 20));
+        System.out.println("Played " + (solver.getIterations() - resumed) + " iterations, " + solver.getIterations()
+            + " in all, in " + (System.currentTimeMillis() - start) + " ms into " + file + ".");
+    }
+}
@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class CfrSolverTest {
+
+    @Test
+    void actionsBecomeChipsAsInThePlayers() {
+        assertEquals(-1, CfrSolver.chips(Tabular.Qaction.FoldAction, 0, 4, 6));
+        assertEquals(3, CfrSolver.chips(Tabular.Qaction.CallAction, 3, 6, 11));
+        assertEquals(6, CfrSolver.chips(Tabular.Qaction.MinRaiseAction, 3, 6, 11));
+        assertEquals(8, CfrSolver.chips(Tabular.Qaction.MiddleRaiseAction, 3, 6, 11));
+        assertEquals(11, CfrSolver.chips(Tabular.Qaction.MaxRaiseAction, 3, 6, 11));
+        assertEquals(0b11110, CfrSolver.legalActions(0));
+        assertEquals(0b00011, CfrSolver.legalActions(PLBadugiRunner.MAX_RAISES));
+    }
+
+    @Test
+    void averageStrategiesAreDistributionsOverTheAllowedActions() {
+        CfrSolver solver = new CfrSolver();
+        solver.train(2000, 1, 1);
+        assertEquals(2000, solver.getIterations());
+        double[] p = new double[CfrSolver.ACTIONS];
+        int visited = 0;
+        for(int raises = 0; raises <= PLBadugiRunner.MAX_RAISES; raises++) {
+            for(int length = 1; length <= 4; length++) {
+                for(int rank = length; rank <= 13; rank++) {
+                    int info = Tabular.State.EncodeToInt(0, 3, raises, length, rank, -1, -1);
+                    if(!solver.averageStrategy(info, p)) { continue; }
+                    visited++;
+                    double sum = 0;
+                    for(int a = 0; a < CfrSolver.ACTIONS; a++) {
+                        assertTrue(p[a] >= 0);
+                        if((CfrSolver.legalActions(raises) & (1 << a)) == 0) { assertEquals(0.0, p[a]); }
+                        sum += p[a];
+                    }
+                    assertEquals(1.0, sum, 1e-9);
+                }
+            }
+        }
+        assertTrue(visited > 10, "visited " + visited);
+    }
+
+    @Test
+    void checkpointsRestoreTheSolver() throws IOException {
+        Path file = Files.createTempFile("cfr", ".bin");
+        try {
+            CfrSolver solver = new CfrSolver();
+            solver.train(500, 2, 2, file, 100);
+            CfrSolver loaded = CfrSolver.load(file);
+            assertEquals(500, loaded.getIterations());
+            assertArrayEquals(solver.strategyTable(), loaded.strategyTable());
+            // The loaded solver resumes the training.
+            loaded.train(700, 1, 3);
+            assertEquals(700, loaded.getIterations());
+            Files.write(file, new byte[16]);
+            assertThrows(IOException.class, () -> CfrSolver.load(file));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void playerPlaysTheAverageStrategy() {
+        CfrSolver solver = new CfrSolver();
+        solver.train(1000, 1, 4);
+        PLBadugiPlayer[] players = { new CfrPlayer(solver, 5), new SimplePlayer() };
+        MatchStats stats = new MatchStats();
+        PLBadugiRunner.playHeadsUp(new EfficientDeck(new Rng.SplitMixRandom(6)), players, (GameEventSink) null, null, 2000, stats);
+        assertEquals(2000, stats.handCount);
+        // An untrained agent calls every time.
+        PLBadugiPlayer untrained = new CfrPlayer(new CfrSolver(), 7);
+        untrained.startNewHand(0, 1, 0);
+        assertEquals(5, untrained.bettingAction(1, new PLBadugiHand("kckdkhks"), 20, 1, 5, 10, 30, 2));
+    }
+}
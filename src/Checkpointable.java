@@ -0,0 +1,32 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An agent whose learned state can be saved into a checkpoint while it plays, so that a later run can warm-start
+ * from it instead of learning from scratch. Taking a snapshot copies the state in the thread that plays the match,
+ * between two hands, so it must be quick; saving the snapshot may then take its time in any other thread, while the
+ * agent goes on learning.
+ */
+public interface Checkpointable {
+
+    /**
+     * A copy of the learned state of an agent, which no longer changes when the agent learns.
+     */
+    interface Snapshot {
+        /**
+         * Save the state into the given file, replacing it atomically where the file system allows.
+         * @throws IOException If the file cannot be written.
+         */
+        void save(Path file) throws IOException;
+    }
+
+    /**
+     * Copy the current learned state of this agent.
+     */
+    Snapshot snapshot();
+
+    /**
+     * The checkpoint that the agents of this class created by name warm-start from, if it exists.
+     */
+    Path checkpointFile();
+}
@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The sink that saves a checkpoint of the learned state of an agent every given number of hands, so that stopping a
+ * long match loses only the hands since the latest checkpoint, and the next run can warm-start from it. The snapshot
+ * of the state is taken in the thread that plays the match when a hand is finished, which costs the copy of the
+ * weights or of the Q-table, and is saved by a background thread that all checkpointers share, so that the match
+ * never waits for the disk and the saves of different agents never overlap. If the previous checkpoint of the agent
+ * is still being saved when the next one is due, the next one is skipped rather than queued.
+ * <p>
+ * {@code PLBadugiRunner} checkpoints the agents of every match that are {@code Checkpointable} into their
+ * {@code checkpointFile} every number of hands given by the system property {@code badugi.checkpoint}, or never if
+ * it is 0, the default.
+ */
+public class Checkpointer implements GameEventSink {
+
+    // The thread that saves the checkpoints, started when the first one is due.
+    private static final class Writer {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private final Checkpointable agent;
+    private final Path file;
+    private final long interval;
+    private long hands;
+    // The save of the latest checkpoint, or null if none has been taken.
+    private Future<?> pending;
+    private long skipped;
+    private final AtomicInteger saved = new AtomicInteger();
+
+    /**
+     * Constructor for the class.
+     * @param agent The agent to checkpoint.
+     * @param file The file to save the checkpoints into, each replacing the previous one.
+     * @param interval How many hands to play between two checkpoints.
+     */
+    public Checkpointer(Checkpointable agent, Path file, long interval) {
+        if(interval <= 0) { throw new IllegalArgumentException("The interval must be positive: " + interval); }
+        this.agent = agent;
+        this.file = file;
+        this.interval = interval;
+    }
+
+    @Override
+    public void handFinished(int result) {
+        if(++hands % interval == 0) { checkpoint(); }
+    }
+
+    /**
+     * Take a snapshot of the agent now and save it in the background, unless the previous one is still being saved.
+     * @return Whether the snapshot was taken.
+     */
+    public boolean checkpoint() {
+        if(pending != null && !pending.isDone()) {
+            skipped++;
+            return false;
+        }
+        Checkpointable.Snapshot snapshot = agent.snapshot();
+        pending = Writer.EXECUTOR.submit(() -> save(snapshot));
+        return true;
+    }
+
+    private void save(Checkpointable.Snapshot snapshot) {
+        try {
+            snapshot.save(file);
+            saved.incrementAndGet();
+        }
+        catch(IOException | RuntimeException e) { System.err.println("Checkpoint " + file + " failed: " + e); }
+    }
+
+    /**
+     * Wait for the checkpoint being saved, then take a final one and wait for it to be saved too.
+     */
+    public void close() {
+        await();
+        checkpoint();
+        await();
+    }
+
+    private void await() {
+        if(pending == null) { return; }
+        try { pending.get(); }
+        catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+        catch(ExecutionException e) { throw new IllegalStateException(e.getCause()); }
+    }
+
+    /** How many hands this checkpointer has seen finished. */
+    public long getHands() { return hands; }
+
+    /** How many checkpoints have been saved so far. */
+    public int getSaved() { return saved.get(); }
+
+    /** How many checkpoints have been skipped because the previous one was still being saved. */
+    public long getSkipped() { return skipped; }
+}
@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+import Rng.SplitMixRandom;
+
+class CheckpointerTest {
+
+    @Test
+    void weightsLoadBackAsSaved() throws IOException {
+        Path file = Files.createTempFile("theta", ".bin");
+        try {
+            double[] weights = new double[PLBadugi500877176.featureLength()];
+            for(int i = 0; i < weights.length; i++) { weights[i] = i - 0.25 * i * i; }
+            PLBadugi500877176.saveWeights(weights, file);
+            assertArrayEquals(weights, PLBadugi500877176.loadWeights(file));
+
+            PLBadugi500877176.saveWeights(new double[3], file);
+            assertThrows(IOException.class, () -> PLBadugi500877176.loadWeights(file));
+            Files.write(file, new byte[64]);
+            assertThrows(IOException.class, () -> PLBadugi500877176.loadWeights(file));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void matchesAreCheckpointedInTheBackground() throws IOException {
+        Path file = Files.createTempFile("theta", ".bin");
+        try {
+            PLBadugi500877176 agent = new PLBadugi500877176();
+            PLBadugiPlayer[] players = { agent, new IlkkaPlayer3("Ilkka", new SplitMixRandom(2)) };
+            Checkpointer checkpointer = new Checkpointer(agent, file, 100);
+            PLBadugiRunner.playHeadsUp(new EfficientDeck(new SplitMixRandom(3)), players, checkpointer, null, 1000, new MatchStats());
+            checkpointer.close();
+            assertEquals(1000, checkpointer.getHands());
+            assertEquals(11, checkpointer.getSaved() + checkpointer.getSkipped());
+            // The final checkpoint has the weights at the end of the match, which a new agent can warm-start from.
+            double[] weights = PLBadugi500877176.loadWeights(file);
+            assertArrayEquals(agent.getWeights(), weights);
+            PLBadugi500877176 warm = new PLBadugi500877176();
+            warm.setWeights(weights);
+            assertArrayEquals(weights, warm.getWeights());
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void checkpointsAreSkippedWhileTheLatestIsBeingSaved() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        int[] saves = new int[1];
+        Checkpointable agent = new Checkpointable() {
+            @Override
+            public Snapshot snapshot() {
+                return file -> {
+                    try { release.await(); }
+                    catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+                    saves[0]++;
+                };
+            }
+
+            @Override
+            public Path checkpointFile() { return null; }
+        };
+        Checkpointer checkpointer = new Checkpointer(agent, null, 2);
+        for(int h = 0; h < 10; h++) { checkpointer.handFinished(0); }
+        assertEquals(4, checkpointer.getSkipped());
+        release.countDown();
+        checkpointer.close();
+        assertEquals(2, checkpointer.getSaved());
+        assertEquals(2, saves[0]);
+        assertThrows(IllegalArgumentException.class, () -> new Checkpointer(agent, null, 0));
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.Arrays;
+
+/**
+ * A series of points sampled from a stream of values at every stride:th position from the first one, kept
+ * in constant memory. When the series is full, every other point is dropped and the stride is doubled, so that
+ * the series always covers the whole stream, however long, at the resolution that its capacity allows.
+ */
+public class DownsampledSeries {
+
+    private final long[] xs;
+    private final double[] ys;
+    private int size;
+    private long stride;
+    // The position of the next point to be sampled.
+    private long next;
+
+    /**
+     * Constructor for the class.
+     * @param capacity The most points that the series holds, at least two.
+     * @param first The position of the first point.
+     * @param stride The distance between the points until the series first fills up.
+     */
+    public DownsampledSeries(int capacity, long first, long stride) {
+        if(capacity < 2 || stride < 1) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity + " or stride " + stride);
+        }
+        this.xs = new long[capacity];
+        this.ys = new double[capacity];
+        this.stride = stride;
+        this.next = first;
+    }
+
+    /**
+     * Whether the point at the given position would be sampled, so that its value needs to be computed.
+     */
+    public boolean isDue(long x) { return x == next; }
+
+    /**
+     * Offer the value at the given position of the stream, which is added to the series if the position is due.
+     * @return Whether the value was added.
+     */
+    public boolean offer(long x, double y) {
+        if(x != next) { return false; }
+        add(x, y);
+        return true;
+    }
+
+    private void add(long x, double y) {
+        if(size == xs.length) { compact(); }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+        next = x + stride;
+    }
+
+    // Drop every other point and double the stride.
+    private void compact() {
+        for(int i = 0; 2 * i < size; i++) {
+            xs[i] = xs[2 * i];
+            ys[i] = ys[2 * i];
+        }
+        size = (size + 1) / 2;
+        stride *= 2;
+        if(size > 0) { next = xs[size - 1] + stride; }
+    }
+
+    /**
+     * Append the points of another series after those of this one, as the continuation of the same stream. Both
+     * series are first brought to the coarser of their strides, and of the points of the other series only those
+     * at the positions that this series would sample next are kept, so that the result is the same as that of
+     * sampling the whole stream into one series as long as the other series holds every point that this one would
+     * have sampled, such as when both start from position zero and the offset is a multiple of the stride of the
+     * other. A point that the other series lacks is skipped, and the sampling goes on from its next point.
+     * @param offset The position in this stream of the start of the other stream.
+     */
+    public void merge(DownsampledSeries other, long offset) {
+        while(stride < other.stride) { compact(); }
+        for(int i = 0; i < other.size; i++) {
+            long x = other.xs[i] + offset;
+            if(x >= next) { add(x, other.ys[i]); }
+        }
+        next = Math.max(next, other.next + offset);
+    }
+
+    /** How many points the series holds. */
+    public int size() { return size; }
+    /** The current distance between the points. */
+    public long getStride() { return stride; }
+
+    /** The positions of the points, in ascending order. */
+    public double[] getX() {
+        double[] result = new double[size];
+        for(int i = 0; i < size; i++) { result[i] = xs[i]; }
+        return result;
+    }
+
+    /** The values of the points. */
+    public double[] getY() { return Arrays.copyOf(ys, size); }
+}
@@ -0,0 +1,339 @@
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import Rng.SplitMixRandom;
+
+/**
+ * Computes the exact distribution of the strength that a badugi hand ends up with when it discards the given
+ * cards, for deciding how many and which cards to draw. The draw being decided is enumerated over every
+ * combination of the cards that can still be in the deck, the cards of the hand and the dead cards excluded.
+ * When more draws remain after it, the hand makes the standard draw of its inactive cards in each of them, from
+ * the cards not in its kept badugi, as if the cards seen in the earlier draws were shuffled back into the deck.
+ * The distributions of those later draws depend only on the ranks of the kept badugi, and are computed once
+ * for all hands.
+ * <p>
+ * The outcomes are cached by the kept cards and the removed ones, the discarded and the dead cards together,
+ * renamed into canonical form, so that the hands that differ only in their suits share them. All 16 discards
+ * of a hand are computed from a cold cache in a couple of milliseconds. The outcomes can be shared by agents
+ * in parallel matches.
+ */
+public class DrawOutcomes {
+
+    private static final int STRENGTH_COUNT = BadugiEvaluator.STRENGTH_COUNT;
+    // The strengths of the badugis of four cards start from this one, after those of one, two and three cards.
+    private static final int FOUR_CARD_BADUGI = 13 + 78 + 286;
+
+    /**
+     * The distribution of the strength of a hand after its draws.
+     */
+    public static final class Outcome {
+        // The probability that the strength is below each strength, and 1 at the end.
+        private final double[] below = new double[STRENGTH_COUNT + 1];
+        private final double expectedStrength;
+
+        Outcome(double[] probabilities) {
+            double expected = 0;
+            for(int s = 0; s < STRENGTH_COUNT; s++) {
+                below[s + 1] = below[s] + probabilities[s];
+                expected += s * probabilities[s];
+            }
+            this.expectedStrength = expected;
+        }
+
+        /** The probability that the hand ends up with the given dense strength, as defined in BadugiEvaluator. */
+        public double getProbability(int strength) { return below[strength + 1] - below[strength]; }
+
+        /** The probability that the best badugi of the hand ends up with the given number of cards, from 1 to 4. */
+        public double getBadugiProbability(int cards) {
+            if(cards < 1 || cards > 4) {
+                throw new IllegalArgumentException("A badugi has from 1 to 4 cards: " + cards);
+            }
+            return below[SIZE_START[cards]] - below[SIZE_START[cards - 1]];
+        }
+
+        /** The expected dense strength of the hand after the draws. */
+        public double getExpectedStrength() { return expectedStrength; }
+
+        /** The probability that the hand ends up stronger than the given strength, counting a tie as half. */
+        public double winProbability(int opponentStrength) {
+            return 1.0 - below[opponentStrength + 1] + 0.5 * getProbability(opponentStrength);
+        }
+
+        /**
+         * The probability that the hand ends up stronger than an opponent whose strength has the given
+         * distribution, counting a tie as half.
+         */
+        public double equity(double[] opponentStrengths) {
+            double result = 0;
+            for(int s = 0; s < opponentStrengths.length; s++) {
+                if(opponentStrengths[s] != 0) { result += opponentStrengths[s] * winProbability(s); }
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("badugi %.4f, three cards %.4f, expected strength %.1f",
+                getBadugiProbability(4), getBadugiProbability(3), expectedStrength);
+        }
+    }
+
+    // The first strength of the badugis of each number of cards, and the end of the strengths.
+    private static final int[] SIZE_START = { 0, 13, 13 + 78, FOUR_CARD_BADUGI, STRENGTH_COUNT };
+
+    // The key of a cached outcome: the kept and the removed cards renamed together into canonical form.
+    private static final class Key {
+        final long kept, removed;
+        final int drawn, drawsRemaining;
+
+        Key(long kept, long removed, int drawn, int drawsRemaining) {
+            this.kept = kept;
+            this.removed = removed;
+            this.drawn = drawn;
+            this.drawsRemaining = drawsRemaining;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key)) { return false; }
+            Key k = (Key) o;
+            return kept == k.kept && removed == k.removed && drawn == k.drawn && drawsRemaining == k.drawsRemaining;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) SplitMixRandom.mix64(kept * 31 + removed ^ (drawn << 2 | drawsRemaining));
+        }
+    }
+
+    private final int cacheCapacity;
+    private final Map<Key, Outcome> cache = new ConcurrentHashMap<Key, Outcome>();
+
+    /**
+     * Create the engine with a cache of a couple of thousand outcomes.
+     */
+    public DrawOutcomes() {
+        this(1 << 11);
+    }
+
+    /**
+     * Constructor for the class.
+     * @param cacheCapacity How many outcomes are cached before the cache is cleared.
+     */
+    public DrawOutcomes(int cacheCapacity) {
+        this.cacheCapacity = cacheCapacity;
+    }
+
+    /**
+     * The engine shared by all agents.
+     */
+    public static DrawOutcomes getShared() {
+        return Shared.INSTANCE;
+    }
+
+    private static final class Shared {
+        static final DrawOutcomes INSTANCE = new DrawOutcomes();
+    }
+
+    /**
+     * Compute the outcome of the given discard as in {@code outcome}.
+     * @param dead The cards known not to be in the deck, e.g. those discarded in the earlier draws, or null.
+     */
+    public Outcome outcome(PLBadugiHand hand, List<Card> discard, List<Card> dead, int drawsRemaining) {
+        return outcome(hand.getCardMask(), CardBits.toMask(discard), dead == null ? 0L : CardBits.toMask(dead),
+            drawsRemaining);
+    }
+
+    /**
+     * Compute the outcome of discarding the given cards in the next draw, or get it from the cache.
+     * @param hand The mask of the four cards of the hand, as defined in CardBits.
+     * @param discard The mask of the cards to discard, which must be in the hand.
+     * @param dead The mask of the cards known not to be in the deck.
+     * @param drawsRemaining How many draws are left, including the next one, from 1 to 3.
+     * @return The distribution of the strength of the hand after all the draws.
+     */
+    public Outcome outcome(long hand, long discard, long dead, int drawsRemaining) {
+        if(Long.bitCount(hand) != 4) {
+            throw new IllegalArgumentException("A hand has four cards: " + CardBits.toString(hand));
+        }
+        if((discard & ~hand) != 0) {
+            throw new IllegalArgumentException("Cannot discard cards not in the hand: " + CardBits.toString(discard & ~hand));
+        }
+        if(drawsRemaining < 1 || drawsRemaining > 3) {
+            throw new IllegalArgumentException("drawsRemaining must be from 1 to 3: " + drawsRemaining);
+        }
+        long kept = hand & ~discard, removed = (discard | dead) & ~kept;
+        int drawn = Long.bitCount(discard);
+        if(Long.bitCount(CardBits.ALL_CARDS & ~kept & ~removed) < drawn) {
+            throw new IllegalArgumentException("Not enough cards left in the deck to draw " + drawn);
+        }
+        int p = CardBits.canonicalPermutation(kept, removed);
+        Key key = new Key(CardBits.permuteSuits(kept, p), CardBits.permuteSuits(removed, p), drawn, drawsRemaining);
+        Outcome o = cache.get(key);
+        if(o == null) {
+            o = compute(key);
+            if(cache.size() >= cacheCapacity) { cache.clear(); }
+            cache.put(key, o);
+        }
+        return o;
+    }
+
+    /**
+     * Compute the outcomes of all 16 discards of the given hand.
+     * @param hand The mask of the four cards of the hand.
+     * @param dead The mask of the cards known not to be in the deck.
+     * @param drawsRemaining How many draws are left, including the next one, from 1 to 3.
+     * @return The outcomes indexed by the discards, bit i standing for the i:th lowest card code of the hand,
+     * as in {@code EquityTable.bestDiscard}.
+     */
+    public Outcome[] outcomes(long hand, long dead, int drawsRemaining) {
+        Outcome[] result = new Outcome[16];
+        for(int bits = 0; bits < 16; bits++) {
+            result[bits] = outcome(hand, discardMask(hand, bits), dead, drawsRemaining);
+        }
+        return result;
+    }
+
+    /**
+     * The mask of the cards of the hand given by the bits, bit i standing for the i:th lowest card code.
+     */
+    public static long discardMask(long hand, int bits) {
+        long result = 0;
+        for(int i = 0; i < 4; i++) {
+            long low = hand & -hand;
+            if((bits & (1 << i)) != 0) { result |= low; }
+            hand ^= low;
+        }
+        return result;
+    }
+
+    /** How many outcomes are in the cache. */
+    public int getCacheSize() { return cache.size(); }
+
+    /**
+     * Compute the probability that the hand after replacing the given cards in one draw is stronger than the given
+     * strength, counting a tie as half. The draw is enumerated every time without caching, for the callers whose
+     * dead cards differ in almost every call, such as an observer who sees the cards of both players.
+     * @param hand The mask of the four cards of the hand.
+     * @param discard The mask of the cards to discard, which must be in the hand.
+     * @param dead The mask of the cards known not to be in the deck.
+     * @param opponentStrength The dense strength of the opponent, as defined in {@code BadugiEvaluator}.
+     */
+    public static double winProbability(long hand, long discard, long dead, int opponentStrength) {
+        long kept = hand & ~discard;
+        double[] p = firstDraw(kept, (discard | dead) & ~kept, Long.bitCount(discard));
+        double result = 0.5 * p[opponentStrength];
+        for(int s = opponentStrength + 1; s < STRENGTH_COUNT; s++) { result += p[s]; }
+        return result;
+    }
+
+    private static Outcome compute(Key key) {
+        double[] first = firstDraw(key.kept, key.removed, key.drawn);
+        if(key.drawsRemaining == 1) { return new Outcome(first); }
+        double[][] later = Later.distributions[key.drawsRemaining - 2];
+        double[] result = new double[STRENGTH_COUNT];
+        for(int s = 0; s < STRENGTH_COUNT; s++) {
+            double p = first[s];
+            if(p == 0) { continue; }
+            if(s >= FOUR_CARD_BADUGI) { result[s] += p; continue; }
+            double[] next = later[s];
+            for(int t = s; t < STRENGTH_COUNT; t++) { result[t] += p * next[t]; }
+        }
+        return new Outcome(result);
+    }
+
+    // The exact distribution of the strength of the kept cards and the given number of cards drawn from those
+    // not kept or removed, with every combination of them equally likely.
+    private static double[] firstDraw(long kept, long removed, int drawn) {
+        long deck = CardBits.ALL_CARDS & ~kept & ~removed;
+        int[] codes = new int[Long.bitCount(deck)];
+        for(int i = 0; deck != 0; i++) {
+            codes[i] = Long.numberOfTrailingZeros(deck);
+            deck &= deck - 1;
+        }
+        double[] counts = new double[STRENGTH_COUNT];
+        long total = enumerate(kept, codes, drawn, counts);
+        for(int s = 0; s < STRENGTH_COUNT; s++) { counts[s] /= total; }
+        return counts;
+    }
+
+    // Count the strengths of the kept cards with every combination of the given number of the codes, returning
+    // the number of combinations. The hands are looked up by their codes, which the evaluator sorts itself.
+    private static long enumerate(long kept, int[] codes, int drawn, double[] counts) {
+        int n = codes.length;
+        int k0 = Long.numberOfTrailingZeros(kept); kept &= kept - 1;
+        int k1 = Long.numberOfTrailingZeros(kept); kept &= kept - 1;
+        int k2 = Long.numberOfTrailingZeros(kept); kept &= kept - 1;
+        int k3 = Long.numberOfTrailingZeros(kept);
+        switch(drawn) {
+            case 0:
+                counts[strength(k0, k1, k2, k3)]++;
+                return 1;
+            case 1:
+                for(int a = 0; a < n; a++) {
+                    counts[strength(k0, k1, k2, codes[a])]++;
+                }
+                return n;
+            case 2:
+                for(int a = 0; a < n; a++) {
+                    for(int b = a + 1; b < n; b++) {
+                        counts[strength(k0, k1, codes[a], codes[b])]++;
+                    }
+                }
+                return (long) n * (n - 1) / 2;
+            case 3:
+                for(int a = 0; a < n; a++) {
+                    for(int b = a + 1; b < n; b++) {
+                        for(int c = b + 1; c < n; c++) {
+                            counts[strength(k0, codes[a], codes[b], codes[c])]++;
+                        }
+                    }
+                }
+                return (long) n * (n - 1) * (n - 2) / 6;
+            default:
+                // The codes are in ascending order, so that the hands can be indexed without sorting.
+                for(int a = 0; a < n; a++) {
+                    for(int b = a + 1; b < n; b++) {
+                        for(int c = b + 1; c < n; c++) {
+                            for(int d = c + 1; d < n; d++) {
+                                counts[BadugiEvaluator.strength(BadugiEvaluator.lookupSorted(codes[a], codes[b], codes[c], codes[d]))]++;
+                            }
+                        }
+                    }
+                }
+                return (long) n * (n - 1) * (n - 2) * (n - 3) / 24;
+        }
+    }
+
+    private static int strength(int c0, int c1, int c2, int c3) {
+        return BadugiEvaluator.strength(BadugiEvaluator.lookup(c0, c1, c2, c3));
+    }
+
+    // The distributions of the strength after one and after two standard draws from the badugi of each strength
+    // of fewer than four cards, computed when first needed. The kept badugi draws from the cards not in it, so
+    // that the distribution depends only on its ranks.
+    private static final class Later {
+        static final double[][][] distributions = new double[2][FOUR_CARD_BADUGI][];
+
+        static {
+            for(int s = 0; s < FOUR_CARD_BADUGI; s++) {
+                int[] ranks = BadugiEvaluator.activeRanks(s);
+                long kept = 0;
+                for(int i = 0; i < ranks.length; i++) { kept |= CardBits.bit(CardBits.code(i, ranks[i] - 1)); }
+                distributions[0][s] = firstDraw(kept, 0L, 4 - ranks.length);
+            }
+            for(int s = 0; s < FOUR_CARD_BADUGI; s++) {
+                double[] one = distributions[0][s], two = new double[STRENGTH_COUNT];
+                for(int t = s; t < STRENGTH_COUNT; t++) {
+                    double p = one[t];
+                    if(p == 0) { continue; }
+                    if(t >= FOUR_CARD_BADUGI) { two[t] += p; continue; }
+                    double[] next = distributions[0][t];
+                    for(int u = t; u < STRENGTH_COUNT; u++) { two[u] += p * next[u]; }
+                }
+                distributions[1][s] = two;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+class DrawOutcomesTest {
+
+    private static long mask(String cards) {
+        long result = 0;
+        for(int i = 0; i < cards.length(); i += 2) {
+            result |= CardBits.bit(Card.from(cards.substring(i, i + 2)).getCode());
+        }
+        return result;
+    }
+
+    @Test
+    void oneCardDrawsAreCountedExactly() {
+        DrawOutcomes engine = new DrawOutcomes(100);
+        long hand = mask("ac2d3h4h");
+        // Ten spades from four to king make a badugi, out of the 48 cards not in the hand.
+        DrawOutcomes.Outcome o = engine.outcome(hand, mask("4h"), 0L, 1);
+        assertEquals(10 / 48.0, o.getBadugiProbability(4), 1e-12);
+        assertEquals(38 / 48.0, o.getBadugiProbability(3), 1e-12);
+        // The dead cards are not in the deck.
+        o = engine.outcome(hand, mask("4h"), mask("5s6s9c"), 1);
+        assertEquals(8 / 45.0, o.getBadugiProbability(4), 1e-12);
+        // A miss keeps the three-card badugi, which draws again to ten spades out of the 49 cards not kept.
+        o = engine.outcome(hand, mask("4h"), 0L, 2);
+        assertEquals(1 - 38 / 48.0 * 39 / 49.0, o.getBadugiProbability(4), 1e-12);
+    }
+
+    @Test
+    void distributionsAgreeWithEnumeration() {
+        DrawOutcomes engine = new DrawOutcomes(100);
+        long hand = mask("5c5d9hks"), discard = mask("5dks"), kept = hand & ~discard;
+        double[] counts = new double[BadugiEvaluator.STRENGTH_COUNT];
+        long total = 0;
+        for(int a = 0; a < 52; a++) {
+            for(int b = a + 1; b < 52; b++) {
+                long drawn = CardBits.bit(a) | CardBits.bit(b);
+                if((drawn & hand) != 0) { continue; }
+                counts[CardBits.strength(kept | drawn)]++;
+                total++;
+            }
+        }
+        DrawOutcomes.Outcome o = engine.outcome(hand, discard, 0L, 1);
+        double sum = 0, expected = 0;
+        for(int s = 0; s < counts.length; s++) {
+            assertEquals(counts[s] / total, o.getProbability(s), 1e-12);
+            sum += o.getProbability(s);
+            expected += s * counts[s] / total;
+        }
+        assertEquals(1.0, sum, 1e-9);
+        assertEquals(expected, o.getExpectedStrength(), 1e-6);
+        for(int draws = 1; draws <= 3; draws++) {
+            double total3 = 0;
+            for(int cards = 1; cards <= 4; cards++) { total3 += engine.outcome(hand, discard, 0L, draws).getBadugiProbability(cards); }
+            assertEquals(1.0, total3, 1e-9);
+        }
+    }
+
+    @Test
+    void moreDrawsMakeBetterHands() {
+        DrawOutcomes engine = new DrawOutcomes(100);
+        long hand = mask("ac2c7hqh");
+        DrawOutcomes.Outcome[] one = engine.outcomes(hand, 0L, 1), three = engine.outcomes(hand, 0L, 3);
+        assertEquals(16, one.length);
+        // Standing pat keeps the two-card badugi.
+        assertEquals(1.0, one[0].getBadugiProbability(2), 1e-12);
+        for(int bits = 1; bits < 16; bits++) {
+            assertTrue(three[bits].getBadugiProbability(4) > one[bits].getBadugiProbability(4));
+            assertTrue(three[bits].getExpectedStrength() > one[bits].getExpectedStrength());
+        }
+        // Pitching the paired club and the queen draws to a better hand than pitching the ace and the seven.
+        int good = 0b1010, bad = 0b0101;
+        assertEquals(mask("2cqh"), DrawOutcomes.discardMask(hand, good));
+        assertTrue(one[good].getExpectedStrength() > one[bad].getExpectedStrength());
+        // Only the kept ace and seven can make an eight-high badugi.
+        int eightHigh = CardBits.strength(mask("8c7d6h5s"));
+        assertTrue(one[good].winProbability(eightHigh) > 0.01);
+        assertEquals(0.0, one[bad].winProbability(eightHigh), 1e-12);
+        // A pat wheel beats every other hand and ties itself.
+        DrawOutcomes.Outcome wheel = engine.outcome(mask("as2h3d4c"), 0L, 0L, 1);
+        assertEquals(1.0, wheel.winProbability(0), 1e-12);
+        assertEquals(0.5, wheel.winProbability(BadugiEvaluator.STRENGTH_COUNT - 1), 1e-12);
+        double[] onlyWheels = new double[BadugiEvaluator.STRENGTH_COUNT];
+        onlyWheels[BadugiEvaluator.STRENGTH_COUNT - 1] = 1.0;
+        assertEquals(0.5, wheel.equity(onlyWheels), 1e-12);
+        assertEquals(0.0, one[bad].equity(onlyWheels), 1e-12);
+        // The uncached probability agrees with the cached outcome, also with dead cards.
+        long dead = mask("3d4s");
+        assertEquals(engine.outcome(hand, mask("2cqh"), dead, 1).winProbability(eightHigh),
+            DrawOutcomes.winProbability(hand, mask("2cqh"), dead, eightHigh), 1e-12);
+    }
+
+    @Test
+    void handsThatDifferInSuitsShareTheCachedOutcome() {
+        DrawOutcomes engine = new DrawOutcomes(100);
+        DrawOutcomes.Outcome o1 = engine.outcome(mask("ac2d3h4h"), mask("4h"), mask("9s"), 2);
+        DrawOutcomes.Outcome o2 = engine.outcome(mask("as2h3d4d"), mask("4d"), mask("9c"), 2);
+        assertSame(o1, o2);
+        assertEquals(1, engine.getCacheSize());
+        assertNotSame(o1, engine.outcome(mask("as2h3d4d"), mask("4d"), mask("9s"), 2));
+        assertThrows(IllegalArgumentException.class, () -> engine.outcome(mask("as2h3d4d"), mask("5d"), 0L, 1));
+    }
+}
@@ -1,5 +1,8 @@
 import java.util.*;
 
+import Rng.RandomSource;
+import Rng.SplitMixRandom;
+
 /**
  * A more efficient implementation of deck to draw cards from in the game of badugi.
  * This class uses only one random number per each card drawn, instead of shuffling
@@ -10,18 +13,18 @@ import java.util.*;
  */
 public class EfficientDeck
 {
-    // Use the same immutable 52 cards all the time.
-    private static Card[] cards = new Card[52];
+    // The codes of the 52 cards in their initial order, suit by suit.
+    private static int[] codes = new int[52];
     static {
         for(int suit = 0; suit < 4; suit++) {
             for(int rank = 0; rank < 13; rank++) {
-                cards[suit*13+rank] = new Card(suit, rank);
+                codes[suit*13+rank] = CardBits.code(suit, rank);
             }
         }
     }
     
     private Random rng;
-    private Card[] deckCards;
+    private int[] deckCodes;
     private int cardsRemaining;
     
     /**
@@ -31,8 +34,8 @@ public class EfficientDeck
     public EfficientDeck(Random rng)
     {
         this.rng = rng;
-        this.deckCards = new Card[52];
-        System.arraycopy(cards, 0, deckCards, 0, 52);
+        this.deckCodes = new int[52];
+        System.arraycopy(codes, 0, deckCodes, 0, 52);
         this.cardsRemaining = 52;
     }
 
@@ -42,13 +45,21 @@ public class EfficientDeck
      * @return The card that was drawn and removed from this deck.
      */
     public Card drawCard() {
+        return Card.fromCode(drawCode());
+    }
+
+    /**
+     * Draw one card as in {@code drawCard}, but return its primitive code instead of the card object.
+     * @return The code of the card that was drawn and removed from this deck, as defined in {@code CardBits}.
+     */
+    public int drawCode() {
         if(cardsRemaining < 1) { 
             throw new IllegalStateException("Trying to draw a card from an empty deck.");
         }
         int idx = this.rng.nextInt(cardsRemaining);
-        Card result = deckCards[idx];
-        deckCards[idx] = deckCards[--cardsRemaining];
-        deckCards[cardsRemaining] = result;
+        int result = deckCodes[idx];
+        deckCodes[idx] = deckCodes[--cardsRemaining];
+        deckCodes[cardsRemaining] = result;
         return result;
     }
     
@@ -59,13 +70,45 @@ public class EfficientDeck
         cardsRemaining = 52;
     }
     
+    /**
+     * Put all the cards back to the deck in their initial order, and return the state of the random number
+     * generator, which must be a {@code SplitMixRandom}. Giving the returned snapshot to {@code restore} later
+     * makes this deck deal the same cards again, for example to replay a hand with the seats swapped.
+     * @return The snapshot of this deck.
+     */
+    public long snapshot() {
+        SplitMixRandom generator = splitMix();
+        System.arraycopy(codes, 0, deckCodes, 0, 52);
+        cardsRemaining = 52;
+        return generator.getState();
+    }
+
+    /**
+     * Put all the cards back to the deck in their initial order, and restore the random number generator to
+     * the given snapshot, so that this deck deals the same cards that it dealt after the snapshot was taken.
+     * @param snapshot The snapshot returned by {@code snapshot}, of this deck or of another one.
+     */
+    public void restore(long snapshot) {
+        SplitMixRandom generator = splitMix();
+        System.arraycopy(codes, 0, deckCodes, 0, 52);
+        cardsRemaining = 52;
+        generator.setState(snapshot);
+    }
+
+    private SplitMixRandom splitMix() {
+        if(!(rng instanceof SplitMixRandom)) {
+            throw new IllegalStateException("Only a deck shuffled by a SplitMixRandom can be snapshotted.");
+        }
+        return (SplitMixRandom) rng;
+    }
+
     /**
      * For debugging purposes, a toString method for this class.
      */
     public String toString() {
         StringBuilder result = new StringBuilder();
         for(int i = 0; i < 52; i++) {
-            result.append(deckCards[i]);
+            result.append(Card.fromCode(deckCodes[i]));
             if(i == cardsRemaining) { result.append(" | "); }
             else { result.append(" "); }
         }
@@ -87,9 +130,32 @@ public class EfficientDeck
     public PLBadugiHand drawBadugiHand() {
         return drawBadugiHand(4);
     }
+
+    /**
+     * Replace the cards of the given hand object with cards drawn from the top of this deck, reusing the
+     * object instead of creating a new one.
+     * @param hand The badugi hand object to refill.
+     * @param len How many cards to draw into the hand.
+     */
+    public void drawBadugiHand(PLBadugiHand hand, int len) {
+        hand.reset(drawMask(len));
+    }
+
+    /**
+     * Draw the given number of cards from this deck as the mask of their codes.
+     * @param len How many cards to draw.
+     * @return The mask of the cards that were drawn, as defined in {@code CardBits}.
+     */
+    public long drawMask(int len) {
+        long result = 0;
+        for(int i = 0; i < len; i++) {
+            result |= CardBits.bit(drawCode());
+        }
+        return result;
+    }
     
     public static void demo() {
-        EfficientDeck deck = new EfficientDeck(new Random());
+        EfficientDeck deck = new EfficientDeck(RandomSource.create());
         for(int i = 0; i < 10; i++) {
             System.out.println(deck);
             for(int j = 0; j < 13; j++) {
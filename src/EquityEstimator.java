@@ -0,0 +1,272 @@
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import Rng.RandomSource;
+import Rng.SplitMixRandom;
+
+/**
+ * Estimates the equity of a badugi hand, the probability that it wins at the showdown against an unknown hand,
+ * by playing out random rollouts of the rest of the hand. In each rollout, the opponent is dealt random cards
+ * from those not known to be elsewhere, and both players then replace their inactive cards in each remaining
+ * draw. If the opponent has been seen to draw some number of cards, its kept cards are dealt as a badugi of
+ * the matching size. A tie counts as half a win.
+ * <p>
+ * The rollouts are played in batches by several threads at once, which stop as soon as the standard error of
+ * the estimate is within the tolerance. The estimates are cached by the canonical forms of the hand and the dead
+ * cards, so that the hands that differ only in their suits share an estimate, and an agent that asks for the same
+ * situations again gets its answer from the cache. The estimator can be shared by agents in parallel matches.
+ */
+public class EquityEstimator {
+
+    /**
+     * An estimate of the equity of a hand, and how precise it is.
+     */
+    public static final class Estimate {
+        private final double equity, standardError;
+        private final long samples;
+
+        Estimate(double equity, double standardError, long samples) {
+            this.equity = equity;
+            this.standardError = standardError;
+            this.samples = samples;
+        }
+
+        /** The estimated probability of winning, counting ties as half a win. */
+        public double getEquity() { return equity; }
+        /** The standard error of the equity. */
+        public double getStandardError() { return standardError; }
+        /** How many rollouts the estimate was computed from. */
+        public long getSamples() { return samples; }
+
+        @Override
+        public String toString() {
+            return String.format("%.4f +- %.4f (%d rollouts)", equity, standardError, samples);
+        }
+    }
+
+    // The key of a cached estimate: the hand and the dead cards renamed together into canonical form.
+    private static final class Key {
+        final long hand, dead;
+        final int drawsRemaining, opponentDrew;
+
+        Key(long hand, long dead, int drawsRemaining, int opponentDrew) {
+            this.hand = hand;
+            this.dead = dead;
+            this.drawsRemaining = drawsRemaining;
+            this.opponentDrew = opponentDrew;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key)) { return false; }
+            Key k = (Key) o;
+            return hand == k.hand && dead == k.dead && drawsRemaining == k.drawsRemaining && opponentDrew == k.opponentDrew;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) SplitMixRandom.mix64(hand * 31 + dead ^ (drawsRemaining << 4 | (opponentDrew + 1)));
+        }
+    }
+
+    // How many rollouts each thread plays between the checks of the standard error.
+    private static final int BATCH = 256;
+    // How many rollouts are played at least, so that the standard error itself can be trusted.
+    private static final int MIN_SAMPLES = 1024;
+    // How many times the kept cards of the opponent are dealt again before any cards are accepted.
+    private static final int MAX_DEALS = 1000;
+
+    private final double tolerance;
+    private final long maxSamples;
+    private final int threads;
+    private final long seed;
+    private final int cacheCapacity;
+    private final Map<Key, Estimate> cache = new ConcurrentHashMap<Key, Estimate>();
+    private final ExecutorService pool;
+
+    /**
+     * Create an estimator that is precise to about one percent, playing its rollouts in as many threads as
+     * there are processors.
+     */
+    public EquityEstimator() {
+        this(0.005, 200_000, Runtime.getRuntime().availableProcessors(), RandomSource.create().nextLong(), 1 << 16);
+    }
+
+    /**
+     * Constructor for the class.
+     * @param tolerance The standard error at which the rollouts of an estimate stop.
+     * @param maxSamples The largest number of rollouts of an estimate, whatever its standard error.
+     * @param threads How many threads play the rollouts of an estimate. With one thread, the estimates are
+     * reproducible from the seed.
+     * @param seed The seed from which the random number generators of the rollouts are derived.
+     * @param cacheCapacity How many estimates are cached before the cache is cleared.
+     */
+    public EquityEstimator(double tolerance, long maxSamples, int threads, long seed, int cacheCapacity) {
+        this.tolerance = tolerance;
+        this.maxSamples = Math.max(MIN_SAMPLES, maxSamples);
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+        this.cacheCapacity = cacheCapacity;
+        this.pool = this.threads == 1 ? null : Executors.newFixedThreadPool(this.threads - 1, r -> {
+            Thread t = new Thread(r, "equity-rollouts");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * The estimator shared by all agents, with the default precision.
+     */
+    public static EquityEstimator getShared() {
+        return Shared.INSTANCE;
+    }
+
+    private static final class Shared {
+        static final EquityEstimator INSTANCE = new EquityEstimator();
+    }
+
+    /**
+     * Estimate the equity of the given hand as in {@code estimate}.
+     * @param hand The hand of the player.
+     * @param dead The cards known not to be in the deck or in the hand of the opponent, e.g. the discarded cards.
+     */
+    public double equity(PLBadugiHand hand, List<Card> dead, int drawsRemaining, int opponentDrew) {
+        return estimate(hand.getCardMask(), dead == null ? 0L : CardBits.toMask(dead), drawsRemaining, opponentDrew)
+            .getEquity();
+    }
+
+    /**
+     * Estimate the equity of the given hand, or get it from the cache.
+     * @param hand The mask of the cards of the player, as defined in CardBits.
+     * @param dead The mask of the cards known not to be in the deck or in the hand of the opponent. Together with
+     * the hand, the opponent and all the draws, they must fit in one deck.
+     * @param drawsRemaining How many draws are left in the hand, from 0 to 3.
+     * @param opponentDrew How many cards the opponent drew in the latest draw, or -1 if it is not known.
+     * @return The estimate.
+     */
+    public Estimate estimate(long hand, long dead, int drawsRemaining, int opponentDrew) {
+        if(drawsRemaining < 0 || drawsRemaining > 3) {
+            throw new IllegalArgumentException("drawsRemaining must be from 0 to 3: " + drawsRemaining);
+        }
+        if(opponentDrew < -1 || opponentDrew > 4) {
+            throw new IllegalArgumentException("opponentDrew must be from -1 to 4: " + opponentDrew);
+        }
+        dead &= ~hand;
+        int p = CardBits.canonicalPermutation(hand, dead);
+        Key key = new Key(CardBits.permuteSuits(hand, p), CardBits.permuteSuits(dead, p), drawsRemaining, opponentDrew);
+        Estimate e = cache.get(key);
+        if(e == null) {
+            e = rollouts(key);
+            if(cache.size() >= cacheCapacity) { cache.clear(); }
+            cache.put(key, e);
+        }
+        return e;
+    }
+
+    /** How many estimates are in the cache. */
+    public int getCacheSize() { return cache.size(); }
+
+    // The totals of the rollouts of one estimate, shared by the threads that play them. Each rollout scores
+    // 2 points for a win, 1 for a tie and 0 for a loss, and the squares of the points give the variance.
+    private final class Totals {
+        long samples, points, squares;
+        volatile boolean done;
+
+        // Add a batch of rollouts, and decide whether the estimate is now precise enough.
+        synchronized void add(long n, long p, long s) {
+            samples += n;
+            points += p;
+            squares += s;
+            if(samples >= maxSamples || samples >= MIN_SAMPLES && variance() <= tolerance * tolerance * samples) {
+                done = true;
+            }
+        }
+
+        synchronized Estimate estimate() {
+            return new Estimate(points / (2.0 * samples), Math.sqrt(variance() / samples), samples);
+        }
+
+        // The variance of one rollout, with a win counting as 1 and a tie as 1/2.
+        private double variance() {
+            double mean = points / (2.0 * samples);
+            return Math.max(0, squares / (4.0 * samples) - mean * mean);
+        }
+    }
+
+    private Estimate rollouts(Key key) {
+        Totals totals = new Totals();
+        long keySeed = SplitMixRandom.mix64(seed ^ key.hashCode());
+        Future<?>[] others = new Future<?>[threads - 1];
+        for(int t = 1; t < threads; t++) {
+            final int worker = t;
+            others[t - 1] = pool.submit(() -> play(key, totals, keySeed + worker));
+        }
+        play(key, totals, keySeed);
+        for(Future<?> f: others) {
+            try { f.get(); }
+            catch(InterruptedException e) { Thread.currentThread().interrupt(); break; }
+            catch(ExecutionException e) { throw new RuntimeException("Equity rollouts failed", e.getCause()); }
+        }
+        return totals.estimate();
+    }
+
+    // Play batches of rollouts until the estimate is precise enough, adding them to the totals.
+    private void play(Key key, Totals totals, long workerSeed) {
+        EfficientDeck deck = new EfficientDeck(new SplitMixRandom(SplitMixRandom.mix64(workerSeed)));
+        long known = key.hand | key.dead;
+        while(!totals.done) {
+            long points = 0, squares = 0;
+            for(int i = 0; i < BATCH; i++) {
+                int r = rollout(deck, key.hand, known, key.drawsRemaining, key.opponentDrew);
+                points += r;
+                squares += r * r;
+            }
+            totals.add(BATCH, points, squares);
+        }
+    }
+
+    // Play one rollout, returning 2 if the hand wins, 1 if it ties and 0 if it loses.
+    static int rollout(EfficientDeck deck, long hand, long known, int drawsRemaining, int opponentDrew) {
+        deck.restoreCards();
+        long opponent = 0;
+        if(opponentDrew < 0) {
+            opponent = draw(deck, known, 4);
+        }
+        else {
+            // Deal the kept cards as a badugi, giving up on it after enough failed deals.
+            for(int attempt = 0; attempt < MAX_DEALS; attempt++) {
+                opponent = draw(deck, known, 4 - opponentDrew);
+                if(CardBits.isBadugi(opponent)) { break; }
+                deck.restoreCards();
+            }
+            opponent |= draw(deck, known, opponentDrew);
+        }
+        // The cards drawn in the rollout are no longer in the deck, and the known ones are skipped.
+        for(int d = 0; d < drawsRemaining; d++) {
+            long discard = CardBits.inactiveMask(hand);
+            hand = (hand & ~discard) | draw(deck, known, Long.bitCount(discard));
+            discard = CardBits.inactiveMask(opponent);
+            opponent = (opponent & ~discard) | draw(deck, known, Long.bitCount(discard));
+        }
+        int c = Integer.compare(CardBits.strength(hand), CardBits.strength(opponent));
+        return c + 1;
+    }
+
+    // Draw the given number of cards from the deck, skipping the known cards, which are not really in the deck.
+    private static long draw(EfficientDeck deck, long known, int count) {
+        long result = 0;
+        while(count > 0) {
+            long bit = CardBits.bit(deck.drawCode());
+            if((known & bit) == 0) {
+                result |= bit;
+                count--;
+            }
+        }
+        return result;
+    }
+}
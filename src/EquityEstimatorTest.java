@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+class EquityEstimatorTest {
+
+    private static long mask(String cards) {
+        long result = 0;
+        for(int i = 0; i < cards.length(); i += 2) {
+            result |= CardBits.bit(Card.from(cards.substring(i, i + 2)).getCode());
+        }
+        return result;
+    }
+
+    // The exact equity of the given hand at the showdown against every four cards of the unseen ones.
+    private static double exactShowdownEquity(long hand, long dead) {
+        long unseen = CardBits.ALL_CARDS & ~hand & ~dead;
+        int[] codes = new int[Long.bitCount(unseen)];
+        for(int i = 0; unseen != 0; i++) {
+            codes[i] = Long.numberOfTrailingZeros(unseen);
+            unseen &= unseen - 1;
+        }
+        int strength = CardBits.strength(hand);
+        long points = 0, count = 0;
+        for(int a = 0; a < codes.length; a++) {
+            for(int b = a + 1; b < codes.length; b++) {
+                for(int c = b + 1; c < codes.length; c++) {
+                    for(int d = c + 1; d < codes.length; d++) {
+                        long opponent = CardBits.bit(codes[a]) | CardBits.bit(codes[b]) | CardBits.bit(codes[c]) | CardBits.bit(codes[d]);
+                        points += Integer.compare(strength, CardBits.strength(opponent)) + 1;
+                        count++;
+                    }
+                }
+            }
+        }
+        return points / (2.0 * count);
+    }
+
+    @Test
+    void showdownEquityAgreesWithEnumeration() {
+        EquityEstimator estimator = new EquityEstimator(0.002, 1_000_000, 4, 1, 100);
+        String[] hands = { "ac2d3h4s", "9cjdqhks", "2c3c4d5h", "kckdkhks" };
+        for(String h: hands) {
+            long hand = mask(h), dead = mask("7c8d");
+            EquityEstimator.Estimate e = estimator.estimate(hand, dead, 0, -1);
+            double exact = exactShowdownEquity(hand, dead & ~hand);
+            assertTrue(e.getStandardError() <= 0.002 || e.getSamples() >= 1_000_000, e.toString());
+            assertEquals(exact, e.getEquity(), 4 * e.getStandardError() + 1e-3, h + ": " + e);
+        }
+    }
+
+    @Test
+    void drawsAndOpponentDrawsChangeTheEquity() {
+        EquityEstimator estimator = new EquityEstimator(0.005, 100_000, 1, 2, 100);
+        long rough = mask("9cjdqhks");
+        // A rough badugi is a favourite against a random hand that is never improved, but the draws improve it.
+        double pat = estimator.estimate(rough, 0L, 0, -1).getEquity();
+        double drawing = estimator.estimate(rough, 0L, 3, -1).getEquity();
+        assertTrue(drawing < pat, pat + " " + drawing);
+        // An opponent that stood pat holds a badugi, which is stronger than one that drew three cards.
+        double vsPat = estimator.estimate(rough, 0L, 1, 0).getEquity();
+        double vsThree = estimator.estimate(rough, 0L, 1, 3).getEquity();
+        assertTrue(vsPat < vsThree, vsPat + " " + vsThree);
+    }
+
+    @Test
+    void handsThatDifferInSuitsShareTheCachedEstimate() {
+        EquityEstimator estimator = new EquityEstimator(0.01, 10_000, 2, 3, 100);
+        EquityEstimator.Estimate e1 = estimator.estimate(mask("ac2d3h4s"), mask("5c"), 2, 1);
+        EquityEstimator.Estimate e2 = estimator.estimate(mask("as2h3d4c"), mask("5s"), 2, 1);
+        assertSame(e1, e2);
+        assertEquals(1, estimator.getCacheSize());
+        assertNotSame(e1, estimator.estimate(mask("as2h3d4c"), mask("5h"), 2, 1));
+    }
+
+    @Test
+    void singleThreadedEstimatesAreReproducible() {
+        EquityEstimator.Estimate e1 = new EquityEstimator(0.01, 10_000, 1, 4, 100).estimate(mask("ac5d8hjs"), 0L, 2, -1);
+        EquityEstimator.Estimate e2 = new EquityEstimator(0.01, 10_000, 1, 4, 100).estimate(mask("ac5d8hjs"), 0L, 2, -1);
+        assertEquals(e1.getEquity(), e2.getEquity());
+        assertEquals(e1.getSamples(), e2.getSamples());
+        // The rollouts stop when the standard error is small enough, well before the limit.
+        assertTrue(e1.getSamples() < 10_000, e1.toString());
+    }
+}
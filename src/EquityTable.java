@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The exact equities of all four-card hands, read from the table file written by {@code EquityTableGenerator}.
+ * The file is memory-mapped when the table is loaded, so that loading takes no time however many agents use
+ * the table, and the pages of the file are shared by all the processes that map it. Looking up a hand costs
+ * one read of the int of the hand and one of the row of its class. The table can be shared by any number of
+ * threads. See {@code EquityTableGenerator} for what the equities mean.
+ */
+public class EquityTable {
+
+    private static final int HAND_COUNT = BadugiEvaluator.HAND_COUNT;
+
+    private final MappedByteBuffer buffer;
+    private final int classCount;
+    // The offset of the rows of the classes in the file.
+    private final int rows;
+
+    private EquityTable(MappedByteBuffer buffer, int classCount) {
+        this.buffer = buffer;
+        this.classCount = classCount;
+        this.rows = EquityTableGenerator.HEADER_SIZE + 4 * HAND_COUNT;
+    }
+
+    /**
+     * Load the table from the given file.
+     * @throws IOException If the file cannot be read, or if it is not an equity table of a known version.
+     */
+    public static EquityTable load(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < EquityTableGenerator.HEADER_SIZE) {
+                throw new IOException(file + " is not an equity table.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if(buffer.getInt(EquityTableGenerator.HEADER_MAGIC) != EquityTableGenerator.MAGIC) {
+                throw new IOException(file + " is not an equity table.");
+            }
+            if(buffer.getInt(EquityTableGenerator.HEADER_VERSION) != EquityTableGenerator.VERSION) {
+                throw new IOException("Equity table " + file + " has unsupported version "
+                    + buffer.getInt(EquityTableGenerator.HEADER_VERSION) + ".");
+            }
+            int handCount = buffer.getInt(EquityTableGenerator.HEADER_HAND_COUNT);
+            if(handCount != HAND_COUNT) {
+                throw new IOException("Equity table " + file + " has " + handCount + " hands instead of " + HAND_COUNT + ".");
+            }
+            int classCount = buffer.getInt(EquityTableGenerator.HEADER_CLASS_COUNT);
+            long expected = EquityTableGenerator.HEADER_SIZE + 4L * HAND_COUNT + (long) EquityTableGenerator.ROW_SIZE * classCount;
+            if(size != expected) {
+                throw new IOException("Equity table " + file + " has " + size + " bytes instead of " + expected + ".");
+            }
+            return new EquityTable(buffer, classCount);
+        }
+    }
+
+    /** How many classes of hands that differ only in their suits the table has. */
+    public int getClassCount() { return classCount; }
+
+    /**
+     * The class of the given four-card hand, from 0 to getClassCount() - 1. Two hands are in the same class
+     * when they differ only in their suits.
+     */
+    public int classOf(long hand) {
+        return handInt(hand) & ((1 << EquityTableGenerator.CLASS_BITS) - 1);
+    }
+
+    /** The canonical hand of the given class, as defined in {@code CardBits.canonical}. */
+    public long canonicalHand(int handClass) {
+        return buffer.getLong(rows + EquityTableGenerator.ROW_SIZE * handClass);
+    }
+
+    /**
+     * The all-in equity of the given hand when both players make the standard draw of their inactive cards.
+     * @param hand The mask of the four cards of the hand, as defined in CardBits.
+     * @param drawsRemaining How many draws are left, from 0 to 3.
+     */
+    public double equity(long hand, int drawsRemaining) {
+        return buffer.getFloat(row(hand, drawsRemaining) + EquityTableGenerator.ROW_EQUITY + 4 * drawsRemaining);
+    }
+
+    /**
+     * The equity of the given hand when it makes the best draws, as in {@code bestDiscard}, and the opponent
+     * makes the standard draws.
+     */
+    public double drawEquity(long hand, int drawsRemaining) {
+        return buffer.getFloat(row(hand, drawsRemaining) + EquityTableGenerator.ROW_DRAW_EQUITY + 4 * drawsRemaining);
+    }
+
+    /**
+     * The cards to discard from the given hand in the next draw to get the equity of {@code drawEquity}.
+     * @param hand The mask of the four cards of the hand.
+     * @param drawsRemaining How many draws are left, including the next one, from 1 to 3.
+     * @return The mask of the cards to discard.
+     */
+    public long bestDiscard(long hand, int drawsRemaining) {
+        if(drawsRemaining < 1 || drawsRemaining > 3) {
+            throw new IllegalArgumentException("drawsRemaining must be from 1 to 3: " + drawsRemaining);
+        }
+        int bits = handInt(hand) >>> (EquityTableGenerator.CLASS_BITS + 4 * (drawsRemaining - 1)) & 15;
+        long result = 0;
+        for(int i = 0; i < 4; i++) {
+            long low = hand & -hand;
+            if((bits & (1 << i)) != 0) { result |= low; }
+            hand ^= low;
+        }
+        return result;
+    }
+
+    public double equity(PLBadugiHand hand, int drawsRemaining) {
+        return equity(hand.getCardMask(), drawsRemaining);
+    }
+
+    public double drawEquity(PLBadugiHand hand, int drawsRemaining) {
+        return drawEquity(hand.getCardMask(), drawsRemaining);
+    }
+
+    /** The cards to discard from the given hand in the next draw, in the order of {@code CardBits.toCards}. */
+    public List<Card> bestDiscard(PLBadugiHand hand, int drawsRemaining) {
+        return CardBits.toCards(bestDiscard(hand.getCardMask(), drawsRemaining));
+    }
+
+    private int handInt(long hand) {
+        if(Long.bitCount(hand) != 4) {
+            throw new IllegalArgumentException("The equity table only has hands of four cards.");
+        }
+        return buffer.getInt(EquityTableGenerator.HEADER_SIZE + 4 * EquityTableGenerator.index(hand));
+    }
+
+    private int row(long hand, int drawsRemaining) {
+        if(drawsRemaining < 0 || drawsRemaining > 3) {
+            throw new IllegalArgumentException("drawsRemaining must be from 0 to 3: " + drawsRemaining);
+        }
+        return rows + EquityTableGenerator.ROW_SIZE * classOf(hand);
+    }
+}
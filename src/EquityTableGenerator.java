@@ -0,0 +1,354 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The offline generator of the equity table read by {@code EquityTable}. It computes, for every class of
+ * four-card hands that differ only in their suits and for every number of draws remaining from 0 to 3,
+ * <ul>
+ * <li>the all-in equity of the hand when both players make the standard draw of their inactive cards, and</li>
+ * <li>the equity of the hand when it draws optimally instead, together with the optimal discard,</li>
+ * </ul>
+ * where the equity is the probability of winning at the showdown against a random hand, a tie counting as half.
+ * <p>
+ * With no draws remaining, the equity is exact: the opponent holds any four of the 48 cards not in the hand
+ * with equal probability. With draws remaining, the opponent makes the standard draws from a random hand, and
+ * its final strength is taken from the distribution over all hands, ignoring which cards the hand itself holds.
+ * The hand draws its replacements from the 48 cards not in it, which is exact for one draw; in later draws, the
+ * cards it discarded earlier are not tracked. Every expected value is computed exactly, without simulation,
+ * by summing over the supersets of the kept cards by inclusion and exclusion.
+ * <p>
+ * The generation takes some seconds. Run it with the name of the table file as the argument:
+ * <pre>
+ *   java EquityTableGenerator equity.bin
+ * </pre>
+ */
+public class EquityTableGenerator {
+
+    // The layout of the table file, all numbers in little-endian order. The header is followed by one int per
+    // hand in the order of BadugiEvaluator.index, and then by one row per class in the order of the classes.
+    static final int MAGIC = 0x54514542; // "BEQT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int HEADER_MAGIC = 0, HEADER_VERSION = 4, HEADER_HAND_COUNT = 8, HEADER_CLASS_COUNT = 12;
+    // The int of each hand holds its class in the low bits, and the discard for each number of draws remaining
+    // from 1 to 3 in four bits each, bit i standing for the i:th lowest card code of the hand.
+    static final int CLASS_BITS = 16;
+    // The row of each class holds its canonical hand as a long, then the all-in equity and the optimal-draw
+    // equity for each number of draws remaining from 0 to 3 as floats.
+    static final int ROW_SIZE = 8 + 4 * 4 + 4 * 4;
+    static final int ROW_EQUITY = 8, ROW_DRAW_EQUITY = 8 + 4 * 4;
+    static final int DRAWS = 4;
+
+    private static final int N = BadugiEvaluator.HAND_COUNT;
+    // Binomial coefficients C(n, k) for n <= 52 and k <= 4.
+    private static final int[][] BINOMIAL = new int[53][5];
+    static {
+        for(int n = 0; n <= 52; n++) {
+            BINOMIAL[n][0] = 1;
+            for(int k = 1; k <= 4; k++) {
+                BINOMIAL[n][k] = n == 0 ? 0 : BINOMIAL[n-1][k-1] + BINOMIAL[n-1][k];
+            }
+        }
+    }
+
+    // The cards of every hand in ascending order, four per hand, and the entry of every hand in BadugiEvaluator.
+    private final int[] cards = new int[4 * N];
+    private final int[] entries = new int[N];
+    // The class of every hand, and the index of the canonical hand of every class.
+    private final int[] classOf = new int[N];
+    private int[] canonicalHands;
+
+    private EquityTableGenerator() {
+        for(int d = 3; d < 52; d++) {
+            for(int c = 2; c < d; c++) {
+                for(int b = 1; b < c; b++) {
+                    for(int a = 0; a < b; a++) {
+                        int h = BadugiEvaluator.index(a, b, c, d);
+                        cards[4*h] = a; cards[4*h+1] = b; cards[4*h+2] = c; cards[4*h+3] = d;
+                        entries[h] = BadugiEvaluator.lookup(a, b, c, d);
+                    }
+                }
+            }
+        }
+        Map<Long, Integer> classes = new HashMap<Long, Integer>();
+        int[] reps = new int[N];
+        for(int h = 0; h < N; h++) {
+            long canonical = CardBits.canonical(mask(h));
+            Integer k = classes.get(canonical);
+            if(k == null) {
+                k = classes.size();
+                classes.put(canonical, k);
+                reps[k] = index(canonical);
+            }
+            classOf[h] = k;
+        }
+        canonicalHands = java.util.Arrays.copyOf(reps, classes.size());
+    }
+
+    private long mask(int h) {
+        return CardBits.bit(cards[4*h]) | CardBits.bit(cards[4*h+1]) | CardBits.bit(cards[4*h+2]) | CardBits.bit(cards[4*h+3]);
+    }
+
+    private int strength(int h) { return BadugiEvaluator.strength(entries[h]); }
+
+    // The index of the four-card hand of the given mask.
+    static int index(long mask) {
+        int a = Long.numberOfTrailingZeros(mask); mask &= mask - 1;
+        int b = Long.numberOfTrailingZeros(mask); mask &= mask - 1;
+        int c = Long.numberOfTrailingZeros(mask); mask &= mask - 1;
+        int d = Long.numberOfTrailingZeros(mask);
+        return BadugiEvaluator.index(a, b, c, d);
+    }
+
+    // The index of the subset of the cards of hand h given by the bits, among the subsets of its size.
+    private int subsetIndex(int h, int bits) {
+        int result = 0;
+        for(int i = 0, j = 1; i < 4; i++) {
+            if((bits & (1 << i)) != 0) { result += BINOMIAL[cards[4*h+i]][j++]; }
+        }
+        return result;
+    }
+
+    // For every set of at most four cards, the sum of the given values of the hands that contain it,
+    // indexed by the size of the set and its index among the sets of that size.
+    private double[][] supersetSums(double[] values) {
+        double[][] sums = new double[5][];
+        for(int k = 0; k <= 4; k++) { sums[k] = new double[BINOMIAL[52][k]]; }
+        for(int h = 0; h < N; h++) {
+            for(int bits = 0; bits < 16; bits++) {
+                sums[Integer.bitCount(bits)][subsetIndex(h, bits)] += values[h];
+            }
+        }
+        return sums;
+    }
+
+    // The expected value after the hand h keeps the cards given by the bits and draws the rest from the 48
+    // cards not in it. The hands that contain the kept cards and none of the discarded ones are summed by
+    // inclusion and exclusion over the discarded cards.
+    private double drawValue(double[][] sums, int h, int keep) {
+        int discard = 15 & ~keep;
+        double total = 0;
+        for(int t = discard; ; t = (t - 1) & discard) {
+            int bits = keep | t;
+            double s = sums[Integer.bitCount(bits)][subsetIndex(h, bits)];
+            total += Integer.bitCount(t) % 2 == 0 ? s : -s;
+            if(t == 0) { break; }
+        }
+        return total / BINOMIAL[48][Integer.bitCount(discard)];
+    }
+
+    // The values of every hand one draw earlier when the standard draw is made.
+    private double[] standardDraw(double[] values) {
+        double[][] sums = supersetSums(values);
+        double[] result = new double[N];
+        for(int h = 0; h < N; h++) {
+            result[h] = drawValue(sums, h, BadugiEvaluator.activeMask(entries[h]));
+        }
+        return result;
+    }
+
+    // The values of every hand one draw earlier when the best draw is made, and the discards of the best draws.
+    private double[] optimalDraw(double[] values, int[] discards) {
+        double[][] sums = supersetSums(values);
+        double[] result = new double[N];
+        for(int h = 0; h < N; h++) {
+            int best = 15;
+            double bestValue = values[h]; // standing pat
+            for(int keep = 14; keep >= 0; keep--) {
+                double v = drawValue(sums, h, keep);
+                if(v > bestValue) { bestValue = v; best = keep; }
+            }
+            result[h] = bestValue;
+            discards[h] = 15 & ~best;
+        }
+        return result;
+    }
+
+    // The distributions of the final strength of a random hand after it makes the standard draw 0 to 3 times.
+    private double[][] opponentStrengths() {
+        double[][] strengths = new double[DRAWS][BadugiEvaluator.STRENGTH_COUNT];
+        double[] p = new double[N];
+        java.util.Arrays.fill(p, 1.0 / N);
+        int[] unseen = new int[48];
+        for(int draws = 0; draws < DRAWS; draws++) {
+            if(draws > 0) {
+                double[] next = new double[N];
+                for(int h = 0; h < N; h++) {
+                    long hand = mask(h);
+                    int activeBits = BadugiEvaluator.activeMask(entries[h]);
+                    long kept = 0;
+                    for(int i = 0; i < 4; i++) {
+                        if((activeBits & (1 << i)) != 0) { kept |= CardBits.bit(cards[4*h+i]); }
+                    }
+                    int m = 4 - Long.bitCount(kept);
+                    if(m == 0) { next[h] += p[h]; continue; }
+                    for(int c = 0, u = 0; c < 52; c++) {
+                        if((hand & CardBits.bit(c)) == 0) { unseen[u++] = c; }
+                    }
+                    double w = p[h] / BINOMIAL[48][m];
+                    if(m == 1) {
+                        for(int x = 0; x < 48; x++) {
+                            next[index(kept | CardBits.bit(unseen[x]))] += w;
+                        }
+                    }
+                    else if(m == 2) {
+                        for(int x = 0; x < 48; x++) {
+                            for(int y = x + 1; y < 48; y++) {
+                                next[index(kept | CardBits.bit(unseen[x]) | CardBits.bit(unseen[y]))] += w;
+                            }
+                        }
+                    }
+                    else {
+                        for(int x = 0; x < 48; x++) {
+                            for(int y = x + 1; y < 48; y++) {
+                                for(int z = y + 1; z < 48; z++) {
+                                    next[index(kept | CardBits.bit(unseen[x]) | CardBits.bit(unseen[y]) | CardBits.bit(unseen[z]))] += w;
+                                }
+                            }
+                        }
+                    }
+                }
+                p = next;
+            }
+            for(int h = 0; h < N; h++) { strengths[draws][strength(h)] += p[h]; }
+        }
+        return strengths;
+    }
+
+    // The equity of every hand at the showdown against a hand whose strength has the given distribution.
+    private double[] showdownEquity(double[] opponent) {
+        double[] below = new double[opponent.length + 1];
+        for(int s = 0; s < opponent.length; s++) { below[s + 1] = below[s] + opponent[s]; }
+        double[] result = new double[N];
+        for(int h = 0; h < N; h++) {
+            int s = strength(h);
+            result[h] = below[s] + 0.5 * opponent[s];
+        }
+        return result;
+    }
+
+    // The exact equity of every hand at the showdown against any four of the 48 cards not in it. The hands
+    // of the opponent that share cards with the hand are subtracted by inclusion and exclusion: those that
+    // contain one given card are counted from a histogram for each card, and those that contain two or three
+    // given cards are enumerated.
+    private double[] exactShowdownEquity() {
+        int strengths = BadugiEvaluator.STRENGTH_COUNT;
+        // The number of hands, and of the hands that contain each card, whose strength is below each strength.
+        long[] below = new long[strengths + 1];
+        long[][] cardBelow = new long[52][strengths + 1];
+        for(int h = 0; h < N; h++) {
+            below[strength(h) + 1]++;
+            for(int i = 0; i < 4; i++) { cardBelow[cards[4*h+i]][strength(h) + 1]++; }
+        }
+        for(int s = 0; s < strengths; s++) {
+            below[s + 1] += below[s];
+            for(int c = 0; c < 52; c++) { cardBelow[c][s + 1] += cardBelow[c][s]; }
+        }
+        double[] byClass = new double[canonicalHands.length];
+        for(int k = 0; k < canonicalHands.length; k++) {
+            int h = canonicalHands[k], s = strength(h);
+            long hand = mask(h);
+            // Twice the count of the weaker hands plus the count of the equal ones, for all the hands at first.
+            long points = 2 * below[s] + (below[s + 1] - below[s]);
+            for(int i = 0; i < 4; i++) {
+                long[] cb = cardBelow[cards[4*h+i]];
+                points -= 2 * cb[s] + (cb[s + 1] - cb[s]);
+            }
+            for(int i = 0; i < 4; i++) {
+                for(int j = i + 1; j < 4; j++) {
+                    long pair = CardBits.bit(cards[4*h+i]) | CardBits.bit(cards[4*h+j]);
+                    for(int u = 0; u < 52; u++) {
+                        if((pair & CardBits.bit(u)) != 0) { continue; }
+                        for(int v = u + 1; v < 52; v++) {
+                            if((pair & CardBits.bit(v)) != 0) { continue; }
+                            points += points(s, strength(index(pair | CardBits.bit(u) | CardBits.bit(v))));
+                        }
+                    }
+                }
+            }
+            for(int i = 0; i < 4; i++) {
+                long triple = hand & ~CardBits.bit(cards[4*h+i]);
+                for(int u = 0; u < 52; u++) {
+                    if((triple & CardBits.bit(u)) != 0) { continue; }
+                    points -= points(s, strength(index(triple | CardBits.bit(u))));
+                }
+            }
+            points += 1; // the hand itself, which ties
+            byClass[k] = points / (2.0 * BINOMIAL[48][4]);
+        }
+        double[] result = new double[N];
+        for(int h = 0; h < N; h++) { result[h] = byClass[classOf[h]]; }
+        return result;
+    }
+
+    private static int points(int strength, int opponent) {
+        return strength > opponent ? 2 : strength == opponent ? 1 : 0;
+    }
+
+    /**
+     * Compute the table and write it into the given file.
+     * @param file The file to write, which is replaced if it exists.
+     * @return The number of classes of hands in the table.
+     */
+    public static int generate(Path file) throws IOException {
+        EquityTableGenerator g = new EquityTableGenerator();
+        int classes = g.canonicalHands.length;
+        double[][] equity = new double[DRAWS][], drawEquity = new double[DRAWS][];
+        int[][] discards = new int[DRAWS][N];
+        double[][] opponent = g.opponentStrengths();
+
+        equity[0] = drawEquity[0] = g.exactShowdownEquity();
+        for(int draws = 1; draws < DRAWS; draws++) {
+            double[] standard = g.showdownEquity(opponent[draws]);
+            double[] optimal = standard;
+            for(int k = 0; k < draws; k++) {
+                standard = g.standardDraw(standard);
+                optimal = g.optimalDraw(optimal, discards[draws]);
+            }
+            equity[draws] = standard;
+            drawEquity[draws] = optimal;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * N + ROW_SIZE * classes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(HEADER_MAGIC, MAGIC);
+        buffer.putInt(HEADER_VERSION, VERSION);
+        buffer.putInt(HEADER_HAND_COUNT, N);
+        buffer.putInt(HEADER_CLASS_COUNT, classes);
+        for(int h = 0; h < N; h++) {
+            int value = g.classOf[h];
+            for(int draws = 1; draws < DRAWS; draws++) {
+                value |= discards[draws][h] << (CLASS_BITS + 4 * (draws - 1));
+            }
+            buffer.putInt(HEADER_SIZE + 4 * h, value);
+        }
+        int rows = HEADER_SIZE + 4 * N;
+        for(int k = 0; k < classes; k++) {
+            int h = g.canonicalHands[k], row = rows + ROW_SIZE * k;
+            buffer.putLong(row, g.mask(h));
+            for(int draws = 0; draws < DRAWS; draws++) {
+                buffer.putFloat(row + ROW_EQUITY + 4 * draws, (float) equity[draws][h]);
+                buffer.putFloat(row + ROW_DRAW_EQUITY + 4 * draws, (float) drawEquity[draws][h]);
+            }
+        }
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining()) { channel.write(buffer); }
+        }
+        return classes;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "equity.bin");
+        long start = System.currentTimeMillis();
+        int classes = generate(file);
+        System.out.println("Wrote the equities of " + classes + " classes of hands into " + file + " in "
+            + (System.currentTimeMillis() - start) + " ms.");
+    }
+}
@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class EquityTableTest {
+
+    private static EquityTable table;
+
+    // The table is generated once for all the tests, which takes some seconds.
+    private static synchronized EquityTable table() throws IOException {
+        if(table == null) {
+            Path file = Files.createTempFile("equity", ".bin");
+            file.toFile().deleteOnExit();
+            EquityTableGenerator.generate(file);
+            table = EquityTable.load(file);
+        }
+        return table;
+    }
+
+    private static long mask(String cards) {
+        return new PLBadugiHand(cards).getCardMask();
+    }
+
+    @Test
+    void handsThatDifferInSuitsShareTheirClass() throws IOException {
+        EquityTable t = table();
+        assertEquals(16_432, t.getClassCount());
+        java.util.Random rng = new java.util.Random(1);
+        EfficientDeck deck = new EfficientDeck(rng);
+        for(int i = 0; i < 1000; i++) {
+            deck.restoreCards();
+            long hand = deck.drawMask(4);
+            long renamed = CardBits.permuteSuits(hand, rng.nextInt(CardBits.SUIT_PERMUTATION_COUNT));
+            assertEquals(t.classOf(hand), t.classOf(renamed));
+            assertEquals(CardBits.canonical(hand), t.canonicalHand(t.classOf(hand)));
+            assertEquals(new PLBadugiHand(hand).canonical().getCardMask(), t.canonicalHand(t.classOf(renamed)));
+            for(int d = 0; d < 4; d++) {
+                assertEquals(t.equity(hand, d), t.equity(renamed, d));
+                assertEquals(t.drawEquity(hand, d), t.drawEquity(renamed, d));
+            }
+        }
+    }
+
+    @Test
+    void showdownEquityIsExact() throws IOException {
+        EquityTable t = table();
+        EfficientDeck deck = new EfficientDeck(new java.util.Random(2));
+        for(int k = 0; k < 10; k++) {
+            deck.restoreCards();
+            long hand = deck.drawMask(4);
+            int strength = CardBits.strength(hand);
+            long points = 0, count = 0;
+            for(int a = 0; a < 52; a++) {
+                for(int b = a + 1; b < 52; b++) {
+                    for(int c = b + 1; c < 52; c++) {
+                        for(int d = c + 1; d < 52; d++) {
+                            long opponent = CardBits.bit(a) | CardBits.bit(b) | CardBits.bit(c) | CardBits.bit(d);
+                            if((opponent & hand) != 0) { continue; }
+                            points += Integer.compare(strength, CardBits.strength(opponent)) + 1;
+                            count++;
+                        }
+                    }
+                }
+            }
+            assertEquals(points / (2.0 * count), t.equity(hand, 0), 1e-6);
+            assertEquals(t.equity(hand, 0), t.drawEquity(hand, 0));
+        }
+    }
+
+    @Test
+    void bestDrawsAreAtLeastAsGoodAsTheStandardOnes() throws IOException {
+        EquityTable t = table();
+        EfficientDeck deck = new EfficientDeck(new java.util.Random(3));
+        for(int i = 0; i < 10_000; i++) {
+            deck.restoreCards();
+            long hand = deck.drawMask(4);
+            for(int d = 0; d < 4; d++) {
+                assertTrue(t.equity(hand, d) >= 0 && t.equity(hand, d) <= 1);
+                assertTrue(t.drawEquity(hand, d) >= t.equity(hand, d) - 1e-6);
+            }
+            for(int d = 1; d < 4; d++) {
+                assertEquals(0L, t.bestDiscard(hand, d) & ~hand);
+            }
+        }
+        // The best badugi stands pat, and four kings are all thrown away.
+        assertEquals(0L, t.bestDiscard(mask("ac2d3h4s"), 3));
+        assertEquals(mask("kckdkhks"), t.bestDiscard(mask("kckdkhks"), 1));
+        // The best badugi only ties with the other best badugis.
+        assertEquals(1.0, t.equity(mask("as2h3d4c"), 0), 1e-4);
+        assertTrue(t.equity(mask("as2h3d4c"), 0) < 1.0);
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Path file = Files.createTempFile("equity", ".bin");
+        try {
+            Files.write(file, new byte[64]);
+            assertThrows(IOException.class, () -> EquityTable.load(file));
+            // A table of another number of hands is reported as such.
+            ByteBuffer header = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(EquityTableGenerator.HEADER_MAGIC, EquityTableGenerator.MAGIC);
+            header.putInt(EquityTableGenerator.HEADER_VERSION, EquityTableGenerator.VERSION);
+            header.putInt(EquityTableGenerator.HEADER_HAND_COUNT, 1000);
+            Files.write(file, header.array());
+            IOException e = assertThrows(IOException.class, () -> EquityTable.load(file));
+            assertTrue(e.getMessage().contains("1000 hands"), e.getMessage());
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A fixed-capacity ring of the transitions experienced by a learning agent, each consisting of the features
+ * of the state and action taken, the action, the reward, the features of the next state and action, and whether
+ * the transition ended the episode. The transitions are stored in flat primitive arrays, so adding one copies
+ * its values without allocating, and once the ring is full each new transition replaces the oldest one.
+ * The buffer can be filled by one thread while {@code ReplayTrainer} samples it in another.
+ */
+public class ExperienceReplayBuffer implements TransitionSink {
+
+    // The magic number and version of the files written by save.
+    private static final int MAGIC = 0x42525845, VERSION = 1;
+    // The length of the header of the files written by save.
+    private static final int HEADER_SIZE = 16;
+
+    private final int capacity;
+    private final int featureLength;
+    private final double[] features;
+    private final double[] nextFeatures;
+    private final int[] actions;
+    private final double[] rewards;
+    private final boolean[] terminal;
+    // How many transitions have ever been added, the next one going into the slot added % capacity.
+    private long added = 0;
+
+    /**
+     * Constructor for the class.
+     * @param capacity How many transitions the buffer holds at most.
+     * @param featureLength The length of the feature vectors of the transitions.
+     */
+    public ExperienceReplayBuffer(int capacity, int featureLength) {
+        if(capacity <= 0 || featureLength <= 0) {
+            throw new IllegalArgumentException("Capacity and feature length must be positive");
+        }
+        if((long) capacity * featureLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity " + capacity + " of transitions of " + featureLength
+                + " features is too large for an array");
+        }
+        this.capacity = capacity;
+        this.featureLength = featureLength;
+        this.features = new double[capacity * featureLength];
+        this.nextFeatures = new double[capacity * featureLength];
+        this.actions = new int[capacity];
+        this.rewards = new double[capacity];
+        this.terminal = new boolean[capacity];
+    }
+
+    public int getCapacity() { return capacity; }
+    public int getFeatureLength() { return featureLength; }
+
+    /**
+     * How many transitions the buffer currently holds.
+     */
+    public synchronized int size() { return (int) Math.min(added, capacity); }
+
+    /**
+     * How many transitions have been added since the buffer was created, including those already replaced.
+     */
+    public synchronized long getAdded() { return added; }
+
+    /**
+     * Add a transition to the buffer, replacing the oldest one if the buffer is full.
+     * @param feature The features of the state and the action taken in it.
+     * @param action The index of the action taken.
+     * @param reward The reward received for the transition.
+     * @param nextFeature The features of the next state and the action taken in it, ignored for terminal transitions.
+     * @param isTerminal Whether the transition ended the episode.
+     */
+    @Override
+    public synchronized void add(double[] feature, int action, double reward, double[] nextFeature, boolean isTerminal) {
+        int slot = (int) (added % capacity);
+        System.arraycopy(feature, 0, features, slot * featureLength, featureLength);
+        if(isTerminal) {
+            Arrays.fill(nextFeatures, slot * featureLength, (slot + 1) * featureLength, 0.0);
+        }
+        else {
+            System.arraycopy(nextFeature, 0, nextFeatures, slot * featureLength, featureLength);
+        }
+        actions[slot] = action;
+        rewards[slot] = reward;
+        terminal[slot] = isTerminal;
+        added++;
+    }
+
+    /**
+     * Copy a uniformly sampled mini-batch of the transitions into the given arrays, whose layout is the same
+     * as that of the buffer, with the features of the k:th transition starting at index k * featureLength.
+     * @param rng The random number generator used to choose the transitions.
+     * @param batchSize How many transitions to sample, with replacement.
+     * @return How many transitions were sampled, which is zero if the buffer is empty.
+     */
+    public synchronized int sample(Random rng, int batchSize, double[] batchFeatures, int[] batchActions,
+                                   double[] batchRewards, double[] batchNextFeatures, boolean[] batchTerminal) {
+        int size = (int) Math.min(added, capacity);
+        if(size == 0) { return 0; }
+        for(int k = 0; k < batchSize; k++) {
+            int slot = rng.nextInt(size);
+            System.arraycopy(features, slot * featureLength, batchFeatures, k * featureLength, featureLength);
+            System.arraycopy(nextFeatures, slot * featureLength, batchNextFeatures, k * featureLength, featureLength);
+            batchActions[k] = actions[slot];
+            batchRewards[k] = rewards[slot];
+            batchTerminal[k] = terminal[slot];
+        }
+        return batchSize;
+    }
+
+    /**
+     * Save the transitions currently in the buffer into the given file, from the oldest to the newest.
+     * @param file The file to write, replacing its earlier contents.
+     */
+    public synchronized void save(Path file) throws IOException {
+        int size = (int) Math.min(added, capacity);
+        int recordSize = recordSize(featureLength);
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(HEADER_SIZE, recordSize)).order(ByteOrder.LITTLE_ENDIAN);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(featureLength).putInt(size).flip();
+            write(channel, buffer);
+            for(long i = added - size; i < added; i++) {
+                int slot = (int) (i % capacity);
+                buffer.clear();
+                for(int j = 0; j < featureLength; j++) { buffer.putDouble(features[slot * featureLength + j]); }
+                for(int j = 0; j < featureLength; j++) { buffer.putDouble(nextFeatures[slot * featureLength + j]); }
+                buffer.putInt(actions[slot]).putDouble(rewards[slot]).put((byte) (terminal[slot] ? 1 : 0)).flip();
+                write(channel, buffer);
+            }
+        }
+    }
+
+    /**
+     * Add the transitions saved into the given file to this buffer, in the order in which they were saved.
+     * @param file The file written by {@code save} from a buffer with the same feature length.
+     * @return How many transitions were read.
+     */
+    public int load(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if(length < HEADER_SIZE) {
+                throw new IOException("Experience replay file " + file + " is truncated to " + length + " bytes.");
+            }
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+            if(map.getInt() != MAGIC || map.getInt() != VERSION) {
+                throw new IOException(file + " is not an experience replay file.");
+            }
+            if(map.getInt() != featureLength) {
+                throw new IOException(file + " has transitions of another feature length.");
+            }
+            int size = map.getInt();
+            long expected = HEADER_SIZE + (long) size * recordSize(featureLength);
+            if(size < 0 || length != expected) {
+                throw new IOException("Experience replay file " + file + " has " + length + " bytes instead of "
+                    + expected + " for " + size + " transitions.");
+            }
+            double[] feature = new double[featureLength], nextFeature = new double[featureLength];
+            for(int i = 0; i < size; i++) {
+                for(int j = 0; j < featureLength; j++) { feature[j] = map.getDouble(); }
+                for(int j = 0; j < featureLength; j++) { nextFeature[j] = map.getDouble(); }
+                int action = map.getInt();
+                double reward = map.getDouble();
+                add(feature, action, reward, nextFeature, map.get() != 0);
+            }
+            return size;
+        }
+    }
+
+    // The length of a transition in the files written by save.
+    private static int recordSize(int featureLength) {
+        return 16 * featureLength + 13;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import Rng.RandomSource;
+import Rng.SplitMixRandom;
+
+/**
+ * Estimates a lower bound on how exploitable an agent is, by learning an approximate best response to it and then
+ * measuring how much the best response wins from it. The best response plays over the abstraction of
+ * {@code Tabular.State} and {@code Tabular.Action}: in each information set, it picks one of the five betting
+ * buckets or one of the five draws, drawing the inactive cards first and then the highest active ones. It learns
+ * the average result of every action in every information set from the hands it plays against the agent, trying
+ * a random action now and then, and then plays the best actions it has found without exploring.
+ * <p>
+ * No strategy wins more from the agent than a true best response, so the winnings of the approximate one are a
+ * lower bound on the exploitability of the agent, up to their sampling error. The hands are played in parallel
+ * threads, each against its own agent created by the given factory, with the learned results shared by all the
+ * threads. An agent that learns as it plays is measured as it plays in its first hands after being created.
+ * The result is given in milli-big-blinds per hand, the opening bet of the first street counting as the big blind.
+ * <pre>
+ *   java ExploitabilityEvaluator IlkkaPlayer3 PLBadugi500877176
+ * </pre>
+ */
+public class ExploitabilityEvaluator {
+
+    /** The chips of one big blind, the smallest bet of the first street. */
+    public static final int BIG_BLIND = PLBadugiRunner.ANTE * PLBadugiRunner.MIN_RAISE[3];
+
+    // The number of actions of the best response, the five bets and the five draws of Tabular.Action.
+    private static final int ACTIONS = Tabular.Action.NumBetActions + Tabular.Action.NumDrawActions;
+    // The probability of a random action while the best response is learning.
+    private static final double EXPLORATION = 0.1;
+
+    /**
+     * The winnings of the best response, in milli-big-blinds per hand.
+     */
+    public static final class Result {
+        private final long hands;
+        private final double mean, standardError;
+
+        Result(long hands, double mean, double standardError) {
+            this.hands = hands;
+            this.mean = mean;
+            this.standardError = standardError;
+        }
+
+        /** How many hands the winnings were measured from. */
+        public long getHands() { return hands; }
+        /** The average winnings of the best response, in mbb per hand. */
+        public double getMbbPerHand() { return mean; }
+        /** The standard error of the average winnings, in mbb per hand. */
+        public double getStandardError() { return standardError; }
+        /** The lower end of the 95% confidence interval of the winnings, in mbb per hand. */
+        public double getLowerBound() { return mean - RunningStats.Z95 * standardError; }
+        /** The upper end of the 95% confidence interval of the winnings, in mbb per hand. */
+        public double getUpperBound() { return mean + RunningStats.Z95 * standardError; }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f +- %.1f mbb/hand (95%% CI %.1f .. %.1f, %d hands)", mean, standardError,
+                getLowerBound(), getUpperBound(), hands);
+        }
+    }
+
+    private final Supplier<PLBadugiPlayer> agents;
+    private final int threads;
+    private final SplitMixRandom rng;
+    // The sums of the results and the counts of the hands of every action in every information set.
+    private final AtomicLongArray sums = new AtomicLongArray(Tabular.State.StateCount * ACTIONS);
+    private final AtomicLongArray counts = new AtomicLongArray(Tabular.State.StateCount * ACTIONS);
+
+    /**
+     * Constructor for the class.
+     * @param agents The factory of the agents to evaluate, called once for every thread and phase.
+     * @param threads How many threads play the hands.
+     * @param seed The seed of the random numbers of the decks and of the best response.
+     */
+    public ExploitabilityEvaluator(Supplier<PLBadugiPlayer> agents, int threads, long seed) {
+        this.agents = agents;
+        this.threads = Math.max(1, threads);
+        this.rng = new SplitMixRandom(seed);
+    }
+
+    /**
+     * The factory of the agents of the class of the given name, created with their constructor without arguments.
+     */
+    public static Supplier<PLBadugiPlayer> byName(String className) {
+        return () -> {
+            try { return (PLBadugiPlayer) Class.forName(className).getDeclaredConstructor().newInstance(); }
+            catch(ReflectiveOperationException e) { throw new IllegalArgumentException("Cannot create agent " + className, e); }
+        };
+    }
+
+    /**
+     * Learn the best response from the given number of hands, and then measure its winnings in the given number
+     * of hands. More learning hands give a tighter lower bound, and more measured hands a narrower interval.
+     * @return The winnings of the best response.
+     */
+    public Result evaluate(long learningHands, long measuredHands) {
+        play(learningHands, true);
+        return play(measuredHands, false);
+    }
+
+    /**
+     * Learn the best response further from the given number of hands.
+     */
+    public void learn(long hands) {
+        play(hands, true);
+    }
+
+    // Play the given number of hands split between the threads, learning or measuring, and return the winnings.
+    private Result play(long hands, boolean learning) {
+        // Keep the shards even in length so that the best response is the dealer equally often in each.
+        long shardHands = 2 * (hands / (2 * threads));
+        List<Responder> responders = new ArrayList<Responder>();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for(int t = 0; t < threads; t++) {
+                int len = (int) (t < threads - 1 ? shardHands : hands - (threads - 1) * shardHands);
+                Responder responder = new Responder(rng.split(), learning);
+                PLBadugiPlayer[] players = { responder, agents.get() };
+                EfficientDeck deck = new EfficientDeck(rng.split());
+                responders.add(responder);
+                futures.add(pool.submit(() -> PLBadugiRunner.playHeadsUp(deck, players, (GameEventSink) null, null,
+                    len, new MatchStats())));
+            }
+            RunningStats results = new RunningStats();
+            for(int t = 0; t < threads; t++) {
+                try { futures.get(t).get(); }
+                catch(InterruptedException e) { Thread.currentThread().interrupt(); break; }
+                catch(ExecutionException e) { throw new RuntimeException("Exploitability evaluation failed", e.getCause()); }
+                results.merge(responders.get(t).results);
+            }
+            double scale = 1000.0 / BIG_BLIND;
+            return new Result(results.getCount(), results.getMean() * scale, results.getStandardError() * scale);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // The best response that plays in one thread, learning into the shared tables or measuring its winnings.
+    private final class Responder implements PLBadugiPlayer {
+        private final SplitMixRandom rng;
+        private final boolean learning;
+        // The actions taken in the current hand, as indices into the tables.
+        private final int[] taken = new int[64];
+        private int takenCount;
+        private int position, agentDrew, opponentDrew;
+        // The results of the hands played by this best response.
+        final RunningStats results = new RunningStats();
+
+        Responder(SplitMixRandom rng, boolean learning) {
+            this.rng = rng;
+            this.learning = learning;
+        }
+
+        @Override
+        public void startNewHand(int position, int handsToGo, int currentScore) {
+            this.position = position;
+            this.takenCount = 0;
+            this.agentDrew = -1;
+            this.opponentDrew = -1;
+        }
+
+        @Override
+        public int bettingAction(int drawsRemaining, PLBadugiHand hand, int pot, int raises, int toCall,
+                                 int minRaise, int maxRaise, int opponentDrew) {
+            this.opponentDrew = opponentDrew;
+            raises = Math.min(raises, PLBadugiRunner.MAX_RAISES);
+            int legal = CfrSolver.legalActions(raises);
+            if(toCall == 0) { legal &= ~(1 << Tabular.Qaction.FoldAction); }
+            int action = choose(infoSet(drawsRemaining, raises, hand), legal, 0);
+            return CfrSolver.chips(action, toCall, minRaise, maxRaise);
+        }
+
+        @Override
+        public List<Card> drawingAction(int drawsRemaining, PLBadugiHand hand, int pot, int dealerDrew) {
+            if(dealerDrew >= 0) { opponentDrew = dealerDrew; }
+            int action = choose(infoSet(drawsRemaining, 0, hand), (1 << Tabular.Action.NumDrawActions) - 1,
+                Tabular.Qaction.DrawZeroAction);
+            int count = action - Tabular.Qaction.DrawZeroAction;
+            // The inactive cards go first, and then the active ones from the highest.
+            List<Card> discard = hand.getInactiveCards();
+            List<Card> active = hand.getActiveCards();
+            for(int i = 0; discard.size() < count; i++) { discard.add(active.get(i)); }
+            while(discard.size() > count) { discard.remove(discard.size() - 1); }
+            agentDrew = count;
+            return discard;
+        }
+
+        private int infoSet(int drawsRemaining, int raises, PLBadugiHand hand) {
+            int[] ranks = BadugiEvaluator.activeRanks(hand.getStrength());
+            return Tabular.State.EncodeToInt(position, drawsRemaining, raises, ranks.length, ranks[0], opponentDrew, agentDrew);
+        }
+
+        // Choose among the allowed actions, given as a mask relative to the first action, the one with the best
+        // average result so far, or a random one now and then while learning.
+        private int choose(int infoSet, int legal, int first) {
+            int action = -1;
+            if(learning && rng.nextDouble() < EXPLORATION) {
+                int k = rng.nextInt(Integer.bitCount(legal));
+                for(int a = 0; a < 5 && action < 0; a++) {
+                    if((legal & (1 << a)) != 0 && k-- == 0) { action = a; }
+                }
+            }
+            else {
+                double best = Double.NEGATIVE_INFINITY;
+                for(int a = 0; a < 5; a++) {
+                    if((legal & (1 << a)) == 0) { continue; }
+                    int i = infoSet * ACTIONS + first + a;
+                    long n = counts.get(i);
+                    // An action never tried counts as breaking even.
+                    double value = n == 0 ? 0 : CfrSolver.get(sums, i) / n;
+                    if(value > best) { best = value; action = a; }
+                }
+            }
+            if(takenCount < taken.length) { taken[takenCount++] = infoSet * ACTIONS + first + action; }
+            return first + action;
+        }
+
+        @Override
+        public void handComplete(PLBadugiHand yourHand, PLBadugiHand opponentHand, int result) {
+            if(learning) {
+                for(int k = 0; k < takenCount; k++) {
+                    CfrSolver.add(sums, taken[k], result, false);
+                    counts.incrementAndGet(taken[k]);
+                }
+            }
+            results.add(result);
+        }
+
+        @Override
+        public String getAgentName() { return "Best response"; }
+
+        @Override
+        public String getAuthor() { return "Minkin, Dmitri"; }
+    }
+
+    public static void main(String[] args) {
+        if(args.length == 0) { args = new String[] { "IlkkaPlayer3", "PLBadugi500877176", "PLBadugiOffPolicyTable" }; }
+        int threads = Runtime.getRuntime().availableProcessors();
+        for(String agent: args) {
+            long start = System.currentTimeMillis();
+            ExploitabilityEvaluator evaluator = new ExploitabilityEvaluator(byName(agent), threads, RandomSource.create().nextLong());
+            Result result = evaluator.evaluate(400_000, 200_000);
+            System.out.println(agent + ": exploitable by at least " + result + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+class ExploitabilityEvaluatorTest {
+
+    // An agent that checks when it can and folds to every bet.
+    private static class Folder implements PLBadugiPlayer {
+        @Override
+        public void startNewHand(int position, int handsToGo, int currentScore) { }
+
+        @Override
+        public int bettingAction(int drawsRemaining, PLBadugiHand hand, int pot, int raises, int toCall,
+                                 int minRaise, int maxRaise, int opponentDrew) {
+            return toCall == 0 ? 0 : -1;
+        }
+
+        @Override
+        public List<Card> drawingAction(int drawsRemaining, PLBadugiHand hand, int pot, int dealerDrew) {
+            return hand.getInactiveCards();
+        }
+
+        @Override
+        public void handComplete(PLBadugiHand yourHand, PLBadugiHand opponentHand, int result) { }
+
+        @Override
+        public String getAgentName() { return "Folder"; }
+
+        @Override
+        public String getAuthor() { return "Folder"; }
+    }
+
+    @Test
+    void bestResponseTakesTheAnteFromAnAgentThatAlwaysFolds() {
+        ExploitabilityEvaluator evaluator = new ExploitabilityEvaluator(Folder::new, 2, 1);
+        ExploitabilityEvaluator.Result result = evaluator.evaluate(20_000, 10_000);
+        assertEquals(10_000, result.getHands());
+        // Betting into the agent wins its ante of a quarter of a big blind in every hand.
+        assertEquals(1000.0 * PLBadugiRunner.ANTE / ExploitabilityEvaluator.BIG_BLIND, result.getMbbPerHand(), 10.0,
+            result.toString());
+        assertTrue(result.getLowerBound() > 200, result.toString());
+        assertTrue(result.getLowerBound() <= result.getMbbPerHand() && result.getMbbPerHand() <= result.getUpperBound());
+    }
+
+    @Test
+    void randomAgentsAreExploitable() {
+        ExploitabilityEvaluator evaluator = new ExploitabilityEvaluator(
+            () -> new SimplePlayer(new Rng.SplitMixRandom(2)), 1, 3);
+        ExploitabilityEvaluator.Result result = evaluator.evaluate(20_000, 20_000);
+        assertTrue(result.getLowerBound() > 0, result.toString());
+        assertTrue(result.getStandardError() > 0, result.toString());
+    }
+}
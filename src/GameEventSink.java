@@ -0,0 +1,87 @@
+import java.util.List;
+
+/**
+ * The receiver of the events that take place during the hands played by {@code PLBadugiRunner}. Every event
+ * is a separate method whose arguments are primitives or objects that already exist, so that the engine never
+ * builds anything for an event itself. All methods do nothing by default, and {@code SILENT} is the sink that
+ * ignores every event, which makes dispatching to it cost nothing once the JIT compiler has inlined the calls.
+ * Players are identified by their seats in the current hand, 0 being the dealer, and hands by their card masks
+ * as defined in {@code CardBits}.
+ */
+public interface GameEventSink {
+
+    /**
+     * The sink that ignores all events.
+     */
+    GameEventSink SILENT = new GameEventSink() { };
+
+    /**
+     * A new hand has been dealt and both players have posted the ante.
+     * @param handNumber The number of this hand in the current match.
+     * @param players The players of this hand, in the order (dealer, opponent).
+     * @param ante The ante posted by both players.
+     * @param hand0 The cards dealt to the dealer.
+     * @param hand1 The cards dealt to the opponent.
+     */
+    default void handStarted(long handNumber, PLBadugiPlayer[] players, int ante, long hand0, long hand1) { }
+
+    /**
+     * A betting round is about to start.
+     * @param drawsRemaining How many draws are remaining after this betting round.
+     * @param pot The current size of the pot.
+     * @param hand0 The current cards of the dealer.
+     * @param hand1 The current cards of the opponent.
+     */
+    default void bettingRoundStarted(int drawsRemaining, int pot, long hand0, long hand1) { }
+
+    /**
+     * A player made a betting action, already adjusted by the runner to the allowed range.
+     * @param player The seat of the player.
+     * @param drawsRemaining How many draws are remaining after this betting round.
+     * @param action The chips that the player pushed into the pot. Less than toCall means folding.
+     * @param toCall The cost to call to stay in the pot.
+     * @param minRaise The minimum allowed raise.
+     * @param maxRaise The maximum allowed raise.
+     * @param raises The number of raises made in this round before this action.
+     */
+    default void betAction(int player, int drawsRemaining, int action, int toCall, int minRaise, int maxRaise, int raises) { }
+
+    /**
+     * A player folded, or failed in a way that counts as folding, and the hand is over.
+     * @param player The seat of the player who folded.
+     * @param chipsLost The chips that the player loses to the opponent.
+     */
+    default void fold(int player, int chipsLost) { }
+
+    /**
+     * A player replaced some cards in a drawing round.
+     * @param player The seat of the player.
+     * @param drawsRemaining How many draws are remaining, including this drawing round.
+     * @param discarded The cards that the player replaced.
+     * @param newHand The cards of the player after the draw.
+     */
+    default void draw(int player, int drawsRemaining, List<Card> discarded, long newHand) { }
+
+    /**
+     * The hand has reached the showdown.
+     * @param hand0 The final cards of the dealer.
+     * @param hand1 The final cards of the opponent.
+     * @param winner The seat of the winning player, or -1 if the hands are equal.
+     * @param chips The chips won by the winner.
+     */
+    default void showdown(long hand0, long hand1, int winner, int chips) { }
+
+    /**
+     * A method of a player threw an exception.
+     * @param player The seat of the player.
+     * @param method The name of the method that failed.
+     * @param e The exception thrown by the method.
+     */
+    default void agentFailed(int player, String method, Exception e) { }
+
+    /**
+     * The hand is over.
+     * @param result The amount won by the dealer from the opponent.
+     */
+    default void handFinished(int result) { }
+}
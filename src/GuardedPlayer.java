@@ -0,0 +1,209 @@
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An agent that keeps another agent within a {@code TimeBudget} for one match. When the agent takes too long to
+ * make a betting or drawing decision, or has already spent its match budget, the decision throws a
+ * {@code BudgetExceededException}, which the runner takes as a check-fold. The other calls are not decisions
+ * and never fail for lack of time, but their time counts towards the match budget.
+ * <p>
+ * A trusted agent is called in the thread that plays the match, which costs two calls to System.nanoTime per
+ * call, and its decisions are only known to be too slow once they return. An untrusted agent is called in a
+ * thread of its own and abandoned when the decision budget runs out. The abandoned call is interrupted, and
+ * until it returns, the agent is not called at all and its decisions fail at once. Since the hand objects are
+ * reused by the runner, an abandoned call may see them change under it.
+ */
+public class GuardedPlayer implements PLBadugiPlayer {
+
+    /**
+     * Thrown by a decision that did not keep to the time budget.
+     */
+    public static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public BudgetExceededException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private final PLBadugiPlayer agent;
+    private final long decisionNanos, matchNanos;
+    private final boolean isolated;
+    // The time spent in the calls of the agent in this match.
+    private long spentNanos;
+    // How many calls have taken longer than the decision budget.
+    private int timeouts;
+    // The abandoned call of an untrusted agent, if it is still running.
+    private IsolatedCall<?> abandoned;
+
+    GuardedPlayer(PLBadugiPlayer agent, TimeBudget budget) {
+        this.agent = agent;
+        this.decisionNanos = budget.getDecisionNanos();
+        this.matchNanos = budget.getMatchNanos();
+        this.isolated = budget.isUntrusted(agent);
+    }
+
+    /** The agent kept within the budget. */
+    public PLBadugiPlayer getAgent() { return agent; }
+
+    /** How many calls of the agent have taken longer than the decision budget in this match. */
+    public int getTimeouts() { return timeouts; }
+
+    /** How many nanoseconds the agent has spent in its calls in this match. */
+    public long getSpentNanos() { return spentNanos; }
+
+    @Override
+    public void startNewMatch(int handsToGo) {
+        spentNanos = 0;
+        timeouts = 0;
+        if(isolated) { notifyIsolated(() -> { agent.startNewMatch(handsToGo); return null; }); return; }
+        long started = System.nanoTime();
+        try { agent.startNewMatch(handsToGo); }
+        finally { spentNanos += System.nanoTime() - started; }
+    }
+
+    @Override
+    public void finishedMatch(int finalScore) {
+        if(isolated) { notifyIsolated(() -> { agent.finishedMatch(finalScore); return null; }); return; }
+        long started = System.nanoTime();
+        try { agent.finishedMatch(finalScore); }
+        finally { spentNanos += System.nanoTime() - started; }
+    }
+
+    @Override
+    public void startNewHand(int position, int handsToGo, int currentScore) {
+        if(isolated) { notifyIsolated(() -> { agent.startNewHand(position, handsToGo, currentScore); return null; }); return; }
+        long started = System.nanoTime();
+        try { agent.startNewHand(position, handsToGo, currentScore); }
+        finally { spentNanos += System.nanoTime() - started; }
+    }
+
+    @Override
+    public int bettingAction(int drawsRemaining, PLBadugiHand hand, int pot, int raises, int toCall,
+                             int minRaise, int maxRaise, int opponentDrew) {
+        long started = startDecision();
+        int action;
+        try {
+            action = isolated
+                ? isolated(() -> agent.bettingAction(drawsRemaining, hand, pot, raises, toCall, minRaise, maxRaise, opponentDrew))
+                : agent.bettingAction(drawsRemaining, hand, pot, raises, toCall, minRaise, maxRaise, opponentDrew);
+        }
+        finally { spentNanos += System.nanoTime() - started; }
+        finishDecision(started);
+        return action;
+    }
+
+    @Override
+    public List<Card> drawingAction(int drawsRemaining, PLBadugiHand hand, int pot, int dealerDrew) {
+        long started = startDecision();
+        List<Card> toReplace;
+        try {
+            toReplace = isolated
+                ? isolated(() -> agent.drawingAction(drawsRemaining, hand, pot, dealerDrew))
+                : agent.drawingAction(drawsRemaining, hand, pot, dealerDrew);
+        }
+        finally { spentNanos += System.nanoTime() - started; }
+        finishDecision(started);
+        return toReplace;
+    }
+
+    @Override
+    public void handComplete(PLBadugiHand yourHand, PLBadugiHand opponentHand, int result) {
+        if(isolated) { notifyIsolated(() -> { agent.handComplete(yourHand, opponentHand, result); return null; }); return; }
+        long started = System.nanoTime();
+        try { agent.handComplete(yourHand, opponentHand, result); }
+        finally { spentNanos += System.nanoTime() - started; }
+    }
+
+    @Override
+    public String getAgentName() { return agent.getAgentName(); }
+
+    @Override
+    public String getAuthor() { return agent.getAuthor(); }
+
+    // Check that the agent may make a decision, and return the time at which the decision starts.
+    private long startDecision() {
+        if(isAbandoned()) {
+            throw new BudgetExceededException(agent.getAgentName() + " has not returned from an abandoned call");
+        }
+        if(spentNanos >= matchNanos) {
+            throw new BudgetExceededException(agent.getAgentName() + " has spent its time budget for the match");
+        }
+        return System.nanoTime();
+    }
+
+    // Check that the decision started at the given time was made within the decision budget.
+    private void finishDecision(long started) {
+        if(!isolated && System.nanoTime() - started > decisionNanos) {
+            timeouts++;
+            throw new BudgetExceededException(agent.getAgentName() + " exceeded the time budget of a decision");
+        }
+    }
+
+    private boolean isAbandoned() {
+        if(abandoned == null) { return false; }
+        if(abandoned.done.getCount() > 0) { return true; }
+        abandoned = null;
+        return false;
+    }
+
+    // Make the given call of an untrusted agent in a thread of its own, abandoning it if it takes too long.
+    private <T> T isolated(Callable<T> call) {
+        IsolatedCall<T> c = new IsolatedCall<T>(call);
+        TimeBudget.isolation().execute(c);
+        try {
+            if(!c.done.await(decisionNanos, TimeUnit.NANOSECONDS)) {
+                abandon(c);
+                throw new BudgetExceededException(agent.getAgentName() + " exceeded the time budget of a decision");
+            }
+        } catch(InterruptedException e) {
+            abandon(c);
+            Thread.currentThread().interrupt();
+            throw new BudgetExceededException("Interrupted while waiting for " + agent.getAgentName());
+        }
+        if(c.failure instanceof RuntimeException) { throw (RuntimeException) c.failure; }
+        if(c.failure instanceof Error) { throw (Error) c.failure; }
+        if(c.failure != null) { throw new RuntimeException(c.failure); }
+        return c.result;
+    }
+
+    private void abandon(IsolatedCall<?> c) {
+        Thread t = c.thread;
+        if(t != null) { t.interrupt(); }
+        abandoned = c;
+        timeouts++;
+    }
+
+    // One call of an untrusted agent, which is done when its latch has been counted down.
+    private static final class IsolatedCall<T> implements Runnable {
+        final Callable<T> call;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Thread thread;
+        T result;
+        Throwable failure;
+
+        IsolatedCall(Callable<T> call) { this.call = call; }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try { result = call.call(); }
+            catch(Throwable t) { failure = t; }
+            finally {
+                thread = null;
+                done.countDown();
+            }
+        }
+    }
+
+    // Make a call that is not a decision, skipping it while an abandoned call is still running.
+    private void notifyIsolated(Callable<Void> call) {
+        if(isAbandoned()) { return; }
+        long started = System.nanoTime();
+        try { isolated(call); }
+        catch(BudgetExceededException e) { } // already counted as a timeout
+        finally { spentNanos += System.nanoTime() - started; }
+    }
+}
@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import Rng.SplitMixRandom;
+
+class GuardedPlayerTest {
+
+    // An agent that always calls, after waiting for the given time or, if told to hang, until it is released.
+    private static class SlowPlayer implements PLBadugiPlayer {
+        final long sleepMillis;
+        volatile boolean hang, released;
+        volatile int decisions;
+
+        SlowPlayer(long sleepMillis) { this.sleepMillis = sleepMillis; }
+
+        public void startNewHand(int position, int handsToGo, int currentScore) { }
+
+        public int bettingAction(int drawsRemaining, PLBadugiHand hand, int pot, int raises, int toCall,
+                                 int minRaise, int maxRaise, int opponentDrew) {
+            decisions++;
+            if(hang) {
+                while(!released) { Thread.yield(); } // ignores interrupts
+            }
+            try { Thread.sleep(sleepMillis); } catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+            return toCall;
+        }
+
+        public List<Card> drawingAction(int drawsRemaining, PLBadugiHand hand, int pot, int dealerDrew) {
+            return Collections.emptyList();
+        }
+
+        public void handComplete(PLBadugiHand yourHand, PLBadugiHand opponentHand, int result) { }
+        public String getAgentName() { return "Slow"; }
+        public String getAuthor() { return "Slow"; }
+    }
+
+    private static int play(PLBadugiPlayer[] players, int hands) {
+        EfficientDeck deck = new EfficientDeck(new SplitMixRandom(3));
+        HandContext ctx = new HandContext(new MatchStats());
+        int score = 0;
+        for(int i = 0; i < hands; i++) {
+            ctx.stats.startHand(0);
+            score += PLBadugiRunner.playOneHand(4, deck, players, GameEventSink.SILENT, null, hands - i, score, ctx);
+        }
+        return score;
+    }
+
+    @Test
+    void slowDecisionsAreCheckFolds() {
+        GuardedPlayer slow = new GuardedPlayer(new SlowPlayer(5), new TimeBudget(1, 0));
+        // The honest agent gets a budget that no decision of its own comes near, even on a loaded machine.
+        GuardedPlayer honest = new GuardedPlayer(new SimplePlayer(new SplitMixRandom(1)), new TimeBudget(60_000, 0));
+        PLBadugiPlayer[] players = { slow, honest };
+        players[0].startNewMatch(10);
+        // The dealer acts first, and each of its decisions is too slow, so it loses the ante every hand.
+        assertEquals(-10, play(players, 10));
+        assertEquals(10, slow.getTimeouts());
+        assertTrue(slow.getSpentNanos() >= 10 * 5_000_000L);
+        assertEquals(0, honest.getTimeouts());
+    }
+
+    @Test
+    void spentMatchBudgetFailsWithoutCallingTheAgent() {
+        SlowPlayer agent = new SlowPlayer(2);
+        GuardedPlayer slow = new GuardedPlayer(agent, new TimeBudget(1000, 10));
+        slow.startNewMatch(100);
+        PLBadugiPlayer[] players = { slow, new SimplePlayer(new SplitMixRandom(1)) };
+        play(players, 100);
+        assertEquals(0, slow.getTimeouts());
+        assertTrue(agent.decisions <= 10, "decisions " + agent.decisions);
+        assertTrue(slow.getSpentNanos() >= 10_000_000L);
+    }
+
+    @Test
+    void hangingUntrustedAgentIsAbandoned() {
+        SlowPlayer agent = new SlowPlayer(0);
+        agent.hang = true;
+        TimeBudget budget = new TimeBudget(20, 0).untrusted(SlowPlayer.class.getName());
+        assertTrue(budget.isUntrusted(agent));
+        GuardedPlayer slow = new GuardedPlayer(agent, budget);
+        try {
+            PLBadugiPlayer[] players = { slow, new SimplePlayer(new SplitMixRandom(1)) };
+            assertEquals(-100, play(players, 100));
+            // Only the first call was made, and waited out its budget. The others failed at once while it was
+            // still running, without waiting for theirs, which would have counted as timeouts too.
+            assertEquals(1, agent.decisions);
+            assertEquals(1, slow.getTimeouts());
+        }
+        finally {
+            agent.released = true;
+        }
+    }
+
+    @Test
+    void untrustedAgentPlaysNormallyWithinBudget() {
+        TimeBudget budget = new TimeBudget(1000, 0).untrusted(SimplePlayer.class.getName());
+        PLBadugiPlayer[] plain = { new SimplePlayer(new SplitMixRandom(1)), new SimplePlayer(new SplitMixRandom(2)) };
+        PLBadugiPlayer[] guarded = {
+            new GuardedPlayer(new SimplePlayer(new SplitMixRandom(1)), budget),
+            new GuardedPlayer(new SimplePlayer(new SplitMixRandom(2)), budget)
+        };
+        assertEquals(play(plain, 200), play(guarded, 200));
+        assertEquals(0, ((GuardedPlayer) guarded[0]).getTimeouts());
+    }
+}
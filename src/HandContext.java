@@ -0,0 +1,54 @@
+/**
+ * The reusable state of one table at which heads-up hands are played one after another. It keeps all the
+ * buffers that {@code PLBadugiRunner.playOneHand} needs for a single hand, so that once the table has been
+ * created, playing a hand allocates nothing on the heap in the engine itself. The {@code PLBadugiHand} objects
+ * given to the players are also reused from hand to hand, so the players must not keep them after the hand.
+ */
+public class HandContext {
+
+    // The statistics of the match played at this table.
+    final MatchStats stats;
+    // How many chips each player has put into the pot in the current hand.
+    final int[] totalBets = new int[2];
+    // How many cards each player drew in the latest drawing round, or -1 before the first draw.
+    final int[] drawCounts = new int[2];
+    // The cards of each player as masks of card codes, as defined in CardBits.
+    final long[] hands = new long[2];
+    // The hand objects that the players see, and whether they are up to date with the masks.
+    private final PLBadugiHand[] views = { new PLBadugiHand(0L), new PLBadugiHand(0L) };
+    private final boolean[] viewValid = new boolean[2];
+    // The metrics that the hands at this table are recorded into, or null if there are none, and the
+    // latencies of the players in their seats in the current hand.
+    RunnerMetrics metrics;
+    final RunnerMetrics.AgentMetrics[] agentMetrics = new RunnerMetrics.AgentMetrics[2];
+
+    /**
+     * Constructor for the class.
+     * @param stats The statistics object into which the betting actions at this table are recorded.
+     */
+    public HandContext(MatchStats stats) {
+        this.stats = stats;
+    }
+
+    // Clear the buffers for a new hand in which both players have posted the given ante.
+    void startHand(int ante) {
+        totalBets[0] = totalBets[1] = ante;
+        drawCounts[0] = drawCounts[1] = -1;
+        viewValid[0] = viewValid[1] = false;
+    }
+
+    // Set the cards of the given player.
+    void setHand(int player, long cards) {
+        hands[player] = cards;
+        viewValid[player] = false;
+    }
+
+    // Get the hand object of the given player, updating it only if the hand has changed since the last call.
+    PLBadugiHand view(int player) {
+        if(!viewValid[player]) {
+            views[player].reset(hands[player]);
+            viewValid[player] = true;
+        }
+        return views[player];
+    }
+}
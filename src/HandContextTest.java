@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import Rng.SplitMixRandom;
+
+class HandContextTest {
+
+    // A deterministic agent that allocates nothing itself, so that all allocations come from the engine.
+    private static class NoAllocPlayer implements PLBadugiPlayer {
+        private final List<Card> pitch = new ArrayList<Card>(4);
+
+        public void startNewHand(int position, int handsToGo, int currentScore) { }
+
+        public int bettingAction(int drawsRemaining, PLBadugiHand hand, int pot, int raises, int toCall,
+                                 int minRaise, int maxRaise, int opponentDrew) {
+            int strength = hand.getStrength();
+            if(strength > 1000 && raises < 2) { return minRaise; }
+            if(strength < 300 && toCall > 0) { return toCall - 1; }
+            return toCall;
+        }
+
+        public List<Card> drawingAction(int drawsRemaining, PLBadugiHand hand, int pot, int dealerDrew) {
+            pitch.clear();
+            long inactive = hand.getCardMask() & ~hand.getActiveMask();
+            while(inactive != 0) {
+                int code = Long.numberOfTrailingZeros(inactive);
+                pitch.add(Card.fromCode(code));
+                inactive &= inactive - 1;
+            }
+            return pitch;
+        }
+
+        public void handComplete(PLBadugiHand yourHand, PLBadugiHand opponentHand, int result) { }
+        public String getAgentName() { return "NoAlloc"; }
+        public String getAuthor() { return "NoAlloc"; }
+    }
+
+    private static int playHands(HandContext ctx, EfficientDeck deck, PLBadugiPlayer[] players, int hands) {
+        int score = 0;
+        for(int i = 0; i < hands; i++) {
+            ctx.stats.startHand(0);
+            score += PLBadugiRunner.playOneHand(4, deck, players, GameEventSink.SILENT, null, hands - i, score, ctx);
+        }
+        return score;
+    }
+
+    @Test
+    void sameResultsAsFreshBuffers() {
+        PLBadugiPlayer[] players = { new NoAllocPlayer(), new NoAllocPlayer() };
+        EfficientDeck deck1 = new EfficientDeck(new SplitMixRandom(5));
+        EfficientDeck deck2 = new EfficientDeck(new SplitMixRandom(5));
+        HandContext ctx = new HandContext(new MatchStats());
+        for(int i = 0; i < 10_000; i++) {
+            ctx.stats.startHand(0);
+            int reused = PLBadugiRunner.playOneHand(4, deck1, players, GameEventSink.SILENT, null, 0, 0, ctx);
+            int fresh = PLBadugiRunner.playOneHand(4, deck2, players, null, null, 0, 0);
+            assertEquals(fresh, reused);
+        }
+    }
+
+    @Test
+    void noSteadyStateAllocation() {
+        // The allocation counter of the current thread is the same one that the JFR allocation events sample.
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported(), "No allocation counter in this JVM");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        PLBadugiPlayer[] players = { new NoAllocPlayer(), new NoAllocPlayer() };
+        EfficientDeck deck = new EfficientDeck(new SplitMixRandom(11));
+        HandContext ctx = new HandContext(new MatchStats());
+
+        playHands(ctx, deck, players, 200_000); // warm up
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        int hands = 200_000;
+        playHands(ctx, deck, players, hands);
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+        assertTrue(allocated < hands / 10, "Allocated " + allocated + " bytes in " + hands + " hands");
+    }
+}
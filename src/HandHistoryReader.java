@@ -0,0 +1,173 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The reader of the hand history files written by {@code HandHistoryWriter}. The file is memory-mapped, and
+ * the hands are read through a single cursor object that is moved from record to record, so that iterating
+ * over the hands of a file allocates nothing however large it is. Since one mapping cannot be larger than
+ * two gigabytes, a large file is mapped in several chunks that all consist of whole records.
+ * <pre>
+ *   try(HandHistoryReader reader = new HandHistoryReader(file)) {
+ *       HandHistoryReader.Hand hand = reader.hand();
+ *       while(reader.next()) { total += hand.result(); }
+ *   }
+ * </pre>
+ */
+public class HandHistoryReader implements Closeable {
+
+    private static final int RECORD_SIZE = HandHistoryWriter.RECORD_SIZE;
+    // How many records each mapped chunk contains.
+    private static final int RECORDS_PER_CHUNK = Integer.MAX_VALUE / RECORD_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long recordCount;
+    private final int ante;
+    private final Hand hand = new Hand();
+    // The index of the record that the cursor is at, or -1 before the first record.
+    private long current = -1;
+
+    /**
+     * Open the given hand history file for reading.
+     * @param file The file to read.
+     * @throws IOException If the file cannot be read, or if it is not a hand history file of a known version.
+     */
+    public HandHistoryReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if(size % RECORD_SIZE != 0) {
+                throw new IOException("Hand history " + file + " is truncated to " + size + " bytes.");
+            }
+            // A file into which no hand was ever recorded has no header either.
+            recordCount = Math.max(0, size / RECORD_SIZE - 1);
+            int chunkCount = (int) ((size + (long) RECORDS_PER_CHUNK * RECORD_SIZE - 1) / ((long) RECORDS_PER_CHUNK * RECORD_SIZE));
+            chunks = new MappedByteBuffer[chunkCount];
+            for(int i = 0; i < chunkCount; i++) {
+                long start = (long) i * RECORDS_PER_CHUNK * RECORD_SIZE;
+                long len = Math.min((long) RECORDS_PER_CHUNK * RECORD_SIZE, size - start);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, len);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            if(chunkCount == 0) { ante = 0; return; }
+            MappedByteBuffer header = chunks[0];
+            if(header.getInt(HandHistoryWriter.HEADER_MAGIC) != HandHistoryWriter.MAGIC) {
+                throw new IOException(file + " is not a hand history file.");
+            }
+            if(header.getInt(HandHistoryWriter.HEADER_VERSION) != HandHistoryWriter.VERSION
+                || header.getInt(HandHistoryWriter.HEADER_RECORD_SIZE) != RECORD_SIZE) {
+                throw new IOException("Hand history " + file + " has unsupported version "
+                    + header.getInt(HandHistoryWriter.HEADER_VERSION) + ".");
+            }
+            ante = header.getInt(HandHistoryWriter.HEADER_ANTE);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * How many hands the file contains.
+     */
+    public long size() { return recordCount; }
+
+    /**
+     * The ante posted by both players in every hand of the file.
+     */
+    public int getAnte() { return ante; }
+
+    /**
+     * The cursor through which the current hand is read. The same object is returned every time, and its
+     * contents change whenever the reader moves to another hand.
+     */
+    public Hand hand() { return hand; }
+
+    /**
+     * Move the cursor to the next hand.
+     * @return Whether there was a next hand to move to.
+     */
+    public boolean next() {
+        if(current + 1 >= recordCount) { return false; }
+        seek(current + 1);
+        return true;
+    }
+
+    /**
+     * Move the cursor to the hand of the given index.
+     * @param index The index of the hand, counting from zero.
+     */
+    public void seek(long index) {
+        if(index < 0 || index >= recordCount) {
+            throw new IndexOutOfBoundsException("Hand " + index + " of " + recordCount);
+        }
+        long record = index + 1; // skip the header
+        hand.buffer = chunks[(int) (record / RECORDS_PER_CHUNK)];
+        hand.base = (int) (record % RECORDS_PER_CHUNK) * RECORD_SIZE;
+        current = index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * One hand in a hand history file, as seen through the cursor of its reader. Players are identified
+     * by their seats in the hand, 0 being the dealer, and hands by their card masks as in {@code CardBits}.
+     */
+    public static final class Hand {
+        private MappedByteBuffer buffer;
+        private int base;
+
+        private Hand() { }
+
+        /** The number of this hand in its match. */
+        public long handNumber() { return buffer.getLong(base + HandHistoryWriter.HAND_NUMBER); }
+        /** The cards dealt to the given player. */
+        public long dealtHand(int seat) { return buffer.getLong(base + HandHistoryWriter.DEALT + 8 * seat); }
+        /** The amount won by the dealer from the opponent. */
+        public int result() { return buffer.getInt(base + HandHistoryWriter.RESULT); }
+        /** How the hand ended, one of {@code SHOWDOWN}, {@code FOLD} and {@code FAILURE} of the writer. */
+        public int outcome() { return buffer.get(base + HandHistoryWriter.OUTCOME); }
+        /** The winner at the showdown, or -1 if tied, or otherwise the player who folded or failed. */
+        public int seat() { return buffer.get(base + HandHistoryWriter.SEAT); }
+
+        /** How many betting actions were made in this hand. */
+        public int actionCount() { return buffer.get(base + HandHistoryWriter.ACTION_COUNT); }
+        /** The chips pushed into the pot in the given betting action. */
+        public int actionAmount(int i) { return buffer.getInt(base + HandHistoryWriter.AMOUNTS + 4 * i); }
+        /** The player who made the given betting action. */
+        public int actionSeat(int i) { return actionInfo(i) & 1; }
+        /** How many draws remained after the betting round of the given betting action. */
+        public int actionDrawsRemaining(int i) { return actionInfo(i) >> 1 & 3; }
+        /** The kind of the given betting action, one of {@code FOLDS}, {@code CALLS} and {@code RAISES} of the writer. */
+        public int actionKind(int i) { return actionInfo(i) >> 3 & 3; }
+
+        /** How many draws were made in this hand. */
+        public int drawCount() { return buffer.get(base + HandHistoryWriter.DRAW_COUNT); }
+        /** The player who made the given draw. */
+        public int drawSeat(int i) { return i & 1; }
+        /** How many draws remained, including the given draw, when it was made. */
+        public int drawDrawsRemaining(int i) { return 3 - i / 2; }
+        /** The cards of the drawing player after the given draw. */
+        public long drawHand(int i) { return buffer.getLong(base + HandHistoryWriter.DRAWS + 8 * i); }
+        /** The cards of the drawing player before the given draw. */
+        public long handBeforeDraw(int i) { return i < 2 ? dealtHand(i) : drawHand(i - 2); }
+        /** The cards that the drawing player discarded in the given draw. */
+        public long discarded(int i) { return handBeforeDraw(i) & ~drawHand(i); }
+
+        /** The cards of the given player at the end of this hand. */
+        public long finalHand(int seat) {
+            int last = drawCount() - 1;
+            if((last & 1) != seat) { last--; }
+            return last >= 0 ? drawHand(last) : dealtHand(seat);
+        }
+
+        private int actionInfo(int i) { return buffer.get(base + HandHistoryWriter.ACTION_INFO + i); }
+    }
+}
@@ -0,0 +1,57 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import Rng.SplitMixRandom;
+
+class HandHistoryTest {
+
+    @Test
+    void recordedHandsReplayToTheSameResults() throws IOException {
+        Path file = Files.createTempFile("hands", ".bhh");
+        try {
+            int hands = 5000;
+            PLBadugiPlayer[] players = { new SimplePlayer(new SplitMixRandom(1)), new SimplePlayer(new SplitMixRandom(2)) };
+            int score;
+            try(HandHistoryWriter writer = new HandHistoryWriter(file)) {
+                score = PLBadugiRunner.playHeadsUp(new EfficientDeck(new SplitMixRandom(3)), players, writer, null,
+                    hands, new MatchStats());
+                assertEquals(hands, writer.getRecordCount());
+            }
+
+            try(HandHistoryReader reader = new HandHistoryReader(file)) {
+                assertEquals(hands, reader.size());
+                HandHistoryReader.Hand hand = reader.hand();
+                int total = 0, count = 0;
+                while(reader.next()) {
+                    // The dealer alternates, and player 1 deals first when the match has an even number of hands.
+                    int sign = (hands - 1 - count) % 2 == 0 ? +1 : -1;
+                    total += sign * hand.result();
+                    assertEquals(count + 1, hand.handNumber());
+                    for(int i = 0; i < hand.drawCount(); i++) {
+                        assertEquals(4, Long.bitCount(hand.drawHand(i)));
+                        assertEquals(Long.bitCount(hand.discarded(i)), Long.bitCount(hand.drawHand(i) & ~hand.handBeforeDraw(i)));
+                    }
+                    if(hand.outcome() == HandHistoryWriter.SHOWDOWN) {
+                        int showdown = Integer.compare(CardBits.strength(hand.finalHand(0)), CardBits.strength(hand.finalHand(1)));
+                        assertEquals(showdown == 0 ? -1 : (showdown > 0 ? 0 : 1), hand.seat());
+                        assertEquals(Integer.signum(hand.result()), showdown);
+                    }
+                    else {
+                        assertEquals(HandHistoryWriter.FOLDS, hand.actionKind(hand.actionCount() - 1));
+                        assertEquals(hand.seat(), hand.actionSeat(hand.actionCount() - 1));
+                    }
+                    count++;
+                }
+                assertEquals(hands, count);
+                assertEquals(score, total);
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The event sink that records every hand into a binary file of fixed-width records, to be read back later
+ * with {@code HandHistoryReader}. The records are built in place in a direct buffer that is written to the
+ * file channel whenever it fills up, so recording a hand allocates nothing. A writer records one match at a
+ * time and is not safe to use from several threads; parallel matches should write into files of their own.
+ *
+ * The file starts with a header of {@code RECORD_SIZE} bytes, so that every record is aligned to its size.
+ * The header and the records are little-endian. Every record has the layout below, where the draws are
+ * stored as the hand mask of the drawing player after the draw, in the order in which they took place,
+ * that is, the dealer first in each drawing round.
+ * <pre>
+ *   0  long       the number of the hand in its match
+ *   8  long[2]    the hands dealt to the dealer and to the opponent
+ *  24  int        the result of the hand for the dealer
+ *  28  byte       the outcome of the hand, one of SHOWDOWN, FOLD and FAILURE
+ *  29  byte       the winner at the showdown (-1 when tied), or the seat that folded or failed
+ *  30  byte       the number of betting actions
+ *  31  byte       the number of draws
+ *  32  long[6]    the hands after each draw
+ *  80  int[24]    the chips pushed into the pot in each betting action
+ * 176  byte[24]   the seat, the draws remaining and the kind of each betting action
+ * 200             reserved, always zero
+ * </pre>
+ */
+public class HandHistoryWriter implements GameEventSink, Closeable {
+
+    /** The magic number that starts a hand history file, the characters "BHH" followed by a zero byte. */
+    public static final int MAGIC = 0x00484842;
+    /** The version of the file format described above. */
+    public static final int VERSION = 1;
+    /** The size of the header and of each record in bytes. */
+    public static final int RECORD_SIZE = 256;
+    /** The most betting actions and draws that a hand can have. */
+    public static final int MAX_ACTIONS = 24, MAX_DRAWS = 6;
+    /** The outcomes of a hand. */
+    public static final int SHOWDOWN = 0, FOLD = 1, FAILURE = 2;
+    /** The kinds of betting actions. */
+    public static final int FOLDS = 0, CALLS = 1, RAISES = 2;
+
+    // The offsets of the fields in a record.
+    static final int HAND_NUMBER = 0, DEALT = 8, RESULT = 24, OUTCOME = 28, SEAT = 29, ACTION_COUNT = 30,
+        DRAW_COUNT = 31, DRAWS = 32, AMOUNTS = 80, ACTION_INFO = 176;
+    // The offsets of the fields in the header.
+    static final int HEADER_MAGIC = 0, HEADER_VERSION = 4, HEADER_RECORD_SIZE = 8, HEADER_ANTE = 12;
+
+    // How many records are collected in the buffer before it is written.
+    private static final int RECORDS_PER_WRITE = 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORDS_PER_WRITE * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    // The start of the current record in the buffer, and whether the header has been written.
+    private int base = 0;
+    private boolean headerWritten = false;
+    private long recordCount = 0;
+
+    /**
+     * Create a writer that records into the given file, replacing its earlier contents.
+     * @param file The file to write into.
+     */
+    public HandHistoryWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * How many hands have been recorded so far.
+     */
+    public long getRecordCount() { return recordCount; }
+
+    @Override
+    public void handStarted(long handNumber, PLBadugiPlayer[] players, int ante, long hand0, long hand1) {
+        if(!headerWritten) {
+            clear();
+            buffer.putInt(base + HEADER_MAGIC, MAGIC);
+            buffer.putInt(base + HEADER_VERSION, VERSION);
+            buffer.putInt(base + HEADER_RECORD_SIZE, RECORD_SIZE);
+            buffer.putInt(base + HEADER_ANTE, ante);
+            advance();
+            headerWritten = true;
+        }
+        clear();
+        buffer.putLong(base + HAND_NUMBER, handNumber);
+        buffer.putLong(base + DEALT, hand0);
+        buffer.putLong(base + DEALT + 8, hand1);
+    }
+
+    @Override
+    public void betAction(int player, int drawsRemaining, int action, int toCall, int minRaise, int maxRaise, int raises) {
+        int i = buffer.get(base + ACTION_COUNT);
+        int kind = action < toCall ? FOLDS : (action == toCall ? CALLS : RAISES);
+        buffer.putInt(base + AMOUNTS + 4 * i, action);
+        buffer.put(base + ACTION_INFO + i, (byte) (player | drawsRemaining << 1 | kind << 3));
+        buffer.put(base + ACTION_COUNT, (byte) (i + 1));
+    }
+
+    @Override
+    public void draw(int player, int drawsRemaining, List<Card> discarded, long newHand) {
+        int i = buffer.get(base + DRAW_COUNT);
+        buffer.putLong(base + DRAWS + 8 * i, newHand);
+        buffer.put(base + DRAW_COUNT, (byte) (i + 1));
+    }
+
+    @Override
+    public void fold(int player, int chipsLost) {
+        // A failing betting action is followed by a fold, which must not hide the failure.
+        if(buffer.get(base + OUTCOME) == FAILURE) { return; }
+        buffer.put(base + OUTCOME, (byte) FOLD);
+        buffer.put(base + SEAT, (byte) player);
+    }
+
+    @Override
+    public void showdown(long hand0, long hand1, int winner, int chips) {
+        buffer.put(base + OUTCOME, (byte) SHOWDOWN);
+        buffer.put(base + SEAT, (byte) winner);
+    }
+
+    @Override
+    public void agentFailed(int player, String method, Exception e) {
+        // The hand has already been decided when handComplete is called.
+        if("handComplete".equals(method)) { return; }
+        buffer.put(base + OUTCOME, (byte) FAILURE);
+        buffer.put(base + SEAT, (byte) player);
+    }
+
+    @Override
+    public void handFinished(int result) {
+        buffer.putInt(base + RESULT, result);
+        advance();
+        recordCount++;
+    }
+
+    /**
+     * Write the buffered records into the file.
+     */
+    public void flush() throws IOException {
+        buffer.position(0).limit(base);
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        base = 0;
+    }
+
+    /**
+     * Write the buffered records and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try { flush(); }
+        finally { channel.close(); }
+    }
+
+    // Zero the current record.
+    private void clear() {
+        for(int i = 0; i < RECORD_SIZE; i += 8) {
+            buffer.putLong(base + i, 0L);
+        }
+    }
+
+    // Move on to the next record, writing the buffer first if it is full.
+    private void advance() {
+        base += RECORD_SIZE;
+        if(base == buffer.capacity()) {
+            try { flush(); }
+            catch(IOException e) { throw new UncheckedIOException(e); }
+        }
+    }
+}
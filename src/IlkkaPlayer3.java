@@ -1,13 +1,15 @@
 import java.util.*;
 import java.text.*;
 
+import Rng.RandomSource;
+
 // VERSION OF FEBRUARY 4, 2017, FIXED VARIOUS BUGS AND ADDED COMMENTS
 
 public class IlkkaPlayer3 implements PLBadugiPlayer {
 
     private static final double MAXAGGRO = 5;
 
-    private Random rng = new Random();
+    private Random rng;
     private int position;
 
     // State variables for the current hand, meaning exactly what the names say. 
@@ -39,11 +41,22 @@ public class IlkkaPlayer3 implements PLBadugiPlayer {
     private static int id = 0;
 
     public IlkkaPlayer3(String name) {
-        this.name = name;
+        this(name, RandomSource.create());
     }
 
     public IlkkaPlayer3() {
-        this.name = "Badugi Boogie " + (++id);
+        this("Badugi Boogie " + (++id));
+    }
+
+    // Create an agent with the default name that makes its random decisions with the given random number generator.
+    public IlkkaPlayer3(Random rng) {
+        this("Badugi Boogie " + (++id), rng);
+    }
+
+    // Create an agent that makes its random decisions with the given random number generator.
+    public IlkkaPlayer3(String name, Random rng) {
+        this.name = name;
+        this.rng = rng;
     }
 
     // Threshold hands to estimate the value of our hand for the drawing rounds
@@ -0,0 +1,123 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with logarithmic buckets in the style of HdrHistogram: every power of
+ * two is split into eight buckets of equal width, so that a latency is known within 12.5%, and the values below
+ * sixteen nanoseconds have buckets of their own. Recording a value increments one counter and allocates nothing,
+ * and the histogram can be recorded into by several threads at the same time.
+ */
+public class LatencyHistogram {
+
+    // The values below this have a bucket of their own.
+    private static final int LINEAR = 16;
+    // How many buckets each power of two above LINEAR is split into, as a power of two.
+    private static final int SUB_BITS = 3;
+    private static final int BUCKETS = LINEAR + (63 - 4) * (1 << SUB_BITS);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    // The bucket of the given non-negative value.
+    static int bucket(long value) {
+        if(value < LINEAR) { return (int) Math.max(0, value); }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // at least 4
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return LINEAR + ((exponent - 4) << SUB_BITS) + sub;
+    }
+
+    // The smallest value in the given bucket.
+    static long lowestValue(int bucket) {
+        if(bucket < LINEAR) { return bucket; }
+        int exponent = ((bucket - LINEAR) >>> SUB_BITS) + 4;
+        long sub = (bucket - LINEAR) & ((1 << SUB_BITS) - 1);
+        return (1L << exponent) | sub << (exponent - SUB_BITS);
+    }
+
+    // The largest value in the given bucket.
+    static long highestValue(int bucket) {
+        return bucket + 1 < BUCKETS ? lowestValue(bucket + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Record one latency.
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+    }
+
+    /**
+     * Add the counts of the other histogram into this one.
+     */
+    public void add(LatencyHistogram other) {
+        for(int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if(c != 0) { counts.addAndGet(i, c); }
+        }
+    }
+
+    /**
+     * A copy of the current counts, which does not change when more latencies are recorded.
+     */
+    public Counts snapshot() {
+        long[] copy = new long[BUCKETS];
+        for(int i = 0; i < BUCKETS; i++) { copy[i] = counts.get(i); }
+        return new Counts(copy);
+    }
+
+    /**
+     * The counts of a histogram at one moment, and the statistics computed from them. Since only the buckets of
+     * the values are known, the statistics take every value to be in the middle of its bucket.
+     */
+    public static final class Counts {
+        private final long[] counts;
+        private final long total;
+
+        private Counts(long[] counts) {
+            this.counts = counts;
+            long t = 0;
+            for(long c: counts) { t += c; }
+            this.total = t;
+        }
+
+        /** How many latencies have been recorded. */
+        public long getCount() { return total; }
+
+        /** The mean latency in nanoseconds, or 0 if none have been recorded. */
+        public double getMean() {
+            if(total == 0) { return 0; }
+            double sum = 0;
+            for(int i = 0; i < counts.length; i++) {
+                if(counts[i] != 0) { sum += counts[i] * middle(i); }
+            }
+            return sum / total;
+        }
+
+        /**
+         * The latency in nanoseconds that the given fraction of the recorded latencies do not exceed.
+         * @param quantile The fraction, from 0 to 1.
+         */
+        public long getQuantile(double quantile) {
+            if(total == 0) { return 0; }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for(int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen >= rank) { return middle(i); }
+            }
+            return middle(counts.length - 1);
+        }
+
+        /** The highest recorded latency in nanoseconds, within the precision of the buckets. */
+        public long getMax() {
+            for(int i = counts.length - 1; i >= 0; i--) {
+                if(counts[i] != 0) { return highestValue(i); }
+            }
+            return 0;
+        }
+
+        private static long middle(int bucket) {
+            long low = lowestValue(bucket);
+            return low + (highestValue(bucket) - low) / 2;
+        }
+    }
+}
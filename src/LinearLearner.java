@@ -0,0 +1,64 @@
+/**
+ * The learner of the weights of a linear action-value function, such as that of {@code PLBadugi500877176}, from the
+ * transitions of agents that play in parallel threads, as described in {@code AsyncLearner}. Each transition is
+ * learned in the order it arrives with the same semi-gradient SARSA update that the agent makes online, but with a
+ * constant learning rate, since the transitions of many matches are interleaved. The agents get the published weights
+ * through {@code getPublishedWeights} when they are given this learner in {@code useExperienceReplay}.
+ */
+public class LinearLearner extends AsyncLearner implements WeightSource {
+
+    private final int featureLength;
+    private final double[] weights;
+    private final double alpha;
+    private final double gamma;
+    private volatile double[] published;
+
+    /**
+     * Constructor for the class, which starts the thread of the learner.
+     * @param initialWeights The weights to start from, which are copied.
+     * @param alpha The learning rate.
+     * @param gamma The discount factor.
+     * @param batchSize How many transitions each batch holds.
+     * @param queueCapacity How many full batches may wait for the learner before the writers wait for it.
+     * @param publishInterval After how many batches the weights are published.
+     */
+    public LinearLearner(double[] initialWeights, double alpha, double gamma, int batchSize, int queueCapacity,
+                         int publishInterval) {
+        super(initialWeights.length, batchSize, queueCapacity, publishInterval, "linear-learner");
+        this.featureLength = initialWeights.length;
+        this.weights = initialWeights.clone();
+        this.alpha = alpha;
+        this.gamma = gamma;
+        this.published = weights.clone();
+        start();
+    }
+
+    @Override
+    protected void learn(Batch batch) {
+        for(int k = 0; k < batch.size; k++) {
+            int offset = k * featureLength;
+            double target = batch.rewards[k];
+            if(!batch.terminal[k]) { target += gamma * dot(weights, batch.nextFeatures, offset, featureLength); }
+            double scale = alpha * (target - dot(weights, batch.features, offset, featureLength));
+            for(int j = 0; j < featureLength; j++) {
+                weights[j] += scale * batch.features[offset + j];
+            }
+        }
+    }
+
+    @Override
+    protected void publish() {
+        published = weights.clone();
+    }
+
+    @Override
+    public double[] getPublishedWeights() { return published; }
+
+    private static double dot(double[] w, double[] x, int offset, int length) {
+        double sum = 0.0;
+        for(int j = 0; j < length; j++) {
+            sum += w[j] * x[offset + j];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,214 @@
+import java.util.List;
+
+import Rng.RandomSource;
+import Rng.SplitMixRandom;
+
+/**
+ * Estimates the winnings of one player of a heads-up match from the events of its hands, both as the plain
+ * average of the results and as an average from which much of the luck of the cards has been removed, in the
+ * style of the AIVAT estimator of Burch et al. The luck is measured by a baseline that values a hand for the
+ * player as the sign of the difference of the strengths of the current cards of the two players. Every time
+ * cards fall, in the deal and in each of the three draws, the estimator records the change of the baseline caused
+ * by the new cards minus its expected change over all the cards that could have fallen instead, computed exactly
+ * by {@code DrawOutcomes} from the cards that remained in the deck, and scaled by the pot at that moment. Each
+ * of these four terms averages to zero over the cards, whatever the players do, so the luck of the cards in
+ * the deal and in the draws of one or two cards is measured without knowing anything about the players. The corrected estimate
+ * subtracts from the average result the average terms, each weighted by the regression coefficient of the result
+ * on the terms, so that it stays an unbiased estimate of the winnings up to the error of the coefficients, but
+ * one whose variance is lower by the part of the variance of the results that the luck of the cards explains.
+ * <p>
+ * In a duplicate match played by {@code PLBadugiRunner.playDuplicate}, the two hands of each deal are not
+ * independent of each other, so the estimator must be told to treat each pair of hands as one sample.
+ * The estimator can then be given to the runner as the event sink of the match:
+ * <pre>
+ *   MatchEstimator estimator = new MatchEstimator(players[0], 2);
+ *   PLBadugiRunner.playDuplicate(deck, players, estimator, null, deals, new MatchStats());
+ * </pre>
+ * From the command line, a duplicate match of the given number of deals between two agents is estimated by
+ * <pre>
+ *   java MatchEstimator IlkkaPlayer3 SimplePlayer 50000
+ * </pre>
+ */
+public class MatchEstimator implements GameEventSink {
+
+    // The number of correction terms, one for the deal and one for each draw.
+    private static final int TERMS = 4;
+    // The largest draw whose term is recorded. Larger draws take too long to enumerate for the little luck that
+    // their terms explain, and leaving them out depends only on the discard, so the terms still average to zero.
+    private static final int MAX_DRAWN = 2;
+
+    private final PLBadugiPlayer subject;
+    private final int handsPerDeal;
+
+    // The running means and co-moments of the samples, each sample being the result of the subject per hand
+    // followed by the correction terms, all averaged over the hands of one deal.
+    private long samples;
+    private final double[] mean = new double[TERMS + 1];
+    private final double[][] comoment = new double[TERMS + 1][TERMS + 1];
+    // The sums of the sample values of the hands of the current deal, and how many of its hands have been played.
+    private final double[] deal = new double[TERMS + 1];
+    private int dealHands;
+    private final double[] delta = new double[TERMS + 1];
+
+    // The seat of the subject in the current hand, the current cards of both seats, and all the cards that
+    // have left the deck in the current hand.
+    private int subjectSeat;
+    private final long[] hands = new long[2];
+    private long seen;
+    private int pot;
+    // The correction terms of the current hand, for the dealer.
+    private final double[] terms = new double[TERMS];
+
+    /**
+     * Constructor for the class.
+     * @param subject The player whose winnings are estimated, as given to the runner.
+     * @param handsPerDeal How many hands of the match form one independent sample: 1 for a match of fresh deals,
+     * and 2 for a duplicate match.
+     */
+    public MatchEstimator(PLBadugiPlayer subject, int handsPerDeal) {
+        if(handsPerDeal < 1) { throw new IllegalArgumentException("handsPerDeal must be positive: " + handsPerDeal); }
+        this.subject = subject;
+        this.handsPerDeal = handsPerDeal;
+    }
+
+    @Override
+    public void handStarted(long handNumber, PLBadugiPlayer[] players, int ante, long hand0, long hand1) {
+        subjectSeat = unwrap(players[0]) == subject ? 0 : 1;
+        hands[0] = hand0;
+        hands[1] = hand1;
+        seen = hand0 | hand1;
+        pot = 2 * ante;
+        // Both seats are dealt from the same deck, so the baseline of the deal averages to zero.
+        terms[0] = ante * Integer.signum(CardBits.strength(hand0) - CardBits.strength(hand1));
+        for(int k = 1; k < TERMS; k++) { terms[k] = 0; }
+    }
+
+    private static PLBadugiPlayer unwrap(PLBadugiPlayer player) {
+        return player instanceof GuardedPlayer ? ((GuardedPlayer) player).getAgent() : player;
+    }
+
+    @Override
+    public void bettingRoundStarted(int drawsRemaining, int pot, long hand0, long hand1) {
+        this.pot = pot;
+    }
+
+    @Override
+    public void betAction(int player, int drawsRemaining, int action, int toCall, int minRaise, int maxRaise, int raises) {
+        if(action >= toCall) { pot += action; }
+    }
+
+    @Override
+    public void draw(int player, int drawsRemaining, List<Card> discarded, long newHand) {
+        long hand = hands[player], discard = CardBits.toMask(discarded);
+        if(discard != 0 && discarded.size() <= MAX_DRAWN) {
+            int opponent = CardBits.strength(hands[1 - player]);
+            // The replacements come uniformly from the cards that have not yet left the deck in this hand.
+            double expected = 2 * DrawOutcomes.winProbability(hand, discard, seen & ~hand, opponent) - 1;
+            double actual = Integer.signum(CardBits.strength(newHand) - opponent);
+            terms[TERMS - drawsRemaining] += (player == 0 ? 0.5 : -0.5) * pot * (actual - expected);
+        }
+        hands[player] = newHand;
+        seen |= newHand;
+    }
+
+    @Override
+    public void handFinished(int result) {
+        double sign = subjectSeat == 0 ? 1 : -1;
+        deal[0] += sign * result;
+        for(int k = 0; k < TERMS; k++) { deal[k + 1] += sign * terms[k]; }
+        if(++dealHands == handsPerDeal) {
+            // Update the means and the co-moments as in the algorithm of Welford.
+            samples++;
+            for(int i = 0; i <= TERMS; i++) {
+                double x = deal[i] / handsPerDeal;
+                delta[i] = x - mean[i];
+                mean[i] += delta[i] / samples;
+                deal[i] = 0;
+            }
+            for(int i = 0; i <= TERMS; i++) {
+                for(int j = 0; j <= TERMS; j++) { comoment[i][j] += delta[i] * delta[j] * (samples - 1) / samples; }
+            }
+            dealHands = 0;
+        }
+    }
+
+    /** How many hands of complete deals have been recorded. */
+    public long getHands() { return samples * handsPerDeal; }
+
+    /** The average winnings of the subject in chips per hand. */
+    public double getMean() { return mean[0]; }
+
+    /** The standard error of the average winnings, in chips per hand, or NaN before the second deal. */
+    public double getStandardError() {
+        return samples > 1 ? Math.sqrt(comoment[0][0] / (samples - 1) / samples) : Double.NaN;
+    }
+
+    /** The average winnings of the subject corrected for the luck of the cards, in chips per hand. */
+    public double getCorrectedMean() {
+        double[] beta = coefficients();
+        double result = mean[0];
+        for(int k = 0; k < TERMS; k++) { result -= beta[k] * mean[k + 1]; }
+        return result;
+    }
+
+    /** The standard error of the corrected winnings, in chips per hand, or NaN before the second deal. */
+    public double getCorrectedStandardError() {
+        if(samples <= TERMS + 1) { return getStandardError(); }
+        double[] beta = coefficients();
+        // The residual variance of the results after the regression on the terms.
+        double residual = comoment[0][0];
+        for(int k = 0; k < TERMS; k++) { residual -= beta[k] * comoment[0][k + 1]; }
+        return Math.sqrt(Math.max(0, residual) / (samples - 1 - TERMS) / samples);
+    }
+
+    // The least squares coefficients of the result on the terms, solved from the co-moments by Gaussian
+    // elimination. A term that has not varied, such as that of a draw that nobody has made, gets no weight.
+    private double[] coefficients() {
+        double[] beta = new double[TERMS];
+        if(samples <= TERMS + 1) { return beta; }
+        double[][] a = new double[TERMS][TERMS + 1];
+        for(int i = 0; i < TERMS; i++) {
+            for(int j = 0; j < TERMS; j++) { a[i][j] = comoment[i + 1][j + 1]; }
+            a[i][TERMS] = comoment[i + 1][0];
+        }
+        boolean[] used = new boolean[TERMS];
+        for(int i = 0; i < TERMS; i++) {
+            used[i] = a[i][i] > 1e-9 * (1 + comoment[i + 1][i + 1]);
+            if(!used[i]) { continue; }
+            for(int r = i + 1; r < TERMS; r++) {
+                double f = a[r][i] / a[i][i];
+                for(int c = i; c <= TERMS; c++) { a[r][c] -= f * a[i][c]; }
+            }
+        }
+        for(int i = TERMS - 1; i >= 0; i--) {
+            if(!used[i]) { continue; }
+            double sum = a[i][TERMS];
+            for(int j = i + 1; j < TERMS; j++) { sum -= a[i][j] * beta[j]; }
+            beta[i] = sum / a[i][i];
+        }
+        return beta;
+    }
+
+    @Override
+    public String toString() {
+        double scale = 1000.0 / ExploitabilityEvaluator.BIG_BLIND;
+        return String.format("%.1f +- %.1f mbb/hand plain, %.1f +- %.1f mbb/hand corrected (%d hands)",
+            getMean() * scale, getStandardError() * scale, getCorrectedMean() * scale,
+            getCorrectedStandardError() * scale, getHands());
+    }
+
+    public static void main(String[] args) {
+        if(args.length < 2) {
+            System.out.println("Usage: java MatchEstimator agent1 agent2 [deals]");
+            return;
+        }
+        int deals = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+        PLBadugiPlayer[] players = {
+            ExploitabilityEvaluator.byName(args[0]).get(), ExploitabilityEvaluator.byName(args[1]).get()
+        };
+        MatchEstimator estimator = new MatchEstimator(players[0], 2);
+        EfficientDeck deck = new EfficientDeck(new SplitMixRandom(RandomSource.create().nextLong()));
+        PLBadugiRunner.playDuplicate(deck, players, estimator, null, deals, new MatchStats());
+        System.out.println(args[0] + " against " + args[1] + ": " + estimator);
+    }
+}
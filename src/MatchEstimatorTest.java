@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import Rng.SplitMixRandom;
+
+class MatchEstimatorTest {
+
+    // An agent that always calls and either replaces all of its cards or none, recording the hands it is dealt.
+    private static class Recorder implements PLBadugiPlayer {
+        final boolean draws;
+        final List<Long> dealt = new ArrayList<Long>();
+        private boolean newHand;
+
+        Recorder(boolean draws) { this.draws = draws; }
+
+        @Override
+        public void startNewHand(int position, int handsToGo, int currentScore) { newHand = true; }
+
+        @Override
+        public int bettingAction(int drawsRemaining, PLBadugiHand hand, int pot, int raises, int toCall,
+                                 int minRaise, int maxRaise, int opponentDrew) {
+            if(newHand) { dealt.add(hand.getCardMask()); newHand = false; }
+            return toCall;
+        }
+
+        @Override
+        public List<Card> drawingAction(int drawsRemaining, PLBadugiHand hand, int pot, int dealerDrew) {
+            return draws ? hand.getAllCards() : new ArrayList<Card>();
+        }
+
+        @Override
+        public void handComplete(PLBadugiHand yourHand, PLBadugiHand opponentHand, int result) { }
+
+        @Override
+        public String getAgentName() { return "Recorder"; }
+
+        @Override
+        public String getAuthor() { return "Recorder"; }
+    }
+
+    @Test
+    void restoredDecksDealTheSameCards() {
+        EfficientDeck deck = new EfficientDeck(new SplitMixRandom(1));
+        deck.drawMask(13);
+        long snapshot = deck.snapshot();
+        long first = deck.drawMask(8), second = deck.drawMask(4);
+        deck.restore(snapshot);
+        assertEquals(first, deck.drawMask(8));
+        assertEquals(second, deck.drawMask(4));
+        // Another deck restored to the snapshot deals the same cards too.
+        EfficientDeck other = new EfficientDeck(new SplitMixRandom(2));
+        other.restore(snapshot);
+        assertEquals(first, other.drawMask(8));
+        assertThrows(IllegalStateException.class, () -> new EfficientDeck(new Random(3)).snapshot());
+    }
+
+    @Test
+    void duplicateDealsCancelBetweenEqualPlayers() {
+        // Untrained CFR agents always call and make the standard draw, so both play each deal the same way.
+        PLBadugiPlayer[] players = { new CfrPlayer(new CfrSolver(), 1), new CfrPlayer(new CfrSolver(), 2) };
+        MatchEstimator estimator = new MatchEstimator(players[0], 2);
+        MatchStats stats = new MatchStats();
+        int score = PLBadugiRunner.playDuplicate(new EfficientDeck(new SplitMixRandom(4)), players, estimator, null, 1000, stats);
+        assertEquals(0, score);
+        assertEquals(2000, stats.getHandsPlayed());
+        assertEquals(2000, estimator.getHands());
+        assertEquals(0.0, estimator.getMean(), 1e-12);
+        assertEquals(0.0, estimator.getStandardError(), 1e-12);
+    }
+
+    @Test
+    void correctionsRemoveTheLuckOfTheCards() {
+        PLBadugiPlayer[] players = { new CfrPlayer(new CfrSolver(), 1), new SimplePlayer(new SplitMixRandom(5)) };
+        MatchEstimator estimator = new MatchEstimator(players[0], 1);
+        int score = PLBadugiRunner.playHeadsUp(new EfficientDeck(new SplitMixRandom(6)), players, estimator, null,
+            20_000, new MatchStats());
+        assertEquals(20_000, estimator.getHands());
+        assertEquals(score / 20_000.0, estimator.getMean(), 1e-9);
+        assertTrue(estimator.getCorrectedStandardError() < 0.8 * estimator.getStandardError(), estimator.toString());
+        // Both estimate the same winnings.
+        assertEquals(estimator.getMean(), estimator.getCorrectedMean(), 4 * estimator.getStandardError(), estimator.toString());
+    }
+
+    @Test
+    void dealsDoNotDependOnTheDrawsOfEarlierDeals() {
+        Recorder drawing = new Recorder(true), pat = new Recorder(false);
+        PLBadugiRunner.playDuplicate(new EfficientDeck(new SplitMixRandom(7)), new PLBadugiPlayer[] { drawing, new Recorder(false) },
+            GameEventSink.SILENT, null, 50, new MatchStats());
+        PLBadugiRunner.playDuplicate(new EfficientDeck(new SplitMixRandom(7)), new PLBadugiPlayer[] { pat, new Recorder(false) },
+            GameEventSink.SILENT, null, 50, new MatchStats());
+        // Each deal is dealt the same whether or not the hands before it drew any cards, so no deal is dealt from
+        // the random numbers that an earlier one drew its cards from.
+        assertEquals(100, drawing.dealt.size());
+        assertEquals(drawing.dealt, pat.dealt);
+    }
+}
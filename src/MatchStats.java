@@ -0,0 +1,102 @@
+/**
+ * The statistics of one heads-up match, kept in its own object so that several matches can be
+ * played at the same time without sharing any counters. Players are indexed as in the array that
+ * was given to {@code PLBadugiRunner.playHeadsUp}, regardless of who is the dealer of each hand.
+ * The results of the hands are kept as running statistics in constant memory, so that matches of any length
+ * can be recorded.
+ */
+public class MatchStats {
+
+    /** The length of the moving average of the results of the hands. */
+    public static final int AVERAGE_WINDOW = 100;
+    // The most points in the series of the moving average and of the theta norm, and their initial stride.
+    private static final int SERIES_CAPACITY = 2048;
+    private static final int SERIES_STRIDE = 50;
+
+    // How many times each player folded, called or raised during this match.
+    final int[] numFolds = new int[2];
+    final int[] numCalls = new int[2];
+    final int[] numRaises = new int[2];
+    // How many hands of this match have been started so far.
+    long handCount = 0;
+    // The index of the player who is the dealer of the current hand.
+    private int dealer = 0;
+
+    // The mean and variance of the results of the hands for player 0 and of the theta norm of the learning agent,
+    // the moving average of the results, and that average and the theta norm sampled for the plot, starting
+    // from the first hand that completes the window of the average.
+    private final RunningStats scores = new RunningStats();
+    private final RunningStats theta = new RunningStats();
+    private final MovingAverage average = new MovingAverage(AVERAGE_WINDOW);
+    private final DownsampledSeries averageSeries = new DownsampledSeries(SERIES_CAPACITY, AVERAGE_WINDOW - 1, SERIES_STRIDE);
+    private final DownsampledSeries thetaSeries = new DownsampledSeries(SERIES_CAPACITY, AVERAGE_WINDOW - 1, SERIES_STRIDE);
+    long handsPlayed = 0;
+    // The reporter that receives the sampled points as they are sampled, and the name of this match for it.
+    private ProgressReporter reporter;
+    private String match;
+
+    // Start a new hand in which the given player is the dealer.
+    void startHand(int dealer) {
+        this.dealer = dealer;
+        handCount++;
+    }
+
+    // Record the betting actions of the player in the given seat, 0 being the dealer.
+    void fold(int seat) { numFolds[seat ^ dealer]++; }
+    void call(int seat) { numCalls[seat ^ dealer]++; }
+    void raise(int seat) { numRaises[seat ^ dealer]++; }
+
+    // Report the sampled points of this match to the given reporter from now on.
+    void reportTo(ProgressReporter reporter, String match) {
+        this.reporter = reporter;
+        this.match = match;
+    }
+
+    // Record the result of the finished hand, in constant time and memory however long the match is.
+    void handFinished(int score, double thetaNorm) {
+        scores.add(score);
+        theta.add(thetaNorm);
+        average.add(score);
+        if(averageSeries.isDue(handsPlayed)) {
+            averageSeries.offer(handsPlayed, average.getAverage());
+            thetaSeries.offer(handsPlayed, thetaNorm);
+            if(reporter != null) { reporter.sample(match, handsPlayed, average.getAverage(), thetaNorm); }
+        }
+        handsPlayed++;
+    }
+
+    /**
+     * Append the statistics of another part of the same match after the hands recorded in this object.
+     * @param other The statistics of the other part, whose players are in the same order as in this match.
+     */
+    public void merge(MatchStats other) {
+        for(int i = 0; i < 2; i++) {
+            numFolds[i] += other.numFolds[i];
+            numCalls[i] += other.numCalls[i];
+            numRaises[i] += other.numRaises[i];
+        }
+        handCount += other.handCount;
+        scores.merge(other.scores);
+        theta.merge(other.theta);
+        average.merge(other.average);
+        averageSeries.merge(other.averageSeries, handsPlayed);
+        thetaSeries.merge(other.thetaSeries, handsPlayed);
+        handsPlayed += other.handsPlayed;
+    }
+
+    public int getFolds(int player) { return numFolds[player]; }
+    public int getCalls(int player) { return numCalls[player]; }
+    public int getRaises(int player) { return numRaises[player]; }
+    public long getHandsPlayed() { return handsPlayed; }
+
+    /** The mean and variance of the results of the hands for player 0. */
+    public RunningStats getScores() { return scores; }
+    /** The mean and variance of the theta norm of the learning agent after each hand. */
+    public RunningStats getTheta() { return theta; }
+    /** The moving average of the results of the latest hands for player 0. */
+    public MovingAverage getAverage() { return average; }
+    /** The moving average of the results for player 0, sampled over the whole match. */
+    public DownsampledSeries getAverageSeries() { return averageSeries; }
+    /** The theta norm of the learning agent, sampled at the same hands as the moving average. */
+    public DownsampledSeries getThetaSeries() { return thetaSeries; }
+}
@@ -0,0 +1,105 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+class MatchStatsTest {
+
+    // The result of the given hand in the tests.
+    private static int score(long hand) { return (int) (hand * 7919 % 61) - 30; }
+
+    @Test
+    void movingAverageCoversTheLatestHands() {
+        MovingAverage average = new MovingAverage(4);
+        assertEquals(0.0, average.getAverage());
+        average.add(1);
+        average.add(3);
+        assertFalse(average.isFull());
+        assertEquals(2.0, average.getAverage());
+        for(int v = 5; v <= 11; v += 2) { average.add(v); }
+        assertTrue(average.isFull());
+        assertEquals((5 + 7 + 9 + 11) / 4.0, average.getAverage());
+        MovingAverage other = new MovingAverage(3);
+        other.add(100);
+        average.merge(other);
+        assertEquals((7 + 9 + 11 + 100) / 4.0, average.getAverage());
+    }
+
+    @Test
+    void seriesStaysWithinItsCapacity() {
+        DownsampledSeries series = new DownsampledSeries(8, 3, 2);
+        for(long x = 0; x < 1000; x++) { series.offer(x, x); }
+        assertTrue(series.size() <= 8 && series.size() >= 4, "size " + series.size());
+        double[] xs = series.getX(), ys = series.getY();
+        assertEquals(3.0, xs[0]);
+        for(int i = 1; i < xs.length; i++) {
+            assertEquals(series.getStride(), xs[i] - xs[i - 1]);
+            assertEquals(xs[i], ys[i]);
+        }
+        // The points cover the whole stream.
+        assertTrue(xs[xs.length - 1] >= 1000 - series.getStride());
+    }
+
+    @Test
+    void mergedSeriesIsTheSameAsOneStream() {
+        int length = 1000;
+        DownsampledSeries whole = new DownsampledSeries(8, 0, 1);
+        for(long x = 0; x < length; x++) { whole.offer(x, score(x)); }
+        // Split the stream at multiples of the coarsest stride, and at one that leaves the second part finer.
+        for(int split : new int[] { 0, 128, 384, 512, 896, 992, length }) {
+            DownsampledSeries first = new DownsampledSeries(8, 0, 1), second = new DownsampledSeries(8, 0, 1);
+            for(long x = 0; x < length; x++) {
+                if(x < split) { first.offer(x, score(x)); }
+                else { second.offer(x - split, score(x)); }
+            }
+            first.merge(second, split);
+            assertEquals(whole.getStride(), first.getStride(), "split " + split);
+            assertArrayEquals(whole.getX(), first.getX(), "split " + split);
+            assertArrayEquals(whole.getY(), first.getY(), "split " + split);
+            // The merged series goes on sampling the stream where the whole one would.
+            for(long x = length; x < 4 * length; x++) {
+                assertEquals(whole.isDue(x), first.isDue(x), "split " + split + " at " + x);
+            }
+        }
+    }
+
+    @Test
+    void mergeResamplesAFinerSeries() {
+        DownsampledSeries coarse = new DownsampledSeries(8, 0, 4), fine = new DownsampledSeries(8, 0, 1);
+        for(long x = 0; x < 16; x++) { coarse.offer(x, x); }
+        for(long x = 0; x < 6; x++) { fine.offer(x, x + 16); }
+        coarse.merge(fine, 16);
+        assertEquals(4, coarse.getStride());
+        assertArrayEquals(new double[] { 0, 4, 8, 12, 16, 20 }, coarse.getX());
+        assertArrayEquals(coarse.getX(), coarse.getY());
+        assertTrue(coarse.isDue(24));
+    }
+
+    @Test
+    void statisticsAreKeptWithoutTheResults() {
+        int hands = 1_000_000;
+        MatchStats stats = new MatchStats(), first = new MatchStats(), second = new MatchStats();
+        double sum = 0;
+        for(long h = 0; h < hands; h++) {
+            stats.handFinished(score(h), h);
+            (h < 400_000 ? first : second).handFinished(score(h), h);
+            sum += score(h);
+        }
+        assertEquals(hands, stats.getHandsPlayed());
+        assertEquals(sum / hands, stats.getScores().getMean(), 1e-9);
+        assertTrue(stats.getScores().getConfidenceRadius() > 0);
+        double window = 0;
+        for(long h = hands - MatchStats.AVERAGE_WINDOW; h < hands; h++) { window += score(h); }
+        assertEquals(window / MatchStats.AVERAGE_WINDOW, stats.getAverage().getAverage(), 1e-12);
+        // The series of a million hands is as short as that of a hundred thousand, and starts from the same hand.
+        DownsampledSeries series = stats.getAverageSeries();
+        assertTrue(series.size() <= 2048);
+        assertEquals(MatchStats.AVERAGE_WINDOW - 1, series.getX()[0]);
+        assertArrayEquals(series.getX(), stats.getThetaSeries().getY());
+
+        first.merge(second);
+        assertEquals(hands, first.getHandsPlayed());
+        assertEquals(stats.getScores().getMean(), first.getScores().getMean(), 1e-9);
+        assertEquals(stats.getScores().getVariance(), first.getScores().getVariance(), 1e-6);
+        assertEquals(stats.getAverage().getAverage(), first.getAverage().getAverage(), 1e-12);
+        assertTrue(first.getAverageSeries().size() <= 2048);
+    }
+}
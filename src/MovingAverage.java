@@ -0,0 +1,46 @@
+/**
+ * The average of the latest values of a stream of integers over a window of fixed length, updated in constant
+ * time per value from a ring buffer of the values in the window and their exact sum.
+ */
+public class MovingAverage {
+
+    private final int[] window;
+    // The position of the oldest value in the window once it is full, and how many values it holds.
+    private int next, count;
+    private long sum;
+
+    /**
+     * Constructor for the class.
+     * @param length How many of the latest values are averaged.
+     */
+    public MovingAverage(int length) {
+        if(length < 1) { throw new IllegalArgumentException("The window must have a positive length: " + length); }
+        this.window = new int[length];
+    }
+
+    /**
+     * Add the given value to the stream, dropping the oldest value from the window if it is full.
+     */
+    public void add(int value) {
+        if(count == window.length) { sum -= window[next]; }
+        else { count++; }
+        window[next] = value;
+        sum += value;
+        next = next + 1 == window.length ? 0 : next + 1;
+    }
+
+    /**
+     * Add the values in the window of another stream to this one, from the oldest to the latest, as if the other
+     * stream had continued this one.
+     */
+    public void merge(MovingAverage other) {
+        int start = other.count == other.window.length ? other.next : 0;
+        for(int i = 0; i < other.count; i++) { add(other.window[(start + i) % other.window.length]); }
+    }
+
+    /** Whether the window has been filled, so that the average is over its whole length. */
+    public boolean isFull() { return count == window.length; }
+
+    /** The average of the values in the window, or 0 if there are none. */
+    public double getAverage() { return count == 0 ? 0 : (double) sum / count; }
+}
@@ -1,8 +1,21 @@
-import java.security.SecureRandom;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+import Rng.RandomSource;
+
 enum Action{
     Fold(ActionHelper.FoldAction),
     Call(ActionHelper.CallAction),
@@ -56,6 +69,14 @@ enum Action{
         return selectedActions;
     }
 
+    // The actions of each kind in the order of allActions, shared by all callers, which must not modify them.
+    private static final Action[] BetActions = {Fold, Call, MinRaise, MiddleRaise, MaxRaise};
+    private static final Action[] DrawActions = {DrawZero, DrawOne, DrawTwo, DrawThree, DrawFour};
+
+    static Action[] actions(boolean isBet) {
+        return isBet ? BetActions : DrawActions;
+    }
+
     // list that has Q-value for each action of the given state.
 // action a: 0,1,2,3,4 : 0=fold, 1=toCall, 2=minRaise, 3=(maxRaise+minRaise)/2, 4=maxRaise
 //           5,6,7,8,9 : 5=draw-0,6=draw-1,7=draw-2,8=draw-3,9=draw-4
@@ -92,21 +113,16 @@ class State{
 
 class RandomHelper{
 
-    private static Random random = create();
+    // Each thread has its own generator, so that agents playing in parallel matches use independent streams.
+    private static final ThreadLocal<Random> random = ThreadLocal.withInitial(RandomSource::create);
 
-    private static Random create(){
-        Random rng;
-        String seed = "My string is to be used as seed of secure random number generator"+System.currentTimeMillis();
-        try { rng = new SecureRandom(seed.getBytes()); }
-        catch(Exception e) {
-            //System.out.println("Unable to create a secure RNG. Using java.util.Random instead.");
-            rng = new Random();
-        }
-        return rng;
+    // Replace the random number generator used by the current thread, e.g. with one created from an explicit seed.
+    public static void setRandom(Random rng){
+        random.set(rng);
     }
 
     public static boolean nextActionShouldBeRandom(double epsilon){
-        double d = random.nextDouble(); // next random double from interval [0..1]
+        double d = random.get().nextDouble(); // next random double from interval [0..1]
         if(d<=epsilon) return true; // make epsilon greedy only epsilon amount of time
         return false; // otherwise use regular algorithm for action
     }
@@ -117,13 +133,13 @@ class RandomHelper{
     }
 
     public static Action getRandomBetAction(){
-        int index = random.nextInt(Action.NumBetActions) + Action.Fold.toInt();
+        int index = random.get().nextInt(Action.NumBetActions) + Action.Fold.toInt();
         Action action = Action.fromInt(index);
         return action;
     }
 
     public static Action getRandomDrawAction(){
-        int index = random.nextInt(Action.NumDrawActions) + Action.DrawZero.toInt();
+        int index = random.get().nextInt(Action.NumDrawActions) + Action.DrawZero.toInt();
         Action action = Action.fromInt(index);
         return action;
     }
@@ -131,7 +147,7 @@ class RandomHelper{
     public static Vector getRandomVector(int length){
         double[] d = new double[length];
         for (int i = 0; i <length; i++) {
-            d[i] = random.nextDouble();
+            d[i] = random.get().nextDouble();
         }
 
         Vector v = new Vector(d);
@@ -160,7 +176,7 @@ class RandomHelper{
     }
 
     private static int categoricalDraw(double[] probabilities) {
-        double rand = random.nextDouble();
+        double rand = random.get().nextDouble();
         double cumulativeProbability = 0;
         for (int i = 0; i < probabilities.length; i++) {
             double probability = probabilities[i];
@@ -220,6 +236,46 @@ class Vector {
         return sum;
     }
 
+    // The backing array of this vector, used to copy the weights in and out without allocating.
+    final double[] values(){
+        return weight;
+    }
+
+    // Add the given values multiplied by the scalar to this vector.
+    public void addScaled(double scalar, double[] values){
+        if(values == null || values.length != weight.length) {
+            throw new IllegalArgumentException("vector length is incompatible");
+        }
+        for (int i=0; i<weight.length; i++){
+            weight[i] += values[i] * scalar;
+        }
+    }
+
+    // The inner product of two arrays of the same length. The loop is unrolled into four independent sums,
+    // which the CPU can add up in parallel instead of waiting for each addition to finish before the next.
+    static double dot(double[] a, double[] b){
+        int n = a.length;
+        double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+        int i = 0;
+        for (; i + 3 < n; i += 4){
+            s0 += a[i] * b[i];
+            s1 += a[i+1] * b[i+1];
+            s2 += a[i+2] * b[i+2];
+            s3 += a[i+3] * b[i+3];
+        }
+        for (; i < n; i++){
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    public void set(double[] values){
+        if(values == null || values.length != weight.length) {
+            throw new IllegalArgumentException("vector length is incompatible");
+        }
+        System.arraycopy(values, 0, weight, 0, weight.length);
+    }
+
     private void validate(Vector other){
         if(other == null || other.weight.length != this.weight.length) {
             throw new IllegalArgumentException("vector length is incompatible");
@@ -244,6 +300,37 @@ class Vector {
     }
 }
 
+// A Vector whose updates are also added without locks to weights shared with the agents of other threads, and
+// whose own values, which the agent reads, are refreshed from the shared weights after every staleness + 1 updates,
+// so that the agent sees the updates of the other threads at most that many of its own updates late.
+class SharedVector extends Vector {
+    private final SharedWeights shared;
+    private final int staleness;
+    private int updates; // the updates since the values were last refreshed
+
+    public SharedVector(SharedWeights shared, int staleness){
+        super(shared.get());
+        this.shared = shared;
+        this.staleness = Math.max(0, staleness);
+    }
+
+    @Override
+    public void addScaled(double scalar, double[] values){
+        super.addScaled(scalar, values);
+        shared.addScaled(scalar, values);
+        if(++updates > staleness) {
+            shared.copyInto(values());
+            updates = 0;
+        }
+    }
+
+    @Override
+    public void set(double[] values){
+        super.set(values);
+        shared.set(values);
+    }
+}
+
 class Sarsa {
 
     private double temperature; // [0..1] simulated annealing parameter for soft-max random action selection
@@ -259,9 +346,20 @@ class Sarsa {
     private State prevState;   // the previous state of Q-value: S
     private Action prevAction; // the action that was taken to go from prevState to newState: A
     private Vector theta; // value function weights vector for features
-    private static final int FeatureLength = 1+21;//*2; // * (Action.NumBetActions + Action.NumDrawActions);
+    static final int FeatureLength = 1+21;//*2; // * (Action.NumBetActions + Action.NumDrawActions);
     private int opponentFoldHands = 0; // number of episodes that ended with opponent folding
 
+    private TransitionSink replay; // if not null, every transition is recorded here
+    private WeightSource trainer; // if not null, learns from the recorded transitions instead of this object
+    private double[] trainerWeights; // the weights published by the trainer that were last copied into theta
+
+    // The features of the state last given to nextAction, reused by the update that follows it, and the
+    // state and prevState that they were computed for, or null if they are out of date.
+    private final double[] newFeatures = new double[FeatureLength];
+    private State newFeaturesState, newFeaturesPrevState;
+    // The features of prevState, computed again by each update since prevState keeps changing.
+    private final double[] prevFeatures = new double[FeatureLength];
+
     public final State getPrevState(){ return prevState;}
     public final void setPrevState(State s){ prevState = s;}
     public final Action getPrevAction(){ return prevAction;}
@@ -272,6 +370,37 @@ class Sarsa {
         theta = new Vector(FeatureLength); //RandomHelper.getRandomVector(FeatureLength);
     }
 
+    /**
+     * Record every transition into the given buffer. If a trainer is given, the learning is left to it, and
+     * the latest weights that it has published are copied into theta at the start of each episode. Otherwise
+     * the transitions are learned online as usual, and the buffer only keeps them e.g. for offline training.
+     */
+    public final void useReplay(TransitionSink replay, WeightSource trainer) {
+        this.replay = replay;
+        this.trainer = trainer;
+        this.trainerWeights = null;
+    }
+
+    /**
+     * Learn the weights together with the agents of other threads, adding the updates to the given shared weights
+     * without locks, and reading them at most staleness updates late. This is an alternative to useReplay with a
+     * trainer, in which only the trainer updates the weights.
+     */
+    public final void useSharedWeights(SharedWeights shared, int staleness) {
+        if(shared.length() != FeatureLength) {
+            throw new IllegalArgumentException("vector length is incompatible");
+        }
+        theta = new SharedVector(shared, staleness);
+    }
+
+    public final double[] getWeights() {
+        return theta.values().clone();
+    }
+
+    public final void setWeights(double[] weights) {
+        theta.set(weights);
+    }
+
     public final void resetRate() {
         // reset learning for new match
         alpha = alphaZero = 0.2;
@@ -287,6 +416,15 @@ class Sarsa {
         handsToGo = episodesLeft;
         prevState = initialState;
         prevAction = RandomHelper.getRandomBetAction();
+        newFeaturesState = null;
+
+        if(trainer != null) {
+            double[] weights = trainer.getPublishedWeights();
+            if(weights != trainerWeights) {
+                theta.set(weights);
+                trainerWeights = weights;
+            }
+        }
 
         temperature = temperatureZero / episodeCounter;
         epsilon = (episodeCounter %70==0)? epsilon/4 : epsilon;//epsilonZero*episodesLeft/(episodeCounter+episodesLeft);
@@ -306,8 +444,8 @@ class Sarsa {
                 List<Double> qs = new ArrayList<>();
                 List<Action> actions = new ArrayList<>();
 
-                for (Action action : Action.allActions(isBet)) {
-                    double q = q(newState, action, theta);
+                double q = Vector.dot(newFeatures(newState), theta.values());
+                for (Action action : Action.actions(isBet)) {
                     qs.add(q);
                     actions.add(action);
                 }
@@ -317,13 +455,16 @@ class Sarsa {
             else return RandomHelper.getRandomAction(isBet);
         }
 
+        // The features depend on the state only, so they are computed once and shared by all the actions.
+        double stateQ = Vector.dot(newFeatures(newState), theta.values());
+
         Action bestAction = null;
         double max = Double.NEGATIVE_INFINITY;
         boolean isFirst = true;
 
-        for (Action action : Action.allActions(isBet)) {
+        for (Action action : Action.actions(isBet)) {
 
-            double q = q(newState, action, theta);
+            double q = stateQ;
 
             if (isFirst) {
                 isFirst = false;
@@ -342,10 +483,17 @@ class Sarsa {
 
     public final void update(State newState, double reward, Action newAction){
 
-        double scalar = alpha * (reward + gamma * q(newState,newAction,theta) - q(prevState,prevAction,theta));
-        Vector gradient = getFeatures(prevState, prevAction);
-        gradient.multiply(scalar);
-        theta.add(gradient);
+        double[] next = newFeatures(newState);
+        double[] prev = features(prevState, prevFeatures);
+
+        if(replay != null) {
+            replay.add(prev, prevAction.toInt(), reward, next, false);
+            if(trainer != null) return;
+        }
+
+        double[] weights = theta.values();
+        double scalar = alpha * (reward + gamma * Vector.dot(next, weights) - Vector.dot(prev, weights));
+        theta.addScaled(scalar, prev);
 
         // // normalize
         // double norm = theta.norm2();
@@ -357,24 +505,36 @@ class Sarsa {
         if(reward>0 && opponentFolded) {
             opponentFoldHands++;
         }
+        newFeaturesState = null; // the features depend on opponentFoldHands
+
+        double[] prev = features(prevState, prevFeatures);
+
+        if(replay != null) {
+            replay.add(prev, prevAction.toInt(), reward, null, true);
+            if(trainer != null) return;
+        }
 
-        double scalar = alpha * (reward - q(prevState,prevAction,theta));
-        Vector gradient = getFeatures(prevState, prevAction);
-        gradient.multiply(scalar);
-        theta.add(gradient);
+        double scalar = alpha * (reward - Vector.dot(prev, theta.values()));
+        theta.addScaled(scalar, prev);
     }
 
-    private double q(State state, Action action, Vector theta) {
-        Vector v = getFeatures(state, action);
-        double s = v.innerProduct(theta);
-        return s;
+    // The features of the given state, computed into newFeatures unless they are there already.
+    private double[] newFeatures(State state) {
+        if(state != newFeaturesState || prevState != newFeaturesPrevState) {
+            features(state, newFeatures);
+            newFeaturesState = state;
+            newFeaturesPrevState = prevState;
+        }
+        return newFeatures;
     }
 
-    private Vector getFeatures(State state, Action action) {
+    // Compute the normalized features of the given state into the given buffer, and return the buffer.
+    private double[] features(State state, double[] feature) {
 
         int handActiveLength = state.handActiveRanks.length;
         int handRankLengthChange = state.handActiveRanks.length - prevState.handActiveRanks.length;
         double potOdds = state.toCall==0? state.pot : (double) state.pot /(double) (state.toCall);
+        double handRankDensity = handRankDensity(state);
 
         //Aggression factor= AF. AF > 1 aggressive, AF<1 passive
         double opponentAggression = state.opponentCalls==0 ? 1 :
@@ -386,43 +546,43 @@ class Sarsa {
         // Folds >70% =>Loose, otherwise Tight player
         double opponentTightness = ((double) opponentFoldHands) / episodeCounter;
 
-        double[] feature = new double[FeatureLength];
-
         int i=0;
         feature[i++] = 1.0;
 
-        //for(Action a: Action.values()) {
-        int step = 0;//action.isBet()? 1: 0;
-
-        i+= step*20;
-
-            //boolean isCurrent = a == action;
-            feature[i++] = /* !isCurrent ? 0 : */ (handActiveLength);
-            feature[i++] = /* !isCurrent ? 0 : */ (handActiveLength * handActiveLength);
-            feature[i++] = /* !isCurrent ? 0 : */ (handRankLengthChange);
-            feature[i++] = /* !isCurrent ? 0 : */ (handRankLengthChange * handRankLengthChange);
-            feature[i++] = /* !isCurrent ? 0 : */ (handRankDensity(state));
-            feature[i++] = /* !isCurrent ? 0 : */ (handRankDensity(state) - handRankDensity(prevState));
-            feature[i++] = /* !isCurrent ? 0 : */ (state.drawsRemaining);
-            feature[i++] = /* !isCurrent ? 0 : */ (state.opponentRaises);  // opponent raised in this drawing round
-            feature[i++] = /* !isCurrent ? 0 : */ (state.opponentRaises * state.opponentRaises);  // opponent raised in this drawing round
-            feature[i++] = /* !isCurrent ? 0 : */ (state.opponentDrew);
-            feature[i++] = /* !isCurrent ? 0 : */ (state.agentDrew * state.drawsRemaining);
-            feature[i++] = /* !isCurrent ? 0 : */ (opponentAggression);
-            feature[i++] = /* !isCurrent ? 0 : */ (opponentAggression * opponentAggression);
-            feature[i++] = /* !isCurrent ? 0 : */ (opponentTightness);
-            feature[i++] = /* !isCurrent ? 0 : */ (opponentTightness * opponentTightness);
-            feature[i++] = /* !isCurrent ? 0 : */ (opponentTightness * opponentAggression);
-            feature[i++] = /* !isCurrent ? 0 : */ (potOdds);
-            feature[i++] = /* !isCurrent ? 0 : */ (agentAggression);
-            feature[i++] = /* !isCurrent ? 0 : */ (agentAggression*agentAggression);
-            feature[i++] = /* !isCurrent ? 0 : */ opponentAggression==0?1e-100:(agentAggression/opponentAggression);
-        //}
-
-        Vector v = new Vector(feature);
-        double norm = v.norm2();
-        if(norm != 0) v.multiply(1/norm);
-        return v;
+        feature[i++] = (handActiveLength);
+        feature[i++] = (handActiveLength * handActiveLength);
+        feature[i++] = (handRankLengthChange);
+        feature[i++] = (handRankLengthChange * handRankLengthChange);
+        feature[i++] = (handRankDensity);
+        feature[i++] = (handRankDensity - handRankDensity(prevState));
+        feature[i++] = (state.drawsRemaining);
+        feature[i++] = (state.opponentRaises);  // opponent raised in this drawing round
+        feature[i++] = (state.opponentRaises * state.opponentRaises);  // opponent raised in this drawing round
+        feature[i++] = (state.opponentDrew);
+        feature[i++] = (state.agentDrew * state.drawsRemaining);
+        feature[i++] = (opponentAggression);
+        feature[i++] = (opponentAggression * opponentAggression);
+        feature[i++] = (opponentTightness);
+        feature[i++] = (opponentTightness * opponentTightness);
+        feature[i++] = (opponentTightness * opponentAggression);
+        feature[i++] = (potOdds);
+        feature[i++] = (agentAggression);
+        feature[i++] = (agentAggression*agentAggression);
+        feature[i++] = opponentAggression==0?1e-100:(agentAggression/opponentAggression);
+        while (i < FeatureLength) feature[i++] = 0.0;
+
+        double sum = 0.0;
+        for (double v: feature) {
+            sum += v*v;
+        }
+        double norm = Math.sqrt(sum);
+        if(norm != 0) {
+            double scale = 1/norm;
+            for (int k=0; k<feature.length; k++) {
+                feature[k] *= scale;
+            }
+        }
+        return feature;
     }
 
     private double handRankDensity(State state){
@@ -445,7 +605,18 @@ class Sarsa {
     }
 }
 
-public class PLBadugi500877176 implements PLBadugiPlayer {
+public class PLBadugi500877176 implements PLBadugiPlayer, Checkpointable {
+
+    /**
+     * The checkpoint of the weights that new agents warm-start from if it exists, named by the system property
+     * {@code badugi.theta}, by default {@code theta.bin}.
+     */
+    public static final String WEIGHTS_FILE = System.getProperty("badugi.theta", "theta.bin");
+    /** The magic number at the start of the weight files. */
+    public static final int MAGIC = 0x42535457;
+    /** The version of the format of the weight files. */
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * 4;
 
     private static int instanceCounter = 0;
     private String name = "Obi-Wan-";
@@ -458,12 +629,134 @@ public class PLBadugi500877176 implements PLBadugiPlayer {
         name += instanceCounter;
 
         qtable = new Sarsa();
+        if(DefaultWeights.WEIGHTS != null) {
+            qtable.setWeights(DefaultWeights.WEIGHTS);
+        }
+    }
+
+    // The weights of the default checkpoint, loaded once when the first agent is created, or null if there is none.
+    private static final class DefaultWeights {
+        static final double[] WEIGHTS = load();
+    }
+
+    private static double[] load() {
+        Path file = Paths.get(WEIGHTS_FILE);
+        if(!Files.exists(file)) { return null; }
+        try { return loadWeights(file); }
+        catch(IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    /**
+     * Replace the weights of the value function of this agent, e.g. with those of a checkpoint or of a ReplayTrainer.
+     * @throws IllegalArgumentException If there are not featureLength() weights.
+     */
+    public void setWeights(double[] weights){
+        qtable.setWeights(weights);
+    }
+
+    /**
+     * Save the given weights into the given file, replacing it atomically where the file system allows, so that an
+     * interrupted save leaves the previous file intact. The file has a header of the magic number, the version and
+     * the number of weights, followed by the weights, all big-endian.
+     */
+    public static void saveWeights(double[] weights, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(weights.length);
+            for(double w: weights) { out.writeDouble(w); }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Load the weights saved by {@code saveWeights}, memory-mapping the file.
+     * @throws IOException If the file cannot be read, or if it is not a weight file of a known version whose
+     * weights fit the features of this agent.
+     */
+    public static double[] loadWeights(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_SIZE) {
+                throw new IOException(file + " is not a weight file.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if(buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a weight file.");
+            }
+            int version = buffer.getInt(4);
+            if(version != VERSION) {
+                throw new IOException("Weight file " + file + " has unsupported version " + version + ".");
+            }
+            int length = buffer.getInt(8);
+            if(length != Sarsa.FeatureLength || size != HEADER_SIZE + 8L * length) {
+                throw new IOException("Weight file " + file + " has " + length + " weights instead of " + Sarsa.FeatureLength + ".");
+            }
+            double[] weights = new double[length];
+            buffer.position(HEADER_SIZE);
+            buffer.asDoubleBuffer().get(weights);
+            return weights;
+        }
+    }
+
+    @Override
+    public Checkpointable.Snapshot snapshot() {
+        double[] weights = qtable.getWeights();
+        return file -> saveWeights(weights, file);
+    }
+
+    @Override
+    public Path checkpointFile() {
+        return Paths.get(WEIGHTS_FILE);
     }
 
     public double thetaNorm(){
         return qtable.thetaNorm();
     }
 
+    /**
+     * The length of the feature vectors of the transitions that this agent records for experience replay.
+     */
+    public static int featureLength(){
+        return Sarsa.FeatureLength;
+    }
+
+    /**
+     * Replace the random number generator that the agents of the current thread explore with, e.g. with one
+     * created from an explicit seed to make their play reproducible.
+     */
+    public static void setRandom(Random rng){
+        RandomHelper.setRandom(rng);
+    }
+
+    /**
+     * A copy of the current weights of the value function of this agent, e.g. to start a ReplayTrainer from.
+     */
+    public double[] getWeights(){
+        return qtable.getWeights();
+    }
+
+    /**
+     * Record the transitions of this agent into the given sink, such as an ExperienceReplayBuffer or the writer of
+     * a LinearLearner, leaving the learning to the given trainer unless it is null. See Sarsa.useReplay.
+     */
+    public void useExperienceReplay(TransitionSink replay, WeightSource trainer){
+        qtable.useReplay(replay, trainer);
+    }
+
+    /**
+     * Learn the weights together with the agents of other threads through the given shared weights, which this
+     * agent starts from and reads at most staleness of its updates late. See Sarsa.useSharedWeights.
+     */
+    public void useSharedWeights(SharedWeights shared, int staleness){
+        qtable.useSharedWeights(shared, staleness);
+    }
+
     @Override
     public void startNewMatch(int handsToGo) {
           qtable.resetRate();
@@ -10,6 +10,10 @@ public class PLBadugiHand implements Comparable<PLBadugiHand> {
     private List<Card> allCards = new ArrayList<Card>(4);
     // The best badugi hand that can be constructed by choosing from the four cards.
     private List<Card> activeCards = new ArrayList<Card>(4);
+    // The masks of all cards and of the active cards, as defined in CardBits.
+    private long cardMask, activeMask;
+    // The dense strength of the active badugi hand, as defined in BadugiEvaluator.
+    private int strength;
     
     /**
      * The constructor to create a hand from given list of cards.
@@ -19,6 +23,37 @@ public class PLBadugiHand implements Comparable<PLBadugiHand> {
         this.allCards.addAll(cards);
         updateActiveHand();
     }
+
+    /**
+     * The constructor to create a hand from the given mask of card codes.
+     * @param cards The mask of the cards that make up this badugi hand, as defined in {@code CardBits}.
+     */
+    public PLBadugiHand(long cards) {
+        reset(cards);
+    }
+
+    // Replace all cards of this hand with the cards in the given mask, reusing the lists of this object
+    // so that nothing is allocated for a four-card hand.
+    void reset(long cards) {
+        allCards.clear();
+        if(Long.bitCount(cards) != 4) {
+            allCards.addAll(CardBits.toCards(cards));
+            updateActiveHand();
+            return;
+        }
+        activeCards.clear();
+        cardMask = cards;
+        activeMask = CardBits.activeMask(cards);
+        // Adding the cards from the highest code down puts them in the descending order of Card.compareTo.
+        while(cards != 0) {
+            int code = 63 - Long.numberOfLeadingZeros(cards);
+            Card c = Card.fromCode(code);
+            allCards.add(c);
+            if((activeMask & CardBits.bit(code)) != 0) { activeCards.add(c); }
+            cards &= ~CardBits.bit(code);
+        }
+        strength = BadugiEvaluator.strengthOfRanks(CardBits.rankSet(activeMask));
+    }
     
     public PLBadugiHand(String cards) {
         if(cards.length() != 8) {
@@ -34,12 +69,20 @@ public class PLBadugiHand implements Comparable<PLBadugiHand> {
     // Bug and fix found by Ilya Bakoulin Nov 6 2016
     private void updateActiveHand() {
         activeCards.clear();
-        Comparator<Card> comp = new Comparator<Card>() {
-            public int compare(Card c1, Card c2) { return c1.compareTo(c2); }
-        };
-        Collections.sort(allCards, comp);
-        backtrack(0, new ArrayList<Card>(4), activeCards);
-        Collections.sort(activeCards, comp);
+        Collections.sort(allCards);
+        cardMask = CardBits.toMask(allCards);
+        if(allCards.size() == 4) {
+            activeMask = CardBits.activeMask(cardMask);
+            for(Card c: allCards) {
+                if((activeMask & CardBits.bit(c.getCode())) != 0) { activeCards.add(c); }
+            }
+        }
+        else { // Hands of other sizes are rare enough to be evaluated with the backtracking search.
+            backtrack(0, new ArrayList<Card>(4), activeCards);
+            Collections.sort(activeCards);
+            activeMask = CardBits.toMask(activeCards);
+        }
+        strength = BadugiEvaluator.strengthOfRanks(CardBits.rankSet(activeMask));
     }
     
     /**
@@ -77,23 +120,54 @@ public class PLBadugiHand implements Comparable<PLBadugiHand> {
      * @return The list of the inactive badugi cards in this hand.
      */
     public List<Card> getInactiveCards() {
-        List<Card> inactiveCards = new ArrayList<Card>();
+        List<Card> inactiveCards = new ArrayList<Card>(allCards.size() - activeCards.size());
         for(Card c : allCards) {
-            if(!activeCards.contains(c)) { inactiveCards.add(c); }
+            if((activeMask & CardBits.bit(c.getCode())) == 0) { inactiveCards.add(c); }
         }
         return inactiveCards;
     }
+
+    /**
+     * Get the mask of all cards in this hand.
+     * @return The mask of the card codes in this hand, as defined in {@code CardBits}.
+     */
+    public long getCardMask() {
+        return cardMask;
+    }
+
+    /**
+     * Get the mask of the active badugi cards in this hand.
+     * @return The mask of the codes of the active cards in this hand, as defined in {@code CardBits}.
+     */
+    public long getActiveMask() {
+        return activeMask;
+    }
     
+    /**
+     * Get the canonical form of this hand, the hand into which its suits can be renamed whose card mask is the
+     * smallest, as defined in {@code CardBits.canonical}. The hands that differ only in their suits have the
+     * same canonical form, and are equally strong in every situation.
+     * @return The canonical hand, which is this object itself if this hand already is canonical.
+     */
+    public PLBadugiHand canonical() {
+        long canonical = CardBits.canonical(cardMask);
+        return canonical == cardMask ? this : new PLBadugiHand(canonical);
+    }
+
     /**
      * Get an array of ranks of the active badugi cards in this hand, suitable for
      * the needs of the AI agents to evaluate the power of this hand.
      */
     public int[] getActiveRanks() {
-        int[] result = new int[activeCards.size()];
-        for(int i = 0; i < result.length; i++) {
-            result[i] = activeCards.get(i).getRank();
-        }
-        return result;
+        return BadugiEvaluator.activeRanks(strength).clone();
+    }
+    
+    /**
+     * Get the dense strength of the active badugi hand, as defined in {@code BadugiEvaluator}.
+     * @return The strength of this hand. Of two hands, the one with higher strength is better.
+     */
+    public int getStrength() {
+        return strength;
     }
     
     /**
@@ -104,7 +178,7 @@ public class PLBadugiHand implements Comparable<PLBadugiHand> {
      * the other hand is better, and result zero means that the hands are equal value.
      */
     public int compareTo(PLBadugiHand other) {
-        return compare(this.activeCards, other.activeCards);
+        return Integer.compare(this.strength, other.strength);
     }
     
     /**
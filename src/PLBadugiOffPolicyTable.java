@@ -1,7 +1,18 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 
-public class PLBadugiOffPolicyTable implements PLBadugiPlayer {
+public class PLBadugiOffPolicyTable implements PLBadugiPlayer, Checkpointable {
+
+    /**
+     * The checkpoint of the Q-table that new agents warm-start from if it exists, named by the system property
+     * {@code badugi.qtable}, by default {@code qtable.bin}.
+     */
+    public static final String QTABLE_FILE = System.getProperty("badugi.qtable", "qtable.bin");
 
     private static int instanceCounter = 0;
     private String name = "Obi-Wan-";
@@ -12,22 +23,64 @@ public class PLBadugiOffPolicyTable implements PLBadugiPlayer {
     private int raises;
     private int opponentDrew;
     private int agentDrew;
-    private Tabular.State prevState; // the previous state of Q-value: s
+    private int prevState; // the previous encoded state of Q-value: s
     private Tabular.Action prevAction; // the action that was taken to go from prevState to newState
     private Tabular.Qtable qtable;
+    private QtableLearner learner; // if not null, learns from the transitions instead of this object
+    private AsyncLearner.Writer writer; // the writer of the transitions to the learner
 
     public PLBadugiOffPolicyTable() {
         instanceCounter++;
         name += instanceCounter;
 
-        qtable = new Tabular.Qtable();
+        qtable = DefaultTable.TABLE != null ? DefaultTable.TABLE.copy() : new Tabular.Qtable();
+    }
+
+    // The table of the default checkpoint, loaded once when the first agent is created, or null if there is none.
+    // Every agent learns in a copy of its own.
+    private static final class DefaultTable {
+        static final Tabular.Qtable TABLE = load();
+    }
+
+    private static Tabular.Qtable load() {
+        Path file = Paths.get(QTABLE_FILE);
+        if(!Files.exists(file)) { return null; }
+        try { return Tabular.Qtable.load(file); }
+        catch(IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    /**
+     * Leave the learning to the given learner, writing the transitions of this agent to it through the given writer
+     * of the current thread, and play with the latest table that it has published at the start of each hand.
+     */
+    public void useLearner(QtableLearner learner, AsyncLearner.Writer writer) {
+        this.learner = learner;
+        this.writer = writer;
+        this.qtable = learner.getPublishedTable();
+    }
+
+    // Learn the transition, or hand it to the learner if there is one.
+    private void update(int prevState, int newState, double reward, Tabular.Action action) {
+        if(writer != null) { writer.add(prevState, action.toInt(), reward, newState); }
+        else { qtable.update(prevState, newState, reward, action); }
+    }
+
+    @Override
+    public Checkpointable.Snapshot snapshot() {
+        return qtable.copy()::save;
+    }
+
+    @Override
+    public Path checkpointFile() {
+        return Paths.get(QTABLE_FILE);
     }
 
     @Override
     public void startNewMatch(int handsToGo) {
 
         this.handsToGo = handsToGo;
-        qtable.resetRate();
+        // The table published by a learner is shared by all its agents, and its learning rate is the learner's.
+        if(learner == null) { qtable.resetRate(); }
     }
 
     @Override
@@ -44,6 +97,7 @@ public class PLBadugiOffPolicyTable implements PLBadugiPlayer {
 
         this.position = position;
         this.handsToGo = handsToGo;
+        if(learner != null) { qtable = learner.getPublishedTable(); }
         this.prevAction = Tabular.RandomHelper.getRandomBetAction();
         this.opponentDrew = 0;
         this.agentDrew = 0;
@@ -54,13 +108,13 @@ public class PLBadugiOffPolicyTable implements PLBadugiPlayer {
         prevState = encodeToState(new PLBadugiHand(Arrays.asList(new Card(0,12))));
     }
 
-    private final Tabular.State encodeToState(PLBadugiHand hand){
+    private final int encodeToState(PLBadugiHand hand){
 
         int[] active = hand.getActiveRanks();
         int handActiveLength = active.length; // [1,2,3,4]
         int handActiveFirstRank = active[0]; // from 1 (ace) to 13 (king)
 
-        return Tabular.State.Encode(
+        return Tabular.State.EncodeToInt(
                 position,
                 drawsRemaining,
                 raises,
@@ -99,9 +153,9 @@ public class PLBadugiOffPolicyTable implements PLBadugiPlayer {
         int handActiveLength = active.length; // [1,2,3,4]
         int handActiveFirstRank = active[0]; // from 1 (ace) to 13 (king)
 
-        Tabular.State newState = encodeToState(hand);
+        int newState = encodeToState(hand);
 
-        qtable.update(prevState, newState,0.0, prevAction);
+        update(prevState, newState,0.0, prevAction);
 
         Tabular.Action bestAction = qtable.bestAction(newState, true);
         this.prevAction = bestAction;
@@ -133,9 +187,9 @@ public class PLBadugiOffPolicyTable implements PLBadugiPlayer {
             this.opponentDrew = dealerDrew;
         }
 
-        Tabular.State newState = encodeToState(hand);
+        int newState = encodeToState(hand);
 
-        qtable.update(prevState, newState,0.0, prevAction);
+        update(prevState, newState,0.0, prevAction);
 
         Tabular.Action bestAction = qtable.bestAction(newState, false);
 
@@ -167,7 +221,7 @@ public class PLBadugiOffPolicyTable implements PLBadugiPlayer {
         int handActiveLength = active.length; // [1,2,3,4]
         int handActiveFirstRank = active[0]; // from 1 (ace) to 13 (king)
 
-        Tabular.State newState = Tabular.State.Encode(
+        int newState = Tabular.State.EncodeToInt(
                 this.position,
                 this.drawsRemaining,
                 this.raises,
@@ -177,7 +231,7 @@ public class PLBadugiOffPolicyTable implements PLBadugiPlayer {
                 this.agentDrew
         );
 
-        qtable.update(prevState, newState, result, prevAction);
+        update(prevState, newState, result, prevAction);
 
         this.prevState = newState; // don't need this at the end of the hand ?
     }
@@ -30,7 +30,9 @@ public interface PLBadugiPlayer
     /**
      * The method to ask the agent what betting action it wants to perform.
      * @param drawsRemaining How many draws are remaining after this betting round.
-     * @param hand The current hand held by this player.
+     * @param hand The current hand held by this player. The runner reuses this object from call to call, so it is
+     * valid only during this call, and a player that keeps the hand must keep a copy, such as
+     * {@code new PLBadugiHand(hand.getCardMask())}.
      * @param pot The current size of the pot.
      * @param raises The number of raises made in this round.
      * @param toCall The cost to call to stay in the pot.
@@ -49,7 +51,8 @@ public interface PLBadugiPlayer
     /**
      * The method to ask the agent which cards it wants to replace in this drawing round.
      * @param drawsRemaining How many draws are remaining, including this drawing round.
-     * @param hand The current hand held by this player.
+     * @param hand The current hand held by this player, valid only during this call like that of
+     * {@code bettingAction}, and to be copied if kept.
      * @param pot The current size of the pot.
      * @param dealerDrew How many cards the dealer drew in this drawing round. When this method is called
      * for the dealer, this argument will be -1.
@@ -60,7 +63,8 @@ public interface PLBadugiPlayer
     /**
      * The method that gets called at the end of the current hand, whether fold or showdown.
      * @param yourHand The hand held by this agent.
-     * @param opponentHand The hand held by the opponent, or null if either player folded.
+     * @param opponentHand The hand held by the opponent, or null if either player folded. Both hands are valid
+     * only during this call, like that of {@code bettingAction}, and must be copied if kept.
      * @param result The win or the loss in chips for the player.
      */
     public void handComplete(PLBadugiHand yourHand, PLBadugiHand opponentHand, int result);
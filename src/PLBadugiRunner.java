@@ -3,18 +3,23 @@
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.security.SecureRandom;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
 
-import static easyjcckit.QuickPlot.*;
+import Rng.RandomSource;
+import Rng.SplitMixRandom;
 
 public class PLBadugiRunner {
 
     // The initial ante posted by both players in the hand.
-    private static final int ANTE = 1;
+    static final int ANTE = 1;
     // How many bets and raises are allowed during one betting round.
     public static final int MAX_RAISES = 4;
     // Number of hands in each heads-up match.
@@ -22,15 +27,59 @@ public class PLBadugiRunner {
     // How often to print out the current hand even when silent (-1 means never)
     private static final int SAMPLE_OUTPUT = 0;//HANDS_PER_MATCH;//(int)2e8;
     // Minimum raise in each betting round.
-    private static final int[] MIN_RAISE = {4, 2, 2, 1};
+    static final int[] MIN_RAISE = {4, 2, 2, 1};
     // Whether two agent objects of same type will play against each other in the tournament.
     private static boolean SAME_TYPE_PLAY = false;
+    // How many threads play the heads-up matches of the tournament run from main.
+    private static final int TOURNAMENT_THREADS = Runtime.getRuntime().availableProcessors();
     // How many hands have been played so far in this entire tournament.
-    private static long handCount = 0;
+    private static final AtomicLong handCount = new AtomicLong();
+    // The metrics of the matches that are started from now on, or null to play them without metrics.
+    private static volatile RunnerMetrics metrics = null;
 
-    private static int[] numFolds = new int[2];
-    private static int[] numCalls = new int[2];
-    private static int[] numRaises = new int[2];
+    /**
+     * Install the metrics that the matches started from now on record their hands into.
+     * @param m The metrics, or null to stop recording metrics.
+     */
+    public static void setMetrics(RunnerMetrics m) { metrics = m; }
+
+    public static RunnerMetrics getMetrics() { return metrics; }
+
+    // The time budget that the agents of the matches started from now on must keep to, or null for no limits.
+    private static volatile TimeBudget timeBudget = null;
+
+    /**
+     * Install the time budget that the agents of the matches started from now on must keep to.
+     * @param b The time budget, or null to let the agents take as long as they like.
+     */
+    public static void setTimeBudget(TimeBudget b) { timeBudget = b; }
+
+    public static TimeBudget getTimeBudget() { return timeBudget; }
+
+    // The reporter of the progress of the matches, chosen by the system property badugi.progress.
+    private static volatile ProgressReporter progress = ProgressReporter.fromSpec(System.getProperty("badugi.progress"));
+
+    /**
+     * Install the reporter of the progress of the matches started from now on, and of the matches shown
+     * with {@code showProgress}.
+     * @param r The reporter, or null to report nothing.
+     */
+    public static void setProgressReporter(ProgressReporter r) { progress = r == null ? ProgressReporter.NONE : r; }
+
+    public static ProgressReporter getProgressReporter() { return progress; }
+
+    // How many hands to play between two checkpoints of the learning agents, or 0 for none.
+    private static volatile int checkpointInterval = Integer.getInteger("badugi.checkpoint", 0);
+
+    /**
+     * Checkpoint the agents of the matches started from now on that are {@code Checkpointable} into their
+     * {@code checkpointFile} every given number of hands and at the end of the match, as done by a
+     * {@code Checkpointer}. The default is given by the system property {@code badugi.checkpoint}.
+     * @param hands How many hands to play between two checkpoints, or 0 to stop checkpointing.
+     */
+    public static void setCheckpointInterval(int hands) { checkpointInterval = Math.max(0, hands); }
+
+    public static int getCheckpointInterval() { return checkpointInterval; }
 
     // A utility method to output a message to the given PrintWriter, forcing it to flush() after the message.
     private static void message(PrintWriter out, String msg) {
@@ -54,37 +103,52 @@ public class PLBadugiRunner {
      * therefore means that the player 0 lost the hand.
      */
     public static int playOneHand(int handSize, EfficientDeck deck, PLBadugiPlayer[] players, PrintWriter out, PrintWriter err, int handsToGo, int currentScore) {
+        MatchStats stats = new MatchStats();
+        stats.startHand(0);
+        return playOneHand(handSize, deck, players, eventSink(out), err, handsToGo, currentScore, new HandContext(stats));
+    }
 
-        message(out, "\n----\nHand #" + handCount + " for " + players[0].getAgentName() + " vs. " + players[1].getAgentName()
-        + ". Both players ante " + ANTE + ".");
+    /**
+     * Play one hand of badugi as above, using the buffers of the given table and recording the betting actions of
+     * the players into its statistics. Apart from what the players themselves allocate, this does not allocate
+     * anything on the heap unless the event sink does so or some player fails.
+     * @param events The sink that receives the events of this hand. If null, the events are ignored.
+     * @param ctx The table at which this hand is played, whose current hand has already been started in its statistics.
+     */
+    public static int playOneHand(int handSize, EfficientDeck deck, PLBadugiPlayer[] players, GameEventSink events, PrintWriter err,
+                                  int handsToGo, int currentScore, HandContext ctx) {
+        if(events == null) { events = GameEventSink.SILENT; }
+        RunnerMetrics metrics = ctx.metrics;
         int pot = 2 * ANTE;
         deck.restoreCards();
-        int[] totalBets = new int[2];
-        totalBets[0] = totalBets[1] = ANTE;
-        int[] drawCounts = new int[2];
-        drawCounts[0] = drawCounts[1] = -1;
-        PLBadugiHand[] hands = new PLBadugiHand[2];
-        hands[0] = deck.drawBadugiHand(handSize);
-        hands[1] = deck.drawBadugiHand(handSize);
+        ctx.startHand(ANTE);
+        MatchStats stats = ctx.stats;
+        int[] totalBets = ctx.totalBets;
+        int[] drawCounts = ctx.drawCounts;
+        // The hands are kept as card masks, and the PLBadugiHand objects that the players see are
+        // updated only when some player needs them after the hand has changed.
+        long[] hands = ctx.hands;
+        ctx.setHand(0, deck.drawMask(handSize));
+        ctx.setHand(1, deck.drawMask(handSize));
+        events.handStarted(stats.handCount, players, ANTE, hands[0], hands[1]);
         
         try {
             players[0].startNewHand(0, handsToGo, currentScore);
-        } catch(Exception e) {message(err, e.toString()); return -1000; }
+        } catch(Exception e) { return agentFailed(events, metrics, err, 0, "startNewHand", e, -1000); }
         try {
             players[1].startNewHand(1, handsToGo, -currentScore);
-        } catch(Exception e) {message(err, e.toString()); return +1000; }
+        } catch(Exception e) { return agentFailed(events, metrics, err, 1, "startNewHand", e, +1000); }
 
         // A single badugi hand consists of four betting streets and three draws.
         for(int drawsRemaining = 3; drawsRemaining >= 0; drawsRemaining--) {
-            message(out, "Pot is " + pot + " chips, " + drawsRemaining + " draws remain.");
-            message(out, players[0].getAgentName() + 
-            " has " + hands[0] + ", " + players[1].getAgentName() + " has " + hands[1] + ".");
+            events.bettingRoundStarted(drawsRemaining, pot, hands[0], hands[1]);
 
             int currPlayer = 0; // Dealer starts the betting on each street
             int calls = -1; // Number of consecutive calls made in this betting round.
             int raises = 0; // The number of bets and raises made in this betting round.
             int action; // How many chips the current player pushes into the pot in his turn to bet.
             int highestRaise = ANTE * MIN_RAISE[drawsRemaining]; // The highest raise made so far in this betting round.
+            boolean failed = false; // Whether the betting action of the current player failed.
  
             // Betting action for the current street
             while(calls < 1) { // Betting ends when there is a call, or when both players call in the beginning.
@@ -99,45 +163,53 @@ public class PLBadugiRunner {
                     minRaise = maxRaise = toCall;
                 }
                 try {
-                    action = players[currPlayer].bettingAction(
-                       drawsRemaining, hands[currPlayer], pot, raises, toCall,
-                       minRaise, maxRaise, drawCounts[otherPlayer]
-                    );
-                    String agentName = players[currPlayer].getAgentName();
+                    long started = metrics != null ? System.nanoTime() : 0L;
+                    try {
+                        action = players[currPlayer].bettingAction(
+                           drawsRemaining, ctx.view(currPlayer), pot, raises, toCall,
+                           minRaise, maxRaise, drawCounts[otherPlayer]
+                        );
+                    } finally { // Decisions that fail or run out of time are timed too.
+                        if(metrics != null) { ctx.agentMetrics[currPlayer].betting.record(System.nanoTime() - started); }
+                    }
                     if(action > toCall && action < minRaise) { action = toCall; }
                     if(action > maxRaise) { action = maxRaise; }
-                    message(out, agentName + " " +
-                        (action < toCall ? "FOLDS" : (maxRaise > toCall && action >= minRaise ? (toCall == 0 ? "BETS" : (raises > 1 ? "RERAISES" : "RAISES")) 
-                        + " " + (action - toCall) + ((toCall > 0) ? " MORE" : ""):
-                        (toCall == 0 ? "CHECKS" : "CALLS " + toCall) )) + "." );
+                    events.betAction(currPlayer, drawsRemaining, action, toCall, minRaise, maxRaise, raises);
                 } catch(Exception e) { // Any failure is considered a checkfold.
-                    message(out, players[currPlayer].getAgentName() + " bettingAction method failed! " + e);
+                    if(metrics != null && e instanceof GuardedPlayer.BudgetExceededException) { metrics.timeout(); }
+                    events.agentFailed(currPlayer, "bettingAction", e);
                     message(err, e.toString());
                     action = toCall-1;
+                    failed = true;
                 }
                 if(action < toCall) { // current player folds, the hand is finished
-                    numFolds[currPlayer]++;
+                    stats.fold(currPlayer);
+                    events.fold(currPlayer, totalBets[currPlayer]);
 
-                    message(out, players[otherPlayer].getAgentName() + " won " + totalBets[currPlayer] + " chips.");
-                    try { players[currPlayer].handComplete(hands[currPlayer], null, -totalBets[currPlayer]); }
+                    try { players[currPlayer].handComplete(ctx.view(currPlayer), null, -totalBets[currPlayer]); }
                     catch(Exception e)  {
-                        message(out, players[currPlayer].getAgentName() + " handComplete method failed! " + e);
+                        events.agentFailed(currPlayer, "handComplete", e);
                         message(err, e.toString());
                     }
-                    try { players[otherPlayer].handComplete(hands[otherPlayer], null, totalBets[currPlayer]); }
+                    try { players[otherPlayer].handComplete(ctx.view(otherPlayer), null, totalBets[currPlayer]); }
                     catch(Exception e) {
-                        message(out, players[currPlayer].getAgentName() + " handComplete method failed! " + e);
+                        events.agentFailed(otherPlayer, "handComplete", e);
                         message(err, e.toString());
                     }
-                    return totalBets[currPlayer] * (currPlayer == 1 ? +1 : -1);
+                    int result = totalBets[currPlayer] * (currPlayer == 1 ? +1 : -1);
+                    if(metrics != null) {
+                        if(failed) { metrics.failure(); } else { metrics.fold(); }
+                    }
+                    events.handFinished(result);
+                    return result;
                 }
                 else if(action == toCall) { // current player merely calls
-                    numCalls[currPlayer]++;
+                    stats.call(currPlayer);
                     calls++;
                 }
                 else { // current player raises
 
-                    numRaises[currPlayer]++;
+                    stats.raise(currPlayer);
                     raises++;
                     calls = 0;
                     // update the highest raise made on this betting round
@@ -150,70 +222,90 @@ public class PLBadugiRunner {
             
             if(drawsRemaining > 0) { // Drawing action for the current street.
                 for(currPlayer = 0; currPlayer <= 1; currPlayer++) {
-                    List<Card> cards = hands[currPlayer].getAllCards();
                     List<Card> toReplace;
                     try {
-                        toReplace = players[currPlayer].drawingAction(drawsRemaining, hands[currPlayer], pot,
-                        currPlayer == 0 ? -1: drawCounts[0]);
+                        long started = metrics != null ? System.nanoTime() : 0L;
+                        try {
+                            toReplace = players[currPlayer].drawingAction(drawsRemaining, ctx.view(currPlayer), pot,
+                            currPlayer == 0 ? -1: drawCounts[0]);
+                        } finally {
+                            if(metrics != null) { ctx.agentMetrics[currPlayer].drawing.record(System.nanoTime() - started); }
+                        }
                         if(toReplace.size() > 4) {
                             message(err,"Trying to replace too many cards");
                             throw new IllegalArgumentException("Trying to replace too many cards.");
                         }
-                        message(out, players[currPlayer].getAgentName() + " replaces cards " + toReplace + ".");
-                        for(Card c: toReplace) {
-                            if(!cards.contains(c)) {
+                        for(int k = 0; k < toReplace.size(); k++) {
+                            Card c = toReplace.get(k);
+                            long bit = CardBits.bit(c.getCode());
+                            if((hands[currPlayer] & bit) == 0) {
                                 message(err,"Trying to replace nonexistent card");
                                 throw new IllegalArgumentException("Trying to replace nonexistent card " + c);
                             }
-                            hands[currPlayer].replaceCard(c, deck);
+                            ctx.setHand(currPlayer, (hands[currPlayer] & ~bit) | CardBits.bit(deck.drawCode()));
                         }
                         drawCounts[currPlayer] = toReplace.size();
+                        events.draw(currPlayer, drawsRemaining, toReplace, hands[currPlayer]);
                     } catch(Exception e) {
-                        message(out, players[currPlayer].getAgentName() + ": drawingAction method failed: " + e);
-                        message(err, e.toString());
-                        numFolds[currPlayer]++;
-                        return totalBets[currPlayer] * (currPlayer == 1 ? +1 : -1);
+                        stats.fold(currPlayer);
+                        return agentFailed(events, metrics, err, currPlayer, "drawingAction", e,
+                            totalBets[currPlayer] * (currPlayer == 1 ? +1 : -1));
                     }
                 }
             }
         }
         
-        message(out, "The hand has reached the showdown.");
-        message(out, players[0].getAgentName() + " has " + hands[0] + ".");
-        message(out, players[1].getAgentName() + " has " + hands[1] + ".");
-        
         // Bug found and fix provided by Alex Ladd March 6 2018
-        int showdown = hands[0].compareTo(hands[1]);
+        int showdown = Integer.compare(CardBits.strength(hands[0]), CardBits.strength(hands[1]));
         int result = showdown < 0 ? -totalBets[0] : (showdown > 0 ? totalBets[1] : 0);
+        events.showdown(hands[0], hands[1], showdown == 0 ? -1 : (showdown > 0 ? 0 : 1), totalBets[1]);
+        if(metrics != null) { metrics.showdown(); }
         if(showdown != 0) {
-            message(out, players[showdown > 0 ? 0 : 1].getAgentName() +" won " + totalBets[1] + " chips.");
-            try { players[0].handComplete(hands[0], hands[1], showdown > 0 ? totalBets[0] : -totalBets[0]); }
+            try { players[0].handComplete(ctx.view(0), ctx.view(1), showdown > 0 ? totalBets[0] : -totalBets[0]); }
             catch(Exception e) {
-                message(out, players[0].getAgentName() + " handComplete method failed! " + e);
+                events.agentFailed(0, "handComplete", e);
                 message(err, e.toString());
             }
-            try { players[1].handComplete(hands[1], hands[0], showdown < 0 ? totalBets[1] : -totalBets[1]); }
+            try { players[1].handComplete(ctx.view(1), ctx.view(0), showdown < 0 ? totalBets[1] : -totalBets[1]); }
             catch(Exception e) {
-                message(out, players[1].getAgentName() + " handComplete method failed! " + e);
+                events.agentFailed(1, "handComplete", e);
                 message(err, e.toString());
             }
         }
         else {
-            message(out, "Both players brought equal badugi hands to showdown.");
-            try { players[0].handComplete(hands[0], hands[1], 0); }
+            try { players[0].handComplete(ctx.view(0), ctx.view(1), 0); }
             catch(Exception e) {
-                message(out, players[0].getAgentName() + " handComplete method failed! " + e);
+                events.agentFailed(0, "handComplete", e);
                 message(err, e.toString());
             }
-            try { players[1].handComplete(hands[1], hands[0], 0); }
+            try { players[1].handComplete(ctx.view(1), ctx.view(0), 0); }
             catch(Exception e) {
-                message(out, players[1].getAgentName() + " handComplete method failed! " + e);
+                events.agentFailed(1, "handComplete", e);
                 message(err, e.toString());
             }
         }
+        events.handFinished(result);
         return result;
     }
-    
+
+    // Report the failure of the given player that ends the hand with the given result.
+    private static int agentFailed(GameEventSink events, RunnerMetrics metrics, PrintWriter err, int player, String method,
+                                   Exception e, int result) {
+        if(metrics != null) {
+            metrics.failure();
+            if(e instanceof GuardedPlayer.BudgetExceededException) { metrics.timeout(); }
+        }
+        events.agentFailed(player, method, e);
+        message(err, e.toString());
+        events.handFinished(result);
+        return result;
+    }
+
+    // The event sink that writes the events as text to the given PrintWriter, or the silent sink if it is null.
+    private static GameEventSink eventSink(PrintWriter out) {
+        return out == null ? GameEventSink.SILENT : new PrintWriterEventSink(out);
+    }
+
     /**
      * Play the given number of hands of heads-up badugi between the two players, alternating the dealer position
      * between each round.
@@ -225,141 +317,237 @@ public class PLBadugiRunner {
      * therefore means that the player 0 lost the match.
      */
     public static int playHeadsUp(EfficientDeck deck, PLBadugiPlayer[] players, PrintWriter out, PrintWriter err, int hands) {
-        int score = 0;
-        PLBadugiPlayer[] thisRoundPlayers = new PLBadugiPlayer[2];
-        players[0].startNewMatch(hands);
-        players[1].startNewMatch(hands);
+        MatchStats stats = new MatchStats();
+        int score = playHeadsUp(deck, players, out, err, hands, stats);
+        showProgress(new PrintWriter(System.out), stats, players);
+        return score;
+    }
+
+    /**
+     * Play a heads-up match as above, recording its statistics into the given object instead of showing them.
+     * Matches that use their own deck, players and statistics objects can be played in parallel threads.
+     * @param stats The statistics object of this match.
+     */
+    public static int playHeadsUp(EfficientDeck deck, PLBadugiPlayer[] players, PrintWriter out, PrintWriter err, int hands,
+                                  MatchStats stats) {
+        return playHeadsUp(deck, players, out == null ? null : eventSink(out), err, hands, stats);
+    }
 
+    /**
+     * Play a heads-up match as above, giving the events of its hands to the given sink.
+     * @param events The sink that receives the events of every hand. If null, the events are ignored, except for
+     * the hands that are sampled to the standard output. If a time budget has been installed with
+     * {@code setTimeBudget}, the players are kept within it for this match.
+     */
+    public static int playHeadsUp(EfficientDeck deck, PLBadugiPlayer[] players, GameEventSink events, PrintWriter err, int hands,
+                                  MatchStats stats) {
+        return playMatch(deck, players, events, err, hands, stats, false);
+    }
+
+    /**
+     * Play a duplicate heads-up match of the given number of deals, each played twice with the seats swapped.
+     * The deck is restored to a starting point of the deal before both of its hands, so that the cards that each
+     * seat receives, both dealt and drawn, are the same in both hands as long as the players draw the same numbers
+     * of cards. The luck of the cards then mostly cancels out of the sum of the two hands, and far fewer hands tell
+     * the stronger player apart than in a match of fresh deals. The starting points of the deals are drawn from a
+     * generator split from the deck at the start of the match, so that no deal is dealt from the part of the
+     * stream of random numbers that the hands of an earlier deal drew their cards from.
+     * @param deck The deck of this match, which must be shuffled by a {@code SplitMixRandom}.
+     * @param deals How many deals to play, each of them twice.
+     * @param stats The statistics object of this match.
+     * @return The result of the match, as indicated by the amount won by player 0 from player 1.
+     */
+    public static int playDuplicate(EfficientDeck deck, PLBadugiPlayer[] players, GameEventSink events, PrintWriter err, int deals,
+                                    MatchStats stats) {
+        return playMatch(deck, players, events, err, 2 * deals, stats, true);
+    }
+
+    private static int playMatch(EfficientDeck deck, PLBadugiPlayer[] players, GameEventSink events, PrintWriter err, int hands,
+                                 MatchStats stats, boolean duplicate) {
         PLBadugi500877176 me = players[0] instanceof PLBadugi500877176 ? (PLBadugi500877176) players[0] : null;
         if(me==null)      me = players[1] instanceof PLBadugi500877176 ? (PLBadugi500877176) players[1] : null;
+        Checkpointer[] checkpointers = checkpointers(players);
+        TimeBudget budget = timeBudget;
+        if(budget != null) { players = budget.guard(players); }
 
-        numFolds = new int[players.length];
-        numCalls = new int[players.length];
-        numRaises = new int[players.length];
-
-        for (int i = 0; i < players.length; i++) {
-            numFolds [i]=0;
-            numCalls [i]=0;
-            numRaises[i]=0;
+        int score = 0;
+        PLBadugiPlayer[] thisRoundPlayers = new PLBadugiPlayer[2];
+        HandContext ctx = new HandContext(stats);
+        GameEventSink sampled = null; // created only when the first sampled hand is played
+        RunnerMetrics.AgentMetrics[] agentMetrics = null;
+        RunnerMetrics metrics = PLBadugiRunner.metrics;
+        long allocatedAtStart = -1;
+        if(metrics != null) {
+            ctx.metrics = metrics;
+            agentMetrics = new RunnerMetrics.AgentMetrics[] {
+                metrics.agent(players[0].getAgentName()), metrics.agent(players[1].getAgentName())
+            };
+            allocatedAtStart = RunnerMetrics.threadAllocatedBytes();
         }
-
-        int[] scoresPerMatch = new int[hands];
-        double[] thetaPerMatch = new double[hands];
-        int handsInMatch = 0;
+        ProgressReporter reporter = progress;
+        if(reporter != ProgressReporter.NONE) { stats.reportTo(reporter, matchName(players)); }
+        players[0].startNewMatch(hands);
+        players[1].startNewMatch(hands);
+        // The generator of the starting points of the deals of a duplicate match.
+        SplitMixRandom dealSeeds = duplicate ? new SplitMixRandom(deck.snapshot()).split() : null;
+        long dealSeed = 0;
+        boolean replay = false;
 
         while(--hands >= 0) {
+            if(duplicate) {
+                // The first hand of each deal has player 1 as the dealer, and the second one player 0.
+                if(hands % 2 == 1) { dealSeed = dealSeeds.nextLong(); deck.restore(dealSeed); replay = true; }
+                else if(replay) { deck.restore(dealSeed); replay = false; }
+            }
             if(hands % 2 == 0) { thisRoundPlayers[0] = players[0]; thisRoundPlayers[1] = players[1]; }
             else { thisRoundPlayers[0] = players[1]; thisRoundPlayers[1] = players[0]; }
             int sign = (hands % 2 == 0 ? +1 : -1);
-            handCount++;
+            stats.startHand(hands % 2);
+            if(agentMetrics != null) {
+                ctx.agentMetrics[0] = agentMetrics[hands % 2];
+                ctx.agentMetrics[1] = agentMetrics[1 - hands % 2];
+            }
 
-            PrintWriter out2=null;
-            if(SAMPLE_OUTPUT > 0 && handCount % SAMPLE_OUTPUT == 0 && out == null) {
-                out2 = new PrintWriter(System.out);
+            GameEventSink handEvents = events;
+            if(SAMPLE_OUTPUT > 0 && stats.handCount % SAMPLE_OUTPUT == 0 && events == null) {
+                if(sampled == null) { sampled = eventSink(new PrintWriter(System.out)); }
+                handEvents = sampled;
             }
-            else if(out != null) out2=out;
 
-            int matchScore = sign * playOneHand(4, deck, thisRoundPlayers, out2, err, hands, sign * score);
+            int matchScore = sign * playOneHand(4, deck, thisRoundPlayers, handEvents, err, hands, sign * score, ctx);
 
             score += matchScore; // total score
 
-            scoresPerMatch[handsInMatch] = matchScore; // current match score
-            thetaPerMatch[handsInMatch] = me!=null ? me.thetaNorm() : 0.0;
-            handsInMatch++;
+            stats.handFinished(matchScore, me!=null ? me.thetaNorm() : 0.0);
+            for(Checkpointer c: checkpointers) { c.handFinished(matchScore); }
         }
+        handCount.addAndGet(stats.handCount);
+        if(allocatedAtStart >= 0) { metrics.allocated(RunnerMetrics.threadAllocatedBytes() - allocatedAtStart); }
         players[0].finishedMatch(score);
         players[1].finishedMatch(-score);
-
-        showProgress(new PrintWriter(System.out), scoresPerMatch, thetaPerMatch, players);
+        for(Checkpointer c: checkpointers) { c.close(); }
         return score;
     }
 
-    public static void showProgress(PrintWriter out, int[] scores, double[] thetaPerMatch, PLBadugiPlayer[] players) {
-
-        final int N = 100; // length of running average
-        final int Shift = 50; // difference to next score average since we can't show all million scores on graph
-        final int stopIndex = Math.min(100000, scores.length);
-
-        int newLen = (scores.length - N + 1) / Shift;
-        if(newLen <= 0) return;
+    // The checkpointers of the given players that are Checkpointable, none if checkpointing is off.
+    private static Checkpointer[] checkpointers(PLBadugiPlayer[] players) {
+        int interval = checkpointInterval;
+        List<Checkpointer> result = new ArrayList<Checkpointer>();
+        for(int i = 0; i < players.length && interval > 0; i++) {
+            if(players[i] instanceof Checkpointable) {
+                Checkpointable agent = (Checkpointable) players[i];
+                result.add(new Checkpointer(agent, agent.checkpointFile(), interval));
+            }
+        }
+        return result.toArray(new Checkpointer[0]);
+    }
 
-        double[] xEpisode = new double[newLen];
-        double[] yScore = new double[newLen];
-        double[] yTheta = new double[newLen];
+    /**
+     * Play a heads-up match between agents of the two given classes, split into the given number of shards
+     * that are played in parallel threads, each by freshly created agents with their own deck and generators, so
+     * that the same generator plays the same match. The shards are merged in order into the statistics of the whole
+     * match, which are then shown as in {@code playHeadsUp}. Only matches between agent classes that are marked
+     * {@code StatelessSafe} are split, since a learning agent would play differently in a shard than it does later
+     * in a whole match. Other matches are played in one shard.
+     * @param agentClassNames The names of the two agent classes.
+     * @param err The PrintWriter used to write the error messages of the agents.
+     * @param hands How many hands to play in this heads-up match.
+     * @param shards How many shards to split the match into, at most one for every two hands.
+     * @param rng The random number generator split into the generators of the deck and of the agents of each shard.
+     * @return The result of the match, as indicated by the amount won by player 0 from player 1.
+     */
+    public static int playHeadsUpSharded(String[] agentClassNames, PrintWriter err, int hands, int shards, Random rng) {
+        // Every shard plays at least the two hands in which each agent is the dealer once.
+        shards = Math.max(1, Math.min(shards, hands / 2));
+        for(String agent: agentClassNames) {
+            try {
+                if(!Class.forName(agent).isAnnotationPresent(StatelessSafe.class)) { shards = 1; }
+            } catch(ClassNotFoundException e) {
+                System.out.println("Unable to load class bytecode for [" + agent + "]. Exiting.");
+                return 0;
+            }
+        }
+        // Keep the shards even in length so that both agents are the dealer equally often in each.
+        int shardHands = 2 * (hands / (2 * shards));
 
-        int k=0;
-        for (int i = N - 1; i < stopIndex && k<xEpisode.length; i = i + Shift, k++) {
-            xEpisode[k] = i;
+        List<PLBadugiPlayer[]> shardPlayers = new ArrayList<PLBadugiPlayer[]>();
+        List<MatchStats> shardStats = new ArrayList<MatchStats>();
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        ExecutorService pool = Executors.newFixedThreadPool(shards);
+        try {
+            for(int k = 0; k < shards; k++) {
+                final int len = k < shards - 1 ? shardHands : hands - (shards - 1) * shardHands;
+                final EfficientDeck deck = new EfficientDeck(RandomSource.split(rng));
+                final Random agentRng = RandomSource.split(rng), tableRng = RandomSource.split(rng);
+                PLBadugiPlayer p1 = createPlayer(agentClassNames[0], agentRng), p2 = createPlayer(agentClassNames[1], agentRng);
+                if(p1 == null || p2 == null) { return 0; }
+                final PLBadugiPlayer[] playersArr = { p1, p2 };
+                final MatchStats stats = new MatchStats();
+                shardPlayers.add(playersArr);
+                shardStats.add(stats);
+                futures.add(pool.submit(() -> {
+                    seedThread(agentRng, tableRng);
+                    return playHeadsUp(deck, playersArr, (GameEventSink) null, err, len, stats);
+                }));
+            }
 
-            double sum = 0.0;
-            for (int j = i - N + 1; j <= i; j++) {
-                sum += scores[j];
+            int score = 0;
+            MatchStats total = new MatchStats();
+            for(int k = 0; k < shards; k++) {
+                try { score += futures.get(k).get(); }
+                catch(InterruptedException e) { Thread.currentThread().interrupt(); return score; }
+                catch(ExecutionException e) { throw new RuntimeException("Heads-up match shard failed", e.getCause()); }
+                total.merge(shardStats.get(k));
             }
-            yScore[k] = sum / N;
-            yTheta[k] = thetaPerMatch[i];
+            showProgress(new PrintWriter(System.out), total, shardPlayers.get(0));
+            return score;
         }
+        finally {
+            pool.shutdownNow();
+        }
+    }
 
-        // cut off zeros at the end
-        xEpisode = Arrays.copyOfRange(xEpisode,0, k-1);
-        yScore = Arrays.copyOfRange(yScore,0, k-1);
-        yTheta = Arrays.copyOfRange(yTheta,0, k-1);
+    /**
+     * Show the statistics of a heads-up match, the average result per hand with its 95% confidence interval and
+     * the betting actions of both players, and give the statistics to the installed progress reporter, which
+     * by default plots the moving average of the results over the whole match when there is a display. The
+     * statistics are kept as the match is played, so showing them takes the same time for a match of any length.
+     * @param out The PrintWriter to write the statistics into, or null to only report them.
+     * @param stats The statistics of the match.
+     * @param players The players of the match, in the same order as in the statistics.
+     */
+    public static void showProgress(PrintWriter out, MatchStats stats, PLBadugiPlayer[] players) {
+        if(stats.getAverageSeries().size() < 2) return;
 
         if(out !=null) {
-            // message(out, "score max: " + max(scores));
-            // message(out, "score min: " + min(scores));
+            RunningStats scores = stats.getScores();
             message(out, " " );
-            message(out, "score avg: " + avg(scores));
-            message(out, "theta avg: " + avg(yTheta));
+            message(out, String.format("score avg: %.4f +- %.4f (95%% CI, %d hands)", scores.getMean(),
+                scores.getConfidenceRadius(), scores.getCount()));
+            message(out, "theta avg: " + stats.getTheta().getMean());
 
             for(int i=0;i<players.length; i++) {
 
                 message(out, " " );
                 PLBadugiPlayer p = players[i];
                 message(out, ""+p.getAgentName());
-                message(out, "Folds  : " + numFolds[i]);
-                message(out, "Calls  : " + numCalls[i]);
-                message(out, "Raises : " + numRaises[i]);
-                message(out, "Total : " + (numFolds[i]+numCalls[i] +numRaises[i]));
-                message(out, "Aggression : " + numRaises[i]/(double)numCalls[i]);
-                message(out, "Aggression2 : " + (numRaises[i]+numCalls[i])/(double)numFolds[i]);
+                int numFolds = stats.numFolds[i], numCalls = stats.numCalls[i], numRaises = stats.numRaises[i];
+                message(out, "Folds  : " + numFolds);
+                message(out, "Calls  : " + numCalls);
+                message(out, "Raises : " + numRaises);
+                message(out, "Total : " + (numFolds+numCalls +numRaises));
+                message(out, "Aggression : " + numRaises/(double)numCalls);
+                message(out, "Aggression2 : " + (numRaises+numCalls)/(double)numFolds);
             }
         }
-        plot( xEpisode, yScore ); // a plot for score average
-        //addLine( xEpisode, yTheta ); // a plot for theta average
+        progress.matchFinished(matchName(players), stats, players);
     }
 
-    private static double max(int[] array){
-        int max = Integer.MIN_VALUE;
-        for (int i = 0; i < array.length; i++) {
-            if(max < array[i]) max = array[i];
-        }
-        return max;
+    // The name of the match between the given players in the progress reports.
+    private static String matchName(PLBadugiPlayer[] players) {
+        return players[0].getAgentName() + " vs " + players[1].getAgentName();
     }
 
-    private static double min(int[] array){
-        int min = Integer.MAX_VALUE;
-        for (int i = 0; i < array.length; i++) {
-            if(min > array[i]) min = array[i];
-        }
-        return min;
-    }
-
-    private static double avg(int[] array){
-        double sum = 0;
-        for (int i = 0; i < array.length; i++) {
-            sum += array[i];
-        }
-        return sum/array.length;
-    }
-
-    private static double avg(double[] array){
-        double sum = 0;
-        for (int i = 0; i < array.length; i++) {
-            sum += array[i];
-        }
-        return sum/array.length;
-    }
-    
     /**
      * Play the entire multiagent Badugi tournament, one heads-up match between every possible pair of agents.
      * @param agentClassNames A string array containing the names of agent subclasses.
@@ -373,17 +561,10 @@ public class PLBadugiRunner {
 
         if (players == null) return;
         int[] scores = new int[players.size()];
-        Random rng;
-        String seed = "This string is to be used as seed of secure random number generator " + System.currentTimeMillis();
-        try { rng = new SecureRandom(seed.getBytes()); } 
-        catch(Exception e) { 
-            message(out, "Unable to create secure RNG: " + e);
-            message(out, "Using system Random class instead.");
-
-            rng = new Random();
-        }
+        long seed = System.currentTimeMillis();
+        message(out, "Tournament seed is " + seed + ".");
         // One and the same deck object is reused through the entire tournament.
-        EfficientDeck deck = new EfficientDeck(rng);
+        EfficientDeck deck = new EfficientDeck(RandomSource.create(seed));
 
         PrintWriter err = new PrintWriter(System.out);
 
@@ -410,6 +591,96 @@ public class PLBadugiRunner {
         updateScores(results, players, scores);
     }
 
+    /**
+     * Play the entire multiagent Badugi tournament as above, but run each heads-up match as an independent task
+     * in a pool of the given number of threads. Each match gets freshly created agent objects, its own deck with
+     * its own seed, and its own statistics, so unlike in the sequential tournament, learning agents do not carry
+     * what they learned from one match to the next. The results are written and scored in the same order as in
+     * the sequential tournament, regardless of the order in which the matches finish.
+     * @param agentClassNames A string array containing the names of agent subclasses.
+     * @param out A PrintWriter to write the results of the individual heads-up matches into.
+     * @param results A PrintWriter to write the tournament results into.
+     * @param threads How many matches to play at the same time.
+     */
+    public static void badugiTournament(String[] agentClassNames, PrintWriter out, PrintWriter results, int threads) {
+        long seed = System.currentTimeMillis();
+        message(out, "Tournament seed is " + seed + ".");
+        badugiTournament(agentClassNames, out, results, threads, seed);
+    }
+
+    /**
+     * Play the parallel tournament as above, with the decks and the agents of the matches seeded from the given
+     * seed. Each match gets a deck, a generator for its agents and one for their Q-tables split from the seed, and
+     * its task installs the latter two as the generators of its thread before it plays, so that unless the random
+     * number generators are in the audit mode, the same seed plays the same tournament.
+     * @param seed The seed of the random number generator from which the generators of each match are split.
+     */
+    public static void badugiTournament(String[] agentClassNames, PrintWriter out, PrintWriter results, int threads, long seed) {
+
+        // Create the list of player agents that represent each agent class in the results.
+        List<PLBadugiPlayer> players = createPlayers(agentClassNames);
+
+        if (players == null) return;
+        int[] scores = new int[players.size()];
+        Random rng = RandomSource.create(seed);
+
+        PrintWriter err = new PrintWriter(System.out);
+
+        // Create the agents and the deck seeds of all matches in this thread, in the sequential order.
+        List<int[]> pairings = new ArrayList<int[]>();
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        List<PLBadugiPlayer[]> matchPlayers = new ArrayList<PLBadugiPlayer[]>();
+        List<MatchStats> matchStats = new ArrayList<MatchStats>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for(int i = 0; i < players.size(); i++) {
+                for(int j = i+1; j < players.size(); j++) {
+
+                    if(!SAME_TYPE_PLAY && agentClassNames[i].equals(agentClassNames[j])) { continue; }
+
+                    final EfficientDeck deck = new EfficientDeck(RandomSource.split(rng));
+                    final Random agentRng = RandomSource.split(rng), tableRng = RandomSource.split(rng);
+                    PLBadugiPlayer p1 = createPlayer(agentClassNames[i], agentRng), p2 = createPlayer(agentClassNames[j], agentRng);
+                    if(p1 == null || p2 == null) { return; }
+                    final PLBadugiPlayer[] playersArr = { p1, p2 };
+                    final MatchStats stats = new MatchStats();
+
+                    pairings.add(new int[] { i, j });
+                    matchPlayers.add(playersArr);
+                    matchStats.add(stats);
+                    futures.add(pool.submit(() -> {
+                        seedThread(agentRng, tableRng);
+                        return playHeadsUp(deck, playersArr, (GameEventSink) null, err, HANDS_PER_MATCH, stats);
+                    }));
+                }
+            }
+
+            // Score the matches in the order they were created.
+            for(int m = 0; m < futures.size(); m++) {
+                int i = pairings.get(m)[0], j = pairings.get(m)[1];
+                int result;
+                try { result = futures.get(m).get(); }
+                catch(InterruptedException e) { Thread.currentThread().interrupt(); return; }
+                catch(ExecutionException e) { throw new RuntimeException("Heads-up match failed", e.getCause()); }
+
+                showProgress(new PrintWriter(System.out), matchStats.get(m), matchPlayers.get(m));
+
+                if(result < 0) { scores[j] += 2; }
+                else if(result > 0) { scores[i] += 2; }
+                else { scores[j]++; scores[i]++; }
+
+                out.print("["+players.get(i).getAgentName() + "] vs. [" + players.get(j).getAgentName() + "]: ");
+                out.println(result);
+                out.flush();
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
+        updateScores(results, players, scores);
+    }
+
     private static void updateScores(PrintWriter results, List<PLBadugiPlayer> players, int[] scores) {
         for(int i = 0; i < players.size(); i++) {
             int max = 0;
@@ -441,25 +712,51 @@ public class PLBadugiRunner {
     private static List<PLBadugiPlayer> createPlayers(String[] agentClassNames) {
         List<PLBadugiPlayer> players = new ArrayList<PLBadugiPlayer>(agentClassNames.length);
         for(String agent: agentClassNames) {
-            Class c = null;
-            try {
-                c = Class.forName(agent);
-            } catch(Exception e) {
-                System.out.println("Unable to load class bytecode for [" + agent + "]. Exiting.");
-                return null;
-            }
-            PLBadugiPlayer bp = null;
-            try {
-                bp = (PLBadugiPlayer)(c.newInstance());
-            } catch(Exception e) {
-                System.out.println("Unable to instantiate class [" + agent + "]. Exiting.");
-                return null;
-            }
+            PLBadugiPlayer bp = createPlayer(agent);
+            if(bp == null) { return null; }
             players.add(bp);
         }
         return players;
     }
 
+    // Install the generators of the agents that keep theirs per thread, PLBadugi500877176 and those of Q-tables, in
+    // the thread of a task that plays a match, as SelfPlayTrainer does for its workers.
+    private static void seedThread(Random agentRng, Random tableRng) {
+        PLBadugi500877176.setRandom(agentRng);
+        Tabular.RandomHelper.setRandom(tableRng);
+    }
+
+    // Create an agent of the given class, with a generator split from the given one if the class has a constructor
+    // that takes its generator, and otherwise with its constructor without arguments.
+    private static PLBadugiPlayer createPlayer(String agent, Random rng) {
+        try {
+            return (PLBadugiPlayer) Class.forName(agent).getConstructor(Random.class).newInstance(RandomSource.split(rng));
+        } catch(NoSuchMethodException | ClassNotFoundException e) {
+            return createPlayer(agent);
+        } catch(Exception e) {
+            System.out.println("Unable to instantiate class [" + agent + "]. Exiting.");
+            return null;
+        }
+    }
+
+    private static PLBadugiPlayer createPlayer(String agent) {
+        Class c = null;
+        try {
+            c = Class.forName(agent);
+        } catch(Exception e) {
+            System.out.println("Unable to load class bytecode for [" + agent + "]. Exiting.");
+            return null;
+        }
+        PLBadugiPlayer bp = null;
+        try {
+            bp = (PLBadugiPlayer)(c.newInstance());
+        } catch(Exception e) {
+            System.out.println("Unable to instantiate class [" + agent + "]. Exiting.");
+            return null;
+        }
+        return bp;
+    }
+
     /**
      * Play three hands in the verbose mode. Suitable for watching your agents play.
      */
@@ -471,14 +768,7 @@ public class PLBadugiRunner {
                 new PLBadugi500877176(),//new IlkkaPlayer3(),
                 new PLBadugi500877176()
         };
-        Random rng;
-        String seed = "This string is to be used as seed of secure random number generator"+System.currentTimeMillis();
-        try { rng = new SecureRandom(seed.getBytes()); } 
-        catch(Exception e) { 
-            System.out.println("Unable to create a secure RNG. Using java.util.Random instead.");
-            rng = new Random();
-        }
-        EfficientDeck deck = new EfficientDeck(rng);
+        EfficientDeck deck = new EfficientDeck(RandomSource.create(System.currentTimeMillis()));
 
         PrintWriter out = new PrintWriter(System.out);
         PrintWriter err = new PrintWriter(System.out);
@@ -509,11 +799,20 @@ public class PLBadugiRunner {
         PrintWriter out = new PrintWriter(System.out);
         PrintWriter result = new PrintWriter(new FileWriter("results.txt"));
 
+        RunnerMetrics tournamentMetrics = new RunnerMetrics();
+        try { tournamentMetrics.registerMBean(); }
+        catch(JMException e) { message(out, "Unable to register the metrics MBean: " + e); }
+        setMetrics(tournamentMetrics);
+        tournamentMetrics.startReporting(out, 10_000);
+
         final int Replay = 1;
         for (int i = 0; i < Replay; i++) {
-            badugiTournament(playerClasses, out, result);
+            badugiTournament(playerClasses, out, result, TOURNAMENT_THREADS);
         }
 
+        tournamentMetrics.stopReporting();
+        message(out, tournamentMetrics.snapshot().toString());
+        progress.close();
         result.close();
     }
 }
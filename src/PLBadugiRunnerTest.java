@@ -0,0 +1,55 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import Rng.SplitMixRandom;
+
+class PLBadugiRunnerTest {
+
+    // The results of the matches of a parallel tournament with the given seed, in the order they are written.
+    private static List<String> tournament(String[] agents, long seed) {
+        StringWriter out = new StringWriter();
+        ProgressReporter previous = PLBadugiRunner.getProgressReporter();
+        PLBadugiRunner.setProgressReporter(ProgressReporter.NONE);
+        try {
+            PLBadugiRunner.badugiTournament(agents, new PrintWriter(out), new PrintWriter(new StringWriter()), 2, seed);
+        }
+        finally {
+            PLBadugiRunner.setProgressReporter(previous);
+        }
+        // The names of the agents are numbered by the order of their creation, so only the results are compared.
+        List<String> results = new ArrayList<String>();
+        for(String line: out.toString().split("\n")) { results.add(line.substring(line.lastIndexOf(':') + 1).trim()); }
+        return results;
+    }
+
+    @Test
+    void seededTournamentIsReproducible() {
+        // Agents seeded through their constructors, through the generator of their thread and through that of
+        // their Q-tables.
+        String[] agents = { "IlkkaPlayer3", "PLBadugi500877176", "PLBadugiOffPolicyTable" };
+        List<String> first = tournament(agents, 42);
+        assertEquals(3, first.size());
+        assertEquals(first, tournament(agents, 42));
+        assertNotEquals(first, tournament(agents, 43));
+    }
+
+    @Test
+    void seededShardedMatchIsReproducible() {
+        String[] agents = { "SimplePlayer", "CfrPlayer" };
+        ProgressReporter previous = PLBadugiRunner.getProgressReporter();
+        PLBadugiRunner.setProgressReporter(ProgressReporter.NONE);
+        try {
+            int first = PLBadugiRunner.playHeadsUpSharded(agents, null, 20_000, 3, new SplitMixRandom(5));
+            assertEquals(first, PLBadugiRunner.playHeadsUpSharded(agents, null, 20_000, 3, new SplitMixRandom(5)));
+            assertNotEquals(first, PLBadugiRunner.playHeadsUpSharded(agents, null, 20_000, 3, new SplitMixRandom(6)));
+        }
+        finally {
+            PLBadugiRunner.setProgressReporter(previous);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * The event sink that writes the events of each hand as the same human-readable text that the runner has
+ * always printed. The text of a hand is collected into a buffer that is written and flushed to the underlying
+ * PrintWriter once the hand is over, instead of flushing after every line. Formatting a hand is only done
+ * when this sink is in use, so the cost of the verbose output is not paid by the matches that are silent.
+ */
+public class PrintWriterEventSink implements GameEventSink {
+
+    private final PrintWriter out;
+    private final StringBuilder buffer = new StringBuilder(1024);
+    // The players of the current hand, in the order (dealer, opponent).
+    private PLBadugiPlayer[] players;
+
+    /**
+     * Constructor for the class.
+     * @param out The PrintWriter that the text of each hand is written to.
+     */
+    public PrintWriterEventSink(PrintWriter out) {
+        this.out = out;
+    }
+
+    private String name(int player) {
+        return players[player].getAgentName();
+    }
+
+    private StringBuilder line() {
+        return buffer.append('\n');
+    }
+
+    @Override
+    public void handStarted(long handNumber, PLBadugiPlayer[] players, int ante, long hand0, long hand1) {
+        this.players = players;
+        buffer.setLength(0);
+        buffer.append("\n----\nHand #").append(handNumber).append(" for ").append(name(0)).append(" vs. ")
+            .append(name(1)).append(". Both players ante ").append(ante).append('.');
+    }
+
+    @Override
+    public void bettingRoundStarted(int drawsRemaining, int pot, long hand0, long hand1) {
+        line().append("Pot is ").append(pot).append(" chips, ").append(drawsRemaining).append(" draws remain.");
+        line().append(name(0)).append(" has ").append(new PLBadugiHand(hand0)).append(", ")
+            .append(name(1)).append(" has ").append(new PLBadugiHand(hand1)).append('.');
+    }
+
+    @Override
+    public void betAction(int player, int drawsRemaining, int action, int toCall, int minRaise, int maxRaise, int raises) {
+        line().append(name(player)).append(' ');
+        if(action < toCall) {
+            buffer.append("FOLDS");
+        }
+        else if(maxRaise > toCall && action >= minRaise) {
+            buffer.append(toCall == 0 ? "BETS" : (raises > 1 ? "RERAISES" : "RAISES")).append(' ').append(action - toCall);
+            if(toCall > 0) { buffer.append(" MORE"); }
+        }
+        else if(toCall == 0) {
+            buffer.append("CHECKS");
+        }
+        else {
+            buffer.append("CALLS ").append(toCall);
+        }
+        buffer.append('.');
+    }
+
+    @Override
+    public void fold(int player, int chipsLost) {
+        line().append(name(1 - player)).append(" won ").append(chipsLost).append(" chips.");
+    }
+
+    @Override
+    public void draw(int player, int drawsRemaining, List<Card> discarded, long newHand) {
+        line().append(name(player)).append(" replaces cards ").append(discarded).append('.');
+    }
+
+    @Override
+    public void showdown(long hand0, long hand1, int winner, int chips) {
+        line().append("The hand has reached the showdown.");
+        line().append(name(0)).append(" has ").append(new PLBadugiHand(hand0)).append('.');
+        line().append(name(1)).append(" has ").append(new PLBadugiHand(hand1)).append('.');
+        if(winner < 0) {
+            line().append("Both players brought equal badugi hands to showdown.");
+        }
+        else {
+            line().append(name(winner)).append(" won ").append(chips).append(" chips.");
+        }
+    }
+
+    @Override
+    public void agentFailed(int player, String method, Exception e) {
+        line().append(name(player)).append(' ').append(method).append(" method failed! ").append(e);
+    }
+
+    @Override
+    public void handFinished(int result) {
+        out.println(buffer);
+        out.flush();
+        buffer.setLength(0);
+    }
+}
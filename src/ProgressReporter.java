@@ -0,0 +1,88 @@
+import java.awt.GraphicsEnvironment;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The receiver of the progress of the heads-up matches played by {@code PLBadugiRunner}: the points of the moving
+ * average of the results as they are sampled during each match, and the statistics of each finished match.
+ * Both methods are called from the thread that plays the match, so they must return quickly; a reporter that
+ * renders or writes files is wrapped in an {@code AsyncProgressReporter} so that the match never waits for it.
+ * <p>
+ * The reporter of the runner is chosen by the system property {@code badugi.progress}, a comma-separated list of
+ * <ul>
+ *   <li>{@code none} to report nothing, the default when there is no display,</li>
+ *   <li>{@code plot} to plot each finished match with QuickPlot, the default when there is a display,</li>
+ *   <li>{@code live} to also plot each match while it is being played,</li>
+ *   <li>{@code csv:directory} to write the series of each finished match into a CSV file in the directory,</li>
+ *   <li>{@code bin:directory} to write them into a binary file instead.</li>
+ * </ul>
+ */
+public interface ProgressReporter {
+
+    /**
+     * The reporter that ignores everything.
+     */
+    ProgressReporter NONE = new ProgressReporter() { };
+
+    /**
+     * A point of the moving average of the results has been sampled.
+     * @param match The name of the match.
+     * @param hand The number of hands played in the match before the sampled one.
+     * @param average The moving average of the results of player 0 over the latest hands.
+     * @param theta The theta norm of the learning agent after the hand.
+     */
+    default void sample(String match, long hand, double average, double theta) { }
+
+    /**
+     * A match is over. The statistics are no longer changed by the runner.
+     * @param match The name of the match.
+     * @param stats The statistics of the whole match.
+     * @param players The players of the match, in the same order as in the statistics.
+     */
+    default void matchFinished(String match, MatchStats stats, PLBadugiPlayer[] players) { }
+
+    /**
+     * Finish reporting, waiting for everything already reported to be handled.
+     */
+    default void close() { }
+
+    /**
+     * Create the reporter described by the given specification, in the format of the property {@code badugi.progress}.
+     * @param spec The specification, or null for the default.
+     * @return The reporter, whose slow parts are asynchronous.
+     */
+    static ProgressReporter fromSpec(String spec) {
+        if(spec == null) { spec = GraphicsEnvironment.isHeadless() ? "none" : "plot"; }
+        final List<ProgressReporter> reporters = new ArrayList<ProgressReporter>();
+        for(String part: spec.split(",")) {
+            part = part.trim();
+            if(part.isEmpty() || part.equals("none")) { continue; }
+            if(part.equals("plot") || part.equals("live")) {
+                reporters.add(new AsyncProgressReporter(new QuickPlotReporter(part.equals("live"))));
+            }
+            else if(part.startsWith("csv:") || part.startsWith("bin:")) {
+                reporters.add(new AsyncProgressReporter(new SeriesExporter(Paths.get(part.substring(4)), part.startsWith("bin:"))));
+            }
+            else { throw new IllegalArgumentException("Unknown progress reporter: " + part); }
+        }
+        if(reporters.isEmpty()) { return NONE; }
+        if(reporters.size() == 1) { return reporters.get(0); }
+        return new ProgressReporter() {
+            @Override
+            public void sample(String match, long hand, double average, double theta) {
+                for(ProgressReporter r: reporters) { r.sample(match, hand, average, theta); }
+            }
+
+            @Override
+            public void matchFinished(String match, MatchStats stats, PLBadugiPlayer[] players) {
+                for(ProgressReporter r: reporters) { r.matchFinished(match, stats, players); }
+            }
+
+            @Override
+            public void close() {
+                for(ProgressReporter r: reporters) { r.close(); }
+            }
+        };
+    }
+}
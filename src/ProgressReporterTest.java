@@ -0,0 +1,118 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import Rng.SplitMixRandom;
+
+class ProgressReporterTest {
+
+    // The reporter that records what it receives and in which threads.
+    private static class Recorder implements ProgressReporter {
+        final List<Long> hands = new ArrayList<Long>();
+        final List<String> finished = new ArrayList<String>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        boolean closed;
+
+        @Override
+        public synchronized void sample(String match, long hand, double average, double theta) {
+            hands.add(hand);
+            threads.add(Thread.currentThread());
+        }
+
+        @Override
+        public synchronized void matchFinished(String match, MatchStats stats, PLBadugiPlayer[] players) {
+            finished.add(match);
+            threads.add(Thread.currentThread());
+        }
+
+        @Override
+        public void close() { closed = true; }
+    }
+
+    private static PLBadugiPlayer[] players() {
+        return new PLBadugiPlayer[] { new SimplePlayer(new SplitMixRandom(1)), new IlkkaPlayer3("Ilkka", new SplitMixRandom(2)) };
+    }
+
+    @Test
+    void matchesReportTheirSamplesInTheBackground() {
+        Recorder recorder = new Recorder();
+        AsyncProgressReporter async = new AsyncProgressReporter(recorder);
+        PLBadugiPlayer[] players = players();
+        MatchStats stats = new MatchStats();
+        ProgressReporter previous = PLBadugiRunner.getProgressReporter();
+        PLBadugiRunner.setProgressReporter(async);
+        try {
+            PLBadugiRunner.playHeadsUp(new EfficientDeck(new SplitMixRandom(3)), players, GameEventSink.SILENT, null, 1000, stats);
+            PLBadugiRunner.showProgress(null, stats, players);
+        }
+        finally {
+            PLBadugiRunner.setProgressReporter(previous);
+        }
+        async.close();
+        assertTrue(recorder.closed);
+        assertEquals(0, async.getDropped());
+        // The moving average is sampled every 50 hands from the hundredth one.
+        assertEquals(19, recorder.hands.size());
+        assertEquals(MatchStats.AVERAGE_WINDOW - 1, (long) recorder.hands.get(0));
+        assertEquals(1, recorder.finished.size());
+        assertTrue(recorder.finished.get(0).contains("Ilkka"));
+        for(Thread t: recorder.threads) { assertNotSame(Thread.currentThread(), t); }
+        PLBadugiRunner.setProgressReporter(null);
+        assertSame(ProgressReporter.NONE, PLBadugiRunner.getProgressReporter());
+        PLBadugiRunner.setProgressReporter(previous);
+    }
+
+    @Test
+    void fullQueuesDropSamplesButNotMatches() {
+        Recorder recorder = new Recorder();
+        AsyncProgressReporter async = new AsyncProgressReporter(recorder, 0);
+        async.sample("match", 99, 1.0, 0.0);
+        async.matchFinished("match", new MatchStats(), players());
+        async.close();
+        assertEquals(1, async.getDropped());
+        assertEquals(1, recorder.finished.size());
+    }
+
+    @Test
+    void seriesAreExportedWithoutADisplay() throws IOException {
+        Path dir = Files.createTempDirectory("progress");
+        try {
+            MatchStats stats = new MatchStats();
+            for(int h = 0; h < 5000; h++) { stats.handFinished(h % 7 - 3, 0.5 * h); }
+            new SeriesExporter(dir, false).matchFinished("A vs B", stats, players());
+            SeriesExporter binary = new SeriesExporter(dir, true);
+            binary.matchFinished("A vs B", stats, players());
+            binary.matchFinished("A vs B", stats, players());
+
+            List<String> lines = Files.readAllLines(dir.resolve("0001-A_vs_B.csv"));
+            assertEquals("hand,average,theta", lines.get(0));
+            assertEquals(stats.getAverageSeries().size() + 1, lines.size());
+            assertTrue(lines.get(1).startsWith("99,"));
+
+            double[][] series = SeriesExporter.readBinary(dir.resolve("0002-A_vs_B.bin"));
+            assertArrayEquals(stats.getAverageSeries().getX(), series[0]);
+            assertArrayEquals(stats.getAverageSeries().getY(), series[1]);
+            assertArrayEquals(stats.getThetaSeries().getY(), series[2]);
+            assertThrows(IOException.class, () -> SeriesExporter.readBinary(dir.resolve("0001-A_vs_B.csv")));
+        }
+        finally {
+            try(Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void specificationsChooseTheReporters() {
+        assertSame(ProgressReporter.NONE, ProgressReporter.fromSpec("none"));
+        assertSame(ProgressReporter.NONE, ProgressReporter.fromSpec(""));
+        assertThrows(IllegalArgumentException.class, () -> ProgressReporter.fromSpec("fax"));
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * The learner of the Q-table of {@code PLBadugiOffPolicyTable} from the transitions of agents that play in parallel
+ * threads, as described in {@code AsyncLearner}. Each transition is learned in the order it arrives with the same
+ * Q-learning update that the agent makes online. The published tables are copies of the table of the learner, which
+ * the agents only read; copying a sparse table costs a few milliseconds, but copying a dense one takes tens of
+ * megabytes, so a dense table should be published seldom.
+ */
+public class QtableLearner extends AsyncLearner {
+
+    private final Tabular.Qtable table;
+    private volatile Tabular.Qtable published;
+
+    /**
+     * Constructor for the class, which starts the thread of the learner.
+     * @param initialTable The table to start from, which is copied.
+     * @param batchSize How many transitions each batch holds.
+     * @param queueCapacity How many full batches may wait for the learner before the writers wait for it.
+     * @param publishInterval After how many batches the table is published.
+     */
+    public QtableLearner(Tabular.Qtable initialTable, int batchSize, int queueCapacity, int publishInterval) {
+        super(0, batchSize, queueCapacity, publishInterval, "qtable-learner");
+        this.table = initialTable.copy();
+        this.published = table.copy();
+        start();
+    }
+
+    @Override
+    protected void learn(Batch batch) {
+        for(int k = 0; k < batch.size; k++) {
+            table.update(batch.states[k], batch.nextStates[k], batch.rewards[k], Tabular.Action.fromInt(batch.actions[k]));
+        }
+    }
+
+    @Override
+    protected void publish() {
+        published = table.copy();
+    }
+
+    /**
+     * The latest published table. It is never updated afterwards, and must not be updated by the caller either.
+     * A new table is returned after each publication, so the agents can tell when it changes.
+     */
+    public Tabular.Qtable getPublishedTable() { return published; }
+}
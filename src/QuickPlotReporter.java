@@ -0,0 +1,61 @@
+import java.util.Arrays;
+
+import static easyjcckit.QuickPlot.*;
+
+/**
+ * The reporter that plots the moving average of the results of each finished match with QuickPlot of EasyJCCKit,
+ * as {@code PLBadugiRunner} has always done, and optionally also the points of one match at a time while it is
+ * being played, redrawn at most once a second. QuickPlot needs a display and renders in the calling thread, so this
+ * reporter is meant to be wrapped in an {@code AsyncProgressReporter}.
+ */
+public class QuickPlotReporter implements ProgressReporter {
+
+    // The shortest time between two redraws of the live plot.
+    private static final long REDRAW_MILLIS = 1000;
+    // The most points of the live plot, of which every other one is dropped when they fill up.
+    private static final int MAX_POINTS = 4096;
+
+    private final boolean live;
+    // The match whose points are plotted live, or null if there is none yet, and its points so far.
+    private String match;
+    private final double[] xs = new double[MAX_POINTS], ys = new double[MAX_POINTS];
+    private int size;
+    private long lastDrawn;
+
+    /**
+     * Constructor for the class.
+     * @param live Whether to plot each match also while it is being played.
+     */
+    public QuickPlotReporter(boolean live) {
+        this.live = live;
+    }
+
+    @Override
+    public synchronized void sample(String match, long hand, double average, double theta) {
+        if(!live) { return; }
+        // Follow one match at a time until it is finished.
+        if(this.match == null) { this.match = match; }
+        else if(!match.equals(this.match)) { return; }
+        if(size == MAX_POINTS) {
+            for(int i = 0; i < MAX_POINTS / 2; i++) { xs[i] = xs[2 * i]; ys[i] = ys[2 * i]; }
+            size = MAX_POINTS / 2;
+        }
+        xs[size] = hand;
+        ys[size] = average;
+        size++;
+        long now = System.currentTimeMillis();
+        if(size >= 2 && now - lastDrawn >= REDRAW_MILLIS) {
+            lastDrawn = now;
+            plot(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size));
+        }
+    }
+
+    @Override
+    public synchronized void matchFinished(String match, MatchStats stats, PLBadugiPlayer[] players) {
+        DownsampledSeries series = stats.getAverageSeries();
+        if(series.size() < 2) { return; }
+        plot(series.getX(), series.getY()); // a plot for score average
+        //addLine( stats.getThetaSeries().getX(), stats.getThetaSeries().getY() ); // a plot for theta average
+        if(match.equals(this.match)) { this.match = null; size = 0; }
+    }
+}
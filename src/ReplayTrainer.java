@@ -0,0 +1,153 @@
+import java.util.Random;
+
+/**
+ * The trainer that learns the weights of a linear action-value function from the transitions sampled out of an
+ * {@code ExperienceReplayBuffer}, applying the semi-gradient SARSA update averaged over each mini-batch. The
+ * trainer owns its weights and publishes a copy of them every {@code publishInterval} batches, so that an agent
+ * can pick up the latest published weights at the start of a hand while the training goes on, either in the
+ * thread that calls {@code train} or in a background thread of its own, independently of the game loop.
+ */
+public class ReplayTrainer implements WeightSource {
+
+    private final ExperienceReplayBuffer buffer;
+    private final int featureLength;
+    private final double[] weights;
+    private final double alpha;
+    private final double gamma;
+    private final int batchSize;
+    private final int publishInterval;
+    private final Random rng;
+
+    // The mini-batch sampled out of the buffer, and the gradient accumulated over it.
+    private final double[] batchFeatures, batchNextFeatures, batchRewards, gradient;
+    private final int[] batchActions;
+    private final boolean[] batchTerminal;
+
+    private long batches = 0;
+    private volatile double[] published;
+    private volatile boolean running = false;
+    private Thread thread;
+
+    /**
+     * Constructor for the class.
+     * @param buffer The buffer that the transitions are sampled from.
+     * @param initialWeights The weights to start from, which are copied.
+     * @param alpha The learning rate.
+     * @param gamma The discount factor.
+     * @param batchSize How many transitions each mini-batch contains.
+     * @param publishInterval After how many mini-batches the weights are published.
+     * @param rng The random number generator used to sample the mini-batches.
+     */
+    public ReplayTrainer(ExperienceReplayBuffer buffer, double[] initialWeights, double alpha, double gamma,
+                         int batchSize, int publishInterval, Random rng) {
+        if(initialWeights.length != buffer.getFeatureLength()) {
+            throw new IllegalArgumentException("vector length is incompatible");
+        }
+        this.buffer = buffer;
+        this.featureLength = buffer.getFeatureLength();
+        this.weights = initialWeights.clone();
+        this.alpha = alpha;
+        this.gamma = gamma;
+        this.batchSize = batchSize;
+        this.publishInterval = Math.max(1, publishInterval);
+        this.rng = rng;
+        this.batchFeatures = new double[batchSize * featureLength];
+        this.batchNextFeatures = new double[batchSize * featureLength];
+        this.batchRewards = new double[batchSize];
+        this.batchActions = new int[batchSize];
+        this.batchTerminal = new boolean[batchSize];
+        this.gradient = new double[featureLength];
+        this.published = weights.clone();
+    }
+
+    /**
+     * Train on one mini-batch, unless the buffer does not yet hold enough transitions for one.
+     * @return Whether a mini-batch was trained on.
+     */
+    public synchronized boolean trainBatch() {
+        if(buffer.size() < batchSize) { return false; }
+        int n = buffer.sample(rng, batchSize, batchFeatures, batchActions, batchRewards, batchNextFeatures, batchTerminal);
+        for(int j = 0; j < featureLength; j++) { gradient[j] = 0.0; }
+        // The temporal difference errors of the whole batch are computed with the same weights.
+        for(int k = 0; k < n; k++) {
+            int offset = k * featureLength;
+            double target = batchRewards[k];
+            if(!batchTerminal[k]) { target += gamma * dot(weights, batchNextFeatures, offset, featureLength); }
+            double delta = target - dot(weights, batchFeatures, offset, featureLength);
+            for(int j = 0; j < featureLength; j++) {
+                gradient[j] += delta * batchFeatures[offset + j];
+            }
+        }
+        double scale = alpha / n;
+        for(int j = 0; j < featureLength; j++) {
+            weights[j] += scale * gradient[j];
+        }
+        if(++batches % publishInterval == 0) { publish(); }
+        return true;
+    }
+
+    /**
+     * Train on the given number of mini-batches, stopping early if the buffer does not hold enough transitions.
+     * @return How many mini-batches were trained on.
+     */
+    public int train(int count) {
+        int trained = 0;
+        while(trained < count && trainBatch()) { trained++; }
+        return trained;
+    }
+
+    /**
+     * Publish a copy of the current weights to be picked up by the agents.
+     */
+    public synchronized void publish() {
+        published = weights.clone();
+    }
+
+    @Override
+    public double[] getPublishedWeights() { return published; }
+
+    /**
+     * How many mini-batches have been trained on.
+     */
+    public synchronized long getBatches() { return batches; }
+
+    /**
+     * Start training continuously in a background daemon thread until {@code stop} is called.
+     */
+    public synchronized void start() {
+        if(running) { return; }
+        running = true;
+        thread = new Thread(() -> {
+            while(running) {
+                if(!trainBatch()) {
+                    try { Thread.sleep(1); }
+                    catch(InterruptedException e) { return; }
+                }
+            }
+        }, "replay-trainer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the background thread, waiting for it to finish its current mini-batch, and publish the final weights.
+     */
+    public void stop() throws InterruptedException {
+        Thread t;
+        synchronized(this) {
+            running = false;
+            t = thread;
+            thread = null;
+        }
+        if(t != null) { t.join(); }
+        publish();
+    }
+
+    private static double dot(double[] w, double[] x, int offset, int length) {
+        double sum = 0.0;
+        for(int j = 0; j < length; j++) {
+            sum += w[j] * x[offset + j];
+        }
+        return sum;
+    }
+}
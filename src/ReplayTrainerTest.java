@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import Rng.SplitMixRandom;
+
+class ReplayTrainerTest {
+
+    @Test
+    void bufferKeepsTheNewestTransitions() throws IOException {
+        ExperienceReplayBuffer buffer = new ExperienceReplayBuffer(4, 2);
+        for(int i = 0; i < 10; i++) {
+            buffer.add(new double[] { i, -i }, i, i * 0.5, new double[] { i + 1, 0 }, i % 3 == 0);
+        }
+        assertEquals(4, buffer.size());
+        assertEquals(10, buffer.getAdded());
+
+        Path file = Files.createTempFile("replay", ".bin");
+        try {
+            buffer.save(file);
+            ExperienceReplayBuffer loaded = new ExperienceReplayBuffer(8, 2);
+            assertEquals(4, loaded.load(file));
+
+            double[] features = new double[2 * 64], next = new double[2 * 64], rewards = new double[64];
+            int[] actions = new int[64];
+            boolean[] terminal = new boolean[64];
+            loaded.sample(new Random(1), 64, features, actions, rewards, next, terminal);
+            for(int k = 0; k < 64; k++) {
+                int i = actions[k];
+                assertTrue(i >= 6 && i < 10);
+                assertEquals(i, features[2 * k]);
+                assertEquals(i * 0.5, rewards[k]);
+                assertEquals(i % 3 == 0, terminal[k]);
+                assertEquals(terminal[k] ? 0 : i + 1, next[2 * k]);
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void oversizedAndTruncatedBuffersAreRejected() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new ExperienceReplayBuffer(1 << 20, 1 << 12));
+        ExperienceReplayBuffer buffer = new ExperienceReplayBuffer(4, 2);
+        for(int i = 0; i < 3; i++) { buffer.add(new double[] { i, i }, i, i, new double[] { i, i }, false); }
+        Path file = Files.createTempFile("replay", ".bin");
+        try {
+            buffer.save(file);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+            assertThrows(IOException.class, () -> new ExperienceReplayBuffer(4, 2).load(file));
+            Files.write(file, Arrays.copyOf(bytes, 10));
+            assertThrows(IOException.class, () -> new ExperienceReplayBuffer(4, 2).load(file));
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void trainerLearnsTerminalRewards() {
+        double[] target = { 0.5, -2.0, 1.5 };
+        Random rng = new SplitMixRandom(7);
+        ExperienceReplayBuffer buffer = new ExperienceReplayBuffer(1000, 3);
+        for(int i = 0; i < 1000; i++) {
+            double[] x = { rng.nextDouble(), rng.nextDouble(), rng.nextDouble() };
+            buffer.add(x, 0, x[0] * target[0] + x[1] * target[1] + x[2] * target[2], null, true);
+        }
+        ReplayTrainer trainer = new ReplayTrainer(buffer, new double[3], 0.5, 0.99, 32, 100, new SplitMixRandom(8));
+        double[] before = trainer.getPublishedWeights();
+        assertEquals(20_000, trainer.train(20_000));
+        double[] weights = trainer.getPublishedWeights();
+        assertNotSame(before, weights);
+        for(int j = 0; j < 3; j++) {
+            assertEquals(target[j], weights[j], 0.05);
+        }
+    }
+
+    @Test
+    void agentPicksUpPublishedWeights() throws InterruptedException {
+        PLBadugi500877176 agent = new PLBadugi500877176();
+        ExperienceReplayBuffer buffer = new ExperienceReplayBuffer(10_000, PLBadugi500877176.featureLength());
+        ReplayTrainer trainer = new ReplayTrainer(buffer, agent.getWeights(), 0.01, 0.99, 16, 10, new SplitMixRandom(4));
+        agent.useExperienceReplay(buffer, trainer);
+        trainer.start();
+        try {
+            PLBadugiPlayer[] players = { agent, new SimplePlayer(new SplitMixRandom(5)) };
+            PLBadugiRunner.playHeadsUp(new EfficientDeck(new SplitMixRandom(6)), players, GameEventSink.SILENT, null,
+                2000, new MatchStats());
+        }
+        finally {
+            trainer.stop();
+        }
+        assertTrue(buffer.getAdded() > 2000);
+        assertTrue(trainer.getBatches() > 0);
+        // The agent does not learn by itself, so its weights are those last published while it played.
+        agent.startNewHand(0, 0, 0);
+        assertArrayEquals(trainer.getPublishedWeights(), agent.getWeights());
+    }
+}
@@ -0,0 +1,73 @@
+package Rng;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The factory of all random number generators used in the game engine and the agents. By default, it creates
+ * fast {@code SplitMixRandom} generators from explicit seeds, so that runs are reproducible and every worker
+ * thread can have its own independent stream. In the audit mode, it creates {@code SecureRandom} generators
+ * instead, whose numbers cannot be predicted or reproduced from the seed.
+ */
+public final class RandomSource {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    // Whether to create SecureRandom generators instead of the fast seeded ones.
+    private static volatile boolean audit = Boolean.getBoolean("badugi.audit.rng");
+    // The source of seeds for the generators created without an explicit seed.
+    private static final AtomicLong seeder = new AtomicLong(SplitMixRandom.mix64(System.currentTimeMillis()) ^ System.nanoTime());
+
+    private RandomSource() { }
+
+    /**
+     * Set whether this factory creates SecureRandom generators from now on.
+     */
+    public static void setAudit(boolean audit) { RandomSource.audit = audit; }
+
+    public static boolean isAudit() { return audit; }
+
+    /**
+     * Set the seed from which the seeds of the generators created without an explicit seed are derived,
+     * so that a run that creates its generators in the same order can be reproduced.
+     */
+    public static void setDefaultSeed(long seed) { seeder.set(seed); }
+
+    /**
+     * Create a new generator whose seed is derived from the default seed.
+     */
+    public static Random create() {
+        return create(SplitMixRandom.mix64(seeder.getAndAdd(GOLDEN_GAMMA)));
+    }
+
+    /**
+     * Create a new generator from the given seed.
+     * @param seed The seed of the generator.
+     * @return A SplitMixRandom generator with the given seed, or a SecureRandom generator in the audit mode.
+     */
+    public static Random create(long seed) {
+        return audit ? secure(seed) : new SplitMixRandom(seed);
+    }
+
+    /**
+     * Create a new generator whose numbers are independent of the numbers of the given generator.
+     * @param rng The generator to split.
+     * @return The new generator.
+     */
+    public static Random split(Random rng) {
+        if(rng instanceof SplitMixRandom) { return ((SplitMixRandom) rng).split(); }
+        return create(rng.nextLong());
+    }
+
+    /**
+     * Create a new SecureRandom generator, or a java.util.Random if no secure generator is available.
+     * @param seed The seed mixed into the generator.
+     * @return The new generator.
+     */
+    public static Random secure(long seed) {
+        String str = "This string is to be used as seed of secure random number generator " + seed;
+        try { return new SecureRandom(str.getBytes()); }
+        catch(Exception e) { return new Random(seed); }
+    }
+}
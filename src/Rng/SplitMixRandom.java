@@ -0,0 +1,85 @@
+package Rng;
+
+import java.util.Random;
+
+/**
+ * A fast seedable and splittable random number generator based on the SplitMix64 algorithm of
+ * Steele, Lea and Flood. Being a subclass of {@code java.util.Random}, it can be given to any code that
+ * takes a {@code Random}, such as {@code EfficientDeck}. Unlike {@code Random}, this class is not thread
+ * safe: each thread should use its own generator, for example one created with {@code split()}.
+ */
+public class SplitMixRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long state;
+
+    /**
+     * Constructor for the class.
+     * @param seed The seed of this generator. Two generators with the same seed produce the same numbers.
+     */
+    public SplitMixRandom(long seed) {
+        super(0L);
+        this.state = seed;
+    }
+
+    /**
+     * The finalizer of SplitMix64 that scrambles the bits of the given value.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Create a new generator whose numbers are statistically independent of the numbers of this generator.
+     * @return The new generator.
+     */
+    public SplitMixRandom split() {
+        return new SplitMixRandom(mix64(nextLong()) ^ nextLong());
+    }
+
+    /**
+     * Get the internal state of this generator, so that it can later be restored with {@code setState}.
+     */
+    public long getState() { return state; }
+
+    /**
+     * Restore the internal state of this generator to one earlier returned by {@code getState}.
+     */
+    public void setState(long state) { this.state = state; }
+
+    @Override
+    public void setSeed(long seed) {
+        // Called by the constructor of Random before the fields of this class are initialized.
+        this.state = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int)(nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    @Override
+    public int nextInt() {
+        return (int)(nextLong() >>> 32);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+}
@@ -0,0 +1,49 @@
+package Rng;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+class SplitMixRandomTest {
+
+    @Test
+    void sameSeedSameNumbers() {
+        SplitMixRandom r1 = new SplitMixRandom(42), r2 = new SplitMixRandom(42);
+        for(int i = 0; i < 100; i++) {
+            assertEquals(r1.nextLong(), r2.nextLong());
+            assertEquals(r1.nextInt(52 - i % 52), r2.nextInt(52 - i % 52));
+        }
+    }
+
+    @Test
+    void stateCanBeRestored() {
+        SplitMixRandom r = new SplitMixRandom(7);
+        long state = r.getState();
+        long first = r.nextLong();
+        r.nextDouble();
+        r.setState(state);
+        assertEquals(first, r.nextLong());
+    }
+
+    @Test
+    void splitStreamsDiffer() {
+        SplitMixRandom r = new SplitMixRandom(1);
+        SplitMixRandom s = r.split();
+        int same = 0;
+        for(int i = 0; i < 100; i++) {
+            if(r.nextLong() == s.nextLong()) { same++; }
+        }
+        assertEquals(0, same);
+    }
+
+    @Test
+    void boundedNumbersInRange() {
+        SplitMixRandom r = new SplitMixRandom(3);
+        int[] counts = new int[5];
+        for(int i = 0; i < 50_000; i++) {
+            counts[r.nextInt(5)]++;
+            double d = r.nextDouble();
+            assertTrue(d >= 0 && d < 1);
+        }
+        for(int c: counts) { assertTrue(c > 9_000 && c < 11_000); }
+    }
+}
@@ -0,0 +1,261 @@
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The throughput and latency metrics of the hands played by {@code PLBadugiRunner} while these metrics are
+ * installed with {@code PLBadugiRunner.setMetrics}: how many hands were played and how they ended, how long
+ * each agent took to make its betting and drawing decisions, and how much memory the matches allocated and
+ * collected. The counters can be updated by the threads of parallel matches at the same time, and read at
+ * any moment with {@code snapshot}, periodically with {@code startReporting}, or through JMX.
+ */
+public class RunnerMetrics implements RunnerMetricsMBean {
+
+    /**
+     * The decision latencies of one agent, shared by all the objects of the agent that have the same name.
+     */
+    public static final class AgentMetrics {
+        final LatencyHistogram betting = new LatencyHistogram();
+        final LatencyHistogram drawing = new LatencyHistogram();
+
+        public LatencyHistogram getBetting() { return betting; }
+        public LatencyHistogram getDrawing() { return drawing; }
+    }
+
+    private final long startNanos = System.nanoTime();
+    private final long gcCountAtStart, gcTimeAtStart;
+    private final LongAdder hands = new LongAdder();
+    private final LongAdder showdowns = new LongAdder();
+    private final LongAdder folds = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final Map<String, AgentMetrics> agents = new ConcurrentHashMap<String, AgentMetrics>();
+    private ScheduledExecutorService reporter;
+
+    public RunnerMetrics() {
+        gcCountAtStart = gcCount();
+        gcTimeAtStart = gcTime();
+    }
+
+    /**
+     * The metrics of the agent with the given name, created when the agent is first seen.
+     */
+    public AgentMetrics agent(String name) {
+        return agents.computeIfAbsent(name, n -> new AgentMetrics());
+    }
+
+    // Record the end of a hand.
+    void showdown() { hands.increment(); showdowns.increment(); }
+    void fold() { hands.increment(); folds.increment(); }
+    void failure() { hands.increment(); failures.increment(); }
+    // Record that the failure of a hand was an agent that exceeded its time budget.
+    void timeout() { timeouts.increment(); }
+
+    // Record the memory allocated by the thread that played a match.
+    void allocated(long bytes) { allocatedBytes.add(bytes); }
+
+    /**
+     * How many bytes the current thread has allocated so far, or -1 if the JVM does not count them.
+     */
+    static long threadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counters = (com.sun.management.ThreadMXBean) threads;
+            if(counters.isThreadAllocatedMemorySupported() && counters.isThreadAllocatedMemoryEnabled()) {
+                return counters.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for(GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for(GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+
+    /**
+     * The values of all the metrics at this moment.
+     */
+    public Snapshot snapshot() {
+        Map<String, LatencyHistogram.Counts[]> latencies = new TreeMap<String, LatencyHistogram.Counts[]>();
+        for(Map.Entry<String, AgentMetrics> e: agents.entrySet()) {
+            latencies.put(e.getKey(), new LatencyHistogram.Counts[] {
+                e.getValue().betting.snapshot(), e.getValue().drawing.snapshot()
+            });
+        }
+        return new Snapshot(System.nanoTime() - startNanos, hands.sum(), showdowns.sum(), folds.sum(), failures.sum(),
+            timeouts.sum(), allocatedBytes.sum(), gcCount() - gcCountAtStart, gcTime() - gcTimeAtStart, latencies);
+    }
+
+    /**
+     * Start writing a report of the metrics into the given PrintWriter at the given interval, in a daemon thread.
+     * Each report shows the hands per second during the interval, and the other metrics since the start.
+     * @param out The PrintWriter that the reports are written to.
+     * @param periodMillis The interval between the reports in milliseconds.
+     */
+    public synchronized void startReporting(PrintWriter out, long periodMillis) {
+        stopReporting();
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        final Snapshot[] previous = { snapshot() };
+        reporter.scheduleAtFixedRate(() -> {
+            Snapshot current = snapshot();
+            out.println(current.report(previous[0]));
+            out.flush();
+            previous[0] = current;
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the reports started by {@code startReporting}.
+     */
+    public synchronized void stopReporting() {
+        if(reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    /**
+     * Register these metrics with the platform MBean server under the name "badugi:type=RunnerMetrics".
+     */
+    public void registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("badugi:type=RunnerMetrics");
+        if(server.isRegistered(name)) { server.unregisterMBean(name); }
+        server.registerMBean(this, name);
+    }
+
+    @Override public long getHands() { return hands.sum(); }
+    @Override public double getHandsPerSecond() { return snapshot().getHandsPerSecond(); }
+    @Override public long getShowdowns() { return showdowns.sum(); }
+    @Override public long getFolds() { return folds.sum(); }
+    @Override public long getFailures() { return failures.sum(); }
+    @Override public long getTimeouts() { return timeouts.sum(); }
+    @Override public double getShowdownRatio() { return snapshot().getShowdownRatio(); }
+    @Override public long getAllocatedBytes() { return allocatedBytes.sum(); }
+    @Override public long getGcCount() { return gcCount() - gcCountAtStart; }
+    @Override public long getGcTimeMillis() { return gcTime() - gcTimeAtStart; }
+    @Override public String[] getAgentLatencies() { return snapshot().agentLines().toArray(new String[0]); }
+
+    /**
+     * The values of the metrics at one moment.
+     */
+    public static final class Snapshot {
+        private final long elapsedNanos, hands, showdowns, folds, failures, timeouts, allocatedBytes, gcCount, gcTimeMillis;
+        // The betting and the drawing latencies of each agent, by the names of the agents.
+        private final Map<String, LatencyHistogram.Counts[]> latencies;
+
+        private Snapshot(long elapsedNanos, long hands, long showdowns, long folds, long failures, long timeouts, long allocatedBytes,
+                         long gcCount, long gcTimeMillis, Map<String, LatencyHistogram.Counts[]> latencies) {
+            this.elapsedNanos = elapsedNanos;
+            this.hands = hands;
+            this.showdowns = showdowns;
+            this.folds = folds;
+            this.failures = failures;
+            this.timeouts = timeouts;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcTimeMillis = gcTimeMillis;
+            this.latencies = latencies;
+        }
+
+        public long getElapsedNanos() { return elapsedNanos; }
+        public long getHands() { return hands; }
+        public long getShowdowns() { return showdowns; }
+        public long getFolds() { return folds; }
+        public long getFailures() { return failures; }
+        public long getTimeouts() { return timeouts; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+        public long getGcCount() { return gcCount; }
+        public long getGcTimeMillis() { return gcTimeMillis; }
+
+        public double getHandsPerSecond() {
+            return elapsedNanos == 0 ? 0 : hands * 1e9 / elapsedNanos;
+        }
+
+        /** The hands per second between the given earlier snapshot and this one. */
+        public double getHandsPerSecond(Snapshot earlier) {
+            long nanos = elapsedNanos - earlier.elapsedNanos;
+            return nanos == 0 ? 0 : (hands - earlier.hands) * 1e9 / nanos;
+        }
+
+        public double getShowdownRatio() {
+            return hands == 0 ? 0 : showdowns / (double) hands;
+        }
+
+        /** The betting latencies of the given agent, or null if the agent has not made any decisions. */
+        public LatencyHistogram.Counts getBettingLatency(String agent) {
+            LatencyHistogram.Counts[] l = latencies.get(agent);
+            return l == null ? null : l[0];
+        }
+
+        /** The drawing latencies of the given agent, or null if the agent has not made any decisions. */
+        public LatencyHistogram.Counts getDrawingLatency(String agent) {
+            LatencyHistogram.Counts[] l = latencies.get(agent);
+            return l == null ? null : l[1];
+        }
+
+        List<String> agentLines() {
+            List<String> lines = new ArrayList<String>();
+            for(Map.Entry<String, LatencyHistogram.Counts[]> e: latencies.entrySet()) {
+                lines.add(String.format("%s: betting %s, drawing %s", e.getKey(),
+                    describe(e.getValue()[0]), describe(e.getValue()[1])));
+            }
+            return lines;
+        }
+
+        private static String describe(LatencyHistogram.Counts c) {
+            return String.format("%d calls, p50 %.1f us, p99 %.1f us, max %.1f us", c.getCount(),
+                c.getQuantile(0.5) / 1e3, c.getQuantile(0.99) / 1e3, c.getMax() / 1e3);
+        }
+
+        /**
+         * A human-readable report of this snapshot, with the hands per second since the given earlier snapshot.
+         */
+        public String report(Snapshot earlier) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d hands, %.0f hands/s (%.0f hands/s overall), showdowns %.1f%%, folds %.1f%%, failures %d (%d timeouts), "
+                + "%.1f MB allocated, %d GCs in %d ms", hands, getHandsPerSecond(earlier), getHandsPerSecond(),
+                100 * getShowdownRatio(), hands == 0 ? 0 : 100.0 * folds / hands, failures, timeouts, allocatedBytes / 1e6,
+                gcCount, gcTimeMillis));
+            for(String line: agentLines()) {
+                sb.append("\n  ").append(line);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return report(new Snapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, latencies));
+        }
+    }
+}
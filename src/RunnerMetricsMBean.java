@@ -0,0 +1,32 @@
+/**
+ * The management interface through which {@code RunnerMetrics} is shown in JMX consoles such as JConsole.
+ */
+public interface RunnerMetricsMBean {
+
+    /** How many hands have been played. */
+    long getHands();
+
+    /** How many hands have been played per second since the metrics were created. */
+    double getHandsPerSecond();
+
+    /** How many hands ended at the showdown, by folding, and by a failure of some agent. */
+    long getShowdowns();
+    long getFolds();
+    long getFailures();
+
+    /** How many of the failures were agents that exceeded their time budget. */
+    long getTimeouts();
+
+    /** The fraction of the hands that ended at the showdown. */
+    double getShowdownRatio();
+
+    /** How many bytes the threads have allocated while playing the finished matches. */
+    long getAllocatedBytes();
+
+    /** How many garbage collections there have been since the metrics were created, and how long they took. */
+    long getGcCount();
+    long getGcTimeMillis();
+
+    /** One line per agent of the counts and the quantiles of its decision latencies. */
+    String[] getAgentLatencies();
+}
@@ -0,0 +1,101 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import Rng.SplitMixRandom;
+
+class RunnerMetricsTest {
+
+    // An agent whose every betting decision fails.
+    private static class FailingPlayer implements PLBadugiPlayer {
+        @Override
+        public void startNewHand(int position, int handsToGo, int currentScore) { }
+
+        @Override
+        public int bettingAction(int drawsRemaining, PLBadugiHand hand, int pot, int raises, int toCall,
+                                 int minRaise, int maxRaise, int opponentDrew) {
+            throw new IllegalStateException("Failing on purpose");
+        }
+
+        @Override
+        public List<Card> drawingAction(int drawsRemaining, PLBadugiHand hand, int pot, int dealerDrew) {
+            return hand.getInactiveCards();
+        }
+
+        @Override
+        public void handComplete(PLBadugiHand yourHand, PLBadugiHand opponentHand, int result) { }
+
+        @Override
+        public String getAgentName() { return "Failing"; }
+
+        @Override
+        public String getAuthor() { return "Failing"; }
+    }
+
+    @Test
+    void histogramBucketsCoverEveryValue() {
+        for(long v = 0; v < 100_000; v++) {
+            int b = LatencyHistogram.bucket(v);
+            assertTrue(LatencyHistogram.lowestValue(b) <= v && v <= LatencyHistogram.highestValue(b), "value " + v);
+        }
+        int last = LatencyHistogram.bucket(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(last));
+    }
+
+    @Test
+    void histogramQuantilesAreWithinTheBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for(long v = 1; v <= 10_000; v++) { h.record(v * 1000); }
+        LatencyHistogram.Counts c = h.snapshot();
+        assertEquals(10_000, c.getCount());
+        assertEquals(5_000_000, c.getQuantile(0.5), 5_000_000 * 0.125);
+        assertEquals(9_900_000, c.getQuantile(0.99), 9_900_000 * 0.125);
+        assertEquals(5_000_500, c.getMean(), 5_000_500 * 0.125);
+        assertTrue(c.getMax() >= 10_000_000);
+    }
+
+    @Test
+    void matchesAreCounted() {
+        RunnerMetrics metrics = new RunnerMetrics();
+        PLBadugiPlayer[] players = { new SimplePlayer(new SplitMixRandom(1)), new IlkkaPlayer3("Ilkka", new SplitMixRandom(2)) };
+        PLBadugiRunner.setMetrics(metrics);
+        try {
+            PLBadugiRunner.playHeadsUp(new EfficientDeck(new SplitMixRandom(3)), players, GameEventSink.SILENT, null,
+                1000, new MatchStats());
+        }
+        finally {
+            PLBadugiRunner.setMetrics(null);
+        }
+        RunnerMetrics.Snapshot s = metrics.snapshot();
+        assertEquals(1000, s.getHands());
+        assertEquals(s.getHands(), s.getShowdowns() + s.getFolds() + s.getFailures());
+        // The dealer acts at least once in every hand.
+        long decisions = 0;
+        for(PLBadugiPlayer p: players) {
+            assertTrue(s.getBettingLatency(p.getAgentName()).getCount() > 0);
+            decisions += s.getBettingLatency(p.getAgentName()).getCount();
+        }
+        assertTrue(decisions >= 1000);
+        assertNull(s.getDrawingLatency("nobody"));
+        assertEquals(2, metrics.getAgentLatencies().length);
+    }
+
+    @Test
+    void failedDecisionsAreTimed() {
+        RunnerMetrics metrics = new RunnerMetrics();
+        PLBadugiPlayer[] players = { new SimplePlayer(new SplitMixRandom(1)), new FailingPlayer() };
+        PLBadugiRunner.setMetrics(metrics);
+        try {
+            PLBadugiRunner.playHeadsUp(new EfficientDeck(new SplitMixRandom(3)), players, GameEventSink.SILENT, null,
+                100, new MatchStats());
+        }
+        finally {
+            PLBadugiRunner.setMetrics(null);
+        }
+        RunnerMetrics.Snapshot s = metrics.snapshot();
+        // Every hand that the agent gets to act in ends in its first failed decision.
+        assertTrue(s.getFailures() > 0);
+        assertEquals(s.getFailures(), s.getBettingLatency("Failing").getCount());
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * The running mean and variance of a stream of values, updated one value at a time as in the algorithm of
+ * Welford, so that long matches need neither the values themselves nor their sums of squares, which would
+ * lose their precision. The statistics of two streams are merged as in the parallel algorithm of Chan et al.
+ */
+public class RunningStats {
+
+    /** The number of standard errors on each side of the mean in its 95% confidence interval. */
+    public static final double Z95 = 1.96;
+
+    private long count;
+    private double mean;
+    // The sum of the squared deviations of the values from their mean.
+    private double m2;
+
+    /**
+     * Add the given value to the stream.
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    /**
+     * Add all the values of another stream to this one, as if they had been added to this one in the first place.
+     */
+    public void merge(RunningStats other) {
+        if(other.count == 0) { return; }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        count = total;
+    }
+
+    /** How many values have been added. */
+    public long getCount() { return count; }
+    /** The mean of the values, or 0 if there are none. */
+    public double getMean() { return mean; }
+    /** The sample variance of the values, or NaN if there are fewer than two of them. */
+    public double getVariance() { return count > 1 ? m2 / (count - 1) : Double.NaN; }
+    /** The standard deviation of the values, or NaN if there are fewer than two of them. */
+    public double getStandardDeviation() { return Math.sqrt(getVariance()); }
+    /** The standard error of the mean of the values, or NaN if there are fewer than two of them. */
+    public double getStandardError() { return Math.sqrt(getVariance() / count); }
+    /** The half-width of the 95% confidence interval of the mean, or NaN if there are fewer than two values. */
+    public double getConfidenceRadius() { return Z95 * getStandardError(); }
+
+    @Override
+    public String toString() {
+        return String.format("%.4f +- %.4f (%d values)", mean, getStandardError(), count);
+    }
+}
@@ -0,0 +1,35 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+class RunningStatsTest {
+
+    @Test
+    void statisticsMatchTheDirectFormulas() {
+        double[] values = { 3, -1, 4, 1, -5, 9, 2, -6 };
+        RunningStats stats = new RunningStats();
+        double sum = 0;
+        for(double v: values) { stats.add(v); sum += v; }
+        double mean = sum / values.length, squares = 0;
+        for(double v: values) { squares += (v - mean) * (v - mean); }
+        assertEquals(values.length, stats.getCount());
+        assertEquals(mean, stats.getMean(), 1e-12);
+        assertEquals(squares / (values.length - 1), stats.getVariance(), 1e-12);
+        assertEquals(Math.sqrt(stats.getVariance() / values.length), stats.getStandardError(), 1e-12);
+        assertTrue(Double.isNaN(new RunningStats().getVariance()));
+    }
+
+    @Test
+    void mergedStreamsMatchOneStream() {
+        RunningStats all = new RunningStats(), first = new RunningStats(), second = new RunningStats();
+        for(int i = 0; i < 100; i++) {
+            double v = Math.sin(i) * 1000 + 1e6;
+            all.add(v);
+            (i < 30 ? first : second).add(v);
+        }
+        first.merge(second);
+        first.merge(new RunningStats());
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMean(), first.getMean(), 1e-6);
+        assertEquals(all.getVariance(), first.getVariance(), 1e-6);
+    }
+}
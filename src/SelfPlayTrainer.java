@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import Rng.RandomSource;
+import Rng.SplitMixRandom;
+
+/**
+ * Self-play training on all the cores: each worker thread plays a heads-up match at a table of its own, with its own
+ * deck and random number generators, and the learning agents of every table write their transitions to one
+ * {@code AsyncLearner}, which learns them in its own thread and publishes its parameters back to the agents.
+ * The agents share nothing mutable while they play: they pick up the published parameters at the start of a hand,
+ * and meet the learner only when a batch of their transitions is full.
+ * <p>
+ * Alternatively, the agents of all the tables can learn by themselves into {@code SharedWeights}, without a learner,
+ * in the Hogwild style. Played in parallel, the order of their updates depends on the scheduling of the threads;
+ * played serially, the tables of the workers are played one after another in one thread, with the same decks and
+ * generators, so that the training is reproducible.
+ */
+public class SelfPlayTrainer {
+
+    /**
+     * The creator of the players of the table of a worker.
+     */
+    public interface Table {
+        /**
+         * Create the two players of the table of the given worker, in its thread.
+         * @param writer The writer of the transitions of the worker, to be given to the learning agents, or null
+         * if the agents learn by themselves.
+         * @param worker The index of the worker.
+         */
+        PLBadugiPlayer[] create(AsyncLearner.Writer writer, int worker);
+    }
+
+    /**
+     * The table of two {@code PLBadugi500877176} agents that both learn through the given learner, playing with its
+     * latest published weights.
+     */
+    public static Table linear(LinearLearner learner) {
+        return (writer, worker) -> {
+            PLBadugiPlayer[] players = new PLBadugiPlayer[2];
+            for(int i = 0; i < 2; i++) {
+                PLBadugi500877176 agent = new PLBadugi500877176();
+                agent.useExperienceReplay(writer, learner);
+                players[i] = agent;
+            }
+            return players;
+        };
+    }
+
+    /**
+     * The table of two {@code PLBadugiOffPolicyTable} agents that both learn through the given learner.
+     */
+    public static Table tabular(QtableLearner learner) {
+        return (writer, worker) -> {
+            PLBadugiPlayer[] players = new PLBadugiPlayer[2];
+            for(int i = 0; i < 2; i++) {
+                PLBadugiOffPolicyTable agent = new PLBadugiOffPolicyTable();
+                agent.useLearner(learner, writer);
+                players[i] = agent;
+            }
+            return players;
+        };
+    }
+
+    /**
+     * The table of two {@code PLBadugi500877176} agents that both learn into the given shared weights, reading them
+     * at most staleness of their own updates late.
+     */
+    public static Table hogwild(SharedWeights weights, int staleness) {
+        return (writer, worker) -> {
+            PLBadugiPlayer[] players = new PLBadugiPlayer[2];
+            for(int i = 0; i < 2; i++) {
+                PLBadugi500877176 agent = new PLBadugi500877176();
+                agent.useSharedWeights(weights, staleness);
+                players[i] = agent;
+            }
+            return players;
+        };
+    }
+
+    /**
+     * Play one match at the table of each worker, whose agents learn by themselves, such as those of {@code hogwild}.
+     * @param table The creator of the players of each table.
+     * @param workers How many tables to play.
+     * @param hands How many hands each table plays.
+     * @param rng The random number generator split into the generators of each table.
+     * @param parallel Whether to play the tables in parallel threads, or one after another in one thread.
+     * @return The statistics of all the matches, merged in the order of the tables.
+     */
+    public static MatchStats train(Table table, int workers, int hands, Random rng, boolean parallel) {
+        return play(null, table, workers, hands, rng, parallel);
+    }
+
+    /**
+     * Play one match at the table of each worker in parallel, and wait for all of them to finish and for their
+     * transitions to be handed to the learner. The learner goes on learning those that it has not yet learned until
+     * it is closed.
+     * @param learner The learner that the agents write their transitions to.
+     * @param table The creator of the players of each table.
+     * @param workers How many workers to play in parallel.
+     * @param hands How many hands each worker plays.
+     * @param rng The random number generator split into the generators of each worker.
+     * @return The statistics of all the matches, merged in the order of the workers.
+     */
+    public static MatchStats train(AsyncLearner learner, Table table, int workers, int hands, Random rng) {
+        return play(learner, table, workers, hands, rng, true);
+    }
+
+    private static MatchStats play(AsyncLearner learner, Table table, int workers, int hands, Random rng, boolean parallel) {
+        workers = Math.max(1, workers);
+        List<MatchStats> workerStats = new ArrayList<MatchStats>();
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        ExecutorService pool = Executors.newFixedThreadPool(parallel ? workers : 1);
+        try {
+            for(int k = 0; k < workers; k++) {
+                final int worker = k;
+                final EfficientDeck deck = new EfficientDeck(RandomSource.split(rng));
+                final Random agentRng = RandomSource.split(rng), tableRng = RandomSource.split(rng);
+                final MatchStats stats = new MatchStats();
+                workerStats.add(stats);
+                futures.add(pool.submit(() -> {
+                    PLBadugi500877176.setRandom(agentRng);
+                    Tabular.RandomHelper.setRandom(tableRng);
+                    AsyncLearner.Writer writer = learner != null ? learner.newWriter() : null;
+                    PLBadugiPlayer[] players = table.create(writer, worker);
+                    int score = PLBadugiRunner.playHeadsUp(deck, players, GameEventSink.SILENT, null, hands, stats);
+                    if(writer != null) { writer.flush(); }
+                    return score;
+                }));
+            }
+
+            MatchStats total = new MatchStats();
+            for(int k = 0; k < workers; k++) {
+                try { futures.get(k).get(); }
+                catch(InterruptedException e) { Thread.currentThread().interrupt(); return total; }
+                catch(ExecutionException e) { throw new RuntimeException("Self-play worker failed", e.getCause()); }
+                total.merge(workerStats.get(k));
+            }
+            return total;
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Train the weights of {@code PLBadugi500877176} by self-play on all the cores, starting from its checkpoint if
+     * there is one, and save them into the checkpoint, which the agents then warm-start from.
+     * Arguments: the number of hands of each worker, by default 100,000, the number of workers, by default one
+     * fewer than the cores, the learner taking the last one, and how the workers learn: {@code learner}, the default,
+     * or {@code atomic} or {@code hogwild} for the modes of {@code SharedWeights}, with every core playing.
+     */
+    public static void main(String[] args) throws IOException {
+        int hands = args.length > 0 ? Integer.parseInt(args[0]) : PLBadugiRunner.HANDS_PER_MATCH;
+        String how = args.length > 2 ? args[2] : "learner";
+        int cores = Runtime.getRuntime().availableProcessors();
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : how.equals("learner") ? Math.max(1, cores - 1) : cores;
+        double[] initial = new PLBadugi500877176().getWeights();
+        Random rng = new SplitMixRandom(RandomSource.create().nextLong());
+
+        long start = System.nanoTime();
+        MatchStats stats;
+        double[] weights;
+        if(how.equals("learner")) {
+            LinearLearner learner = new LinearLearner(initial, 0.01, 0.99, 256, 4 * workers, 4);
+            stats = train(learner, linear(learner), workers, hands, rng);
+            learner.close();
+            weights = learner.getPublishedWeights();
+            System.out.printf("The learner learned %d transitions in %d batches; the workers waited for it %d times.%n",
+                learner.getTransitions(), learner.getBatches(), learner.getStalls());
+        }
+        else {
+            SharedWeights shared = new SharedWeights(initial, SharedWeights.Mode.valueOf(how.toUpperCase(Locale.ROOT)));
+            stats = train(hogwild(shared, 0), workers, hands, rng, true);
+            weights = shared.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d workers played %d hands in %.1f s, %.0f hands/s%n", workers, stats.getHandsPlayed(),
+            seconds, stats.getHandsPlayed() / seconds);
+        PLBadugi500877176.saveWeights(weights, Paths.get(PLBadugi500877176.WEIGHTS_FILE));
+        System.out.println("Saved the weights into " + PLBadugi500877176.WEIGHTS_FILE + ".");
+    }
+}
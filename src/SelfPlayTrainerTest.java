@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import Rng.SplitMixRandom;
+
+class SelfPlayTrainerTest {
+
+    @Test
+    void learnerMakesTheSameUpdatesAsTheAgent() {
+        double[] initial = { 0.5, -1.0, 0.25 };
+        LinearLearner learner = new LinearLearner(initial, 0.1, 0.9, 4, 2, 1);
+        AsyncLearner.Writer writer = learner.newWriter();
+        double[] expected = initial.clone();
+        SplitMixRandom rng = new SplitMixRandom(1);
+        for(int i = 0; i < 10; i++) {
+            double[] x = { rng.nextDouble(), rng.nextDouble(), 1.0 }, next = { rng.nextDouble(), 0.0, 1.0 };
+            boolean terminal = i % 3 == 2;
+            double reward = terminal ? rng.nextGaussian() : 0.0;
+            writer.add(x, 1, reward, next, terminal);
+            double target = reward + (terminal ? 0.0 : 0.9 * (expected[0] * next[0] + expected[1] * next[1] + expected[2] * next[2]));
+            double delta = target - (expected[0] * x[0] + expected[1] * x[1] + expected[2] * x[2]);
+            for(int j = 0; j < 3; j++) { expected[j] += 0.1 * delta * x[j]; }
+        }
+        writer.flush();
+        learner.close();
+        assertEquals(10, learner.getTransitions());
+        assertEquals(3, learner.getBatches());
+        double[] weights = learner.getPublishedWeights();
+        for(int j = 0; j < 3; j++) { assertEquals(expected[j], weights[j], 1e-12); }
+        assertThrows(IllegalStateException.class, () -> { writer.add(new double[3], 0, 0.0, null, true); writer.flush(); });
+    }
+
+    @Test
+    void workersFeedOneLearner() {
+        LinearLearner learner = new LinearLearner(new double[PLBadugi500877176.featureLength()], 0.01, 0.99, 64, 4, 2);
+        MatchStats stats = SelfPlayTrainer.train(learner, SelfPlayTrainer.linear(learner), 3, 400, new SplitMixRandom(2));
+        learner.close();
+        assertEquals(1200, stats.getHandsPlayed());
+        // Every hand ends with a terminal transition of each agent.
+        assertTrue(learner.getTransitions() >= 2 * 1200);
+        assertTrue(learner.getBatches() > 0);
+        double norm = 0.0;
+        for(double w: learner.getPublishedWeights()) { norm += w * w; }
+        assertTrue(norm > 0.0);
+
+        QtableLearner tables = new QtableLearner(new Tabular.Qtable(), 64, 4, 2);
+        stats = SelfPlayTrainer.train(tables, SelfPlayTrainer.tabular(tables), 2, 400, new SplitMixRandom(3));
+        tables.close();
+        assertEquals(800, stats.getHandsPlayed());
+        assertTrue(tables.getTransitions() >= 2 * 800);
+        assertTrue(tables.getPublishedTable().size() > 0);
+    }
+
+    // A learner of batches of one transition with room for one batch in its queue, which learns nothing until released,
+    // and counts down the given learning latch when it starts on its first batch.
+    private static AsyncLearner slowLearner(CountDownLatch learning, CountDownLatch release) {
+        return new AsyncLearner(0, 1, 1, 1, "slow-learner") {
+            {
+                start();
+            }
+
+            @Override
+            protected void learn(Batch batch) {
+                learning.countDown();
+                try { release.await(); }
+                catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+            }
+
+            @Override
+            protected void publish() { }
+        };
+    }
+
+    // Wait until a writer of the given learner has had to wait for it.
+    private static void awaitStall(AsyncLearner learner) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while(learner.getStalls() == 0 && System.currentTimeMillis() < deadline) { Thread.sleep(1); }
+        assertTrue(learner.getStalls() >= 1);
+    }
+
+    @Test
+    void writersWaitForASlowLearner() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncLearner learner = slowLearner(new CountDownLatch(1), release);
+        AsyncLearner.Writer writer = learner.newWriter();
+        Thread thread = new Thread(() -> { for(int i = 0; i < 3; i++) { writer.add(i, 0, 0.0, i + 1); } });
+        thread.start();
+        awaitStall(learner);
+        release.countDown();
+        thread.join();
+        learner.close();
+        assertEquals(3, learner.getTransitions());
+    }
+
+    @Test
+    void interruptedWriterDropsItsBatch() throws InterruptedException {
+        CountDownLatch learning = new CountDownLatch(1), release = new CountDownLatch(1);
+        AsyncLearner learner = slowLearner(learning, release);
+        AsyncLearner.Writer writer = learner.newWriter();
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread thread = new Thread(() -> {
+            try {
+                // The first batch is being learned and the second one waits in the queue, so the third one waits.
+                writer.add(0, 0, 0.0, 1);
+                learning.await();
+                for(int i = 1; i < 3; i++) { writer.add(i, 0, 0.0, i + 1); }
+                interrupted.set(Thread.currentThread().isInterrupted());
+                writer.add(3, 0, 0.0, 4);
+            }
+            catch(Throwable t) { failure.set(t); }
+        });
+        thread.start();
+        awaitStall(learner);
+        thread.interrupt();
+        thread.join();
+        release.countDown();
+        learner.close();
+        assertNull(failure.get());
+        assertTrue(interrupted.get());
+        assertEquals(2, learner.getTransitions());
+    }
+}
@@ -0,0 +1,96 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The reporter that writes the series of the moving average of the results and of the theta norm of each finished
+ * match into a file of its own in the given directory, without needing a display. The files are numbered in the
+ * order the matches finish and named after the match, either as CSV with the columns {@code hand,average,theta},
+ * or in a binary format of a magic number, a version, the number of points and then the hand as a long and the
+ * average and the theta norm as doubles of each point, all big-endian, which {@code readBinary} reads back.
+ */
+public class SeriesExporter implements ProgressReporter {
+
+    /** The magic number at the start of the binary files. */
+    public static final int MAGIC = 0x42535331;
+    /** The version of the binary format. */
+    public static final int VERSION = 1;
+
+    private final Path directory;
+    private final boolean binary;
+    private int files;
+
+    /**
+     * Constructor for the class.
+     * @param directory The directory to write the files into, created if it does not exist.
+     * @param binary Whether to write the binary format instead of CSV.
+     */
+    public SeriesExporter(Path directory, boolean binary) {
+        this.directory = directory;
+        this.binary = binary;
+    }
+
+    @Override
+    public synchronized void matchFinished(String match, MatchStats stats, PLBadugiPlayer[] players) {
+        double[] hands = stats.getAverageSeries().getX(), averages = stats.getAverageSeries().getY();
+        double[] thetas = stats.getThetaSeries().getY();
+        String name = String.format("%04d-%s.%s", ++files, match.replaceAll("[^A-Za-z0-9_.-]+", "_"), binary ? "bin" : "csv");
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(name);
+            if(binary) {
+                try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(hands.length);
+                    for(int i = 0; i < hands.length; i++) {
+                        out.writeLong((long) hands[i]);
+                        out.writeDouble(averages[i]);
+                        out.writeDouble(thetas[i]);
+                    }
+                }
+            }
+            else {
+                try(Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    out.write("hand,average,theta\n");
+                    for(int i = 0; i < hands.length; i++) {
+                        out.write(String.format(Locale.ROOT, "%d,%.6f,%.6f\n", (long) hands[i], averages[i], thetas[i]));
+                    }
+                }
+            }
+        }
+        catch(IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    /**
+     * Read a series written in the binary format.
+     * @param file The file to read.
+     * @return The hands, the moving averages and the theta norms of the points, in this order.
+     * @throws IOException If the file cannot be read or is not in the binary format.
+     */
+    public static double[][] readBinary(Path file) throws IOException {
+        try(InputStream stream = Files.newInputStream(file);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a series file of version " + VERSION + ": " + file);
+            }
+            int n = in.readInt();
+            double[][] result = new double[3][n];
+            for(int i = 0; i < n; i++) {
+                result[0][i] = in.readLong();
+                result[1][i] = in.readDouble();
+                result[2][i] = in.readDouble();
+            }
+            return result;
+        }
+    }
+}
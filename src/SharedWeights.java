@@ -0,0 +1,97 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The weights of a linear action-value function shared by learning agents that play in parallel threads and update
+ * them without locks, as in Hogwild. The linear model of {@code PLBadugi500877176} has only a few weights, and each
+ * update adds only the nonzero features of a transition, so the threads seldom collide.
+ * <ul>
+ *   <li>{@code ATOMIC} adds each weight with a compare-and-set loop, so no update is ever lost.</li>
+ *   <li>{@code HOGWILD} adds to a plain array, so two threads that add to the same weight at the same time may lose
+ *   one of the updates, and the updates of the other threads become visible without any guarantee of when. This
+ *   costs nothing over the agent's own array, and the lost updates are rare enough not to harm the learning.</li>
+ * </ul>
+ * Either way, an agent used by one thread that refreshes its weights after every update learns exactly what it
+ * learns without shared weights, which makes the single-threaded runs deterministic.
+ */
+public class SharedWeights {
+
+    /** How the updates are added to the shared weights. */
+    public enum Mode { ATOMIC, HOGWILD }
+
+    private final Mode mode;
+    private final int length;
+    // The weights, as the bits of the doubles in the atomic mode or as a plain array in the Hogwild mode.
+    private final AtomicLongArray atomic;
+    private final double[] plain;
+
+    /**
+     * Constructor for the class.
+     * @param initialWeights The weights to start from, which are copied.
+     * @param mode How the updates are added to the weights.
+     */
+    public SharedWeights(double[] initialWeights, Mode mode) {
+        this.mode = mode;
+        this.length = initialWeights.length;
+        this.atomic = mode == Mode.ATOMIC ? new AtomicLongArray(length) : null;
+        this.plain = mode == Mode.HOGWILD ? new double[length] : null;
+        set(initialWeights);
+    }
+
+    public Mode getMode() { return mode; }
+
+    public int length() { return length; }
+
+    /**
+     * Add the given values multiplied by the scalar to the weights, skipping the values that are zero.
+     */
+    public void addScaled(double scalar, double[] values) {
+        if(values.length != length) {
+            throw new IllegalArgumentException("vector length is incompatible");
+        }
+        for(int j = 0; j < length; j++) {
+            double x = values[j];
+            if(x == 0.0) { continue; }
+            if(plain != null) {
+                plain[j] += x * scalar;
+                continue;
+            }
+            long bits;
+            do { bits = atomic.get(j); }
+            while(!atomic.compareAndSet(j, bits, Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + x * scalar)));
+        }
+    }
+
+    /**
+     * Copy the current weights into the given array, e.g. the agent's own copy of them.
+     */
+    public void copyInto(double[] target) {
+        if(target.length != length) {
+            throw new IllegalArgumentException("vector length is incompatible");
+        }
+        for(int j = 0; j < length; j++) {
+            target[j] = plain != null ? plain[j] : Double.longBitsToDouble(atomic.get(j));
+        }
+    }
+
+    /**
+     * A copy of the current weights.
+     */
+    public double[] get() {
+        double[] result = new double[length];
+        copyInto(result);
+        return result;
+    }
+
+    /**
+     * Replace the weights, e.g. with those of a checkpoint.
+     */
+    public void set(double[] values) {
+        if(values.length != length) {
+            throw new IllegalArgumentException("vector length is incompatible");
+        }
+        for(int j = 0; j < length; j++) {
+            if(plain != null) { plain[j] = values[j]; }
+            else { atomic.set(j, Double.doubleToRawLongBits(values[j])); }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import Rng.SplitMixRandom;
+
+class SharedWeightsTest {
+
+    // The weights of an agent after a match against SimplePlayer, learning into the given shared weights if not null.
+    private static double[] weightsAfterMatch(SharedWeights shared) {
+        PLBadugi500877176.setRandom(new SplitMixRandom(1));
+        PLBadugi500877176 agent = new PLBadugi500877176();
+        agent.setWeights(new double[PLBadugi500877176.featureLength()]);
+        if(shared != null) { agent.useSharedWeights(shared, 0); }
+        PLBadugiPlayer[] players = { agent, new SimplePlayer(new SplitMixRandom(2)) };
+        PLBadugiRunner.playHeadsUp(new EfficientDeck(new SplitMixRandom(3)), players, GameEventSink.SILENT, null, 3000, new MatchStats());
+        return agent.getWeights();
+    }
+
+    @Test
+    void oneThreadLearnsAsWithoutSharing() {
+        double[] expected = weightsAfterMatch(null);
+        for(SharedWeights.Mode mode: SharedWeights.Mode.values()) {
+            SharedWeights shared = new SharedWeights(new double[PLBadugi500877176.featureLength()], mode);
+            double[] actual = weightsAfterMatch(shared);
+            double[] sharedWeights = shared.get();
+            assertTrue(expected[0] != 0.0); // the agent learns only while more than 1000 hands are left
+            for(int j = 0; j < expected.length; j++) {
+                assertEquals(expected[j], actual[j], 0.0);
+                assertEquals(expected[j], sharedWeights[j], 0.0);
+            }
+        }
+    }
+
+    @Test
+    void agentsSeeEachOthersUpdatesAfterTheirStaleness() {
+        SharedWeights shared = new SharedWeights(new double[] { 1.0, 2.0 }, SharedWeights.Mode.HOGWILD);
+        SharedVector a = new SharedVector(shared, 0), b = new SharedVector(shared, 1);
+        a.addScaled(1.0, new double[] { 1.0, 0.0 });
+        assertArrayEquals(new double[] { 2.0, 2.0 }, shared.get());
+        b.addScaled(1.0, new double[] { 0.0, 1.0 });
+        assertArrayEquals(new double[] { 1.0, 3.0 }, b.values()); // b has not seen the update of a yet
+        b.addScaled(1.0, new double[] { 0.0, 1.0 });
+        assertArrayEquals(new double[] { 2.0, 4.0 }, b.values());
+        assertArrayEquals(new double[] { 2.0, 2.0 }, a.values());
+        a.addScaled(0.5, new double[] { 0.0, 2.0 });
+        assertArrayEquals(new double[] { 2.0, 5.0 }, a.values());
+        assertThrows(IllegalArgumentException.class, () -> shared.addScaled(1.0, new double[3]));
+    }
+
+    @Test
+    void atomicUpdatesAreNeverLost() throws InterruptedException {
+        SharedWeights shared = new SharedWeights(new double[3], SharedWeights.Mode.ATOMIC);
+        Thread[] threads = new Thread[4];
+        for(int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for(int i = 0; i < 20_000; i++) { shared.addScaled(1.0, new double[] { 1.0, 0.0, 0.5 }); }
+            });
+            threads[t].start();
+        }
+        for(Thread t: threads) { t.join(); }
+        assertArrayEquals(new double[] { 80_000.0, 0.0, 40_000.0 }, shared.get());
+    }
+
+    @Test
+    void serialSelfPlayIsReproducible() {
+        double[][] weights = new double[2][];
+        for(int run = 0; run < 2; run++) {
+            SharedWeights shared = new SharedWeights(new double[PLBadugi500877176.featureLength()], SharedWeights.Mode.HOGWILD);
+            MatchStats stats = SelfPlayTrainer.train(SelfPlayTrainer.hogwild(shared, 4), 3, 1500, new SplitMixRandom(5), false);
+            assertEquals(4500, stats.getHandsPlayed());
+            weights[run] = shared.get();
+        }
+        assertArrayEquals(weights[0], weights[1]);
+        double norm = 0.0;
+        for(double w: weights[0]) { norm += w * w; }
+        assertTrue(norm > 0.0);
+
+        SharedWeights shared = new SharedWeights(new double[PLBadugi500877176.featureLength()], SharedWeights.Mode.ATOMIC);
+        assertEquals(600, SelfPlayTrainer.train(SelfPlayTrainer.hogwild(shared, 4), 3, 200, new SplitMixRandom(5), true).getHandsPlayed());
+    }
+}
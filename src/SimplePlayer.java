@@ -2,12 +2,27 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+import Rng.RandomSource;
+
+@StatelessSafe
 public class SimplePlayer implements PLBadugiPlayer  {
 
     double pCall = 0.1;
     double pRaise = 0.2;
 
-    private Random rng = new Random();
+    private Random rng;
+
+    public SimplePlayer() {
+        this(RandomSource.create());
+    }
+
+    /**
+     * Constructor for the class.
+     * @param rng The random number generator used to make the decisions of this agent.
+     */
+    public SimplePlayer(Random rng) {
+        this.rng = rng;
+    }
 
     @Override
     public void startNewHand(int position, int handsToGo, int currentScore) {
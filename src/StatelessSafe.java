@@ -0,0 +1,13 @@
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code PLBadugiPlayer} class whose agents do not learn anything over a match that would change
+ * the result, so that a heads-up match between such agents may be split into shards that are played
+ * by freshly created agent objects in parallel. See {@code PLBadugiRunner.playHeadsUpSharded}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface StatelessSafe { }
@@ -1,10 +0,0 @@
-package Tabular;
-
-public class MaxValue {
-    public Action action;
-    public double value;
-    public MaxValue(Action action, double value){
-        this.action=action;
-        this.value=value;
-    }
-}
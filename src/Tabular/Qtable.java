@@ -1,15 +1,93 @@
 package Tabular;
 
-import java.util.HashMap;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
+/*
+ Q-values of every (state, action) pair, kept in one flat array with a row of ActionLength values per state.
+ In the dense table the row of a state is its encoded value itself, and in the sparse table the rows are
+ handed out in the order in which the states are first updated, through an open-addressing map from the
+ encoded states to their rows. The sparse table uses memory only for the states that are actually reached.
+ The tables can be saved into a file and loaded back, e.g. to warm-start an agent from what it learned in an
+ earlier run. The file has a header of the magic number, the version, the number of actions, whether the table
+ is dense and the number of states, followed by the encoded state, the values and the counters of each updated
+ state, all big-endian.
+ */
 public class Qtable{
 
-    private HashMap<State, Qaction> Qmap = new HashMap<State, Qaction>();
+    // for each action a: 0,1,2,3,4 : 0=fold, 1=toCall, 2=minRaise, 3=(maxRaise+minRaise)/2, 4=maxRaise
+    //                    5,6,7,8,9 : 5=draw-0,6=draw-1,7=draw-2,8=draw-3,9=draw-4
+    private static final int ActionLength = 5+5;
+    private static final int NoRow = -1;
+
+    // the magic number at the start of the saved tables, and the version of their format
+    public static final int MAGIC = 0x42535154;
+    public static final int VERSION = 1;
+    private static final int HeaderSize = 5 * 4;
+    private static final int RowSize = 4 + ActionLength * (8 + 4);
+
     private double alpha = 0.1; // learning rate
     private double gamma = 0.9; // discount factor
 
+    private double[] values;  // values[row * ActionLength + action] = Q(state of the row, action)
+    private int[] counters;   // counters[row * ActionLength + action] = number of updates of (state, action)
+    private int size;         // number of states updated so far
+
+    // dense table: whether the state of each row has been updated, one bit per state
+    private final long[] visited;
+    // sparse table: open-addressing map from encoded states to rows, EmptyKey marking an empty slot
+    private static final int EmptyKey = -1;
+    private int[] keys;
+    private int[] rows;
+
+    // A sparse table for the states that are reached.
     public Qtable(){
+        this(false);
+    }
+
+    // A dense table with a row for every possible state, or a sparse table for the states that are reached.
+    public Qtable(boolean dense){
         resetRate();
+        if(dense) {
+            values = new double[State.StateCount * ActionLength];
+            counters = new int[State.StateCount * ActionLength];
+            visited = new long[State.StateCount / 64];
+        }
+        else {
+            int initialRows = 1024;
+            values = new double[initialRows * ActionLength];
+            counters = new int[initialRows * ActionLength];
+            visited = null;
+            keys = new int[2 * initialRows];
+            rows = new int[2 * initialRows];
+            Arrays.fill(keys, EmptyKey);
+        }
+    }
+
+    // A copy of the given table, which is independent of it.
+    private Qtable(Qtable other){
+        alpha = other.alpha;
+        gamma = other.gamma;
+        values = other.values.clone();
+        counters = other.counters.clone();
+        size = other.size;
+        visited = other.visited == null ? null : other.visited.clone();
+        keys = other.keys == null ? null : other.keys.clone();
+        rows = other.rows == null ? null : other.rows.clone();
+    }
+
+    // A copy of this table that does not change when this one is updated, e.g. to save it in another thread.
+    public Qtable copy(){
+        return new Qtable(this);
     }
 
     public void resetRate() {
@@ -18,39 +96,208 @@ public class Qtable{
         gamma = 0.99;
     }
 
+    // number of states that have been updated
+    public final int size(){ return size; }
+
     public Action bestAction(State currentState, boolean isBet){
-        Qaction q = Qmap.getOrDefault(currentState,null);
+        return bestAction(currentState.encoded, isBet);
+    }
+
+    public Action bestAction(int currentState, boolean isBet){
+        int row = findRow(currentState);
 
-        if(q == null){
+        if(row == NoRow){
             Action a = isBet ? RandomHelper.getRandomBetAction(): RandomHelper.getRandomDrawAction();
             return a;
         }
         else{
-            return isBet ? q.getMaxBetActionValue().action : q.getMaxDrawActionValue().action;
+            return Action.fromInt(isBet ? maxActionIndex(row, Qaction.FoldAction, Qaction.MaxRaiseAction)
+                                        : maxActionIndex(row, Qaction.DrawZeroAction, Qaction.DrawFourAction));
         }
     }
 
     public void update(State prevState, State newState, double reward, Action action){
-        Qaction q = Qmap.getOrDefault(prevState, null);
+        update(prevState.encoded, newState.encoded, reward, action);
+    }
 
-        double prevQ = 0.0;
-        if(q==null){
-            q = new Qaction();
-            Qmap.put(prevState, q);
-        }
-        else{
-            prevQ = q.getActionValue(action);
-        }
+    public void update(int prevState, int newState, double reward, Action action){
+        int row = getOrAddRow(prevState);
+        int index = row * ActionLength + action.toInt();
+        double prevQ = values[index];
 
         double maxQ = 0.0;// max Q(s-tag, action) , for all action
-        Qaction qNew = Qmap.getOrDefault(newState,null);
-        if(qNew != null) {
-            MaxValue maxValue = action.isBet() ? q.getMaxBetActionValue() : q.getMaxDrawActionValue();
-            maxQ = maxValue.value;
+        int newRow = findRow(newState);
+        if(newRow != NoRow) {
+            int best = action.isBet() ? maxActionIndex(newRow, Qaction.FoldAction, Qaction.MaxRaiseAction)
+                                      : maxActionIndex(newRow, Qaction.DrawZeroAction, Qaction.DrawFourAction);
+            maxQ = values[newRow * ActionLength + best];
         }
 
         double newReward = (1-alpha) * prevQ + alpha * (reward + gamma * maxQ);
 
-        q.setActionValue(action, newReward);
+        values[index] = newReward;
+        counters[index]++;
+    }
+
+    // Q(state, action), which is 0 for the states that have not been updated
+    public final double getActionValue(State state, Action action){
+        int row = findRow(state.encoded);
+        return row == NoRow ? 0.0 : values[row * ActionLength + action.toInt()];
+    }
+
+    // number of times that Q(state, action) has been updated
+    public final int getActionCounter(State state, Action action){
+        int row = findRow(state.encoded);
+        return row == NoRow ? 0 : counters[row * ActionLength + action.toInt()];
+    }
+
+    // the index of the action with the highest value in the given range of the row, the first one if tied
+    private int maxActionIndex(int row, int startIndex, int endIndex){
+        int base = row * ActionLength;
+        double max = values[base + startIndex];
+        int bestActionIndex = startIndex;
+
+        for(int i=startIndex+1; i<=endIndex; i++) {
+            double otherActionValue = values[base + i];
+            if (max < otherActionValue) {
+                max = otherActionValue;
+                bestActionIndex = i;
+            }
+        }
+        return bestActionIndex;
+    }
+
+    private int findRow(int state){
+        if(visited != null) {
+            return (visited[state >>> 6] & (1L << state)) != 0 ? state : NoRow;
+        }
+        int mask = keys.length - 1;
+        for(int slot = slot(state, mask); ; slot = (slot + 1) & mask) {
+            int key = keys[slot];
+            if(key == state) return rows[slot];
+            if(key == EmptyKey) return NoRow;
+        }
+    }
+
+    private int getOrAddRow(int state){
+        if(visited != null) {
+            if((visited[state >>> 6] & (1L << state)) == 0) {
+                visited[state >>> 6] |= 1L << state;
+                size++;
+            }
+            return state;
+        }
+        int mask = keys.length - 1;
+        int slot = slot(state, mask);
+        for(; keys[slot] != EmptyKey; slot = (slot + 1) & mask) {
+            if(keys[slot] == state) return rows[slot];
+        }
+        int row = size++;
+        keys[slot] = state;
+        rows[slot] = row;
+        if((row + 1) * ActionLength > values.length) {
+            values = Arrays.copyOf(values, 2 * values.length);
+            counters = Arrays.copyOf(counters, 2 * counters.length);
+        }
+        if(2 * size > keys.length) rehash();
+        return row;
+    }
+
+    // double the map so that at most half of its slots are in use
+    private void rehash(){
+        int[] oldKeys = keys, oldRows = rows;
+        keys = new int[2 * oldKeys.length];
+        rows = new int[2 * oldRows.length];
+        Arrays.fill(keys, EmptyKey);
+        int mask = keys.length - 1;
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] == EmptyKey) continue;
+            int slot = slot(oldKeys[i], mask);
+            while(keys[slot] != EmptyKey) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            rows[slot] = oldRows[i];
+        }
+    }
+
+    // spread the encoded states, whose low bits vary the least, over the slots of the map
+    private static int slot(int state, int mask){
+        return (state * 0x9E3779B9 >>> 16 ^ state) & mask;
+    }
+
+    public final boolean isDense(){ return visited != null; }
+
+    /*
+     Save the updated states of this table into the given file, replacing it atomically where the file system
+     allows, so that an interrupted save leaves the previous file intact. The table must not be updated meanwhile.
+     */
+    public void save(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ActionLength);
+            out.writeInt(isDense() ? 1 : 0);
+            out.writeInt(size);
+            if(isDense()) {
+                for(int state = 0; state < State.StateCount; state++) {
+                    if(findRow(state) != NoRow) writeRow(out, state, state);
+                }
+            }
+            else {
+                for(int slot = 0; slot < keys.length; slot++) {
+                    if(keys[slot] != EmptyKey) writeRow(out, keys[slot], rows[slot]);
+                }
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void writeRow(DataOutputStream out, int state, int row) throws IOException {
+        out.writeInt(state);
+        for(int a = 0; a < ActionLength; a++) out.writeDouble(values[row * ActionLength + a]);
+        for(int a = 0; a < ActionLength; a++) out.writeInt(counters[row * ActionLength + a]);
+    }
+
+    /*
+     Load a table saved by save. The file is memory-mapped, so that the rows are copied into the table straight
+     from the pages of the file. The learning rate and the discount factor are the initial ones.
+     @throws IOException If the file cannot be read, or if it is not a table of a known version.
+     */
+    public static Qtable load(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if(length < HeaderSize) {
+                throw new IOException(file + " is not a Q-table.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if(buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a Q-table.");
+            }
+            int version = buffer.getInt(4);
+            if(version != VERSION || buffer.getInt(8) != ActionLength) {
+                throw new IOException("Q-table " + file + " has unsupported version " + version + ".");
+            }
+            int count = buffer.getInt(16);
+            long expected = HeaderSize + (long) RowSize * count;
+            if(count < 0 || count > State.StateCount || length != expected) {
+                throw new IOException("Q-table " + file + " has " + length + " bytes instead of " + expected + ".");
+            }
+            Qtable table = new Qtable(buffer.getInt(12) != 0);
+            buffer.position(HeaderSize);
+            for(int k = 0; k < count; k++) {
+                int state = buffer.getInt();
+                if(state < 0 || state >= State.StateCount) {
+                    throw new IOException("Q-table " + file + " has an invalid state " + state + ".");
+                }
+                int base = table.getOrAddRow(state) * ActionLength;
+                for(int a = 0; a < ActionLength; a++) table.values[base + a] = buffer.getDouble();
+                for(int a = 0; a < ActionLength; a++) table.counters[base + a] = buffer.getInt();
+            }
+            return table;
+        }
     }
 }
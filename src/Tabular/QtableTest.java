@@ -0,0 +1,103 @@
+package Tabular;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+class QtableTest {
+
+    private static State state(int raises, int rank) {
+        return State.Encode(0, 3, raises, 4, rank, 0, 0);
+    }
+
+    @Test
+    void equalStatesShareTheirValues() {
+        assertEquals(state(1, 5), state(1, 5));
+        assertEquals(state(1, 5).hashCode(), state(1, 5).hashCode());
+        assertNotEquals(state(1, 5), state(2, 5));
+
+        Qtable q = new Qtable();
+        for(int i = 0; i < 100; i++) {
+            q.update(state(1, 5), state(2, 5), 1.0, Action.Call);
+        }
+        assertEquals(1, q.size()); // only the updated state gets a row
+        assertEquals(100, q.getActionCounter(state(1, 5), Action.Call));
+        assertEquals(0, q.getActionCounter(state(2, 5), Action.Call));
+    }
+
+    @Test
+    void targetUsesTheBestValueOfTheNewState() {
+        Qtable q = new Qtable();
+        q.update(state(0, 1), state(0, 2), 10.0, Action.MaxRaise); // the new state is unknown, so the target is 10
+        assertEquals(3.0, q.getActionValue(state(0, 1), Action.MaxRaise), 1e-12);
+        assertEquals(Action.MaxRaise, q.bestAction(state(0, 1), true));
+
+        // the target comes from the best bet of the new state, not of the state being updated
+        q.update(state(0, 4), state(0, 1), 0.0, Action.Fold);
+        assertEquals(0.3 * 0.99 * 3.0, q.getActionValue(state(0, 4), Action.Fold), 1e-12);
+    }
+
+    @Test
+    void denseAndSparseTablesAgree() {
+        Qtable dense = new Qtable(true), sparse = new Qtable(false);
+        Random rng = new Random(3);
+        for(int i = 0; i < 200_000; i++) {
+            int prev = rng.nextInt(State.StateCount), next = rng.nextInt(State.StateCount);
+            Action action = Action.fromInt(rng.nextInt(10));
+            double reward = rng.nextGaussian();
+            dense.update(prev, next, reward, action);
+            sparse.update(prev, next, reward, action);
+        }
+        assertEquals(dense.size(), sparse.size());
+        for(int i = 0; i < 10_000; i++) {
+            int s = rng.nextInt(State.StateCount);
+            boolean isBet = rng.nextBoolean();
+            RandomHelper.setRandom(new Random(i));
+            Action a = dense.bestAction(s, isBet);
+            RandomHelper.setRandom(new Random(i));
+            assertEquals(a, sparse.bestAction(s, isBet));
+        }
+    }
+
+    @Test
+    void savedTablesLoadBackTheSameValues() throws IOException {
+        Path file = Files.createTempFile("qtable", ".bin");
+        try {
+            for(boolean dense: new boolean[] { true, false }) {
+                Qtable q = new Qtable(dense);
+                Random rng = new Random(5);
+                for(int i = 0; i < 5_000; i++) {
+                    q.update(state(rng.nextInt(5), 1 + rng.nextInt(13)), state(rng.nextInt(5), 1 + rng.nextInt(13)),
+                        rng.nextGaussian(), Action.fromInt(rng.nextInt(10)));
+                }
+                Qtable copy = q.copy();
+                q.update(state(1, 5), state(2, 5), 1.0, Action.Call); // the copy does not change
+                assertEquals(copy.getActionCounter(state(1, 5), Action.Call) + 1, q.getActionCounter(state(1, 5), Action.Call));
+                copy.save(file);
+
+                Qtable loaded = Qtable.load(file);
+                assertEquals(dense, loaded.isDense());
+                assertEquals(copy.size(), loaded.size());
+                for(int raises = 0; raises < 5; raises++) {
+                    for(int rank = 1; rank <= 13; rank++) {
+                        for(int a = 0; a < 10; a++) {
+                            assertEquals(copy.getActionValue(state(raises, rank), Action.fromInt(a)),
+                                         loaded.getActionValue(state(raises, rank), Action.fromInt(a)));
+                            assertEquals(copy.getActionCounter(state(raises, rank), Action.fromInt(a)),
+                                         loaded.getActionCounter(state(raises, rank), Action.fromInt(a)));
+                        }
+                    }
+                }
+            }
+            Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20 });
+            assertThrows(IOException.class, () -> Qtable.load(file));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
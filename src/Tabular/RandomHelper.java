@@ -1,31 +1,29 @@
 package Tabular;
 
-import java.security.SecureRandom;
 import java.util.Random;
 
+import Rng.RandomSource;
+
 public class RandomHelper{
 
-    private static Random random = create();
+    // Each thread has its own generator, so that agents playing in parallel matches use independent streams.
+    private static final ThreadLocal<Random> random = ThreadLocal.withInitial(RandomSource::create);
 
-    private static final Random create(){
-        Random rng;
-        String seed = "My string is to be used as seed of secure random number generator"+System.currentTimeMillis();
-        try { rng = new SecureRandom(seed.getBytes()); }
-        catch(Exception e) {
-            //System.out.println("Unable to create a secure RNG. Using java.util.Random instead.");
-            rng = new Random();
-        }
-        return rng;
+    /**
+     * Replace the random number generator used by the current thread, e.g. with one created from an explicit seed.
+     */
+    public static final void setRandom(Random rng){
+        random.set(rng);
     }
 
     public static final Action getRandomBetAction(){
-        int index = random.nextInt(Action.NumBetActions) + Action.Fold.toInt();
+        int index = random.get().nextInt(Action.NumBetActions) + Action.Fold.toInt();
         Action action = Action.fromInt(index);
         return action;
     }
 
     public static final Action getRandomDrawAction(){
-        int index = random.nextInt(Action.NumDrawActions) + Action.DrawZero.toInt();
+        int index = random.get().nextInt(Action.NumDrawActions) + Action.DrawZero.toInt();
         Action action = Action.fromInt(index);
         return action;
     }
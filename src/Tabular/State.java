@@ -11,17 +11,48 @@ public class State implements Comparable<State>{
 //    int agentDrew;      // -1,0,1,2,3,4
 //    //int potSize; //pot 2..32*10^6 => int[log10(pot)]
 
+    // The number of bits in the encoded states, so that every encoded state is less than StateCount.
+    public static final int EncodedBits = 18;
+    public static final int StateCount = 1 << EncodedBits;
+
     int encoded;
 
     private State(int encoded){this.encoded = encoded;}
 
+    public final int getEncoded(){return encoded;}
+
     @Override
     public int compareTo(State o) {
         if(o==null)return 1;
         return Integer.compare(encoded, o.encoded);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof State && ((State) o).encoded == encoded;
+    }
+
+    @Override
+    public int hashCode() {
+        return encoded;
+    }
+
     public static State Encode(
+            int position,
+            int drawsRemaining,
+            int raises,
+            int handActiveLength,
+            int handActiveFirstRank,
+            int opponentDrew,
+            int agentDrew
+    )
+    {
+        return new State(EncodeToInt(position, drawsRemaining, raises, handActiveLength, handActiveFirstRank,
+                opponentDrew, agentDrew));
+    }
+
+    // The same encoding as Encode, without creating a State object.
+    public static int EncodeToInt(
             int position,            // 0 if the agent is the dealer, 1 - otherwise
             int drawsRemaining,      // 3,2,1,0
             int raises,              // 0,1,2,3,4
@@ -62,7 +93,7 @@ public class State implements Comparable<State>{
         if(agentDrew == -1) agentDrew = 0;
         res |= (agentDrew & 0b111)<<shift; shift = shift + 3;
 
-        return new State(res);
+        return res;
     }
 
     public static DecodedState Decode(State s){
@@ -0,0 +1,89 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The time that the agents may spend on their decisions, enforced on the matches started while this budget is
+ * installed with {@code PLBadugiRunner.setTimeBudget}. Each betting and drawing decision must be made within the
+ * decision budget, and all the calls of an agent in a match must fit within the match budget. A decision that
+ * takes too long, and every decision after the match budget has been spent, counts as a check-fold, the same as
+ * a decision that throws an exception. Agents of the classes flagged as untrusted are called in threads of their
+ * own, so that an agent that never returns from a call can be abandoned without stopping the match.
+ */
+public final class TimeBudget {
+
+    private final long decisionNanos;
+    private final long matchNanos;
+    private final Set<String> untrusted;
+
+    /**
+     * Constructor for the class.
+     * @param decisionMillis How many milliseconds an agent may spend on one betting or drawing decision.
+     * @param matchMillis How many milliseconds an agent may spend in all of its calls in one match, or 0 for no limit.
+     */
+    public TimeBudget(long decisionMillis, long matchMillis) {
+        this(decisionMillis * 1_000_000L, matchMillis > 0 ? matchMillis * 1_000_000L : Long.MAX_VALUE,
+            Collections.<String>emptySet());
+    }
+
+    private TimeBudget(long decisionNanos, long matchNanos, Set<String> untrusted) {
+        if(decisionNanos <= 0) { throw new IllegalArgumentException("The decision budget must be positive"); }
+        this.decisionNanos = decisionNanos;
+        this.matchNanos = matchNanos;
+        this.untrusted = untrusted;
+    }
+
+    /**
+     * A budget with the same limits as this one, whose agents of the given classes are also flagged as untrusted.
+     * @param agentClassNames The names of the agent classes whose agents are called in threads of their own.
+     */
+    public TimeBudget untrusted(String... agentClassNames) {
+        Set<String> names = new HashSet<String>(untrusted);
+        names.addAll(Arrays.asList(agentClassNames));
+        return new TimeBudget(decisionNanos, matchNanos, Collections.unmodifiableSet(names));
+    }
+
+    public long getDecisionNanos() { return decisionNanos; }
+
+    /** The match budget in nanoseconds, or Long.MAX_VALUE if there is no limit. */
+    public long getMatchNanos() { return matchNanos; }
+
+    /** Whether the given agent is called in threads of its own. */
+    public boolean isUntrusted(PLBadugiPlayer agent) {
+        return untrusted.contains(agent.getClass().getName());
+    }
+
+    // Wrap the players of one match into guards that keep them within this budget.
+    PLBadugiPlayer[] guard(PLBadugiPlayer[] players) {
+        PLBadugiPlayer[] guarded = new PLBadugiPlayer[players.length];
+        for(int i = 0; i < players.length; i++) {
+            guarded[i] = new GuardedPlayer(players[i], this);
+        }
+        return guarded;
+    }
+
+    // The executor shared by all the untrusted agents, created when it is first needed.
+    static ExecutorService isolation() {
+        return Isolation.EXECUTOR;
+    }
+
+    private static final class Isolation {
+        static final ExecutorService EXECUTOR = create();
+
+        // Every call in a virtual thread of its own where the JVM has them, otherwise in a pool of daemon threads.
+        private static ExecutorService create() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch(ReflectiveOperationException | RuntimeException e) {
+                return Executors.newCachedThreadPool(r -> {
+                    Thread t = new Thread(r, "untrusted-agent");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * The receiver of the transitions experienced by a learning agent that learns from linear features, such as an
+ * {@code ExperienceReplayBuffer} or the writer of an {@code AsyncLearner}. The arrays are only read during the call,
+ * so the agent can reuse them for the next transition.
+ */
+public interface TransitionSink {
+
+    /**
+     * Receive a transition.
+     * @param feature The features of the state and the action taken in it.
+     * @param action The index of the action taken.
+     * @param reward The reward received for the transition.
+     * @param nextFeature The features of the next state and the action taken in it, ignored for terminal transitions.
+     * @param isTerminal Whether the transition ended the episode.
+     */
+    void add(double[] feature, int action, double reward, double[] nextFeature, boolean isTerminal);
+}
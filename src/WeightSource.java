@@ -0,0 +1,12 @@
+/**
+ * The owner of the weights of a linear action-value function that learns them in another thread and publishes a
+ * copy of them from time to time, such as a {@code ReplayTrainer} or a {@code LinearLearner}.
+ */
+public interface WeightSource {
+
+    /**
+     * The latest published weights. The returned array is never modified afterwards, and must not be modified by
+     * the caller either. A new array is returned after each publication, so the agents can tell when it changes.
+     */
+    double[] getPublishedWeights();
+}